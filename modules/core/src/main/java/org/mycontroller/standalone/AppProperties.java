@@ -19,11 +19,13 @@ package org.mycontroller.standalone;
 import java.io.File;
 import java.io.IOException;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.io.FileUtils;
 import org.mycontroller.standalone.loggers.LoggerMySql;
 import org.mycontroller.standalone.settings.BackupSettings;
 import org.mycontroller.standalone.settings.EmailSettings;
+import org.mycontroller.standalone.settings.ISettingsListener;
 import org.mycontroller.standalone.settings.LocationSettings;
 import org.mycontroller.standalone.settings.MetricsDataRetentionSettings;
 import org.mycontroller.standalone.settings.MetricsGraphSettings;
@@ -31,7 +33,10 @@ import org.mycontroller.standalone.settings.MqttBrokerSettings;
 import org.mycontroller.standalone.settings.MyControllerSettings;
 import org.mycontroller.standalone.settings.MySensorsSettings;
 import org.mycontroller.standalone.settings.PushbulletSettings;
+import org.mycontroller.standalone.settings.SettingsSnapshot;
+import org.mycontroller.standalone.settings.SettingsUtils;
 import org.mycontroller.standalone.settings.SmsSettings;
+import org.mycontroller.standalone.settings.Variable;
 import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.AccessLevel;
@@ -46,7 +51,7 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 @ToString(includeFieldNames = true)
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
-public class AppProperties {
+public class AppProperties implements ISettingsListener {
     private static AppProperties _instance = new AppProperties();
 
     public static final String APPLICATION_NAME = "MyController.org";
@@ -66,6 +71,18 @@ public class AppProperties {
     private String dbUrl;
     private String dbUsername;
     private String dbPassword;
+    private DB_POOL_TYPE dbPoolType;
+    private int dbPoolMinIdle;
+    private int dbPoolMaxSize;
+    private long dbPoolMaxWait;
+    private int dbStatementCacheSize;
+    private long dbGroupCommitWindow;
+    private int dbGroupCommitMaxMessages;
+    private long bulkTaskWindow;
+    private long bulkTaskSkipSeen;
+    private int mqttInflightWindow;
+    private boolean mqttBrokerBridgeEnabled;
+    private int metricsGraphMaxPoints;
 
     private String webFileLocation;
     private boolean isWebHttpsEnabled = false;
@@ -81,17 +98,18 @@ public class AppProperties {
     private Boolean clearSmartSleepMsgQueueOnStart;
 
     private Boolean mDNSserviceEnabled = false;
+    private boolean virtualThreadsEnabled = false;
 
-    MyControllerSettings controllerSettings;
-    EmailSettings emailSettings;
-    MySensorsSettings mySensorsSettings;
-    SmsSettings smsSettings;
-    PushbulletSettings pushbulletSettings;
-    LocationSettings locationSettings;
-    MetricsGraphSettings metricsGraphSettings;
-    MetricsDataRetentionSettings metricsDataRetentionSettings;
-    BackupSettings backupSettings;
-    MqttBrokerSettings mqttBrokerSettings;
+    //Controller settings, swapped as a whole on change. Version is bumped on every change in database, snapshot
+    //is reloaded when it was loaded for an older version. Reload and update are done under settings lock
+    private final Object settingsLock = new Object();
+    private final AtomicLong settingsVersion = new AtomicLong(0);
+    private volatile SettingsSnapshot settingsSnapshot;
+    private volatile long settingsSnapshotVersion = -1;
+
+    {
+        SettingsUtils.addSettingsListener(this);
+    }
 
     public enum DB_TYPE {
         H2DB_EMBEDDED("H2 database embedded"),
@@ -131,6 +149,32 @@ public class AppProperties {
         }
     }
 
+    public enum DB_POOL_TYPE {
+        MYCONTROLLER("MyController"),
+        ORMLITE("ORMLite");
+
+        private final String name;
+
+        private DB_POOL_TYPE(String name) {
+            this.name = name;
+        }
+
+        public String getText() {
+            return this.name;
+        }
+
+        public static DB_POOL_TYPE fromString(String text) {
+            if (text != null) {
+                for (DB_POOL_TYPE type : DB_POOL_TYPE.values()) {
+                    if (text.equalsIgnoreCase(type.getText()) || text.equalsIgnoreCase(type.name())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
     public enum MC_LANGUAGE {
         CA_ES("català (ES)"),
         CS_CZ("čeština (CZ)"),
@@ -454,6 +498,19 @@ public class AppProperties {
         }
         dbUsername = getValue(properties, "mcc.db.username", "mycontroller");
         dbPassword = getValue(properties, "mcc.db.password", "mycontroller");
+        //database connection pool
+        String dbPoolTypeText = getValue(properties, "mcc.db.pool.type", "MYCONTROLLER");
+        dbPoolType = DB_POOL_TYPE.fromString(dbPoolTypeText);
+        if (dbPoolType == null) {
+            _logger.warn("Invalid mcc.db.pool.type:{}, using {}", dbPoolTypeText, DB_POOL_TYPE.MYCONTROLLER.name());
+            dbPoolType = DB_POOL_TYPE.MYCONTROLLER;
+        }
+        dbPoolMinIdle = Integer.valueOf(getValue(properties, "mcc.db.pool.min.idle", "2"));
+        dbPoolMaxSize = Integer.valueOf(getValue(properties, "mcc.db.pool.max.size", "10"));
+        dbPoolMaxWait = Long.valueOf(getValue(properties, "mcc.db.pool.max.wait", "10000"));
+        dbStatementCacheSize = Integer.valueOf(getValue(properties, "mcc.db.statement.cache.size", "64"));
+        dbGroupCommitWindow = Long.valueOf(getValue(properties, "mcc.db.group.commit.window", "0"));
+        dbGroupCommitMaxMessages = Integer.valueOf(getValue(properties, "mcc.db.group.commit.max.messages", "100"));
 
         //mycontroller web location
         webFileLocation = McUtils.getDirectoryLocation(getValue(properties, "mcc.web.file.location", "../www"));
@@ -485,6 +542,17 @@ public class AppProperties {
         //mDNS service, enabled or disabled
         mDNSserviceEnabled = McUtils.getBoolean(getValue(properties,
                 "mcc.mdns.service.enable", "false"));
+        //Use virtual threads for worker pools, when supported by JVM
+        virtualThreadsEnabled = McUtils.getBoolean(getValue(properties,
+                "mcc.threads.virtual.enable", "false"));
+
+        //Node info, heartbeat and discover requests, values in seconds
+        bulkTaskWindow = Long.valueOf(getValue(properties, "mcc.bulk.task.window", "300")) * McUtils.SECOND;
+        bulkTaskSkipSeen = Long.valueOf(getValue(properties, "mcc.bulk.task.skip.seen", "60")) * McUtils.SECOND;
+        mqttInflightWindow = Integer.valueOf(getValue(properties, "mcc.mqtt.inflight.window", "100"));
+        mqttBrokerBridgeEnabled = McUtils.getBoolean(
+                getValue(properties, "mcc.mqtt.broker.bridge.enable", "false"));
+        metricsGraphMaxPoints = Integer.valueOf(getValue(properties, "mcc.metrics.graph.max.points", "1000"));
     }
 
     public void createDirectoryLocation(String directoryLocation) {
@@ -513,24 +581,49 @@ public class AppProperties {
     }
 
     public MC_LANGUAGE getLanguage() {
-        return MC_LANGUAGE.fromString(controllerSettings.getLanguage());
+        return MC_LANGUAGE.fromString(getControllerSettings().getLanguage());
     }
 
     public void loadPropertiesFromDb() {
-        locationSettings = LocationSettings.get();
-        controllerSettings = MyControllerSettings.get();
-        mySensorsSettings = MySensorsSettings.get();
-        emailSettings = EmailSettings.get();
-        smsSettings = SmsSettings.get();
-        metricsGraphSettings = MetricsGraphSettings.get();
-        metricsDataRetentionSettings = MetricsDataRetentionSettings.get();
-        backupSettings = BackupSettings.get();
-        pushbulletSettings = PushbulletSettings.get();
-        mqttBrokerSettings = MqttBrokerSettings.get();
+        //database is the source, drop cached rows too
+        SettingsUtils.clearCache();
+        synchronized (settingsLock) {
+            long version = settingsVersion.get();
+            settingsSnapshot = SettingsSnapshot.load();
+            settingsSnapshotVersion = version;
+        }
+    }
+
+    @Override
+    public void onSettingsChange(Integer userId, String key, String subKey) {
+        //user settings and variables are not part of snapshot
+        if (userId == null && !Variable.KEY_VARIABLES_REPOSITORY.equals(key)) {
+            settingsVersion.incrementAndGet();
+        }
+    }
+
+    public SettingsSnapshot getSettingsSnapshot() {
+        if (settingsSnapshotVersion == settingsVersion.get()) {
+            return settingsSnapshot;
+        }
+        synchronized (settingsLock) {
+            return getLatestSettingsSnapshot();
+        }
+    }
+
+    //Should be called with settings lock. Version is read before load, change during load triggers next reload
+    private SettingsSnapshot getLatestSettingsSnapshot() {
+        long version = settingsVersion.get();
+        if (settingsSnapshotVersion != version) {
+            settingsSnapshot = SettingsSnapshot.load();
+            settingsSnapshotVersion = version;
+            _logger.debug("Settings snapshot reloaded, version:{}", version);
+        }
+        return settingsSnapshot;
     }
 
     private boolean is12HoursSelected() {
-        if (controllerSettings.getTimeFormat().equalsIgnoreCase(MC_TIME_FORMAT.HOURS_12.getText())) {
+        if (getControllerSettings().getTimeFormat().equalsIgnoreCase(MC_TIME_FORMAT.HOURS_12.getText())) {
             return true;
         }
         return false;
@@ -612,6 +705,34 @@ public class AppProperties {
         return dbPassword;
     }
 
+    public DB_POOL_TYPE getDbPoolType() {
+        return dbPoolType;
+    }
+
+    public int getDbPoolMinIdle() {
+        return dbPoolMinIdle;
+    }
+
+    public int getDbPoolMaxSize() {
+        return dbPoolMaxSize;
+    }
+
+    public long getDbPoolMaxWait() {
+        return dbPoolMaxWait;
+    }
+
+    public int getDbStatementCacheSize() {
+        return dbStatementCacheSize;
+    }
+
+    public long getDbGroupCommitWindow() {
+        return dbGroupCommitWindow;
+    }
+
+    public int getDbGroupCommitMaxMessages() {
+        return dbGroupCommitMaxMessages;
+    }
+
     public String getWebFileLocation() {
         return webFileLocation;
     }
@@ -645,55 +766,64 @@ public class AppProperties {
     }
 
     public MyControllerSettings getControllerSettings() {
-        return controllerSettings;
+        return getSettingsSnapshot().getControllerSettings();
     }
 
     public EmailSettings getEmailSettings() {
-        return emailSettings;
+        return getSettingsSnapshot().getEmailSettings();
     }
 
     public MySensorsSettings getMySensorsSettings() {
-        return mySensorsSettings;
+        return getSettingsSnapshot().getMySensorsSettings();
     }
 
     public SmsSettings getSmsSettings() {
-        return smsSettings;
+        return getSettingsSnapshot().getSmsSettings();
     }
 
     public LocationSettings getLocationSettings() {
-        return locationSettings;
+        return getSettingsSnapshot().getLocationSettings();
     }
 
     public MetricsGraphSettings getMetricsGraphSettings() {
-        return metricsGraphSettings;
+        return getSettingsSnapshot().getMetricsGraphSettings();
     }
 
     public void setLocationSettings(LocationSettings locationSettings) {
-        this.locationSettings = locationSettings;
+        synchronized (settingsLock) {
+            settingsSnapshot = getLatestSettingsSnapshot().toBuilder().locationSettings(locationSettings).build();
+        }
     }
 
     public BackupSettings getBackupSettings() {
-        return backupSettings;
+        return getSettingsSnapshot().getBackupSettings();
     }
 
     public void setBackupSettings(BackupSettings backupSettings) {
-        this.backupSettings = backupSettings;
+        synchronized (settingsLock) {
+            settingsSnapshot = getLatestSettingsSnapshot().toBuilder().backupSettings(backupSettings).build();
+        }
     }
 
     public MetricsDataRetentionSettings getMetricsDataRetentionSettings() {
-        return metricsDataRetentionSettings;
+        return getSettingsSnapshot().getMetricsDataRetentionSettings();
     }
 
     public void setMetricsDataRetentionSettings(MetricsDataRetentionSettings metricsDataRetentionSettings) {
-        this.metricsDataRetentionSettings = metricsDataRetentionSettings;
+        synchronized (settingsLock) {
+            settingsSnapshot = getLatestSettingsSnapshot().toBuilder()
+                    .metricsDataRetentionSettings(metricsDataRetentionSettings).build();
+        }
     }
 
     public PushbulletSettings getPushbulletSettings() {
-        return pushbulletSettings;
+        return getSettingsSnapshot().getPushbulletSettings();
     }
 
     public void setPushbulletSettings(PushbulletSettings pushbulletSettings) {
-        this.pushbulletSettings = pushbulletSettings;
+        synchronized (settingsLock) {
+            settingsSnapshot = getLatestSettingsSnapshot().toBuilder().pushbulletSettings(pushbulletSettings).build();
+        }
     }
 
     public String getResourcesLocation() {
@@ -729,7 +859,7 @@ public class AppProperties {
     }
 
     public MqttBrokerSettings getMqttBrokerSettings() {
-        return mqttBrokerSettings;
+        return getSettingsSnapshot().getMqttBrokerSettings();
     }
 
     public Boolean getClearMessagesQueueOnStart() {
@@ -747,4 +877,28 @@ public class AppProperties {
     public boolean isMDNSserviceEnabled() {
         return mDNSserviceEnabled;
     }
+
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled;
+    }
+
+    public long getBulkTaskWindow() {
+        return bulkTaskWindow;
+    }
+
+    public long getBulkTaskSkipSeen() {
+        return bulkTaskSkipSeen;
+    }
+
+    public int getMqttInflightWindow() {
+        return mqttInflightWindow;
+    }
+
+    public boolean isMqttBrokerBridgeEnabled() {
+        return mqttBrokerBridgeEnabled;
+    }
+
+    public int getMetricsGraphMaxPoints() {
+        return metricsGraphMaxPoints;
+    }
 }
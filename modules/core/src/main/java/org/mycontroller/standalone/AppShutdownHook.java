@@ -16,6 +16,8 @@
  */
 package org.mycontroller.standalone;
 
+import org.mycontroller.standalone.executor.McExecutors;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -32,6 +34,7 @@ public class AppShutdownHook {
                 this.setName(AppProperties.APPLICATION_NAME + " Shutdown-Hook");
                 _logger.debug("Shutdown hook called. Running stop services...");
                 StartApp.stopServices();
+                McExecutors.getInstance().shutdown();
                 _logger.debug("Shutdown hook completed...");
                 _logger.info(McObjectManager.getMcLocale().getString(MC_LOCALE.BYE_HAVE_A_NICE_DAY));
             }
@@ -17,13 +17,13 @@
 package org.mycontroller.standalone;
 
 import java.io.File;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.commons.io.FileUtils;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -38,7 +38,7 @@ import lombok.extern.slf4j.Slf4j;
 public class MapDbFactory {
     private static final String MC_PERSISTENT_DIR = "mc/";
     private static DB database = null;
-    private static final ScheduledExecutorService COMMIT_SCHEDULER = Executors.newScheduledThreadPool(1);
+    private static ScheduledFuture<?> commitJob = null;
     public static final long COMMIT_FREQUENCY = 30;
 
     public static void init() {
@@ -49,7 +49,7 @@ public class MapDbFactory {
         String storesLocation = AppProperties.getInstance().getMcPersistentStoresLocation() + MC_PERSISTENT_DIR;
         AppProperties.getInstance().createDirectoryLocation(storesLocation);
         database = DBMaker.newFileDB(FileUtils.getFile(storesLocation + "mc.mapdb")).make();
-        COMMIT_SCHEDULER.scheduleWithFixedDelay(new Runnable() {
+        commitJob = McExecutors.getInstance().scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
                 if (database != null && !database.isClosed()) {
@@ -58,7 +58,7 @@ public class MapDbFactory {
                     _logger.debug("commit job called, when database is not available!");
                 }
             }
-        }, COMMIT_FREQUENCY, COMMIT_FREQUENCY, TimeUnit.SECONDS);
+        }, COMMIT_FREQUENCY * McUtils.ONE_SECOND, COMMIT_FREQUENCY * McUtils.ONE_SECOND);
     }
 
     public static DB getDbStore() {
@@ -73,11 +73,14 @@ public class MapDbFactory {
             _logger.debug("already closed");
             return;
         }
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            commitJob = null;
+        }
         database.commit();
         database.close();
         _logger.debug("closed disk storage");
-        //COMMIT_SCHEDULER.shutdown(); //When we call this, entire application gets shutdown.
-        _logger.debug("Persistence commit scheduler is shutdown");
+        _logger.debug("Persistence commit job is canceled");
     }
 
     public static void clearMcPersistent() {
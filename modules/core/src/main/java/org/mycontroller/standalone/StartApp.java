@@ -66,15 +66,23 @@ import org.mycontroller.standalone.auth.BasicAthenticationSecurityDomain;
 import org.mycontroller.standalone.auth.McContainerRequestFilter;
 import org.mycontroller.standalone.db.DataBaseUtils;
 import org.mycontroller.standalone.externalserver.ExternalServerUtils;
+import org.mycontroller.standalone.firmware.FirmwareOtaServer;
+import org.mycontroller.standalone.firmware.OtaCampaignScheduler;
 import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.mdns.McmDNSFactory;
 import org.mycontroller.standalone.message.MessageMonitorThread;
+import org.mycontroller.standalone.message.RawMessageQueue;
+import org.mycontroller.standalone.metrics.MetricsCompression;
 import org.mycontroller.standalone.mqttbroker.MoquetteMqttBroker;
+import org.mycontroller.standalone.operation.OperationExecutor;
+import org.mycontroller.standalone.rule.DampeningStateStore;
+import org.mycontroller.standalone.rule.McRuleScheduler;
 import org.mycontroller.standalone.scheduler.SchedulerUtils;
 import org.mycontroller.standalone.scripts.McScriptEngineUtils;
 import org.mycontroller.standalone.settings.SettingsUtils;
 import org.mycontroller.standalone.timer.TimerUtils;
 import org.mycontroller.standalone.utils.McUtils;
+import org.mycontroller.standalone.web.McStaticResourceServlet;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -99,7 +107,7 @@ public class StartApp {
         }
     }
 
-    public static synchronized void startMycontroller() throws ClassNotFoundException, SQLException {
+    public static synchronized void startMycontroller() throws ClassNotFoundException, SQLException, IOException {
         start = System.currentTimeMillis();
         loadInitialProperties(System.getProperty("mc.conf.file"));
         _logger.debug("App Properties: {}", AppProperties.getInstance().toString());
@@ -179,7 +187,7 @@ public class StartApp {
         return deployment;
     }
 
-    private static void startHTTPWebServer() {
+    private static void startHTTPWebServer() throws IOException {
         //Check HTTPS enabled?
         if (AppProperties.getInstance().isWebHttpsEnabled()) {
             // Set up SSL connections on server
@@ -198,7 +206,9 @@ public class StartApp {
 
         //Deploy RestEasy with TJWS
         server.setDeployment(getResteasyDeployment());
-        server.addFileMapping("/", new File(AppProperties.getInstance().getWebFileLocation()));
+        //Web UI files, with precompressed files, ETag and cache headers
+        server.addServlet("/", new McStaticResourceServlet(new File(AppProperties.getInstance()
+                .getWebFileLocation())));
 
         //Enable Authentication
         server.setSecurityDomain(new BasicAthenticationSecurityDomain());
@@ -226,7 +236,7 @@ public class StartApp {
         }
     }
 
-    private static boolean startServices() throws ClassNotFoundException, SQLException {
+    private static boolean startServices() throws ClassNotFoundException, SQLException, IOException {
         //Start order..
         // - set to default locale
         // - Add Shutdown hook
@@ -239,6 +249,8 @@ public class StartApp {
         // - Start MQTT Broker
         // - Start gateway listener
         // - Start scheduler
+        // - Start operation executor
+        // - Start rule scheduler
         // - Start Web Server
 
         //Set to default locale
@@ -284,6 +296,12 @@ public class StartApp {
         // - Start scheduler
         SchedulerUtils.startScheduler();
 
+        // - Start operation executor
+        OperationExecutor.getInstance().start();
+
+        // - Start rule scheduler
+        McRuleScheduler.getInstance().start();
+
         // - Start Web Server
         startHTTPWebServer();
 
@@ -295,17 +313,29 @@ public class StartApp {
         // - stop web server
         // - clear external servers
         // - Stop scheduler
+        // - Stop rule scheduler
+        // - Stop operation executor
         // - Stop GatewayTable Listener
         // - Stop MQTT broker
         // - Stop message Monitor Thread
+        // - Move pending TX messages to offline queue
         // - Clear Raw Message Queue (Optional)
+        // - Write pending rule dampening state
+        // - Write held samples of metrics compression
         // - Stop DB service
         stopHTTPWebServer();
         ExternalServerUtils.clearServers();
         SchedulerUtils.stop();
+        McRuleScheduler.getInstance().stop();
+        OperationExecutor.getInstance().stop();
         GatewayUtils.unloadAllGateways();
         MoquetteMqttBroker.stop();
         MessageMonitorThread.shutdown();
+        RawMessageQueue.getInstance().persistTxMessages();
+        OtaCampaignScheduler.getInstance().clear();
+        FirmwareOtaServer.getInstance().clear();
+        DampeningStateStore.getInstance().clear();
+        MetricsCompression.getInstance().flush(true);
         DataBaseUtils.stop();
         MapDbFactory.close();
         _logger.debug("All services stopped.");
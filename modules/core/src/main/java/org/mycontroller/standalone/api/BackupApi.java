@@ -40,6 +40,8 @@ import org.mycontroller.standalone.backup.Backup;
 import org.mycontroller.standalone.backup.Restore;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
 import org.mycontroller.standalone.exceptions.McException;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
 import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -199,8 +201,9 @@ public class BackupApi {
      * <p><b>Warning:</b> After successful restore you have to start the server manually
      * @throws IOException throws when problem with backup location
      * @throws McBadRequestException given file name not available
+     * @throws McException restore could not be started
      */
-    public void restore(String fileName) throws IOException, McBadRequestException {
+    public void restore(String fileName) throws IOException, McException {
         if (fileName == null) {
             throw new McBadRequestException("backup file should not be null");
         }
@@ -215,7 +218,9 @@ public class BackupApi {
                     .timestamp(bkpFile.lastModified())
                     .size(bkpFile.length())
                     .build();
-            new Thread(new Restore(backupFile)).start();
+            if (!McExecutors.getInstance().execute(POOL.BACKGROUND, new Restore(backupFile))) {
+                throw new McException("Unable to start restore, background tasks are busy. Try again later");
+            }
             _logger.info("Restore triggered.");
         } else {
             throw new McBadRequestException("Trying to restore file from outside backup scope");
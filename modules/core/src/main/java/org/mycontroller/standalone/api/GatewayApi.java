@@ -19,6 +19,7 @@ package org.mycontroller.standalone.api;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.McObjectManager;
@@ -30,6 +31,7 @@ import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
 import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.model.Gateway;
+import org.mycontroller.standalone.message.McBulkTaskEngine;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -139,6 +141,10 @@ public class GatewayApi {
         }
     }
 
+    public List<Map<String, Object>> getBulkTasks() {
+        return McBulkTaskEngine.getInstance().getStatistics();
+    }
+
     public void executeNodeInfoUpdate(List<Integer> ids) throws McBadRequestException {
         try {
             for (Integer id : ids) {
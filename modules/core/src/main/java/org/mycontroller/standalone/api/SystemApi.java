@@ -27,8 +27,11 @@ import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.api.jaxrs.utils.StatusJVM;
 import org.mycontroller.standalone.api.jaxrs.utils.StatusOS;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.DataBaseUtils;
 import org.mycontroller.standalone.db.tables.ResourcesLogs;
 import org.mycontroller.standalone.message.MessageMonitorThread;
+import org.mycontroller.standalone.message.RawMessageQueue;
+import org.mycontroller.standalone.monitoring.McMetrics;
 import org.mycontroller.standalone.scripts.McScriptEngineUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -89,7 +92,26 @@ public class SystemApi {
     }
 
     public Map<String, Object> getMessageEngineStatistics() {
-        return MessageMonitorThread.getStatistics();
+        List<Map<String, Object>> metrics = McMetrics.getInstance().getMetrics("mc_message_");
+        metrics.addAll(McMetrics.getInstance().getMetrics("mc_gateway_"));
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        statistics.put("metrics", metrics);
+        statistics.put("messagesInQueue", MessageMonitorThread.getMessagesInQueue());
+        statistics.put("txQueues", RawMessageQueue.getInstance().getTxStatistics());
+        statistics.put("timestamp", System.currentTimeMillis());
+        return statistics;
+    }
+
+    public List<Map<String, Object>> getInternalMetrics() {
+        return McMetrics.getInstance().getMetrics(null);
+    }
+
+    public String getPrometheusMetrics() {
+        return McMetrics.getInstance().getPrometheusText();
+    }
+
+    public Map<String, Object> getDatabasePoolStatistics() {
+        return DataBaseUtils.getConnectionPoolStatistics();
     }
 
     public void printMessageEngineStatistics() {
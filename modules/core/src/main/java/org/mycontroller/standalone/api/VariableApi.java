@@ -24,6 +24,7 @@ import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Settings;
+import org.mycontroller.standalone.settings.SettingsUtils;
 import org.mycontroller.standalone.settings.Variable;
 
 /**
@@ -74,7 +75,7 @@ public class VariableApi {
         for (Integer id : ids) {
             Settings settings = DaoUtils.getSettingsDao().getById(id);
             if (settings != null && settings.getKey().equals(Variable.KEY_VARIABLES_REPOSITORY)) {
-                DaoUtils.getSettingsDao().deleteById(settings.getId());
+                SettingsUtils.deleteSettings(settings.getId());
             }
         }
     }
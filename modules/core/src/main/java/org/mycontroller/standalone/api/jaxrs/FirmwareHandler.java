@@ -41,8 +41,11 @@ import org.mycontroller.standalone.db.tables.Firmware;
 import org.mycontroller.standalone.db.tables.FirmwareType;
 import org.mycontroller.standalone.db.tables.FirmwareVersion;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
+import org.mycontroller.standalone.firmware.FirmwareOtaServer;
 import org.mycontroller.standalone.firmware.FirmwareUtils;
 import org.mycontroller.standalone.firmware.FirmwareUtils.FILE_TYPE;
+import org.mycontroller.standalone.firmware.OtaCampaign;
+import org.mycontroller.standalone.firmware.OtaCampaignScheduler;
 
 /**
  * @author Jeeva Kandasamy (jkandasa)
@@ -256,4 +259,54 @@ public class FirmwareHandler {
         return RestUtils.getResponse(Status.OK, DaoUtils.getFirmwareDataDao().getByFirmwareId(firmwareId));
     }
 
+    @GET
+    @Path("/ota/statistics")
+    public Response getOtaStatistics() {
+        return RestUtils.getResponse(Status.OK, FirmwareOtaServer.getInstance().getStatistics());
+    }
+
+    @GET
+    @Path("/ota/campaigns")
+    public Response getOtaCampaigns() {
+        return RestUtils.getResponse(Status.OK, OtaCampaignScheduler.getInstance().getAll());
+    }
+
+    @GET
+    @Path("/ota/campaigns/{id}")
+    public Response getOtaCampaign(@PathParam("id") int id) {
+        OtaCampaign campaign = OtaCampaignScheduler.getInstance().get(id);
+        if (campaign == null) {
+            return RestUtils.getResponse(Status.NOT_FOUND, new ApiError("OTA campaign[id:" + id + "] not found"));
+        }
+        return RestUtils.getResponse(Status.OK, campaign);
+    }
+
+    @POST
+    @Path("/ota/campaigns")
+    public Response createOtaCampaign(OtaCampaign campaign) {
+        try {
+            return RestUtils.getResponse(Status.CREATED, OtaCampaignScheduler.getInstance().create(campaign));
+        } catch (McBadRequestException ex) {
+            return RestUtils.getResponse(Status.BAD_REQUEST, new ApiError(ex.getMessage()));
+        }
+    }
+
+    @POST
+    @Path("/ota/campaigns/cancel")
+    public Response cancelOtaCampaign(List<Integer> ids) {
+        for (Integer id : ids) {
+            OtaCampaignScheduler.getInstance().cancel(id);
+        }
+        return RestUtils.getResponse(Status.OK);
+    }
+
+    @POST
+    @Path("/ota/campaigns/delete")
+    public Response deleteOtaCampaign(List<Integer> ids) {
+        for (Integer id : ids) {
+            OtaCampaignScheduler.getInstance().delete(id);
+        }
+        return RestUtils.getResponse(Status.OK);
+    }
+
 }
@@ -18,8 +18,10 @@ package org.mycontroller.standalone.api.jaxrs;
 
 import static javax.ws.rs.core.MediaType.APPLICATION_JSON;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.annotation.security.RolesAllowed;
 import javax.ws.rs.Consumes;
@@ -30,6 +32,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -40,6 +44,8 @@ import org.mycontroller.standalone.api.GatewayApi;
 import org.mycontroller.standalone.api.jaxrs.model.ApiError;
 import org.mycontroller.standalone.api.jaxrs.model.ApiMessage;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache.ResponseLoader;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
 import org.mycontroller.standalone.auth.AuthUtils;
 import org.mycontroller.standalone.db.tables.GatewayTable;
@@ -56,8 +62,12 @@ import org.mycontroller.standalone.gateway.model.Gateway;
 @Consumes(APPLICATION_JSON)
 @RolesAllowed({ "User" })
 public class GatewayHandler extends AccessEngine {
+    private static final Class<?>[] LIST_TABLES = { GatewayTable.class };
     private GatewayApi gatewayApi = new GatewayApi();
 
+    @Context
+    Request request;
+
     @PUT
     @Path("/")
     public Response updateGateway(Gateway gateway) {
@@ -92,7 +102,7 @@ public class GatewayHandler extends AccessEngine {
             @QueryParam(Query.PAGE) Long page,
             @QueryParam(Query.ORDER_BY) String orderBy,
             @QueryParam(Query.ORDER) String order) {
-        HashMap<String, Object> filters = new HashMap<String, Object>();
+        final HashMap<String, Object> filters = new HashMap<String, Object>();
 
         filters.put(GatewayTable.KEY_NAME, name);
         filters.put(GatewayTable.KEY_NETWORK_TYPE, NETWORK_TYPE.fromString(networkType));
@@ -108,7 +118,12 @@ public class GatewayHandler extends AccessEngine {
         //Update query filter if he is non-admin
         AuthUtils.updateQueryFilter(securityContext, filters, RESOURCE_TYPE.GATEWAY);
 
-        return RestUtils.getResponse(Status.OK, gatewayApi.getAllRaw(filters));
+        return McResponseCache.getInstance().getResponse(request, "gateways", filters, new ResponseLoader() {
+            @Override
+            public Object load() {
+                return gatewayApi.getAllRaw(filters);
+            }
+        }, LIST_TABLES);
     }
 
     @POST
@@ -170,4 +185,17 @@ public class GatewayHandler extends AccessEngine {
         }
     }
 
+    @GET
+    @Path("/bulkTasks")
+    public Response getBulkTasks() {
+        List<Map<String, Object>> tasks = new ArrayList<Map<String, Object>>();
+        for (Map<String, Object> task : gatewayApi.getBulkTasks()) {
+            if (AuthUtils.isSuperAdmin(securityContext) || AuthUtils.getUser(securityContext).getAllowedResources()
+                    .getGatewayIds().contains(task.get("gatewayId"))) {
+                tasks.add(task);
+            }
+        }
+        return RestUtils.getResponse(Status.OK, tasks);
+    }
+
 }
@@ -64,6 +64,7 @@ import org.mycontroller.standalone.db.tables.SensorVariable;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
 import org.mycontroller.standalone.metrics.CsvExportEngine;
 import org.mycontroller.standalone.metrics.MetricDouble;
+import org.mycontroller.standalone.metrics.MetricsDownsampling;
 import org.mycontroller.standalone.metrics.MetricsUtils.METRIC_TYPE;
 import org.mycontroller.standalone.model.ResourceModel;
 import org.mycontroller.standalone.provider.mysensors.MySensorsUtils;
@@ -120,7 +121,8 @@ public class MetricsHandler extends AccessEngine {
             @QueryParam("withMinMax") Boolean withMinMax,
             @QueryParam("chartType") String chartType,
             @QueryParam("bucketDuration") String bucketDuration,
-            @QueryParam("enableDetailedKey") Boolean enableDetailedKey) {
+            @QueryParam("enableDetailedKey") Boolean enableDetailedKey,
+            @QueryParam("points") Integer points) {
         if (!variableIds.isEmpty()) {
             updateSensorVariableIds(variableIds);
         } else if (sensorId != null) {
@@ -133,7 +135,8 @@ public class MetricsHandler extends AccessEngine {
             return RestUtils.getResponse(
                     Status.OK,
                     getMetricsDataJsonNVD3(variableIds, sensorId, start, end, duration,
-                            withMinMax != null ? withMinMax : false, chartType, bucketDuration, enableDetailedKey));
+                            withMinMax != null ? withMinMax : false, chartType, bucketDuration, enableDetailedKey,
+                            getGraphPoints(points)));
         } catch (McBadRequestException ex) {
             return RestUtils.getResponse(Status.BAD_REQUEST, new ApiError(ex.getMessage()));
         }
@@ -250,13 +253,14 @@ public class MetricsHandler extends AccessEngine {
             @QueryParam("start") Long start,
             @QueryParam("end") Long end,
             @QueryParam("withMinMax") Boolean withMinMax,
-            @QueryParam("bucketDuration") String bucketDuration) {
+            @QueryParam("bucketDuration") String bucketDuration,
+            @QueryParam("points") Integer points) {
         //Access check
         hasAccessNode(nodeId);
         try {
             return RestUtils.getResponse(Status.OK,
                     getMetricsBatteryJsonNVD3(nodeId, start, end,
-                            withMinMax != null ? withMinMax : false, bucketDuration));
+                            withMinMax != null ? withMinMax : false, bucketDuration, getGraphPoints(points)));
         } catch (McBadRequestException ex) {
             return RestUtils.getResponse(Status.BAD_REQUEST, new ApiError(ex.getMessage()));
         }
@@ -533,8 +537,16 @@ public class MetricsHandler extends AccessEngine {
         return bulletCharts;
     }
 
+    //Requested points or the default, null when downsampling disabled
+    private Integer getGraphPoints(Integer points) {
+        if (points == null) {
+            points = AppProperties.getInstance().getMetricsGraphMaxPoints();
+        }
+        return points > 0 ? Math.max(points, MetricsDownsampling.MIN_POINTS) : null;
+    }
+
     private MetricsChartDataGroupNVD3 getMetricsBatteryJsonNVD3(Integer nodeId, Long start,
-            Long end, Boolean withMinMax, String bucketDuration) throws McBadRequestException {
+            Long end, Boolean withMinMax, String bucketDuration, Integer points) throws McBadRequestException {
         if (bucketDuration == null) {
             bucketDuration = MetricApi.getBucketDuration(start, end, METRIC_TYPE.DOUBLE);
         }
@@ -543,6 +555,7 @@ public class MetricsHandler extends AccessEngine {
         @SuppressWarnings("unchecked")
         List<MetricsBatteryUsage> batteryMetrics = (List<MetricsBatteryUsage>) metricApi.getMetricData(nodeId,
                 RESOURCE_TYPE.NODE.getText(), start, end, null, bucketDuration, false);
+        batteryMetrics = MetricsDownsampling.downsampleBattery(batteryMetrics, points);
         ArrayList<Object> avgMetricValues = new ArrayList<Object>();
         ArrayList<Object> minMetricValues = new ArrayList<Object>();
         ArrayList<Object> maxMetricValues = new ArrayList<Object>();
@@ -595,7 +608,8 @@ public class MetricsHandler extends AccessEngine {
             String duration,
             String chartType,
             String bucketDuration,
-            Boolean enableDetailedKey) throws McBadRequestException {
+            Boolean enableDetailedKey,
+            Integer points) throws McBadRequestException {
         if (enableDetailedKey == null) {
             enableDetailedKey = Boolean.FALSE;
         }
@@ -699,6 +713,7 @@ public class MetricsHandler extends AccessEngine {
                     List<MetricsDoubleTypeDevice> doubleMetrics = (List<MetricsDoubleTypeDevice>) metricApi
                             .getMetricData(sensorVariable.getId(), RESOURCE_TYPE.SENSOR_VARIABLE.getText(),
                                     start, end, duration, bucketDurationDouble, false);
+                    doubleMetrics = MetricsDownsampling.downsampleDouble(doubleMetrics, points);
                     ArrayList<Object> avgMetricDoubleValues = new ArrayList<Object>();
                     for (MetricsDoubleTypeDevice metric : doubleMetrics) {
                         if (isMultiChart) {
@@ -725,6 +740,7 @@ public class MetricsHandler extends AccessEngine {
                     List<MetricsCounterTypeDevice> counterMetrics = (List<MetricsCounterTypeDevice>) metricApi
                             .getMetricData(sensorVariable.getId(), RESOURCE_TYPE.SENSOR_VARIABLE.getText(),
                                     start, end, duration, bucketDurationCounter, false);
+                    counterMetrics = MetricsDownsampling.downsampleCounter(counterMetrics, points);
                     ArrayList<Object> metricCounterValues = new ArrayList<Object>();
                     for (MetricsCounterTypeDevice metric : counterMetrics) {
                         if (isMultiChart) {
@@ -803,12 +819,13 @@ public class MetricsHandler extends AccessEngine {
             Boolean withMinMax,
             String chartType,
             String bucketDuration,
-            Boolean enableDetailedKey) throws McBadRequestException {
+            Boolean enableDetailedKey,
+            Integer points) throws McBadRequestException {
 
         //if chartType not null, call this
         if (chartType != null) {
             return getMetricsDataJsonNVD3WithChartType(variableIds, start, end, duration, chartType,
-                    bucketDuration, enableDetailedKey);
+                    bucketDuration, enableDetailedKey, points);
         }
 
         //Get sensor variables
@@ -844,6 +861,7 @@ public class MetricsHandler extends AccessEngine {
                     List<MetricsDoubleTypeDevice> doubleMetrics = (List<MetricsDoubleTypeDevice>) metricApi
                             .getMetricData(sensorVariable.getId(), RESOURCE_TYPE.SENSOR_VARIABLE.getText(),
                                     start, end, duration, bucketDurationDouble, false);
+                    doubleMetrics = MetricsDownsampling.downsampleDouble(doubleMetrics, points);
                     ArrayList<Object> avgMetricDoubleValues = new ArrayList<Object>();
                     ArrayList<Object> minMetricDoubleValues = new ArrayList<Object>();
                     ArrayList<Object> maxMetricDoubleValues = new ArrayList<Object>();
@@ -899,6 +917,7 @@ public class MetricsHandler extends AccessEngine {
                     List<MetricsCounterTypeDevice> counterMetrics = (List<MetricsCounterTypeDevice>) metricApi
                             .getMetricData(sensorVariable.getId(), RESOURCE_TYPE.SENSOR_VARIABLE.getText(),
                                     start, end, duration, bucketDurationCounter, false);
+                    counterMetrics = MetricsDownsampling.downsampleCounter(counterMetrics, points);
                     ArrayList<Object> metricCounterValues = new ArrayList<Object>();
                     for (MetricsCounterTypeDevice metric : counterMetrics) {
                         metricCounterValues.add(new Object[] { metric.getTimestamp(), metric.getValue() });
@@ -41,6 +41,9 @@ import org.apache.commons.io.FileUtils;
 import org.mycontroller.standalone.api.SystemApi;
 import org.mycontroller.standalone.api.jaxrs.model.ApiError;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
+import org.mycontroller.standalone.db.dao.QueryStatistics;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.monitoring.McMetrics;
 import org.mycontroller.standalone.utils.McServerFileUtils;
 
 /**
@@ -148,6 +151,42 @@ public class MyControllerHandler extends AccessEngine {
         return RestUtils.getResponse(Status.OK, systemApi.getJVM());
     }
 
+    @RolesAllowed({ "Admin" })
+    @GET
+    @Path("/threadPools")
+    public Response getThreadPools() {
+        return RestUtils.getResponse(Status.OK, McExecutors.getInstance().getStatistics());
+    }
+
+    @RolesAllowed({ "Admin" })
+    @GET
+    @Path("/dbPoolStatistics")
+    public Response getDbPoolStatistics() {
+        return RestUtils.getResponse(Status.OK, systemApi.getDatabasePoolStatistics());
+    }
+
+    @RolesAllowed({ "Admin" })
+    @GET
+    @Path("/internalMetrics")
+    public Response getInternalMetrics() {
+        return RestUtils.getResponse(Status.OK, systemApi.getInternalMetrics());
+    }
+
+    @RolesAllowed({ "Admin" })
+    @GET
+    @Path("/prometheus")
+    @Produces(McMetrics.PROMETHEUS_CONTENT_TYPE)
+    public Response getPrometheusMetrics() {
+        return Response.ok(systemApi.getPrometheusMetrics(), McMetrics.PROMETHEUS_CONTENT_TYPE).build();
+    }
+
+    @RolesAllowed({ "Admin" })
+    @GET
+    @Path("/dbQueryStatistics")
+    public Response getDbQueryStatistics() {
+        return RestUtils.getResponse(Status.OK, QueryStatistics.getAll());
+    }
+
     @GET
     @Path("/scriptEngines")
     public Response getScriptEngines() {
@@ -30,6 +30,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -38,8 +40,14 @@ import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.api.NodeApi;
 import org.mycontroller.standalone.api.jaxrs.model.ApiError;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache.ResponseLoader;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
 import org.mycontroller.standalone.auth.AuthUtils;
+import org.mycontroller.standalone.db.tables.Firmware;
+import org.mycontroller.standalone.db.tables.FirmwareType;
+import org.mycontroller.standalone.db.tables.FirmwareVersion;
+import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.Node;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_PRESENTATION;
 
@@ -56,8 +64,13 @@ import lombok.extern.slf4j.Slf4j;
 @RolesAllowed({ "User" })
 @Slf4j
 public class NodeHandler extends AccessEngine {
+    private static final Class<?>[] LIST_TABLES = { Node.class, GatewayTable.class, Firmware.class,
+            FirmwareType.class, FirmwareVersion.class };
     private NodeApi nodeApi = new NodeApi();
 
+    @Context
+    Request request;
+
     @GET
     @Path("/")
     public Response getAllNodes(
@@ -70,8 +83,11 @@ public class NodeHandler extends AccessEngine {
             @QueryParam(Query.PAGE_LIMIT) Long pageLimit,
             @QueryParam(Query.PAGE) Long page,
             @QueryParam(Query.ORDER_BY) String orderBy,
-            @QueryParam(Query.ORDER) String order) {
-        HashMap<String, Object> filters = new HashMap<String, Object>();
+            @QueryParam(Query.ORDER) String order,
+            @QueryParam(Query.CURSOR) String cursor,
+            @QueryParam(Query.FILTER_MODE) String filterMode,
+            @QueryParam(Query.COUNT_MODE) String countMode) {
+        final HashMap<String, Object> filters = new HashMap<String, Object>();
 
         filters.put(Node.KEY_GATEWAY_ID, gatewayId);
         filters.put(Node.KEY_GATEWAY_NAME, gatewayName);
@@ -85,11 +101,19 @@ public class NodeHandler extends AccessEngine {
         filters.put(Query.ORDER_BY, orderBy);
         filters.put(Query.PAGE_LIMIT, pageLimit);
         filters.put(Query.PAGE, page);
+        filters.put(Query.CURSOR, cursor);
+        filters.put(Query.FILTER_MODE, filterMode);
+        filters.put(Query.COUNT_MODE, countMode);
 
         //Update query filter if he is non-admin
         AuthUtils.updateQueryFilter(securityContext, filters, RESOURCE_TYPE.NODE);
 
-        return RestUtils.getResponse(Status.OK, nodeApi.getAll(filters));
+        return McResponseCache.getInstance().getResponse(request, "nodes", filters, new ResponseLoader() {
+            @Override
+            public Object load() {
+                return nodeApi.getAll(filters);
+            }
+        }, LIST_TABLES);
     }
 
     @GET
@@ -37,6 +37,7 @@ import org.mycontroller.standalone.api.OperationApi;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
 import org.mycontroller.standalone.db.tables.OperationTable;
+import org.mycontroller.standalone.operation.OperationExecutor;
 import org.mycontroller.standalone.operation.OperationUtils.OPERATION_TYPE;
 import org.mycontroller.standalone.operation.model.Operation;
 
@@ -53,6 +54,12 @@ public class OperationHandler extends AccessEngine {
 
     private OperationApi operationApi = new OperationApi();
 
+    @GET
+    @Path("/statistics")
+    public Response getStatistics() {
+        return RestUtils.getResponse(Status.OK, OperationExecutor.getInstance().getStatistics());
+    }
+
     @GET
     @Path("/{id}")
     public Response get(@PathParam("id") int id) {
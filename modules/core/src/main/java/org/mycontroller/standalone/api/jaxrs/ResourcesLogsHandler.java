@@ -67,7 +67,10 @@ public class ResourcesLogsHandler extends AccessEngine {
             @QueryParam(Query.PAGE_LIMIT) Long pageLimit,
             @QueryParam(Query.PAGE) Long page,
             @QueryParam(Query.ORDER_BY) String orderBy,
-            @QueryParam(Query.ORDER) String order) {
+            @QueryParam(Query.ORDER) String order,
+            @QueryParam(Query.CURSOR) String cursor,
+            @QueryParam(Query.FILTER_MODE) String filterMode,
+            @QueryParam(Query.COUNT_MODE) String countMode) {
         HashMap<String, Object> filters = new HashMap<String, Object>();
 
         filters.put(ResourcesLogs.KEY_RESOURCE_TYPE, RESOURCE_TYPE.fromString(resourceType));
@@ -88,6 +91,9 @@ public class ResourcesLogsHandler extends AccessEngine {
         filters.put(Query.ORDER_BY, orderBy);
         filters.put(Query.PAGE_LIMIT, pageLimit);
         filters.put(Query.PAGE, page);
+        filters.put(Query.CURSOR, cursor);
+        filters.put(Query.FILTER_MODE, filterMode);
+        filters.put(Query.COUNT_MODE, countMode);
 
         return RestUtils.getResponse(Status.OK, systemApi.getResourcesLogsAll(filters));
     }
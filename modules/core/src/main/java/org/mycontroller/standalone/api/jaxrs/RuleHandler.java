@@ -30,14 +30,26 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.api.RuleApi;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache.ResponseLoader;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
+import org.mycontroller.standalone.db.tables.GatewayTable;
+import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.db.tables.OperationRuleDefinitionMap;
+import org.mycontroller.standalone.db.tables.OperationTable;
+import org.mycontroller.standalone.db.tables.ResourcesGroup;
 import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+import org.mycontroller.standalone.db.tables.Sensor;
+import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.db.tables.Timer;
 import org.mycontroller.standalone.rule.RuleUtils.CONDITION_TYPE;
 import org.mycontroller.standalone.rule.RuleUtils.DAMPENING_TYPE;
 import org.mycontroller.standalone.rule.model.RuleDefinition;
@@ -53,8 +65,15 @@ import org.mycontroller.standalone.rule.model.RuleDefinition;
 @RolesAllowed({ "Admin" })
 public class RuleHandler extends AccessEngine {
 
+    // Condition text includes details of referenced resources
+    private static final Class<?>[] LIST_TABLES = { RuleDefinitionTable.class, OperationRuleDefinitionMap.class,
+            OperationTable.class, GatewayTable.class, Node.class, Sensor.class, SensorVariable.class,
+            ResourcesGroup.class, Timer.class };
     private static RuleApi ruleApi = new RuleApi();
 
+    @Context
+    Request request;
+
     @GET
     @Path("/{id}")
     public Response get(@PathParam("id") int id) {
@@ -74,7 +93,7 @@ public class RuleHandler extends AccessEngine {
             @QueryParam(Query.PAGE) Long page,
             @QueryParam(Query.ORDER_BY) String orderBy,
             @QueryParam(Query.ORDER) String order) {
-        HashMap<String, Object> filters = new HashMap<String, Object>();
+        final HashMap<String, Object> filters = new HashMap<String, Object>();
 
         filters.put(RuleDefinitionTable.KEY_NAME, name);
         filters.put(RuleDefinitionTable.KEY_TRIGGERED, triggered);
@@ -89,7 +108,12 @@ public class RuleHandler extends AccessEngine {
         filters.put(Query.PAGE_LIMIT, pageLimit);
         filters.put(Query.PAGE, page);
 
-        return RestUtils.getResponse(Status.OK, ruleApi.getAllRaw(filters));
+        return McResponseCache.getInstance().getResponse(request, "rules", filters, new ResponseLoader() {
+            @Override
+            public Object load() {
+                return ruleApi.getAllRaw(filters);
+            }
+        }, LIST_TABLES);
     }
 
     @POST
@@ -46,6 +46,7 @@ import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
 import org.mycontroller.standalone.api.jaxrs.utils.UserMapper;
 import org.mycontroller.standalone.auth.AuthUtils;
 import org.mycontroller.standalone.auth.AuthUtils.PERMISSION_TYPE;
+import org.mycontroller.standalone.auth.McCredentialCache;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Role;
 import org.mycontroller.standalone.db.tables.User;
@@ -256,6 +257,7 @@ public class SecurityHandler extends AccessEngine {
         }
         UserMapper.removeUser(user.getName());
         DaoUtils.getUserDao().deleteById(userId);
+        McCredentialCache.getInstance().invalidate();
         return RestUtils.getResponse(Status.NO_CONTENT);
     }
 
@@ -267,6 +269,7 @@ public class SecurityHandler extends AccessEngine {
             return RestUtils.getResponse(Status.BAD_REQUEST, new ApiError("You cannot change your role"));
         }
         DaoUtils.getUserDao().update(user);
+        McCredentialCache.getInstance().invalidate();
         return RestUtils.getResponse(Status.NO_CONTENT);
     }
 
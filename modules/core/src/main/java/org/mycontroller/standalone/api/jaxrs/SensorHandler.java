@@ -30,6 +30,8 @@ import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Response.Status;
 
@@ -39,10 +41,17 @@ import org.mycontroller.standalone.api.jaxrs.model.ApiError;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.model.SensorVariableJson;
 import org.mycontroller.standalone.api.jaxrs.model.SensorVariablePurge;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache;
+import org.mycontroller.standalone.api.jaxrs.utils.McResponseCache.ResponseLoader;
 import org.mycontroller.standalone.api.jaxrs.utils.RestUtils;
 import org.mycontroller.standalone.auth.AuthUtils;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.Firmware;
+import org.mycontroller.standalone.db.tables.FirmwareType;
+import org.mycontroller.standalone.db.tables.FirmwareVersion;
+import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.db.tables.Room;
 import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
@@ -63,8 +72,13 @@ import lombok.extern.slf4j.Slf4j;
 @RolesAllowed({ "User" })
 @Slf4j
 public class SensorHandler extends AccessEngine {
+    private static final Class<?>[] LIST_TABLES = { Sensor.class, SensorVariable.class, Room.class, Node.class,
+            GatewayTable.class, Firmware.class, FirmwareType.class, FirmwareVersion.class };
     private SensorApi sensorApi = new SensorApi();
 
+    @Context
+    Request request;
+
     @GET
     @Path("/")
     public Response getAllSensors(
@@ -80,7 +94,7 @@ public class SensorHandler extends AccessEngine {
             @QueryParam(Query.ORDER_BY) String orderBy,
             @QueryParam(Query.ORDER) String order) {
 
-        HashMap<String, Object> filters = new HashMap<String, Object>();
+        final HashMap<String, Object> filters = new HashMap<String, Object>();
 
         filters.put(Sensor.KEY_TYPE, MESSAGE_TYPE_PRESENTATION.fromString(type));
         filters.put(Sensor.KEY_SENSOR_ID, sensorId);
@@ -115,7 +129,12 @@ public class SensorHandler extends AccessEngine {
         //Update query filter if he is non-admin
         AuthUtils.updateQueryFilter(securityContext, filters, RESOURCE_TYPE.SENSOR);
 
-        return RestUtils.getResponse(Status.OK, sensorApi.getAll(filters));
+        return McResponseCache.getInstance().getResponse(request, "sensors", filters, new ResponseLoader() {
+            @Override
+            public Object load() {
+                return sensorApi.getAll(filters);
+            }
+        }, LIST_TABLES);
     }
 
     @GET
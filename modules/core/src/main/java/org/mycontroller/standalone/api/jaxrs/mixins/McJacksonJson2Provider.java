@@ -81,7 +81,21 @@ public class McJacksonJson2Provider extends ResteasyJackson2Provider {
     @Override
     public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
             MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
-        ObjectMapper mapper = locateMapper(type, mediaType);
+        configureWriter(locateMapper(type, mediaType));
+
+        if (_logger.isDebugEnabled()) {
+            _logger.debug("Response: Headers:{}", httpHeaders);
+            _logger.debug("Response: Value:{}", value);
+            _logger.debug("Request headers:{}", headers.getRequestHeaders());
+        }
+
+        super.writeTo(value, type, genericType, annotations, mediaType, httpHeaders, entityStream);
+    }
+
+    /**
+     * Applies response serialization settings and mixins, shared with serialized responses cache.
+     */
+    public static ObjectMapper configureWriter(ObjectMapper mapper) {
         mapper.configure(SerializationFeature.INDENT_OUTPUT, true); // this creates a 'configured' mapper
         mapper.setSerializationInclusion(Include.NON_NULL);
         mapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
@@ -108,14 +122,7 @@ public class McJacksonJson2Provider extends ResteasyJackson2Provider {
         mapper.addMixIn(Timer.class, TimerMixin.class);
         mapper.addMixIn(UidTag.class, UidTagMixin.class);
         mapper.addMixIn(User.class, UserMixin.class);
-
-        if (_logger.isDebugEnabled()) {
-            _logger.debug("Response: Headers:{}", httpHeaders);
-            _logger.debug("Response: Value:{}", value);
-            _logger.debug("Request headers:{}", headers.getRequestHeaders());
-        }
-
-        super.writeTo(value, type, genericType, annotations, mediaType, httpHeaders, entityStream);
+        return mapper;
     }
 
     @Override
@@ -24,6 +24,7 @@ import java.util.List;
 import org.mycontroller.standalone.api.jaxrs.model.SensorVariableJson;
 import org.mycontroller.standalone.db.ComparatorSensorVariable;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
 
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -42,7 +43,17 @@ public class SensorVariablesSerializer extends JsonSerializer<Integer> {
             throws IOException, JsonProcessingException {
 
         if (id != null) {
-            List<SensorVariable> sensorVariables = DaoUtils.getSensorVariableDao().getAllBySensorId(id);
+            List<SensorVariable> sensorVariables = null;
+            //Use variables loaded in batch with the sensor list, if available
+            if (jgen.getCurrentValue() instanceof Sensor) {
+                Sensor sensor = (Sensor) jgen.getCurrentValue();
+                if (sensor.getPreloadedVariables() != null) {
+                    sensorVariables = new ArrayList<SensorVariable>(sensor.getPreloadedVariables());
+                }
+            }
+            if (sensorVariables == null) {
+                sensorVariables = DaoUtils.getSensorVariableDao().getAllBySensorId(id);
+            }
 
             //Sort by defined order
             Collections.sort(sensorVariables, new ComparatorSensorVariable());
@@ -42,6 +42,68 @@ public class Query {
     public static final String ORDER_ASC = "asc";
     public static final String ORDER_DESC = "desc";
     public static final String KEY_ID = "id";
+    public static final String CURSOR = "cursor";
+    public static final String FILTER_MODE = "filterMode";
+    public static final String COUNT_MODE = "countMode";
+
+    /** How string filters are matched, prefix and exact can use index of the column */
+    public enum FILTER_TYPE {
+        CONTAINS("contains"),
+        PREFIX("prefix"),
+        EXACT("exact");
+
+        private final String text;
+
+        private FILTER_TYPE(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return this.text;
+        }
+
+        public static FILTER_TYPE fromString(String text) {
+            if (text != null) {
+                for (FILTER_TYPE mode : FILTER_TYPE.values()) {
+                    if (text.equalsIgnoreCase(mode.getText())) {
+                        return mode;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Exact counts are cached till the table is changed. Approximate counts are reused for a while even when the
+     * table is changed, for fast growing tables. None skips counting.
+     */
+    public enum COUNT_TYPE {
+        EXACT("exact"),
+        APPROXIMATE("approximate"),
+        NONE("none");
+
+        private final String text;
+
+        private COUNT_TYPE(String text) {
+            this.text = text;
+        }
+
+        public String getText() {
+            return this.text;
+        }
+
+        public static COUNT_TYPE fromString(String text) {
+            if (text != null) {
+                for (COUNT_TYPE mode : COUNT_TYPE.values()) {
+                    if (text.equalsIgnoreCase(mode.getText())) {
+                        return mode;
+                    }
+                }
+            }
+            return null;
+        }
+    }
 
     private Long totalItems;
     private Long filteredCount;
@@ -57,6 +119,11 @@ public class Query {
 
     private String order;
     private Map<String, Object> filters;
+    //Keyset pagination, page continues after the row of the cursor. Next cursor is returned with the page
+    private String cursor;
+    private String nextCursor;
+    private FILTER_TYPE filterMode;
+    private COUNT_TYPE countMode;
 
     public Long getStartingRow() {
         return (getPage() - 1) * getPageLimit();
@@ -88,6 +155,20 @@ public class Query {
         return idColumn;
     }
 
+    public FILTER_TYPE getFilterMode() {
+        if (filterMode == null) {
+            filterMode = FILTER_TYPE.CONTAINS;
+        }
+        return filterMode;
+    }
+
+    public COUNT_TYPE getCountMode() {
+        if (countMode == null) {
+            countMode = COUNT_TYPE.EXACT;
+        }
+        return countMode;
+    }
+
     public Map<String, Object> getFilters() {
         if (filters == null) {
             filters = new HashMap<String, Object>();
@@ -104,6 +185,9 @@ public class Query {
                 .page(filters.get(PAGE) != null ? (long) filters.get(PAGE) : 1L)
                 .isAndQuery(true)
                 .idColumn(KEY_ID)
+                .cursor((String) filters.get(CURSOR))
+                .filterMode(FILTER_TYPE.fromString((String) filters.get(FILTER_MODE)))
+                .countMode(COUNT_TYPE.fromString((String) filters.get(COUNT_MODE)))
                 .build();
         //Check order if not asc change to desc
         if (!query.order.equalsIgnoreCase(ORDER_ASC)) {
@@ -114,6 +198,9 @@ public class Query {
         filters.remove(ORDER_BY);
         filters.remove(PAGE_LIMIT);
         filters.remove(PAGE);
+        filters.remove(CURSOR);
+        filters.remove(FILTER_MODE);
+        filters.remove(COUNT_MODE);
         return query;
     }
 }
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import org.mycontroller.standalone.auth.AuthUtils.PERMISSION_TYPE;
+import org.mycontroller.standalone.auth.McCredentialCache;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.Node;
@@ -185,6 +186,7 @@ public class RoleJson {
             }
             DaoUtils.getRoleMqttMapDao().create(roleMqttMap);
         }
+        McCredentialCache.getInstance().invalidate();
     }
 
     @JsonIgnore
@@ -194,6 +196,7 @@ public class RoleJson {
             removeMapping(role);
             DaoUtils.getRoleDao().delete(role);
         }
+        McCredentialCache.getInstance().invalidate();
     }
 
     @JsonIgnore
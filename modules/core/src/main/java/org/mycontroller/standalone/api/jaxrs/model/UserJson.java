@@ -19,6 +19,7 @@ package org.mycontroller.standalone.api.jaxrs.model;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.mycontroller.standalone.auth.McCredentialCache;
 import org.mycontroller.standalone.auth.McCrypt;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Role;
@@ -84,6 +85,7 @@ public class UserJson {
                 DaoUtils.getRoleUserMapDao().create(roleUserMap);
             }
         }
+        McCredentialCache.getInstance().invalidate();
     }
 
     @JsonIgnore
@@ -103,6 +105,7 @@ public class UserJson {
             }
             //Update user
             DaoUtils.getUserDao().update(user);
+            McCredentialCache.getInstance().invalidate();
         } else {
             throw new IllegalAccessError("user id missing!");
         }
@@ -114,6 +117,7 @@ public class UserJson {
             removeMapping(id);
         }
         DaoUtils.getUserDao().deleteByIds(userIds);
+        McCredentialCache.getInstance().invalidate();
     }
 
     @JsonIgnore
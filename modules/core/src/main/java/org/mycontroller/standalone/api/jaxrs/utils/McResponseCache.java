@@ -0,0 +1,164 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.api.jaxrs.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.mycontroller.standalone.api.jaxrs.mixins.McJacksonJson2Provider;
+import org.mycontroller.standalone.api.jaxrs.model.AllowedResources;
+import org.mycontroller.standalone.db.dao.TableVersions;
+import org.mycontroller.standalone.db.tables.RoleGatewayMap;
+import org.mycontroller.standalone.db.tables.RoleNodeMap;
+import org.mycontroller.standalone.db.tables.RoleSensorMap;
+import org.mycontroller.standalone.db.tables.RoleUserMap;
+import org.mycontroller.standalone.monitoring.McMetrics;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conditional GET and serialized responses for list endpoints. ETag is built from versions of the tables the
+ * response depends on and the query, a matching If-None-Match is answered with 304. Serialized response is reused
+ * while table versions are unchanged, that skips database queries and json encoding.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McResponseCache {
+    public static final int MAX_ENTRIES = 100;
+    public static final long MAX_SIZE = 16 * 1024 * 1024;
+    // Tables of allowed resources of non-admin users
+    private static final Class<?>[] ROLE_TABLES = { RoleGatewayMap.class, RoleNodeMap.class, RoleSensorMap.class,
+            RoleUserMap.class };
+    // Versions start again from zero on restart
+    private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+    private final ConcurrentHashMap<String, CachedResponse> responses = new ConcurrentHashMap<String, CachedResponse>();
+    private final AtomicLong size = new AtomicLong();
+    private final ObjectMapper objectMapper = McJacksonJson2Provider.configureWriter(new ObjectMapper());
+
+    public interface ResponseLoader {
+        Object load();
+    }
+
+    private static class CachedResponse {
+        private final long version;
+        private final byte[] body;
+
+        private CachedResponse(long version, byte[] body) {
+            this.version = version;
+            this.body = body;
+        }
+    }
+
+    private static class McResponseCacheHolder {
+        private static final McResponseCache INSTANCE = new McResponseCache();
+    }
+
+    //Do not load until some calls getInstance
+    public static McResponseCache getInstance() {
+        return McResponseCacheHolder.INSTANCE;
+    }
+
+    private McResponseCache() {
+    }
+
+    /**
+     * @param resource name of the list, part of cache key
+     * @param filters query filters, after allowed resources of user updated
+     * @param tables all the tables serialized response reads, including foreign and resolved ones
+     */
+    public Response getResponse(Request request, String resource, Map<String, Object> filters,
+            ResponseLoader loader, Class<?>... tables) {
+        String key = getKey(resource, filters);
+        // Take version before load, write in between changes version for the next request
+        long version = TableVersions.getVersion(tables);
+        if (filters.containsKey(AllowedResources.KEY_ALLOWED_RESOURCES)) {
+            version += TableVersions.getVersion(ROLE_TABLES);
+        }
+        EntityTag eTag = new EntityTag(EPOCH + "-" + Long.toHexString(version) + "-" + DigestUtils.md5Hex(key));
+        if (request.evaluatePreconditions(eTag) != null) {
+            count(resource, "not_modified");
+            return RestUtils.getResponseBuilder(Status.NOT_MODIFIED)
+                    .tag(eTag)
+                    .header("Cache-Control", "no-cache")
+                    .build();
+        }
+        CachedResponse cachedResponse = responses.get(key);
+        if (cachedResponse != null && cachedResponse.version == version) {
+            count(resource, "hit");
+        } else {
+            count(resource, "miss");
+            try {
+                cachedResponse = new CachedResponse(version, objectMapper.writeValueAsBytes(loader.load()));
+            } catch (JsonProcessingException ex) {
+                _logger.error("Unable to serialize response of {}", resource, ex);
+                return RestUtils.getResponse(Status.INTERNAL_SERVER_ERROR);
+            }
+            put(key, cachedResponse);
+        }
+        return RestUtils.getResponseBuilder(Status.OK)
+                .tag(eTag)
+                .header("Cache-Control", "no-cache")
+                .entity(cachedResponse.body)
+                .build();
+    }
+
+    private void put(String key, CachedResponse cachedResponse) {
+        if (responses.size() >= MAX_ENTRIES || size.get() + cachedResponse.body.length > MAX_SIZE) {
+            clear();
+        }
+        CachedResponse oldResponse = responses.put(key, cachedResponse);
+        size.addAndGet(cachedResponse.body.length - (oldResponse != null ? oldResponse.body.length : 0));
+    }
+
+    public void clear() {
+        responses.clear();
+        size.set(0);
+    }
+
+    private void count(String resource, String result) {
+        McMetrics.getInstance().counter("mc_rest_cache_total", "List requests served by response cache",
+                "resource", resource, "result", result).increment();
+    }
+
+    /** Allowed resources are replaced with user id, lists inside are loaded lazily */
+    private String getKey(String resource, Map<String, Object> filters) {
+        StringBuilder builder = new StringBuilder(resource);
+        for (Map.Entry<String, Object> filter : new TreeMap<String, Object>(filters).entrySet()) {
+            builder.append('\n').append(filter.getKey()).append('=');
+            if (filter.getValue() instanceof AllowedResources) {
+                builder.append(((AllowedResources) filter.getValue()).getUserId());
+            } else {
+                builder.append(filter.getValue());
+            }
+        }
+        return builder.toString();
+    }
+}
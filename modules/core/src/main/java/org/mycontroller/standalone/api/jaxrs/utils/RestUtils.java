@@ -22,6 +22,7 @@ import java.util.StringTokenizer;
 
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.Response.Status;
 
 import org.jboss.resteasy.spi.HttpRequest;
@@ -63,26 +64,24 @@ public class RestUtils {
     }
 
     public static Response getResponse(Status status, Object entity) {
-        return Response
-                .status(status)
-                .header("Access-Control-Allow-Origin", "*")
-                .header("Access-Control-Allow-Headers", "origin, content-type, accept, authorization")
-                .header("Access-Control-Allow-Credentials", "true")
-                .header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD")
-                .header("Access-Control-Max-Age", "1209600")
+        return getResponseBuilder(status)
                 .entity(entity)
                 .build();
     }
 
     public static Response getResponse(Status status) {
+        return getResponseBuilder(status)
+                .build();
+    }
+
+    public static ResponseBuilder getResponseBuilder(Status status) {
         return Response
                 .status(status)
                 .header("Access-Control-Allow-Origin", "*")
                 .header("Access-Control-Allow-Headers", "origin, content-type, accept, authorization")
                 .header("Access-Control-Allow-Credentials", "true")
                 .header("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS, HEAD")
-                .header("Access-Control-Max-Age", "1209600")
-                .build();
+                .header("Access-Control-Max-Age", "1209600");
     }
 
     public static User getUser(HttpRequest request) {
@@ -162,11 +162,17 @@ public class AuthUtils {
 
     public static boolean authenticateMqttUser(String aUsername, String aPassword) {
         _logger.debug("MQTT authentication: User:{}", aUsername);
-        User user = DaoUtils.getUserDao().getByUsername(aUsername);
+        User user = McCredentialCache.getInstance().get(aUsername, aPassword);
+        if (user != null) {
+            return isSuperAdmin(user) || hasPermission(user, PERMISSION_TYPE.MQTT_USER);
+        }
+        long generation = McCredentialCache.getInstance().getGeneration();
+        user = DaoUtils.getUserDao().getByUsername(aUsername);
         if (user != null) {
             _logger.debug("User Found...User:{}", user);
-            if (user.getEnabled() && McCrypt.decrypt(user.getPassword()).equals(aPassword)) {
+            if (user.getEnabled() && aPassword != null && aPassword.equals(McCrypt.decrypt(user.getPassword()))) {
                 user.setPassword(null);
+                McCredentialCache.getInstance().put(aUsername, aPassword, user, generation);
                 if (isSuperAdmin(user) || hasPermission(user, PERMISSION_TYPE.MQTT_USER)) {
                     return true;
                 }
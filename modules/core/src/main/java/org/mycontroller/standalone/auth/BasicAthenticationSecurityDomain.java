@@ -35,12 +35,18 @@ public class BasicAthenticationSecurityDomain implements SecurityDomain {
     @Override
     public Principal authenticate(String aUsername, String aPassword) throws SecurityException {
         _logger.debug("HTTP authentication: User:{}", aUsername);
-        User user = DaoUtils.getUserDao().getByUsername(aUsername);
+        User user = McCredentialCache.getInstance().get(aUsername, aPassword);
+        if (user != null) {
+            return user;
+        }
+        long generation = McCredentialCache.getInstance().getGeneration();
+        user = DaoUtils.getUserDao().getByUsername(aUsername);
         if (user != null) {
             _logger.debug("User Found...User:{}", user);
             if (user.getEnabled()) {
-                if (McCrypt.decrypt(user.getPassword()).equals(aPassword)) {
+                if (aPassword != null && aPassword.equals(McCrypt.decrypt(user.getPassword()))) {
                     user.setPassword(null);
+                    McCredentialCache.getInstance().put(aUsername, aPassword, user, generation);
                     return user;
                 }
             } else {
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.auth;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.mycontroller.standalone.db.tables.User;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Verified credentials with resolved permissions, keyed on hash of username and password. Authenticated requests
+ * skip database lookup and password decrypt until the entry expires. Cleared when users or roles change.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McCredentialCache {
+    public static final long EXPIRE_TIME = McUtils.MINUTE;
+    public static final int MAX_ENTRIES = 1000;
+
+    private final ConcurrentHashMap<String, CachedUser> users = new ConcurrentHashMap<String, CachedUser>();
+    // Changed on invalidate, entries verified before invalidate are not added
+    private final AtomicLong generation = new AtomicLong();
+
+    private static class CachedUser {
+        private final User user;
+        private final long expireTime;
+
+        private CachedUser(User user) {
+            this.user = user;
+            this.expireTime = System.currentTimeMillis() + EXPIRE_TIME;
+        }
+    }
+
+    private static class McCredentialCacheHolder {
+        private static final McCredentialCache INSTANCE = new McCredentialCache();
+    }
+
+    //Do not load until some calls getInstance
+    public static McCredentialCache getInstance() {
+        return McCredentialCacheHolder.INSTANCE;
+    }
+
+    private McCredentialCache() {
+    }
+
+    private String getKey(String username, String password) {
+        return DigestUtils.sha256Hex(username + "\n" + password);
+    }
+
+    /** Returns verified user, null when not available or expired */
+    public User get(String username, String password) {
+        if (username == null || password == null) {
+            return null;
+        }
+        String key = getKey(username, password);
+        CachedUser cachedUser = users.get(key);
+        if (cachedUser == null) {
+            return null;
+        }
+        if (cachedUser.expireTime < System.currentTimeMillis()) {
+            users.remove(key, cachedUser);
+            return null;
+        }
+        return cachedUser.user;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Adds verified user. Permissions are resolved here, cached user is shared between requests.
+     *
+     * @param verifiedGeneration generation taken before credentials verified
+     */
+    public void put(String username, String password, User user, long verifiedGeneration) {
+        user.getPermissions();
+        user.getAllowedResources().getGatewayIds();
+        user.getAllowedResources().getNodeIds();
+        user.getAllowedResources().getSensorIds();
+        user.getAllowedResources().getSensorVariableIds();
+        if (users.size() >= MAX_ENTRIES) {
+            users.clear();
+        }
+        if (generation.get() != verifiedGeneration) {
+            return;
+        }
+        String key = getKey(username, password);
+        CachedUser cachedUser = new CachedUser(user);
+        users.put(key, cachedUser);
+        //Invalidate bumps generation before clear, entry added after the clear is removed here
+        if (generation.get() != verifiedGeneration) {
+            users.remove(key, cachedUser);
+        }
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        users.clear();
+        _logger.debug("Credentials cache cleared");
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.mycontroller.standalone.db.tables.Firmware;
+import org.mycontroller.standalone.db.tables.FirmwareType;
+import org.mycontroller.standalone.db.tables.FirmwareVersion;
+import org.mycontroller.standalone.db.tables.GatewayTable;
+import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.db.tables.Room;
+import org.mycontroller.standalone.db.tables.Sensor;
+import org.mycontroller.standalone.db.tables.SensorVariable;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Loads foreign objects of list responses in batch. Input lists are loaded with shallow dao (foreign objects
+ * holds only id), each foreign type is loaded with one IN query and attached to the rows. Number of queries does
+ * not depend on number of rows.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BatchLoader {
+
+    public static void loadNodes(List<Node> nodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            return;
+        }
+        List<Integer> gatewayIds = new ArrayList<Integer>();
+        List<Integer> firmwareIds = new ArrayList<Integer>();
+        for (Node node : nodes) {
+            addId(gatewayIds, node.getGatewayTable() == null ? null : node.getGatewayTable().getId());
+            addId(firmwareIds, node.getFirmware() == null ? null : node.getFirmware().getId());
+        }
+        HashMap<Integer, GatewayTable> gateways = new HashMap<Integer, GatewayTable>();
+        for (GatewayTable gatewayTable : DaoUtils.getGatewayDao().getAllShallow(GatewayTable.KEY_ID, gatewayIds)) {
+            gateways.put(gatewayTable.getId(), gatewayTable);
+        }
+        HashMap<Integer, Firmware> firmwares = loadFirmwares(firmwareIds);
+        for (Node node : nodes) {
+            if (node.getGatewayTable() != null) {
+                node.setGatewayTable(gateways.get(node.getGatewayTable().getId()));
+            }
+            if (node.getFirmware() != null) {
+                node.setFirmware(firmwares.get(node.getFirmware().getId()));
+            }
+        }
+    }
+
+    private static HashMap<Integer, Firmware> loadFirmwares(List<Integer> firmwareIds) {
+        HashMap<Integer, Firmware> firmwares = new HashMap<Integer, Firmware>();
+        if (firmwareIds.isEmpty()) {
+            return firmwares;
+        }
+        List<Integer> typeIds = new ArrayList<Integer>();
+        List<Integer> versionIds = new ArrayList<Integer>();
+        for (Firmware firmware : DaoUtils.getFirmwareDao().getAllShallow(Firmware.KEY_ID, firmwareIds)) {
+            firmwares.put(firmware.getId(), firmware);
+            addId(typeIds, firmware.getType().getId());
+            addId(versionIds, firmware.getVersion().getId());
+        }
+        HashMap<Integer, FirmwareType> types = new HashMap<Integer, FirmwareType>();
+        for (FirmwareType type : DaoUtils.getFirmwareTypeDao().getAllShallow(FirmwareType.KEY_ID, typeIds)) {
+            types.put(type.getId(), type);
+        }
+        HashMap<Integer, FirmwareVersion> versions = new HashMap<Integer, FirmwareVersion>();
+        for (FirmwareVersion version : DaoUtils.getFirmwareVersionDao().getAllShallow(
+                FirmwareVersion.KEY_ID, versionIds)) {
+            versions.put(version.getId(), version);
+        }
+        for (Firmware firmware : firmwares.values()) {
+            firmware.setType(types.get(firmware.getType().getId()));
+            firmware.setVersion(versions.get(firmware.getVersion().getId()));
+        }
+        return firmwares;
+    }
+
+    /**
+     * Attaches node (with gateway and firmware) and room. When withVariables is set, variables of the sensors are
+     * preloaded, serializers read those instead of querying per sensor.
+     */
+    public static void loadSensors(List<Sensor> sensors, boolean withVariables) {
+        if (sensors == null || sensors.isEmpty()) {
+            return;
+        }
+        List<Integer> sensorIds = new ArrayList<Integer>();
+        List<Integer> nodeIds = new ArrayList<Integer>();
+        List<Integer> roomIds = new ArrayList<Integer>();
+        for (Sensor sensor : sensors) {
+            sensorIds.add(sensor.getId());
+            addId(nodeIds, sensor.getNode() == null ? null : sensor.getNode().getId());
+            addId(roomIds, sensor.getRoom() == null ? null : sensor.getRoom().getId());
+        }
+        List<Node> nodesList = DaoUtils.getNodeDao().getAllShallow(Node.KEY_ID, nodeIds);
+        loadNodes(nodesList);
+        HashMap<Integer, Node> nodes = new HashMap<Integer, Node>();
+        for (Node node : nodesList) {
+            nodes.put(node.getId(), node);
+        }
+        HashMap<Integer, Room> rooms = new HashMap<Integer, Room>();
+        for (Room room : DaoUtils.getRoomDao().getAllShallow(Room.KEY_ID, roomIds)) {
+            rooms.put(room.getId(), room);
+        }
+        HashMap<Integer, Sensor> sensorsMap = new HashMap<Integer, Sensor>();
+        for (Sensor sensor : sensors) {
+            sensorsMap.put(sensor.getId(), sensor);
+            if (sensor.getNode() != null) {
+                sensor.setNode(nodes.get(sensor.getNode().getId()));
+            }
+            if (sensor.getRoom() != null) {
+                sensor.setRoom(rooms.get(sensor.getRoom().getId()));
+            }
+            if (withVariables) {
+                sensor.setPreloadedVariables(new ArrayList<SensorVariable>());
+            }
+        }
+        if (withVariables) {
+            for (SensorVariable sensorVariable : DaoUtils.getSensorVariableDao().getAllShallow(
+                    SensorVariable.KEY_SENSOR_DB_ID, sensorIds)) {
+                Sensor sensor = sensorsMap.get(sensorVariable.getSensor().getId());
+                sensorVariable.setSensor(sensor);
+                sensor.getPreloadedVariables().add(sensorVariable);
+            }
+        }
+    }
+
+    public static void loadSensorVariables(List<SensorVariable> sensorVariables) {
+        if (sensorVariables == null || sensorVariables.isEmpty()) {
+            return;
+        }
+        List<Integer> sensorIds = new ArrayList<Integer>();
+        for (SensorVariable sensorVariable : sensorVariables) {
+            addId(sensorIds, sensorVariable.getSensor() == null ? null : sensorVariable.getSensor().getId());
+        }
+        List<Sensor> sensorsList = DaoUtils.getSensorDao().getAllShallow(Sensor.KEY_ID, sensorIds);
+        loadSensors(sensorsList, false);
+        HashMap<Integer, Sensor> sensors = new HashMap<Integer, Sensor>();
+        for (Sensor sensor : sensorsList) {
+            sensors.put(sensor.getId(), sensor);
+        }
+        for (SensorVariable sensorVariable : sensorVariables) {
+            if (sensorVariable.getSensor() != null) {
+                sensorVariable.setSensor(sensors.get(sensorVariable.getSensor().getId()));
+            }
+        }
+    }
+
+    private static void addId(List<Integer> ids, Integer id) {
+        if (id != null && !ids.contains(id)) {
+            ids.add(id);
+        }
+    }
+}
@@ -22,6 +22,8 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
 import org.flywaydb.core.Flyway;
@@ -52,7 +54,7 @@ public class DataBaseUtils {
 
     private static boolean dbMigrationStatus = false;
     // private static ConnectionSource connectionSource = null;
-    private static JdbcPooledConnectionSource connectionPooledSource = null;
+    private static ConnectionSource connectionPooledSource = null;
     private static final String DB_MIGRATION_SCRIPT_LOCATION = "org/mycontroller/standalone/db/migration";
     private static final int DB_MAX_FREE_CONNECTION = 3;
 
@@ -64,40 +66,85 @@ public class DataBaseUtils {
         return getConnectionSource(false);
     }
 
+    /**
+     * Database url for pooled connections, with prepared statement cache enabled on the driver. Options already
+     * given by user in the url are not changed.
+     */
+    private static String getPooledDbUrl() {
+        String dbUrl = AppProperties.getInstance().getDbUrl();
+        switch (AppProperties.getInstance().getDbType()) {
+            case H2DB_EMBEDDED:
+            case H2DB:
+                if (!dbUrl.toUpperCase().contains("QUERY_CACHE_SIZE")) {
+                    dbUrl += ";QUERY_CACHE_SIZE=" + AppProperties.getInstance().getDbStatementCacheSize();
+                }
+                break;
+            case MYSQL:
+            case MARIADB:
+                if (!dbUrl.contains("cachePrepStmts")) {
+                    dbUrl += (dbUrl.contains("?") ? "&" : "?") + "cachePrepStmts=true&prepStmtCacheSize="
+                            + AppProperties.getInstance().getDbStatementCacheSize();
+                }
+                break;
+            default:
+                //PostgreSQL driver caches prepared statements by default
+                break;
+        }
+        return dbUrl;
+    }
+
     public static ConnectionSource getConnectionSource(boolean reload) throws SQLException {
         if (reload || connectionPooledSource == null) {
             stop();
-            // Class.forName("org.sqlite.JDBC");
-            /*
-             * // create a connection source to our database connectionSource =
-             * new JdbcConnectionSource(databaseUrl);
-             */
-
-            // pooled connection source
-            connectionPooledSource = new JdbcPooledConnectionSource(AppProperties.getInstance().getDbUrl(),
-                    AppProperties.getInstance().getDbUsername(), AppProperties.getInstance().getDbPassword());
-            // only keep the connections open for 5 minutes
-            connectionPooledSource.setMaxConnectionAgeMillis(McUtils.FIVE_MINUTES);
-            // change the check-every milliseconds from 30 seconds to 60
-            connectionPooledSource.setCheckConnectionsEveryMillis(McUtils.THREE_MINUTES);
-            // Maximum free connections you want to keep
-            connectionPooledSource.setMaxConnectionsFree(DB_MAX_FREE_CONNECTION);
-            // for extra protection, enable the testing of connections
-            // right before they are handed to the user
-            connectionPooledSource.setTestBeforeGet(true);
-            _logger.debug("Database ConnectionSource loaded. Database Url:[{}]", AppProperties.getInstance()
-                    .getDbUrl());
-
+            AppProperties appProperties = AppProperties.getInstance();
+            switch (appProperties.getDbPoolType()) {
+                case ORMLITE:
+                    JdbcPooledConnectionSource ormlitePool = new JdbcPooledConnectionSource(getPooledDbUrl(),
+                            appProperties.getDbUsername(), appProperties.getDbPassword());
+                    // only keep the connections open for 5 minutes
+                    ormlitePool.setMaxConnectionAgeMillis(McUtils.FIVE_MINUTES);
+                    // change the check-every milliseconds from 30 seconds to 60
+                    ormlitePool.setCheckConnectionsEveryMillis(McUtils.THREE_MINUTES);
+                    // Maximum free connections you want to keep
+                    ormlitePool.setMaxConnectionsFree(DB_MAX_FREE_CONNECTION);
+                    // for extra protection, enable the testing of connections
+                    // right before they are handed to the user
+                    ormlitePool.setTestBeforeGet(true);
+                    connectionPooledSource = ormlitePool;
+                    break;
+                case MYCONTROLLER:
+                default:
+                    connectionPooledSource = new McPooledConnectionSource(getPooledDbUrl(),
+                            appProperties.getDbUsername(), appProperties.getDbPassword(),
+                            appProperties.getDbPoolMinIdle(), appProperties.getDbPoolMaxSize(),
+                            appProperties.getDbPoolMaxWait());
+                    break;
+            }
+            _logger.debug("Database ConnectionSource loaded. Pool:{}, Database Url:[{}]",
+                    appProperties.getDbPoolType().getText(), appProperties.getDbUrl());
         }
-        _logger.debug(
-                "DatabaseConnectionPool Connections,Count[open:{},close:{}],"
-                        + "CurrentConnections[free:{},managed:{}]," + "MaxConnectionsEverUsed:{},TestLoopCount:{}",
-                connectionPooledSource.getOpenCount(), connectionPooledSource.getCloseCount(),
-                connectionPooledSource.getCurrentConnectionsFree(),
-                connectionPooledSource.getCurrentConnectionsManaged(),
-                connectionPooledSource.getMaxConnectionsEverUsed(), connectionPooledSource.getTestLoopCount());
         return connectionPooledSource;
+    }
 
+    /** Connection pool statistics, wait time in milliseconds */
+    public static Map<String, Object> getConnectionPoolStatistics() {
+        ConnectionSource connectionSource = connectionPooledSource;
+        if (connectionSource instanceof McPooledConnectionSource) {
+            return ((McPooledConnectionSource) connectionSource).getStatistics();
+        }
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        if (connectionSource instanceof JdbcPooledConnectionSource) {
+            JdbcPooledConnectionSource ormlitePool = (JdbcPooledConnectionSource) connectionSource;
+            statistics.put("type", "ORMLite");
+            statistics.put("total", ormlitePool.getCurrentConnectionsManaged());
+            statistics.put("idle", ormlitePool.getCurrentConnectionsFree());
+            statistics.put("active",
+                    ormlitePool.getCurrentConnectionsManaged() - ormlitePool.getCurrentConnectionsFree());
+            statistics.put("createdCount", ormlitePool.getOpenCount());
+            statistics.put("closedCount", ormlitePool.getCloseCount());
+            statistics.put("maxEverUsed", ormlitePool.getMaxConnectionsEverUsed());
+        }
+        return statistics;
     }
 
     public static synchronized void runDatabaseMigration() throws SQLException, ClassNotFoundException {
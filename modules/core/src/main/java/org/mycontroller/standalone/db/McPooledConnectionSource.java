@@ -0,0 +1,421 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.monitoring.McGauge;
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
+import org.mycontroller.standalone.utils.McUtils;
+
+import com.j256.ormlite.jdbc.JdbcConnectionSource;
+import com.j256.ormlite.jdbc.JdbcDatabaseConnection;
+import com.j256.ormlite.logger.Logger;
+import com.j256.ormlite.logger.LoggerFactory;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Connection pool with fixed maximum size. Connection is validated only when it was idle for more than
+ * {@link #VALIDATION_IDLE_TIME}, not on every borrow. A housekeeping task closes expired and surplus idle
+ * connections and keeps minimum idle connections open. Callers wait up to max wait time for a free connection,
+ * when all connections are in use.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McPooledConnectionSource extends JdbcConnectionSource {
+    public static final long VALIDATION_IDLE_TIME = McUtils.ONE_SECOND * 30;
+    public static final long IDLE_TIMEOUT = McUtils.FIVE_MINUTES * 2;
+    public static final long MAX_LIFETIME = McUtils.ONE_MINUTE * 30;
+    public static final long HOUSEKEEPING_INTERVAL = McUtils.ONE_SECOND * 30;
+    private static final int VALIDATION_TIMEOUT = 5; //in seconds
+    private static final double NANOS_PER_MILLI = 1000000.0;
+    private static final Logger ORMLITE_LOGGER = LoggerFactory.getLogger(McPooledConnectionSource.class);
+    private static final McHistogram WAIT_TIME = McMetrics.getInstance().histogram(
+            "mc_db_pool_wait_seconds", "Time spent waiting for a database connection");
+
+    private final int minIdle;
+    private final int maxSize;
+    private final long maxWait;
+
+    private final Object lock = new Object();
+    //Last released connection first, keeps hot connections in use
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<PooledConnection>();
+    private final IdentityHashMap<DatabaseConnection, PooledConnection> connections =
+            new IdentityHashMap<DatabaseConnection, PooledConnection>();
+    private volatile boolean open = true;
+    private int total = 0;
+    private int waiting = 0;
+    private ScheduledFuture<?> housekeeping;
+
+    private long borrowCount = 0;
+    private long totalWaitTime = 0;
+    private long maxWaitTime = 0;
+    private long timeoutCount = 0;
+    private long createdCount = 0;
+    private long closedCount = 0;
+    private long validationFailedCount = 0;
+
+    private static class PooledConnection {
+        private final DatabaseConnection connection;
+        private final long createdTime = System.currentTimeMillis();
+        private long lastUsedTime = System.currentTimeMillis();
+
+        private PooledConnection(DatabaseConnection connection) {
+            this.connection = connection;
+        }
+    }
+
+    public McPooledConnectionSource(String url, String username, String password, int minIdle, int maxSize,
+            long maxWait) throws SQLException {
+        super(url, username, password);
+        this.maxSize = Math.max(maxSize, 1);
+        this.minIdle = Math.min(Math.max(minIdle, 0), this.maxSize);
+        this.maxWait = maxWait;
+        housekeeping = McExecutors.getInstance().scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    houseKeeping();
+                } catch (Exception ex) {
+                    _logger.error("Exception on database pool housekeeping,", ex);
+                }
+            }
+        }, 0, HOUSEKEEPING_INTERVAL);
+        McMetrics.getInstance().register(new McGauge("mc_db_pool_active") {
+            @Override
+            public double getValue() {
+                synchronized (lock) {
+                    return total - idle.size();
+                }
+            }
+        }, "Database connections in use");
+        McMetrics.getInstance().register(new McGauge("mc_db_pool_idle") {
+            @Override
+            public double getValue() {
+                synchronized (lock) {
+                    return idle.size();
+                }
+            }
+        }, "Idle database connections");
+    }
+
+    @Override
+    public DatabaseConnection getReadOnlyConnection(String tableName) throws SQLException {
+        return getReadWriteConnection(tableName);
+    }
+
+    @Override
+    public DatabaseConnection getReadWriteConnection(String tableName) throws SQLException {
+        checkOpen();
+        DatabaseConnection savedConnection = getSavedConnection();
+        if (savedConnection != null) {
+            return savedConnection;
+        }
+        long startTime = System.nanoTime();
+        DatabaseConnection connection = borrow(startTime);
+        long waitTime = System.nanoTime() - startTime;
+        WAIT_TIME.recordNanos(waitTime);
+        synchronized (lock) {
+            borrowCount++;
+            totalWaitTime += waitTime;
+            maxWaitTime = Math.max(maxWaitTime, waitTime);
+        }
+        return connection;
+    }
+
+    private DatabaseConnection borrow(long startTime) throws SQLException {
+        long deadline = startTime + maxWait * 1000000L;
+        while (true) {
+            PooledConnection pooled = null;
+            boolean create = false;
+            synchronized (lock) {
+                while (pooled == null && !create) {
+                    checkOpen();
+                    pooled = idle.pollFirst();
+                    if (pooled == null) {
+                        if (total < maxSize) {
+                            //reserve the slot, connection created out of the lock
+                            total++;
+                            create = true;
+                        } else {
+                            long remaining = (deadline - System.nanoTime()) / 1000000L;
+                            if (remaining <= 0) {
+                                timeoutCount++;
+                                throw new SQLException("Timeout after " + maxWait
+                                        + " ms, no database connection available. Pool size:" + maxSize);
+                            }
+                            waitFor(remaining);
+                        }
+                    }
+                }
+            }
+            if (create) {
+                return createConnection(false).connection;
+            }
+            if (isUsable(pooled)) {
+                return pooled.connection;
+            }
+            discard(pooled);
+        }
+    }
+
+    private void waitFor(long timeout) throws SQLException {
+        waiting++;
+        try {
+            lock.wait(timeout);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for database connection", ex);
+        } finally {
+            waiting--;
+        }
+    }
+
+    //Slot should be reserved already in total
+    private PooledConnection createConnection(boolean toIdle) throws SQLException {
+        DatabaseConnection connection;
+        try {
+            connection = makeConnection(ORMLITE_LOGGER);
+        } catch (SQLException ex) {
+            synchronized (lock) {
+                total--;
+                lock.notifyAll();
+            }
+            throw ex;
+        }
+        PooledConnection pooled = new PooledConnection(connection);
+        synchronized (lock) {
+            createdCount++;
+            connections.put(connection, pooled);
+            if (toIdle) {
+                idle.addLast(pooled);
+                lock.notifyAll();
+            }
+        }
+        _logger.debug("New database connection created, {}", connection);
+        return pooled;
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        long now = System.currentTimeMillis();
+        if (now - pooled.createdTime > MAX_LIFETIME) {
+            return false;
+        }
+        if (now - pooled.lastUsedTime < VALIDATION_IDLE_TIME) {
+            return true;
+        }
+        if (isValid(pooled.connection)) {
+            return true;
+        }
+        synchronized (lock) {
+            validationFailedCount++;
+        }
+        return false;
+    }
+
+    private boolean isValid(DatabaseConnection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (connection instanceof JdbcDatabaseConnection) {
+                return ((JdbcDatabaseConnection) connection).getInternalConnection().isValid(VALIDATION_TIMEOUT);
+            }
+            connection.queryForLong(getDatabaseType().getPingStatement());
+            return true;
+        } catch (Exception ex) {
+            _logger.debug("Database connection validation failed, {}", connection, ex);
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        synchronized (lock) {
+            if (connections.remove(pooled.connection) == null) {
+                return;
+            }
+            total--;
+            closedCount++;
+            lock.notifyAll();
+        }
+        pooled.connection.closeQuietly();
+    }
+
+    @Override
+    public void releaseConnection(DatabaseConnection connection) throws SQLException {
+        if (isSavedConnection(connection)) {
+            //will be released after transaction
+            return;
+        }
+        PooledConnection pooled;
+        synchronized (lock) {
+            pooled = connections.get(connection);
+        }
+        if (pooled == null) {
+            _logger.warn("Released connection is not managed by this pool, closing it. {}", connection);
+            connection.closeQuietly();
+            return;
+        }
+        try {
+            if (connection.isAutoCommitSupported() && !connection.isAutoCommit()) {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            _logger.debug("Unable to reset auto commit, closing connection {}", connection, ex);
+            discard(pooled);
+            return;
+        }
+        if (!open) {
+            discard(pooled);
+            return;
+        }
+        synchronized (lock) {
+            pooled.lastUsedTime = System.currentTimeMillis();
+            idle.addFirst(pooled);
+            lock.notifyAll();
+        }
+    }
+
+    private void houseKeeping() {
+        List<PooledConnection> toClose = new ArrayList<PooledConnection>();
+        int toCreate = 0;
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            if (!open) {
+                return;
+            }
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                if (now - pooled.createdTime > MAX_LIFETIME
+                        || (now - pooled.lastUsedTime > IDLE_TIMEOUT && total - toClose.size() > minIdle)) {
+                    iterator.remove();
+                    toClose.add(pooled);
+                }
+            }
+            toCreate = Math.max(minIdle - (idle.size() + (total - connections.size())), 0);
+            toCreate = Math.min(toCreate, maxSize - total + toClose.size());
+        }
+        for (PooledConnection pooled : toClose) {
+            discard(pooled);
+        }
+        for (int count = 0; count < toCreate; count++) {
+            synchronized (lock) {
+                if (!open || total >= maxSize) {
+                    break;
+                }
+                total++;
+            }
+            try {
+                createConnection(true);
+            } catch (SQLException ex) {
+                _logger.error("Unable to create database connection,", ex);
+                break;
+            }
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (!open) {
+            throw new SQLException("Database connection pool is closed");
+        }
+    }
+
+    @Override
+    public boolean saveSpecialConnection(DatabaseConnection connection) throws SQLException {
+        checkOpen();
+        return saveSpecial(connection);
+    }
+
+    @Override
+    public void clearSpecialConnection(DatabaseConnection connection) {
+        clearSpecial(connection, ORMLITE_LOGGER);
+    }
+
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        synchronized (lock) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            toClose = new ArrayList<PooledConnection>(idle);
+            idle.clear();
+            lock.notifyAll();
+        }
+        if (housekeeping != null) {
+            housekeeping.cancel(false);
+        }
+        //connections in use, closed on release
+        for (PooledConnection pooled : toClose) {
+            discard(pooled);
+        }
+        _logger.debug("Database connection pool closed");
+    }
+
+    @Override
+    public void closeQuietly() {
+        close();
+    }
+
+    @Override
+    public boolean isOpen(String tableName) {
+        return open;
+    }
+
+    @Override
+    public boolean isSingleConnection(String tableName) {
+        return false;
+    }
+
+    public Map<String, Object> getStatistics() {
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        synchronized (lock) {
+            statistics.put("type", "MyController");
+            statistics.put("minIdle", minIdle);
+            statistics.put("maxSize", maxSize);
+            statistics.put("maxWait", maxWait);
+            statistics.put("total", total);
+            statistics.put("idle", idle.size());
+            statistics.put("active", total - idle.size());
+            statistics.put("waiting", waiting);
+            statistics.put("borrowCount", borrowCount);
+            statistics.put("averageWaitTime", borrowCount > 0 ? totalWaitTime / NANOS_PER_MILLI / borrowCount : 0);
+            statistics.put("maxWaitTime", maxWaitTime / NANOS_PER_MILLI);
+            statistics.put("timeoutCount", timeoutCount);
+            statistics.put("createdCount", createdCount);
+            statistics.put("closedCount", closedCount);
+            statistics.put("validationFailedCount", validationFailedCount);
+        }
+        return statistics;
+    }
+}
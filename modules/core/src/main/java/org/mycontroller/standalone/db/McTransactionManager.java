@@ -0,0 +1,235 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db;
+
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
+
+import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.support.DatabaseConnection;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Groups database writes of the current thread into one transaction, one commit (fsync) instead of one per
+ * statement. While a transaction is open, all the dao calls of the thread use its connection (ORMLite special
+ * connection). Transactions can be nested, only the outer most one commits, failed nested transaction rolls back
+ * to the state it started with. Work on other threads, which reads the written data, should be started with
+ * {@link #afterCommit(Runnable)}.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McTransactionManager {
+    //Named per nesting level. Same name replaces previous savepoint on H2, MySQL and PostgreSQL, savepoints do not
+    //pile up
+    private static final String SAVEPOINT_NAME = "MC_SAVEPOINT_";
+    private static final McHistogram TRANSACTION_TIME = McMetrics.getInstance().histogram(
+            "mc_db_transaction_seconds", "Time from begin to commit of database transactions");
+
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<Transaction>();
+
+    private static class Transaction {
+        private final ConnectionSource connectionSource;
+        private final DatabaseConnection connection;
+        private final boolean saved;
+        private final boolean restoreAutoCommit;
+        private final long startTime = System.nanoTime();
+        private final List<Runnable> afterCommit = new ArrayList<Runnable>();
+        //Savepoint of each nested transaction, index is depth - 2
+        private final List<Savepoint> nested = new ArrayList<Savepoint>();
+        private int depth = 1;
+
+        private Transaction(ConnectionSource connectionSource, DatabaseConnection connection, boolean saved,
+                boolean restoreAutoCommit) {
+            this.connectionSource = connectionSource;
+            this.connection = connection;
+            this.saved = saved;
+            this.restoreAutoCommit = restoreAutoCommit;
+        }
+    }
+
+    private static class McTransactionManagerHolder {
+        private static final McTransactionManager INSTANCE = new McTransactionManager();
+    }
+
+    //Do not load until some calls getInstance
+    public static McTransactionManager getInstance() {
+        return McTransactionManagerHolder.INSTANCE;
+    }
+
+    private McTransactionManager() {
+    }
+
+    /**
+     * Starts a transaction on the current thread or joins the one already open. Returns false when transaction
+     * could not be started, writes are auto committed in that case and {@link #end(boolean)} should not be called.
+     */
+    public boolean begin() {
+        Transaction transaction = transactions.get();
+        if (transaction != null) {
+            transaction.depth++;
+            transaction.nested.add(setSavePoint(transaction));
+            return true;
+        }
+        ConnectionSource connectionSource = null;
+        DatabaseConnection connection = null;
+        boolean saved = false;
+        try {
+            connectionSource = DataBaseUtils.getConnectionSource();
+            connection = connectionSource.getReadWriteConnection(null);
+            saved = connectionSource.saveSpecialConnection(connection);
+            boolean restoreAutoCommit = false;
+            if (connection.isAutoCommitSupported() && connection.isAutoCommit()) {
+                connection.setAutoCommit(false);
+                restoreAutoCommit = true;
+            }
+            transactions.set(new Transaction(connectionSource, connection, saved, restoreAutoCommit));
+            return true;
+        } catch (SQLException ex) {
+            _logger.error("Unable to start database transaction,", ex);
+            if (connection != null) {
+                release(connectionSource, connection, saved);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Ends the transaction started with {@link #begin()}. Outer most transaction is committed on success, rolled
+     * back otherwise. Failed nested transaction rolls back its own changes, outer one remains open.
+     */
+    public void end(boolean success) {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            _logger.warn("There is no database transaction to end");
+            return;
+        }
+        if (--transaction.depth > 0) {
+            Savepoint savepoint = transaction.nested.remove(transaction.nested.size() - 1);
+            if (!success) {
+                rollback(savepoint);
+            }
+            return;
+        }
+        transactions.remove();
+        boolean committed = false;
+        try {
+            if (success) {
+                transaction.connection.commit(null);
+                committed = true;
+            } else {
+                transaction.connection.rollback(null);
+            }
+        } catch (SQLException ex) {
+            _logger.error("Unable to {} database transaction,", success ? "commit" : "rollback", ex);
+            if (success) {
+                try {
+                    transaction.connection.rollback(null);
+                } catch (SQLException rex) {
+                    _logger.debug("Unable to rollback database transaction,", rex);
+                }
+            }
+        } finally {
+            if (transaction.restoreAutoCommit) {
+                try {
+                    transaction.connection.setAutoCommit(true);
+                } catch (SQLException ex) {
+                    _logger.debug("Unable to restore auto commit,", ex);
+                }
+            }
+            release(transaction.connectionSource, transaction.connection, transaction.saved);
+        }
+        TRANSACTION_TIME.recordSince(transaction.startTime);
+        McMetrics.getInstance().counter("mc_db_transactions_total", "Database transactions, per result",
+                "result", committed ? "commit" : "rollback").increment();
+        //Run even after rollback, tasks read the current state from database
+        for (Runnable runnable : transaction.afterCommit) {
+            try {
+                runnable.run();
+            } catch (Exception ex) {
+                _logger.error("Exception on after commit task,", ex);
+            }
+        }
+    }
+
+    /**
+     * Runs the task after the transaction of the current thread is ended, immediately when there is no transaction.
+     */
+    public void afterCommit(Runnable runnable) {
+        Transaction transaction = transactions.get();
+        if (transaction != null) {
+            transaction.afterCommit.add(runnable);
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Marks the current state of the transaction, replaces previous savepoint of the same nesting level. Returns
+     * null when there is no
+     * transaction or savepoints are not supported.
+     */
+    public Savepoint setSavePoint() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            return null;
+        }
+        return setSavePoint(transaction);
+    }
+
+    private Savepoint setSavePoint(Transaction transaction) {
+        try {
+            return transaction.connection.setSavePoint(SAVEPOINT_NAME + transaction.depth);
+        } catch (SQLException ex) {
+            _logger.debug("Unable to set savepoint,", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Rolls back changes done after the savepoint, transaction remains open.
+     */
+    public void rollback(Savepoint savepoint) {
+        Transaction transaction = transactions.get();
+        if (transaction == null || savepoint == null) {
+            return;
+        }
+        try {
+            transaction.connection.rollback(savepoint);
+        } catch (SQLException ex) {
+            _logger.error("Unable to rollback to savepoint,", ex);
+        }
+    }
+
+    private void release(ConnectionSource connectionSource, DatabaseConnection connection, boolean saved) {
+        if (saved) {
+            connectionSource.clearSpecialConnection(connection);
+        }
+        try {
+            connectionSource.releaseConnection(connection);
+        } catch (SQLException ex) {
+            _logger.error("Unable to release database connection,", ex);
+        }
+    }
+}
@@ -16,29 +16,42 @@
  */
 package org.mycontroller.standalone.db.dao;
 
+import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.api.jaxrs.model.AllowedResources;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
+import org.mycontroller.standalone.api.jaxrs.model.Query.COUNT_TYPE;
+import org.mycontroller.standalone.api.jaxrs.model.Query.FILTER_TYPE;
 import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.Node;
 import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.utils.McUtils;
 
 import com.j256.ormlite.dao.BaseDaoImpl;
 import com.j256.ormlite.dao.Dao;
 import com.j256.ormlite.dao.Dao.CreateOrUpdateStatus;
+import com.j256.ormlite.dao.Dao.DaoObserver;
 import com.j256.ormlite.dao.DaoManager;
+import com.j256.ormlite.field.DatabaseFieldConfig;
+import com.j256.ormlite.field.FieldType;
 import com.j256.ormlite.stmt.DeleteBuilder;
 import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.stmt.UpdateBuilder;
 import com.j256.ormlite.stmt.Where;
 import com.j256.ormlite.support.ConnectionSource;
+import com.j256.ormlite.table.DatabaseTableConfig;
 import com.j256.ormlite.table.TableInfo;
 import com.j256.ormlite.table.TableUtils;
 
@@ -50,12 +63,36 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
+    public static final long COUNT_CACHE_TIME = McUtils.ONE_SECOND * 30;
+    private static final int COUNT_CACHE_SIZE = 100;
+    //Dao is cached by DaoManager and shared by reloaded instances of this class, observer is registered once per dao
+    private static final Map<Dao<?, ?>, DaoObserver> OBSERVERS = Collections.synchronizedMap(
+            new WeakHashMap<Dao<?, ?>, DaoObserver>());
 
     private Dao<Tdao, Tid> dao;
+    private Dao<Tdao, Tid> shallowDao;
     private TableInfo<Tdao, Tid> tableInfo;
+    private final ConnectionSource connectionSource;
+    private final Class<Tdao> entity;
+    private final ConcurrentHashMap<String, CachedQuery<Tdao, Tid>> cachedQueries =
+            new ConcurrentHashMap<String, CachedQuery<Tdao, Tid>>();
+    private final ConcurrentHashMap<String, CachedCount> cachedCounts = new ConcurrentHashMap<String, CachedCount>();
+
+    private static class CachedCount {
+        private final long version;
+        private final long time = System.currentTimeMillis();
+        private final long count;
+
+        private CachedCount(long version, long count) {
+            this.version = version;
+            this.count = count;
+        }
+    }
 
     @SuppressWarnings("unchecked")
     public BaseAbstractDaoImpl(ConnectionSource connectionSource, Class<Tdao> entity) throws SQLException {
+        this.connectionSource = connectionSource;
+        this.entity = entity;
         dao = (Dao<Tdao, Tid>) DaoManager.createDao(connectionSource, entity);
         //Enable Auto commit
         //dao.setAutoCommit(connectionSource.getReadWriteConnection(), true);
@@ -68,6 +105,27 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
 
         //Create TableInfo object
         tableInfo = new TableInfo<Tdao, Tid>(connectionSource, (BaseDaoImpl<Tdao, Tid>) dao, entity);
+
+        //Track writes of this table, dao may be reloaded after restore or migration
+        TableVersions.changed(entity);
+        registerObserver(dao, entity);
+    }
+
+    private static void registerObserver(Dao<?, ?> dao, final Class<?> entity) {
+        synchronized (OBSERVERS) {
+            if (OBSERVERS.containsKey(dao)) {
+                return;
+            }
+            //Refers entity only, does not keep this instance or dao reachable
+            DaoObserver observer = new DaoObserver() {
+                @Override
+                public void onChange() {
+                    TableVersions.changed(entity);
+                }
+            };
+            dao.registerObserver(observer);
+            OBSERVERS.put(dao, observer);
+        }
     }
 
     protected boolean hasTable(String tablename) {
@@ -88,6 +146,62 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
         return tableInfo;
     }
 
+    /**
+     * Dao of the same table with foreign auto refresh disabled. Foreign fields are returned with id only, used
+     * with {@link org.mycontroller.standalone.db.BatchLoader} to load foreign objects in batch.
+     */
+    public synchronized Dao<Tdao, Tid> getShallowDao() throws SQLException {
+        if (shallowDao == null) {
+            String tableName = DatabaseTableConfig.extractTableName(entity);
+            List<DatabaseFieldConfig> fieldConfigs = new ArrayList<DatabaseFieldConfig>();
+            for (Class<?> classWalk = entity; classWalk != null; classWalk = classWalk.getSuperclass()) {
+                for (Field field : classWalk.getDeclaredFields()) {
+                    DatabaseFieldConfig fieldConfig = DatabaseFieldConfig.fromField(
+                            connectionSource.getDatabaseType(), tableName, field);
+                    if (fieldConfig != null) {
+                        fieldConfig.setForeignAutoRefresh(false);
+                        fieldConfigs.add(fieldConfig);
+                    }
+                }
+            }
+            //Not created with DaoManager, it returns already registered dao of the same class
+            shallowDao = new BaseDaoImpl<Tdao, Tid>(connectionSource,
+                    new DatabaseTableConfig<Tdao>(entity, tableName, fieldConfigs)) {
+            };
+        }
+        return shallowDao;
+    }
+
+    /**
+     * Reusable select query with 'eq' condition on these columns, joined with 'and'. Call count and latency of the
+     * query are available in {@link QueryStatistics}.
+     */
+    protected CachedQuery<Tdao, Tid> getCachedQuery(String... columns) {
+        StringBuilder name = new StringBuilder(tableInfo.getTableName()).append(":");
+        for (int index = 0; index < columns.length; index++) {
+            name.append(index == 0 ? "" : ",").append(columns[index]);
+        }
+        CachedQuery<Tdao, Tid> cachedQuery = cachedQueries.get(name.toString());
+        if (cachedQuery == null) {
+            cachedQueries.putIfAbsent(name.toString(),
+                    new CachedQuery<Tdao, Tid>(getDao(), name.toString(), columns));
+            cachedQuery = cachedQueries.get(name.toString());
+        }
+        return cachedQuery;
+    }
+
+    public List<Tdao> getAllShallow(String key, List<?> values) {
+        try {
+            if (values != null && !values.isEmpty()) {
+                return this.getShallowDao().queryBuilder().where().in(key, values).query();
+            }
+            return new ArrayList<Tdao>();
+        } catch (SQLException ex) {
+            _logger.error("unable to get all items key:{}, values:{}", key, values, ex);
+            return new ArrayList<Tdao>();
+        }
+    }
+
     private int addResourcesFilter(AllowedResources allowedResources, RESOURCE_TYPE type, Where<Tdao, Tid> where)
             throws SQLException {
         int count = 0;
@@ -118,12 +232,18 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
         return count;
     }
 
-    @SuppressWarnings("unchecked")
     public QueryResponse getQueryResponse(Query query)
             throws SQLException {
+        return getQueryResponse(query, this.getDao());
+    }
+
+    @SuppressWarnings("unchecked")
+    public QueryResponse getQueryResponse(Query query, Dao<Tdao, Tid> queryDao)
+            throws SQLException {
         _logger.debug("Input query: {}", query);
-        QueryBuilder<Tdao, Tid> queryBuilder = this.getDao().queryBuilder();
-        Where<Tdao, Tid> whereMain = this.getDao().queryBuilder().where();
+        String countKey = getCountKey(query);
+        QueryBuilder<Tdao, Tid> queryBuilder = queryDao.queryBuilder();
+        Where<Tdao, Tid> whereMain = queryDao.queryBuilder().where();
 
         AllowedResources allowedResources = null;
         RESOURCE_TYPE allowedResourceType = null;
@@ -138,7 +258,7 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
                 if (query.getFilters().get(key) instanceof List<?>) {
                     for (Object value : (List<?>) query.getFilters().get(key)) {
                         if (value instanceof String) {//If it's string add one by one
-                            whereMain.like(key, "%" + value + "%");
+                            addStringFilter(whereMain, key, (String) value, query.getFilterMode());
                             whereCount++;
                         } else {//If it's integer, float, long, etc., add it under IN type
                             whereMain.in(key, (List<?>) query.getFilters().get(key));
@@ -164,7 +284,7 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
         }
 
         //Set filtered count result
-        QueryBuilder<Tdao, Tid> queryBuilderFilteredCount = this.getDao().queryBuilder();
+        QueryBuilder<Tdao, Tid> queryBuilderFilteredCount = queryDao.queryBuilder();
         if (whereCount != 0) {
             if (query.isAndQuery()) {
                 whereMain.and(whereCount);
@@ -182,11 +302,11 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
         if (whereMain != null) {
             queryBuilderFilteredCount.setWhere(whereMain);
         }
-        query.setFilteredCount(queryBuilderFilteredCount.countOf());
+        query.setFilteredCount(getCount(countKey + ":filtered", queryBuilderFilteredCount, query.getCountMode()));
 
         // Add total count
         //-----------------
-        QueryBuilder<Tdao, Tid> totalItemsBuilder = this.getDao().queryBuilder();
+        QueryBuilder<Tdao, Tid> totalItemsBuilder = queryDao.queryBuilder();
         int totalItemsAndCount = 0;
         if (query.getTotalCountAltColumn() != null && query.getFilters().get(query.getTotalCountAltColumn()) != null) {
             totalItemsBuilder.where().eq(query.getTotalCountAltColumn(),
@@ -207,14 +327,26 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
 
         if (totalItemsAndCount > 1) {
             totalItemsBuilder.where().and(totalItemsAndCount);
-            query.setTotalItems(totalItemsBuilder.countOf());
-        } else if (totalItemsAndCount != 0) {
-            query.setTotalItems(totalItemsBuilder.countOf());
-        } else {
-            query.setTotalItems(this.getDao().countOf());
+        } else if (totalItemsAndCount == 0) {
+            //Count all the rows
+            totalItemsBuilder = queryDao.queryBuilder();
         }
+        query.setTotalItems(getCount(countKey + ":total", totalItemsBuilder, query.getCountMode()));
         //-----------------
 
+        //Keyset pagination, continues after the row of the cursor instead of skipping rows with offset
+        boolean ascending = query.getOrder().equalsIgnoreCase(Query.ORDER_ASC);
+        FieldType orderField = getKeysetField(query);
+        KeysetCursor cursor = orderField != null ? decodeCursor(query.getCursor(), orderField) : null;
+        if (cursor != null) {
+            Where<Tdao, Tid> where = whereMain != null ? whereMain : queryDao.queryBuilder().where();
+            addKeysetCondition(where, orderField, cursor, ascending);
+            if (whereMain != null) {
+                where.and(2);
+            }
+            whereMain = where;
+        }
+
         if (whereMain != null) {
             queryBuilder.setWhere(whereMain);
         }
@@ -223,19 +355,135 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
         if (query.getPageLimit() > 0) {
             queryBuilder.limit(query.getPageLimit());
         }
-        if (query.getStartingRow() > 0) {
+        if (cursor == null && query.getStartingRow() > 0) {
             queryBuilder.offset(query.getStartingRow());
         }
 
         if (query.isOrderByRaw()) {
             queryBuilder.orderByRaw(query.getOrderBy() + query.getOrder());
         } else {
-            queryBuilder.orderBy(query.getOrderBy(), query.getOrder().equalsIgnoreCase(Query.ORDER_ASC));
+            queryBuilder.orderBy(query.getOrderBy(), ascending);
+            //Unique order, required for keyset
+            if (orderField != null && !orderField.isId()) {
+                queryBuilder.orderBy(tableInfo.getIdField().getColumnName(), ascending);
+            }
+        }
+        List<Tdao> rows = queryBuilder.query();
+        query.setNextCursor(null);
+        if (orderField != null && query.getPageLimit() > 0 && rows.size() == query.getPageLimit()) {
+            query.setNextCursor(encodeCursor(orderField, rows.get(rows.size() - 1)));
         }
 
         //Remove allowed resources from query, to avoid send list to user
         query.getFilters().put(AllowedResources.KEY_ALLOWED_RESOURCES, null);
-        return QueryResponse.builder().data(queryBuilder.query()).query(query).build();
+        return QueryResponse.builder().data(rows).query(query).build();
+    }
+
+    private void addStringFilter(Where<Tdao, Tid> where, String key, String value, FILTER_TYPE filterType)
+            throws SQLException {
+        switch (filterType) {
+            case EXACT:
+                where.eq(key, value);
+                break;
+            case PREFIX:
+                where.like(key, value + "%");
+                break;
+            default:
+                where.like(key, "%" + value + "%");
+                break;
+        }
+    }
+
+    private String getCountKey(Query query) {
+        //Sorted, same filters give same key
+        return new TreeMap<String, Object>(query.getFilters()) + ":" + query.isAndQuery() + ":"
+                + query.getFilterMode() + ":" + query.getIdColumn() + ":" + query.getTotalCountAltColumn();
+    }
+
+    /**
+     * Count is reused till the table is changed. Approximate count is reused for {@link #COUNT_CACHE_TIME} even
+     * when the table is changed.
+     */
+    private Long getCount(String key, QueryBuilder<Tdao, Tid> queryBuilder, COUNT_TYPE countType)
+            throws SQLException {
+        if (countType == COUNT_TYPE.NONE) {
+            return null;
+        }
+        long version = TableVersions.getVersion(entity);
+        CachedCount cachedCount = cachedCounts.get(key);
+        if (cachedCount != null && (cachedCount.version == version || (countType == COUNT_TYPE.APPROXIMATE
+                && System.currentTimeMillis() - cachedCount.time < COUNT_CACHE_TIME))) {
+            return cachedCount.count;
+        }
+        long count = queryBuilder.countOf();
+        if (cachedCounts.size() >= COUNT_CACHE_SIZE) {
+            cachedCounts.clear();
+        }
+        cachedCounts.put(key, new CachedCount(version, count));
+        return count;
+    }
+
+    /**
+     * Order by column, when keyset pagination is possible on it. Null values can not be compared and their order
+     * differs per database, hence the column should be not null.
+     */
+    private FieldType getKeysetField(Query query) {
+        FieldType idField = tableInfo.getIdField();
+        if (query.isOrderByRaw() || idField == null || !KeysetCursor.isKeysetType(idField.getType())) {
+            return null;
+        }
+        FieldType orderField;
+        try {
+            orderField = tableInfo.getFieldTypeByColumnName(query.getOrderBy());
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+        if (orderField.isForeign() || (!orderField.isId() && orderField.isCanBeNull())
+                || !KeysetCursor.isKeysetType(orderField.getType())) {
+            return null;
+        }
+        return orderField;
+    }
+
+    private void addKeysetCondition(Where<Tdao, Tid> where, FieldType orderField, KeysetCursor cursor,
+            boolean ascending) throws SQLException {
+        String idColumn = tableInfo.getIdField().getColumnName();
+        if (orderField.isId()) {
+            addAfter(where, idColumn, cursor.getId(), ascending);
+            return;
+        }
+        addAfter(where, orderField.getColumnName(), cursor.getValue(), ascending);
+        where.eq(orderField.getColumnName(), cursor.getValue());
+        addAfter(where, idColumn, cursor.getId(), ascending);
+        where.and(2);
+        where.or(2);
+    }
+
+    private void addAfter(Where<Tdao, Tid> where, String column, Object value, boolean ascending)
+            throws SQLException {
+        if (ascending) {
+            where.gt(column, value);
+        } else {
+            where.lt(column, value);
+        }
+    }
+
+    private String encodeCursor(FieldType orderField, Tdao row) throws SQLException {
+        return KeysetCursor.encode(tableInfo.getIdField().extractJavaFieldValue(row),
+                orderField.extractJavaFieldValue(row));
+    }
+
+    private KeysetCursor decodeCursor(String cursor, FieldType orderField) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return KeysetCursor.decode(cursor, tableInfo.getIdField().getType(), orderField.getType());
+        } catch (IllegalArgumentException ex) {
+            //Not a cursor of this order, continue with page
+            _logger.debug("Invalid cursor:{}, order by:{}", cursor, orderField.getColumnName(), ex);
+            return null;
+        }
     }
 
     //Create new item
@@ -413,6 +661,9 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
 
     public List<Tdao> getAll(String key, Object value) {
         try {
+            if (value != null) {
+                return getCachedQuery(key).query(value);
+            }
             return this.getDao().queryBuilder().where().eq(key, value).query();
         } catch (SQLException ex) {
             _logger.error("unable to get all items key:{}, value:{}", key, value, ex);
@@ -422,6 +673,9 @@ public abstract class BaseAbstractDaoImpl<Tdao, Tid> {
 
     public Tdao get(String key, Object value) {
         try {
+            if (value != null) {
+                return getCachedQuery(key).queryForFirst(value);
+            }
             return this.getDao().queryBuilder().where().eq(key, value).queryForFirst();
         } catch (SQLException ex) {
             _logger.error("unable to get all items key:{}, value:{}", key, value, ex);
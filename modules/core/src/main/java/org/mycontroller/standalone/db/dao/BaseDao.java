@@ -63,6 +63,8 @@ public interface BaseDao<Tdao, Tid> {
 
     List<Tdao> getAll(String key, Object value);
 
+    List<Tdao> getAllShallow(String key, List<?> values);
+
     List<Tdao> getAllData(Query query);
 
     Tdao get(String key, Object value);
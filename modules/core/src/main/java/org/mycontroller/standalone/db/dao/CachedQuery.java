@@ -0,0 +1,106 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.dao;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import com.j256.ormlite.dao.Dao;
+import com.j256.ormlite.stmt.PreparedQuery;
+import com.j256.ormlite.stmt.QueryBuilder;
+import com.j256.ormlite.stmt.SelectArg;
+import com.j256.ormlite.stmt.Where;
+
+/**
+ * Select query with 'eq' condition on fixed columns. Prepared once and executed with new values through
+ * {@link SelectArg} placeholders. Values are kept in the arguments of prepared query, hence each thread gets
+ * own prepared query.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class CachedQuery<T, ID> {
+    private final Dao<T, ID> dao;
+    private final String[] columns;
+    private final QueryStatistics statistics;
+    private final ThreadLocal<Prepared> prepared = new ThreadLocal<Prepared>();
+
+    private class Prepared {
+        private PreparedQuery<T> query;
+        private SelectArg[] arguments;
+    }
+
+    public CachedQuery(Dao<T, ID> dao, String name, String[] columns) {
+        this.dao = dao;
+        this.columns = columns;
+        this.statistics = QueryStatistics.get(name);
+    }
+
+    private PreparedQuery<T> prepare(Object[] values) throws SQLException {
+        if (values.length != columns.length) {
+            throw new SQLException("Expected " + columns.length + " values, received " + values.length);
+        }
+        Prepared current = prepared.get();
+        if (current == null) {
+            current = new Prepared();
+            current.arguments = new SelectArg[columns.length];
+            QueryBuilder<T, ID> queryBuilder = dao.queryBuilder();
+            Where<T, ID> where = queryBuilder.where();
+            for (int index = 0; index < columns.length; index++) {
+                current.arguments[index] = new SelectArg();
+                where.eq(columns[index], current.arguments[index]);
+            }
+            if (columns.length > 1) {
+                where.and(columns.length);
+            }
+            current.query = queryBuilder.prepare();
+            prepared.set(current);
+        }
+        for (int index = 0; index < values.length; index++) {
+            current.arguments[index].setValue(values[index]);
+        }
+        return current.query;
+    }
+
+    public List<T> query(Object... values) throws SQLException {
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            List<T> result = dao.query(prepare(values));
+            success = true;
+            return result;
+        } finally {
+            statistics.update(System.nanoTime() - startTime, success);
+        }
+    }
+
+    public T queryForFirst(Object... values) throws SQLException {
+        long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = dao.queryForFirst(prepare(values));
+            success = true;
+            return result;
+        } finally {
+            statistics.update(System.nanoTime() - startTime, success);
+        }
+    }
+
+    public QueryStatistics getStatistics() {
+        return statistics;
+    }
+}
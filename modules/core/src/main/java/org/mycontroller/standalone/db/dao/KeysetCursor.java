@@ -0,0 +1,104 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.dao;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.binary.Base64;
+
+/**
+ * Position of keyset pagination, values of id and order by columns of the last row. Sent to the client as URL safe
+ * Base64 of the values separated by new line.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+class KeysetCursor {
+    private static final String SEPARATOR = "\n";
+
+    private final Object id;
+    private final Object value;
+
+    KeysetCursor(Object id, Object value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    Object getId() {
+        return id;
+    }
+
+    Object getValue() {
+        return value;
+    }
+
+    static boolean isKeysetType(Class<?> type) {
+        return type.isEnum() || type == String.class || type == Integer.class || type == int.class
+                || type == Long.class || type == long.class || type == Double.class || type == double.class
+                || type == Float.class || type == float.class || type == Short.class || type == short.class
+                || type == Boolean.class || type == boolean.class;
+    }
+
+    /**
+     * Returns null when id or value is null, row can not be a position.
+     */
+    static String encode(Object id, Object value) {
+        if (id == null || value == null) {
+            return null;
+        }
+        String cursor = toKeysetString(id) + SEPARATOR + toKeysetString(value);
+        return Base64.encodeBase64URLSafeString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Throws {@link IllegalArgumentException} when cursor is not of the given types.
+     */
+    static KeysetCursor decode(String cursor, Class<?> idType, Class<?> valueType) {
+        String decoded = new String(Base64.decodeBase64(cursor), StandardCharsets.UTF_8);
+        int index = decoded.indexOf(SEPARATOR);
+        if (index == -1) {
+            throw new IllegalArgumentException("separator not found");
+        }
+        return new KeysetCursor(
+                toKeysetValue(idType, decoded.substring(0, index)),
+                toKeysetValue(valueType, decoded.substring(index + 1)));
+    }
+
+    private static String toKeysetString(Object value) {
+        return value instanceof Enum<?> ? ((Enum<?>) value).name() : String.valueOf(value);
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object toKeysetValue(Class<?> type, String value) {
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<Enum>) type, value);
+        } else if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        } else if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        } else if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        } else if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+        } else if (type == Short.class || type == short.class) {
+            return Short.valueOf(value);
+        } else if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        return value;
+    }
+}
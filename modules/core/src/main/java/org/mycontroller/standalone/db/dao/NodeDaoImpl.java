@@ -25,12 +25,12 @@ import org.mycontroller.standalone.api.jaxrs.model.AllowedResources;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.auth.AuthUtils;
+import org.mycontroller.standalone.db.BatchLoader;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.Node;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_PRESENTATION;
 
-import com.j256.ormlite.stmt.QueryBuilder;
 import com.j256.ormlite.support.ConnectionSource;
 
 import lombok.extern.slf4j.Slf4j;
@@ -59,9 +59,7 @@ public class NodeDaoImpl extends BaseAbstractDaoImpl<Node, Integer> implements N
     @Override
     public Node get(Integer gatewayId, String nodeEui) {
         try {
-            QueryBuilder<Node, Integer> queryBuilder = this.getDao().queryBuilder();
-            queryBuilder.where().eq(Node.KEY_GATEWAY_ID, gatewayId).and().eq(Node.KEY_EUI, nodeEui);
-            return queryBuilder.queryForFirst();
+            return getCachedQuery(Node.KEY_GATEWAY_ID, Node.KEY_EUI).queryForFirst(gatewayId, nodeEui);
         } catch (SQLException ex) {
             _logger.error("unable to get Node", ex);
             return null;
@@ -77,7 +75,11 @@ public class NodeDaoImpl extends BaseAbstractDaoImpl<Node, Integer> implements N
     public QueryResponse getAll(Query query) {
         try {
             query.setIdColumn(Node.KEY_ID);
-            return this.getQueryResponse(query);
+            QueryResponse queryResponse = super.getQueryResponse(query, getShallowDao());
+            @SuppressWarnings("unchecked")
+            List<Node> nodes = (List<Node>) queryResponse.getData();
+            BatchLoader.loadNodes(nodes);
+            return queryResponse;
         } catch (SQLException ex) {
             _logger.error("unable to run query:[{}]", query, ex);
             return null;
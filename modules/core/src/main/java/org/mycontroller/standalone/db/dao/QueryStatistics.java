@@ -0,0 +1,123 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
+
+/**
+ * Call count and latency of a database query. Kept by name, survives dao reload.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class QueryStatistics {
+    private static final ConcurrentHashMap<String, QueryStatistics> STATISTICS =
+            new ConcurrentHashMap<String, QueryStatistics>();
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String name;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong maxTime = new AtomicLong();
+    private final McHistogram histogram;
+
+    private QueryStatistics(String name) {
+        this.name = name;
+        this.histogram = McMetrics.getInstance().histogram("mc_db_query_seconds", "Database query time",
+                "query", name);
+    }
+
+    public static QueryStatistics get(String name) {
+        QueryStatistics statistics = STATISTICS.get(name);
+        if (statistics == null) {
+            STATISTICS.putIfAbsent(name, new QueryStatistics(name));
+            statistics = STATISTICS.get(name);
+        }
+        return statistics;
+    }
+
+    public void update(long timeNanos, boolean success) {
+        calls.incrementAndGet();
+        if (!success) {
+            errors.incrementAndGet();
+        }
+        totalTime.addAndGet(timeNanos);
+        histogram.recordNanos(timeNanos);
+        long max = maxTime.get();
+        while (timeNanos > max && !maxTime.compareAndSet(max, timeNanos)) {
+            max = maxTime.get();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    public long getTotalTimeNanos() {
+        return totalTime.get();
+    }
+
+    public long getMaxTimeNanos() {
+        return maxTime.get();
+    }
+
+    public Map<String, Object> toMap() {
+        HashMap<String, Object> map = new HashMap<String, Object>();
+        long callsCount = calls.get();
+        map.put("name", name);
+        map.put("calls", callsCount);
+        map.put("errors", errors.get());
+        map.put("totalTime", totalTime.get() / NANOS_PER_MILLI);
+        map.put("averageTime", callsCount > 0 ? totalTime.get() / NANOS_PER_MILLI / callsCount : 0);
+        map.put("maxTime", maxTime.get() / NANOS_PER_MILLI);
+        return map;
+    }
+
+    /** Statistics of all queries, query with most time spent first. Time in milliseconds */
+    public static List<Map<String, Object>> getAll() {
+        List<QueryStatistics> queries = new ArrayList<QueryStatistics>(STATISTICS.values());
+        Collections.sort(queries, new Comparator<QueryStatistics>() {
+            @Override
+            public int compare(QueryStatistics query1, QueryStatistics query2) {
+                return Long.compare(query2.getTotalTimeNanos(), query1.getTotalTimeNanos());
+            }
+        });
+        List<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+        for (QueryStatistics query : queries) {
+            statistics.add(query.toMap());
+        }
+        return statistics;
+    }
+}
@@ -38,6 +38,8 @@ public interface RuleDefinitionDao extends BaseDao<RuleDefinitionTable, Integer>
 
     List<RuleDefinitionTable> getAll(RESOURCE_TYPE resourceType, Integer resourceId);
 
+    void updateDampeningState(List<RuleDefinitionTable> ruleDefinitions);
+
     void disableAllTriggered();
 
     QueryResponse getAll(Query query);
@@ -19,6 +19,7 @@ package org.mycontroller.standalone.db.dao;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
@@ -101,9 +102,8 @@ public class RuleDefinitionDaoImpl extends BaseAbstractDaoImpl<RuleDefinitionTab
     public List<RuleDefinitionTable> getAll(RESOURCE_TYPE resourceType, Integer resourceId) {
         List<RuleDefinitionTable> definitions = null;
         try {
-            definitions = this.getDao().queryBuilder().where().eq(RuleDefinitionTable.KEY_RESOURCE_TYPE, resourceType)
-                    .and()
-                    .eq(RuleDefinitionTable.KEY_RESOURCE_ID, resourceId).query();
+            definitions = getCachedQuery(RuleDefinitionTable.KEY_RESOURCE_TYPE, RuleDefinitionTable.KEY_RESOURCE_ID)
+                    .query(resourceType, resourceId);
         } catch (SQLException ex) {
             _logger.error("unable to get rule definitions for ResourceTye:{}, ResourceId:{}", resourceType,
                     resourceId, ex);
@@ -114,4 +114,28 @@ public class RuleDefinitionDaoImpl extends BaseAbstractDaoImpl<RuleDefinitionTab
         return definitions;
 
     }
+
+    @Override
+    public void updateDampeningState(final List<RuleDefinitionTable> ruleDefinitions) {
+        try {
+            //Updates only dampening columns, all the rows in single transaction
+            getDao().callBatchTasks(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    for (RuleDefinitionTable ruleDefinition : ruleDefinitions) {
+                        UpdateBuilder<RuleDefinitionTable, Integer> updateBuilder = getDao().updateBuilder();
+                        updateBuilder.updateColumnValue(RuleDefinitionTable.KEY_DAMPENING_PROPERTIES,
+                                ruleDefinition.getDampeningProperties());
+                        updateBuilder.updateColumnValue(RuleDefinitionTable.KEY_LAST_TRIGGER,
+                                ruleDefinition.getLastTrigger());
+                        updateBuilder.where().eq(RuleDefinitionTable.KEY_ID, ruleDefinition.getId());
+                        updateBuilder.update();
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception ex) {
+            _logger.error("unable to update dampening state of rules:{}", ruleDefinitions, ex);
+        }
+    }
 }
@@ -25,6 +25,7 @@ import org.mycontroller.standalone.api.jaxrs.model.AllowedResources;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.auth.AuthUtils;
+import org.mycontroller.standalone.db.BatchLoader;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.DbException;
 import org.mycontroller.standalone.db.tables.Node;
@@ -200,10 +201,7 @@ public class SensorDaoImpl extends BaseAbstractDaoImpl<Sensor, Integer> implemen
     public Sensor get(Integer nodeId, String sensorId) {
         try {
             nodeIdSensorIdnullCheck(nodeId, sensorId);
-            return this.getDao().queryForFirst(
-                    this.getDao().queryBuilder()
-                            .where().eq(Sensor.KEY_NODE_ID, nodeId)
-                            .and().eq(Sensor.KEY_SENSOR_ID, sensorId).prepare());
+            return getCachedQuery(Sensor.KEY_NODE_ID, Sensor.KEY_SENSOR_ID).queryForFirst(nodeId, sensorId);
         } catch (SQLException ex) {
             _logger.error("unable to get", ex);
         } catch (DbException dbEx) {
@@ -292,7 +290,11 @@ public class SensorDaoImpl extends BaseAbstractDaoImpl<Sensor, Integer> implemen
     public QueryResponse getAll(Query query) {
         try {
             query.setIdColumn(Sensor.KEY_ID);
-            return super.getQueryResponse(query);
+            QueryResponse queryResponse = super.getQueryResponse(query, getShallowDao());
+            @SuppressWarnings("unchecked")
+            List<Sensor> sensors = (List<Sensor>) queryResponse.getData();
+            BatchLoader.loadSensors(sensors, true);
+            return queryResponse;
         } catch (SQLException ex) {
             _logger.error("unable to run query:[{}]", query, ex);
             return null;
@@ -25,6 +25,7 @@ import org.mycontroller.standalone.api.jaxrs.model.AllowedResources;
 import org.mycontroller.standalone.api.jaxrs.model.Query;
 import org.mycontroller.standalone.api.jaxrs.model.QueryResponse;
 import org.mycontroller.standalone.auth.AuthUtils;
+import org.mycontroller.standalone.db.BatchLoader;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.DbException;
 import org.mycontroller.standalone.db.tables.Sensor;
@@ -181,10 +182,8 @@ public class SensorVariableDaoImpl extends BaseAbstractDaoImpl<SensorVariable, I
     public SensorVariable get(Integer sensorRefId, MESSAGE_TYPE_SET_REQ messageVariableType) {
         try {
             nodeIdSensorIdnullCheck(sensorRefId, messageVariableType);
-            return this.getDao().queryForFirst(
-                    this.getDao().queryBuilder()
-                            .where().eq(SensorVariable.KEY_SENSOR_DB_ID, sensorRefId)
-                            .and().eq(SensorVariable.KEY_VARIABLE_TYPE, messageVariableType).prepare());
+            return getCachedQuery(SensorVariable.KEY_SENSOR_DB_ID, SensorVariable.KEY_VARIABLE_TYPE)
+                    .queryForFirst(sensorRefId, messageVariableType);
         } catch (SQLException ex) {
             _logger.error("unable to get", ex);
         } catch (DbException dbEx) {
@@ -296,7 +295,11 @@ public class SensorVariableDaoImpl extends BaseAbstractDaoImpl<SensorVariable, I
     @Override
     public QueryResponse getAll(Query query) {
         try {
-            return super.getQueryResponse(query);
+            QueryResponse queryResponse = super.getQueryResponse(query, getShallowDao());
+            @SuppressWarnings("unchecked")
+            List<SensorVariable> sensorVariables = (List<SensorVariable>) queryResponse.getData();
+            BatchLoader.loadSensorVariables(sensorVariables);
+            return queryResponse;
         } catch (SQLException ex) {
             _logger.error("Error while processing for {}", query, ex);
             return null;
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.dao;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mycontroller.standalone.db.McTransactionManager;
+
+/**
+ * Change counter per table. Every dao registers an observer with ORMLite, which is notified after each create,
+ * update and delete, including update and delete builders. Raw sql statements are not tracked.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TableVersions {
+    private static final ConcurrentHashMap<Class<?>, AtomicLong> VERSIONS =
+            new ConcurrentHashMap<Class<?>, AtomicLong>();
+
+    private TableVersions() {
+
+    }
+
+    /**
+     * Inside a transaction the counter is changed after commit, readers on other threads do not cache uncommitted
+     * state with the new version.
+     */
+    public static void changed(Class<?> entity) {
+        final AtomicLong counter = getCounter(entity);
+        McTransactionManager.getInstance().afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                counter.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Combined version of the given tables. Counters never decrease, so the sum changes on any write to any of them.
+     */
+    public static long getVersion(Class<?>... entities) {
+        long version = 0;
+        for (Class<?> entity : entities) {
+            version += getCounter(entity).get();
+        }
+        return version;
+    }
+
+    private static AtomicLong getCounter(Class<?> entity) {
+        AtomicLong counter = VERSIONS.get(entity);
+        if (counter == null) {
+            AtomicLong newCounter = new AtomicLong();
+            counter = VERSIONS.putIfAbsent(entity, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+}
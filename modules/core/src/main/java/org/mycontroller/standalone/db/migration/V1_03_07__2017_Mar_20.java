@@ -0,0 +1,56 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.migration;
+
+import java.sql.Connection;
+
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.SystemJob;
+import org.mycontroller.standalone.rule.McRuleEngine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class V1_03_07__2017_Mar_20 extends MigrationBase {
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        _logger.debug("Migration triggered.");
+
+        //Load dao's
+        loadDao();
+
+        /** Migration comments
+         *  Description:
+         *  1. Remove 5 seconds rule definition engine system job,
+         *     rules are evaluated by McRuleScheduler on deadline and on state change
+         **/
+
+        for (SystemJob systemJob : DaoUtils.getSystemJobDao().getAll(SystemJob.KEY_CLASS_NAME,
+                McRuleEngine.class.getName())) {
+            DaoUtils.getSystemJobDao().delete(systemJob);
+            _logger.debug("Removed system job:{}", systemJob);
+        }
+
+        reloadDao();
+        _logger.info("Migration completed successfully.");
+    }
+}
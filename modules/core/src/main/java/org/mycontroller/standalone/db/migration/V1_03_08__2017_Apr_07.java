@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.migration;
+
+import java.sql.Connection;
+
+import org.mycontroller.standalone.db.DB_TABLES;
+import org.mycontroller.standalone.db.tables.ResourcesLogs;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class V1_03_08__2017_Apr_07 extends MigrationBase {
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        _logger.debug("Migration triggered.");
+
+        //Load dao's
+        loadDao();
+
+        /** Migration comments
+         *  Description:
+         *  1. Index on resources logs timestamp and resource id, for keyset pagination and resource filter.
+         *     Created with plain sql, createIndex of mysql client creates unique index
+         **/
+
+        createIndex(DB_TABLES.RESOURCES_LOGS, ResourcesLogs.KEY_TIMESTAMP);
+        createIndex(DB_TABLES.RESOURCES_LOGS, ResourcesLogs.KEY_RESOURCE_ID);
+
+        reloadDao();
+        _logger.info("Migration completed successfully.");
+    }
+
+    private void createIndex(String tableName, String columnName) throws Exception {
+        if (sqlClient().hasColumn(tableName, columnName)) {
+            sqlClient().executeRaw("CREATE INDEX " + tableName + "_" + columnName.toLowerCase() + "_idx ON "
+                    + sqlClient().getTableName(tableName) + "(" + sqlClient().getColumnName(columnName) + ")");
+            _logger.debug("Index created on table:{}, column:{}", tableName, columnName);
+        }
+    }
+}
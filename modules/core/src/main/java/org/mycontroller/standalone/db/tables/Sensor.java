@@ -16,6 +16,7 @@
  */
 package org.mycontroller.standalone.db.tables;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.mycontroller.standalone.db.DB_TABLES;
@@ -32,6 +33,7 @@ import com.j256.ormlite.table.DatabaseTable;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
@@ -44,7 +46,8 @@ import lombok.ToString;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(includeFieldNames = true)
+@ToString(includeFieldNames = true, exclude = { "preloadedVariables" })
+@EqualsAndHashCode(exclude = { "preloadedVariables" })
 public class Sensor {
     public static final String KEY_ID = "id";
     public static final String KEY_SENSOR_ID = "sensorId";
@@ -81,15 +84,29 @@ public class Sensor {
 
     private List<String> variableTypes;
 
+    //Variables loaded in batch for list responses (BatchLoader), avoids query per sensor
+    @JsonIgnore
+    private List<SensorVariable> preloadedVariables;
+
     public List<String> getVariableTypes() {
         if (this.variableTypes == null) {
-            this.variableTypes = SensorUtils.getVariableTypes(this);
+            if (this.preloadedVariables != null) {
+                this.variableTypes = new ArrayList<String>();
+                for (SensorVariable sensorVariable : this.preloadedVariables) {
+                    this.variableTypes.add(sensorVariable.getVariableType().getText());
+                }
+            } else {
+                this.variableTypes = SensorUtils.getVariableTypes(this);
+            }
         }
         return this.variableTypes;
     }
 
     @JsonIgnore
     public List<SensorVariable> getVariables() {
+        if (this.preloadedVariables != null) {
+            return new ArrayList<SensorVariable>(this.preloadedVariables);
+        }
         return DaoUtils.getSensorVariableDao().getAllBySensorId(this.getId());
     }
 
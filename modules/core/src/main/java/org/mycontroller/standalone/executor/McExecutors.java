@@ -0,0 +1,297 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.executor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mycontroller.standalone.AppProperties;
+import org.mycontroller.standalone.monitoring.McGauge;
+import org.mycontroller.standalone.monitoring.McMetrics;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Central place for threads of the application. Each subsystem has a named bounded pool, pollers and periodic
+ * checks are triggered by one shared scheduled executor, blocking work should be handed to a pool. Pools are
+ * created on first use and shutdown from {@link org.mycontroller.standalone.AppShutdownHook}.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McExecutors {
+    public static final int SCHEDULER_THREADS = 4;
+    public static final long SHUTDOWN_WAIT_TIME = McUtils.ONE_SECOND * 5;
+
+    public enum POOL {
+        EXTERNAL_SERVER("External server", 2, 1000),
+        RULE_ENGINE("Rule engine", 2, 500),
+        OPERATION("Operation", 4, 100),
+        SMART_SLEEP("Smart sleep", 2, 500),
+        //Long running blocking readers (ethernet gateway listener) and poller cycles, no queue
+        GATEWAY_IO("Gateway I/O", 32, 0),
+        BACKGROUND("Background", 2, 100);
+
+        private final String value;
+        private final int threads;
+        private final int queueSize;
+
+        private POOL(String value, int threads, int queueSize) {
+            this.value = value;
+            this.threads = threads;
+            this.queueSize = queueSize;
+        }
+
+        public String getText() {
+            return this.value;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public String getThreadPrefix() {
+            return "mc-" + name().toLowerCase().replace('_', '-') + "-";
+        }
+
+        public static POOL fromString(String text) {
+            if (text != null) {
+                for (POOL type : POOL.values()) {
+                    if (text.equalsIgnoreCase(type.getText())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final HashMap<POOL, ThreadPoolExecutor> pools = new HashMap<POOL, ThreadPoolExecutor>();
+    private final HashMap<POOL, AtomicLong> rejected = new HashMap<POOL, AtomicLong>();
+    private ScheduledThreadPoolExecutor scheduler;
+    private boolean shutdown = false;
+
+    //Do not load until some calls getInstance
+    private static class McExecutorsHelper {
+        private static final McExecutors INSTANCE = new McExecutors();
+    }
+
+    public static McExecutors getInstance() {
+        return McExecutorsHelper.INSTANCE;
+    }
+
+    private McExecutors() {
+        for (POOL pool : POOL.values()) {
+            rejected.put(pool, new AtomicLong(0));
+            registerMetrics(pool);
+        }
+    }
+
+    private void registerMetrics(final POOL pool) {
+        McMetrics.getInstance().register(new McGauge("mc_thread_pool_active", "pool", pool.getText()) {
+            @Override
+            public double getValue() {
+                ThreadPoolExecutor executor = getExistingPool(pool);
+                return executor != null ? executor.getActiveCount() : 0;
+            }
+        }, "Threads actively executing tasks");
+        McMetrics.getInstance().register(new McGauge("mc_thread_pool_queued", "pool", pool.getText()) {
+            @Override
+            public double getValue() {
+                ThreadPoolExecutor executor = getExistingPool(pool);
+                return executor != null ? executor.getQueue().size() : 0;
+            }
+        }, "Tasks waiting in thread pool queue");
+        McMetrics.getInstance().register(new McGauge("mc_thread_pool_rejected", "pool", pool.getText()) {
+            @Override
+            public double getValue() {
+                return rejected.get(pool).get();
+            }
+        }, "Tasks rejected by thread pool");
+    }
+
+    private synchronized ThreadPoolExecutor getExistingPool(POOL pool) {
+        return pools.get(pool);
+    }
+
+    private static class McThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        private McThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + threadNumber.getAndIncrement());
+            //Keeps application alive, when web server is stopped for restore. Stopped by shutdown hook
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+
+    //Virtual thread factory via reflection, application compiled for java 8
+    private static ThreadFactory getVirtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (Exception ex) {
+            _logger.debug("Virtual threads not supported on this JVM, {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized ThreadPoolExecutor getPool(POOL pool) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executors shutdown");
+        }
+        ThreadPoolExecutor executor = pools.get(pool);
+        if (executor == null) {
+            ThreadFactory threadFactory = null;
+            if (AppProperties.getInstance().isVirtualThreadsEnabled()) {
+                threadFactory = getVirtualThreadFactory(pool.getThreadPrefix());
+            }
+            if (threadFactory == null) {
+                threadFactory = new McThreadFactory(pool.getThreadPrefix());
+            }
+            BlockingQueue<Runnable> queue;
+            int coreThreads = pool.threads;
+            if (pool.queueSize > 0) {
+                queue = new ArrayBlockingQueue<Runnable>(pool.queueSize);
+            } else {
+                queue = new SynchronousQueue<Runnable>();
+                coreThreads = 0;
+            }
+            executor = new ThreadPoolExecutor(coreThreads, pool.threads, 60L, TimeUnit.SECONDS, queue,
+                    threadFactory);
+            pools.put(pool, executor);
+            _logger.debug("Thread pool created:{}, threads:{}, queue size:{}", pool.getText(), pool.threads,
+                    pool.queueSize);
+        }
+        return executor;
+    }
+
+    private synchronized ScheduledThreadPoolExecutor getScheduler() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executors shutdown");
+        }
+        if (scheduler == null) {
+            scheduler = new ScheduledThreadPoolExecutor(SCHEDULER_THREADS, new McThreadFactory("mc-scheduler-"));
+            //Remove canceled pollers from queue immediately
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+
+    /**
+     * Executes task on the pool. Returns false, when pool queue is full or executors are shutdown.
+     */
+    public boolean execute(POOL pool, Runnable task) {
+        try {
+            getPool(pool).execute(task);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            rejected.get(pool).incrementAndGet();
+            _logger.warn("Task rejected by pool:{}, task:{}", pool.getText(), task);
+            return false;
+        }
+    }
+
+    public ScheduledFuture<?> schedule(Runnable task, long delay) {
+        return getScheduler().schedule(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable task, long initialDelay, long delay) {
+        return getScheduler().scheduleWithFixedDelay(task, initialDelay, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        List<ExecutorService> executors = new ArrayList<ExecutorService>();
+        synchronized (this) {
+            shutdown = true;
+            executors.addAll(pools.values());
+            if (scheduler != null) {
+                executors.add(scheduler);
+            }
+        }
+        for (ExecutorService executor : executors) {
+            executor.shutdown();
+        }
+        long waitUntil = System.currentTimeMillis() + SHUTDOWN_WAIT_TIME;
+        for (ExecutorService executor : executors) {
+            try {
+                long waitTime = waitUntil - System.currentTimeMillis();
+                if (waitTime <= 0 || !executor.awaitTermination(waitTime, TimeUnit.MILLISECONDS)) {
+                    executor.shutdownNow();
+                }
+            } catch (InterruptedException ex) {
+                executor.shutdownNow();
+            }
+        }
+        _logger.debug("All thread pools stopped");
+    }
+
+    public synchronized List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+        for (POOL pool : POOL.values()) {
+            HashMap<String, Object> poolStatistics = new HashMap<String, Object>();
+            poolStatistics.put("name", pool.getText());
+            poolStatistics.put("maxThreads", pool.threads);
+            poolStatistics.put("queueSize", pool.queueSize);
+            poolStatistics.put("rejected", rejected.get(pool).get());
+            ThreadPoolExecutor executor = pools.get(pool);
+            if (executor != null) {
+                poolStatistics.put("threads", executor.getPoolSize());
+                poolStatistics.put("active", executor.getActiveCount());
+                poolStatistics.put("queued", executor.getQueue().size());
+                poolStatistics.put("completed", executor.getCompletedTaskCount());
+            }
+            statistics.add(poolStatistics);
+        }
+        if (scheduler != null) {
+            HashMap<String, Object> schedulerStatistics = new HashMap<String, Object>();
+            schedulerStatistics.put("name", "Scheduler");
+            schedulerStatistics.put("maxThreads", SCHEDULER_THREADS);
+            schedulerStatistics.put("threads", scheduler.getPoolSize());
+            schedulerStatistics.put("active", scheduler.getActiveCount());
+            schedulerStatistics.put("queued", scheduler.getQueue().size());
+            schedulerStatistics.put("completed", scheduler.getCompletedTaskCount());
+            schedulerStatistics.put("rejected", 0);
+            statistics.add(schedulerStatistics);
+        }
+        return statistics;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.executor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import org.mycontroller.standalone.executor.McExecutors.POOL;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Base for pollers and connection monitors, instead of own thread with sleep loop. Shared scheduler of
+ * {@link McExecutors} only triggers a cycle, {@link #poll()} runs on {@link POOL#GATEWAY_IO} pool, blocking I/O of
+ * slow gateways does not hold scheduler threads. {@link #poll()} returns delay for the next run, next run can be
+ * requested earlier with {@link #scheduleNext(long)}.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public abstract class McPollerTask implements Runnable {
+    public static final long ERROR_RETRY_DELAY = McUtils.ONE_SECOND * 2;
+    public static final long TERMINATION_WAIT_TIME = McUtils.ONE_SECOND * 5;
+
+    private final Object pollLock = new Object();
+    private ScheduledFuture<?> future;
+    private volatile boolean terminate = false;
+    private volatile boolean running = false;
+    //Runs on the scheduler, hands the cycle to the pool
+    private final Runnable trigger = new Runnable() {
+        @Override
+        public void run() {
+            if (terminate) {
+                return;
+            }
+            if (!McExecutors.getInstance().execute(POOL.GATEWAY_IO, McPollerTask.this)) {
+                scheduleNext(ERROR_RETRY_DELAY);
+            }
+        }
+    };
+
+    /**
+     * Executes one cycle.
+     *
+     * @return delay in milliseconds for the next cycle, negative value stops this task
+     */
+    protected abstract long poll() throws Exception;
+
+    @Override
+    public void run() {
+        long nextDelay;
+        synchronized (pollLock) {
+            if (terminate) {
+                return;
+            }
+            running = true;
+            try {
+                nextDelay = poll();
+            } catch (Exception ex) {
+                _logger.error("Exception on {}, ", getClass().getSimpleName(), ex);
+                nextDelay = ERROR_RETRY_DELAY;
+            } finally {
+                running = false;
+            }
+        }
+        if (nextDelay >= 0) {
+            scheduleNext(nextDelay);
+        }
+    }
+
+    public synchronized void start(long initialDelay) {
+        terminate = false;
+        scheduleNext(initialDelay);
+    }
+
+    /** Replaces pending run with a run after this delay */
+    public synchronized void scheduleNext(long delay) {
+        if (terminate) {
+            return;
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        try {
+            future = McExecutors.getInstance().schedule(trigger, Math.max(delay, 0));
+        } catch (RejectedExecutionException ex) {
+            _logger.debug("Scheduler not available, {} stopped", getClass().getSimpleName());
+            future = null;
+        }
+    }
+
+    /** Stops further runs and waits for the running cycle to complete */
+    public void terminate() {
+        synchronized (this) {
+            terminate = true;
+            if (future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+        long waitTime = TERMINATION_WAIT_TIME;
+        while (running && waitTime > 0) {
+            try {
+                Thread.sleep(10);
+                waitTime -= 10;
+            } catch (InterruptedException ex) {
+                _logger.error("Exception,", ex);
+                return;
+            }
+        }
+        if (running) {
+            _logger.warn("Terminating abnormally {}!", getClass().getSimpleName());
+        }
+    }
+
+    public boolean isTerminate() {
+        return terminate;
+    }
+
+    public boolean isTerminated() {
+        return terminate && !running;
+    }
+}
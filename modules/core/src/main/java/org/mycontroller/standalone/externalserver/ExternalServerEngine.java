@@ -21,6 +21,7 @@ import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.ExternalServerTable;
 import org.mycontroller.standalone.db.tables.Resource;
 import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.monitoring.McMetrics;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -67,13 +68,19 @@ public class ExternalServerEngine implements Runnable {
             for (ExternalServerTable extServer : resource.getExternalServersObject()) {
                 if (extServer.getEnabled()) {
                     IExternalServerEngine extServerEngine = ExternalServerUtils.getExternalServer(extServer);
+                    String serverType = extServer.getType() != null ? extServer.getType().name() : "";
+                    long startTime = System.nanoTime();
                     try {
                         if (extServerEngine != null) {
                             extServerEngine.send(sensorVariable);
                         }
                     } catch (Exception ex) {
+                        McMetrics.getInstance().counter("mc_external_server_errors_total",
+                                "Failed sends to external servers", "type", serverType).increment();
                         _logger.error("Exception when sending data to server: {}, ", extServerEngine.toString(), ex);
                     }
+                    McMetrics.getInstance().histogram("mc_external_server_send_seconds",
+                            "Time taken to send data to external servers", "type", serverType).recordSince(startTime);
                 }
             }
         }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import java.util.List;
+
+import org.apache.commons.codec.binary.Hex;
+import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.db.tables.Firmware;
+import org.mycontroller.standalone.db.tables.FirmwareData;
+import org.mycontroller.standalone.provider.mc.structs.McFirmwareResponse;
+import org.mycontroller.standalone.provider.mysensors.structs.FirmwareResponse;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read only copy of a firmware, used to serve OTA block requests. Firmware bytes are kept as primitive array and
+ * block responses are encoded once per network type, on first request.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+@Getter
+@ToString(exclude = { "data", "mySensorsBlocks", "myControllerBlocks" })
+public class FirmwareImage {
+    private final Integer firmwareId;
+    private final Integer typeId;
+    private final Integer versionId;
+    private final int blockSize;
+    private final int blocks;
+    private final byte[] data;
+    private final long loadedAt;
+
+    private volatile String[] mySensorsBlocks;
+    private volatile String[] myControllerBlocks;
+
+    private FirmwareImage(Integer firmwareId, Integer typeId, Integer versionId, int blockSize, int blocks,
+            byte[] data) {
+        this.firmwareId = firmwareId;
+        this.typeId = typeId;
+        this.versionId = versionId;
+        this.blockSize = blockSize;
+        this.blocks = blocks;
+        this.data = data;
+        this.loadedAt = System.currentTimeMillis();
+    }
+
+    public static FirmwareImage get(FirmwareData firmwareData) {
+        if (firmwareData == null || firmwareData.getData() == null) {
+            return null;
+        }
+        Firmware firmware = firmwareData.getFirmware();
+        List<Byte> dataList = firmwareData.getData();
+        byte[] data = new byte[dataList.size()];
+        for (int index = 0; index < data.length; index++) {
+            data[index] = dataList.get(index);
+        }
+        return new FirmwareImage(
+                firmware.getId(),
+                firmware.getType().getId(),
+                firmware.getVersion().getId(),
+                (Integer) firmware.getProperties().get(Firmware.KEY_PROP_BLOCK_SIZE),
+                (Integer) firmware.getProperties().get(Firmware.KEY_PROP_BLOCKS),
+                data);
+    }
+
+    public boolean isValidBlock(int block) {
+        return block >= 0 && block < blocks;
+    }
+
+    public int getSize() {
+        return data.length;
+    }
+
+    /**
+     * Returns ST_FIRMWARE_RESPONSE payload for the block, {@code null} when the block or network type is not
+     * supported.
+     */
+    public String getBlockPayload(NETWORK_TYPE networkType, int block) {
+        if (!isValidBlock(block)) {
+            return null;
+        }
+        switch (networkType) {
+            case MY_SENSORS:
+                if (mySensorsBlocks == null) {
+                    encodeMySensorsBlocks();
+                }
+                return mySensorsBlocks[block];
+            case MY_CONTROLLER:
+                if (myControllerBlocks == null) {
+                    encodeMyControllerBlocks();
+                }
+                return myControllerBlocks[block];
+            default:
+                _logger.warn("Firmware upload not supported for the network type:{}", networkType);
+                return null;
+        }
+    }
+
+    private synchronized void encodeMySensorsBlocks() {
+        if (mySensorsBlocks != null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String[] encoded = new String[blocks];
+        FirmwareResponse firmwareResponse = new FirmwareResponse();
+        firmwareResponse.setByteBufferPosition(0);
+        firmwareResponse.setType(typeId);
+        firmwareResponse.setVersion(versionId);
+        byte[] blockData = new byte[blockSize];
+        for (int block = 0; block < blocks; block++) {
+            firmwareResponse.setBlock(block);
+            copyBlock(block, blockData);
+            encoded[block] = Hex.encodeHexString(firmwareResponse.getByteBuffer().array())
+                    + new String(Hex.encodeHex(blockData, false));
+        }
+        mySensorsBlocks = encoded;
+        _logger.debug("MySensors OTA blocks encoded in {} ms, {}", System.currentTimeMillis() - start, this);
+    }
+
+    private synchronized void encodeMyControllerBlocks() {
+        if (myControllerBlocks != null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        String[] encoded = new String[blocks];
+        for (int block = 0; block < blocks; block++) {
+            McFirmwareResponse firmwareResponse = new McFirmwareResponse();
+            firmwareResponse.setByteBufferPosition(0);
+            firmwareResponse.setBlock(block);
+            firmwareResponse.setVersion(versionId);
+            firmwareResponse.setType(typeId);
+            int fromIndex = block * blockSize;
+            int toIndex = Math.min(fromIndex + blockSize, data.length);
+            firmwareResponse.setSize(toIndex - fromIndex);
+            firmwareResponse.setData(data, fromIndex, toIndex);
+            encoded[block] = Hex.encodeHexString(firmwareResponse.getByteBuffer().array());
+        }
+        myControllerBlocks = encoded;
+        _logger.debug("MyController OTA blocks encoded in {} ms, {}", System.currentTimeMillis() - start, this);
+    }
+
+    //Copies block data, missing tail filled with 0xFF
+    private void copyBlock(int block, byte[] blockData) {
+        int fromIndex = block * blockSize;
+        for (int index = 0; index < blockSize; index++) {
+            blockData[index] = fromIndex + index < data.length ? data[fromIndex + index] : (byte) 0xFF;
+        }
+    }
+}
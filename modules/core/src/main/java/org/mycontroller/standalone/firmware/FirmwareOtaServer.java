@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves firmware blocks for OTA requests from in-memory {@link FirmwareImage}s and keeps track of per node
+ * progress.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class FirmwareOtaServer {
+    private static final long PROGRESS_RETENTION = McUtils.ONE_HOUR;
+
+    private final ConcurrentHashMap<String, FirmwareImage> images = new ConcurrentHashMap<String, FirmwareImage>();
+    private final ConcurrentHashMap<String, OtaProgress> progressMap = new ConcurrentHashMap<String, OtaProgress>();
+    private final AtomicLong blocksServed = new AtomicLong(0);
+    private final AtomicLong bytesServed = new AtomicLong(0);
+    private final AtomicLong invalidRequests = new AtomicLong(0);
+
+    //Do not load until some calls getInstance
+    private static class FirmwareOtaServerHelper {
+        private static final FirmwareOtaServer INSTANCE = new FirmwareOtaServer();
+    }
+
+    public static FirmwareOtaServer getInstance() {
+        return FirmwareOtaServerHelper.INSTANCE;
+    }
+
+    private FirmwareOtaServer() {
+    }
+
+    private String getImageKey(Integer typeId, Integer versionId) {
+        return typeId + "_" + versionId;
+    }
+
+    private String getNodeKey(Integer gatewayId, String nodeEui) {
+        return gatewayId + "_" + nodeEui;
+    }
+
+    public FirmwareImage getFirmwareImage(Integer typeId, Integer versionId) {
+        String key = getImageKey(typeId, versionId);
+        FirmwareImage firmwareImage = images.get(key);
+        if (firmwareImage == null) {
+            synchronized (images) {
+                firmwareImage = images.get(key);
+                if (firmwareImage == null) {
+                    firmwareImage = FirmwareImage.get(DaoUtils.getFirmwareDataDao().getByTypeVersion(
+                            typeId, versionId));
+                    if (firmwareImage == null) {
+                        return null;
+                    }
+                    images.put(key, firmwareImage);
+                    _logger.debug("Firmware loaded for OTA, {}", firmwareImage);
+                }
+            }
+        }
+        return firmwareImage;
+    }
+
+    /**
+     * Returns encoded firmware response payload for the requested block and updates OTA progress of the node.
+     * {@code null} when firmware or block not available.
+     */
+    public String getBlock(NETWORK_TYPE networkType, Integer gatewayId, String nodeEui, Integer typeId,
+            Integer versionId, int block) {
+        FirmwareImage firmwareImage = getFirmwareImage(typeId, versionId);
+        if (firmwareImage == null) {
+            _logger.debug("selected firmware type/version not available, type:{}, version:{}", typeId, versionId);
+            invalidRequests.incrementAndGet();
+            return null;
+        }
+        if (!firmwareImage.isValidBlock(block)) {
+            _logger.warn("Requested firmware out of range. Accepted range[0~{}] Block:{}, {}",
+                    firmwareImage.getBlocks() - 1, block, firmwareImage);
+            invalidRequests.incrementAndGet();
+            return null;
+        }
+        String payload = firmwareImage.getBlockPayload(networkType, block);
+        if (payload != null) {
+            updateProgress(gatewayId, nodeEui, firmwareImage, block);
+        }
+        return payload;
+    }
+
+    private void updateProgress(Integer gatewayId, String nodeEui, FirmwareImage firmwareImage, int block) {
+        String key = getNodeKey(gatewayId, nodeEui);
+        OtaProgress progress = progressMap.get(key);
+        if (progress == null || !progress.isSameFirmware(firmwareImage) || progress.isCompleted()) {
+            progress = new OtaProgress(gatewayId, nodeEui, firmwareImage);
+            progressMap.put(key, progress);
+            purgeOldProgress();
+        }
+        progress.update(block, firmwareImage.getBlockSize());
+        blocksServed.incrementAndGet();
+        bytesServed.addAndGet(firmwareImage.getBlockSize());
+    }
+
+    private void purgeOldProgress() {
+        long minTime = System.currentTimeMillis() - PROGRESS_RETENTION;
+        Iterator<OtaProgress> iterator = progressMap.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getLastRequestTime() < minTime) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public OtaProgress getProgress(Integer gatewayId, String nodeEui) {
+        return progressMap.get(getNodeKey(gatewayId, nodeEui));
+    }
+
+    public List<OtaProgress> getProgressList() {
+        return new ArrayList<OtaProgress>(progressMap.values());
+    }
+
+    public void remove(Integer typeId, Integer versionId) {
+        if (images.remove(getImageKey(typeId, versionId)) != null) {
+            _logger.debug("Firmware removed from OTA cache, type:{}, version:{}", typeId, versionId);
+        }
+    }
+
+    public void clear() {
+        images.clear();
+        progressMap.clear();
+    }
+
+    public Map<String, Object> getStatistics() {
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        long inProgress = 0;
+        double blocksPerSecond = 0.0;
+        long activeSince = System.currentTimeMillis() - McUtils.MINUTE;
+        for (OtaProgress progress : progressMap.values()) {
+            if (!progress.isCompleted() && progress.getLastRequestTime() >= activeSince) {
+                inProgress++;
+                blocksPerSecond += progress.getBlocksPerSecond();
+            }
+        }
+        long cachedBytes = 0;
+        for (FirmwareImage firmwareImage : images.values()) {
+            cachedBytes += firmwareImage.getSize();
+        }
+        statistics.put("firmwaresCached", images.size());
+        statistics.put("firmwaresCachedBytes", cachedBytes);
+        statistics.put("blocksServed", blocksServed.get());
+        statistics.put("bytesServed", bytesServed.get());
+        statistics.put("invalidRequests", invalidRequests.get());
+        statistics.put("nodesInProgress", inProgress);
+        statistics.put("blocksPerSecond", blocksPerSecond);
+        statistics.put("nodes", getProgressList());
+        statistics.put("timestamp", System.currentTimeMillis());
+        return statistics;
+    }
+}
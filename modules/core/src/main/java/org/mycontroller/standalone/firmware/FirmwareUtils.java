@@ -23,8 +23,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
-import org.mapdb.HTreeMap;
-import org.mycontroller.standalone.MapDbFactory;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Firmware;
 import org.mycontroller.standalone.db.tables.FirmwareData;
@@ -44,18 +42,6 @@ public class FirmwareUtils {
     public static final int FIRMWARE_BLOCK_SIZE_HEX = 16;
     public static final int FIRMWARE_BLOCK_SIZE_BIN = 200;
 
-    public static final String FIRMWARE_MAP = "mc_firmware_map";
-    private static HTreeMap<String, FirmwareData> FIRMWARE_OFFLINE_MAP = null;
-
-    public static HTreeMap<String, FirmwareData> getFirmwareMap() {
-        if (FIRMWARE_OFFLINE_MAP == null) {
-            MapDbFactory.getDbStore().delete(FIRMWARE_MAP);//Remove existing map
-            FIRMWARE_OFFLINE_MAP = MapDbFactory.getDbStore().getHashMap(FIRMWARE_MAP);
-            FIRMWARE_OFFLINE_MAP.clear();
-        }
-        return FIRMWARE_OFFLINE_MAP;
-    }
-
     public enum FILE_TYPE {
         HEX("Hex"),
         BIN("bin");
@@ -265,21 +251,9 @@ public class FirmwareUtils {
         firmware.setBlockSize((Integer) firmware.getProperties().get(Firmware.KEY_PROP_BLOCK_SIZE));
     }
 
-    private static String getFirmwareDataOfflineMapName(Integer typeId, Integer versionId) {
-        return typeId + "_" + versionId;
-    }
-
     private static void removeFirmewareOnOfflineMap(Firmware firmware) {
-        getFirmwareMap().remove(
-                getFirmwareDataOfflineMapName(firmware.getType().getId(), firmware.getVersion().getId()));
-    }
-
-    public static FirmwareData getFirmwareDataFromOfflineMap(Integer typeId, Integer versionId) {
-        FirmwareData firmwareData = getFirmwareMap().get(getFirmwareDataOfflineMapName(typeId, versionId));
-        if (firmwareData == null) {
-            firmwareData = DaoUtils.getFirmwareDataDao().getByTypeVersion(typeId, versionId);
-            getFirmwareMap().put(getFirmwareDataOfflineMapName(typeId, versionId), firmwareData);
+        if (firmware.getType() != null && firmware.getVersion() != null) {
+            FirmwareOtaServer.getInstance().remove(firmware.getType().getId(), firmware.getVersion().getId());
         }
-        return firmwareData;
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Firmware rollout on a group of nodes. Nodes are selected by assigned firmware type/version (or by node ids),
+ * flashed with {@link #firmwareId}, at most {@link #maxConcurrentPerGateway} nodes at a time on a gateway.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = { "nodes" })
+public class OtaCampaign {
+    public static final int DEFAULT_MAX_CONCURRENT_PER_GATEWAY = 2;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_TIMEOUT = 2 * McUtils.MINUTE;
+
+    public enum OTA_STATE {
+        PENDING("Pending"),
+        RUNNING("Running"),
+        COMPLETED("Completed"),
+        FAILED("Failed"),
+        CANCELED("Canceled");
+
+        private String value;
+
+        private OTA_STATE(String value) {
+            this.value = value;
+        }
+
+        public String getText() {
+            return this.value;
+        }
+
+        public boolean isFinal() {
+            return this == COMPLETED || this == FAILED || this == CANCELED;
+        }
+
+        public static OTA_STATE fromString(String text) {
+            if (text != null) {
+                for (OTA_STATE type : OTA_STATE.values()) {
+                    if (text.equalsIgnoreCase(type.getText())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private Integer id;
+    private String name;
+    //Firmware to be flashed
+    private Integer firmwareId;
+    //Node selection, assigned firmware type and version. version is optional
+    private Integer typeId;
+    private Integer versionId;
+    private List<Integer> gatewayIds;
+    private List<Integer> nodeIds;
+    private Integer maxConcurrentPerGateway;
+    private Integer maxRetries;
+    //Time in milliseconds, without a block request from the node
+    private Long timeout;
+
+    private OTA_STATE state;
+    private Long createdTime;
+    private Long startTime;
+    private Long endTime;
+    private List<OtaCampaignNode> nodes;
+
+    public int getCount(OTA_STATE nodeState) {
+        int count = 0;
+        for (OtaCampaignNode node : getNodesSafe()) {
+            if (node.getState() == nodeState) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getProgress() {
+        List<OtaCampaignNode> campaignNodes = getNodesSafe();
+        if (campaignNodes.isEmpty()) {
+            return 100.0;
+        }
+        double progress = 0.0;
+        for (OtaCampaignNode node : campaignNodes) {
+            if (node.getState().isFinal()) {
+                progress += 100.0;
+            } else {
+                progress += node.getProgress();
+            }
+        }
+        return progress / campaignNodes.size();
+    }
+
+    public double getBlocksPerSecond() {
+        double blocksPerSecond = 0.0;
+        for (OtaCampaignNode node : getNodesSafe()) {
+            if (node.getState() == OTA_STATE.RUNNING) {
+                blocksPerSecond += node.getBlocksPerSecond();
+            }
+        }
+        return blocksPerSecond;
+    }
+
+    /**
+     * Estimated time to complete in milliseconds, {@code null} when there is no rate yet.
+     */
+    public Long getEta() {
+        if (state != null && state.isFinal()) {
+            return 0L;
+        }
+        long blocksPending = 0;
+        for (OtaCampaignNode node : getNodesSafe()) {
+            if (!node.getState().isFinal()) {
+                blocksPending += Math.max(0, node.getBlocks() - node.getBlocksServed());
+            }
+        }
+        double rate = getBlocksPerSecond();
+        if (rate <= 0.0) {
+            return null;
+        }
+        return (long) (blocksPending * 1000 / rate);
+    }
+
+    private List<OtaCampaignNode> getNodesSafe() {
+        if (nodes == null) {
+            return new ArrayList<OtaCampaignNode>();
+        }
+        return nodes;
+    }
+}
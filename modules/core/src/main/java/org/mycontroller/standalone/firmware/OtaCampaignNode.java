@@ -0,0 +1,61 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import org.mycontroller.standalone.firmware.OtaCampaign.OTA_STATE;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * OTA state of a node on a {@link OtaCampaign}.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Builder
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class OtaCampaignNode {
+    private Integer nodeId;
+    private Integer gatewayId;
+    private String nodeEui;
+    private String nodeName;
+    private OTA_STATE state;
+    private int retries;
+    private Long startTime;
+    private Long lastActivity;
+    private Long endTime;
+    private int blocks;
+    private int blocksServed;
+    private double blocksPerSecond;
+    private String error;
+
+    public double getProgress() {
+        if (state == OTA_STATE.COMPLETED) {
+            return 100.0;
+        } else if (blocks == 0) {
+            return 0.0;
+        }
+        return Math.min(100.0, blocksServed * 100.0 / blocks);
+    }
+}
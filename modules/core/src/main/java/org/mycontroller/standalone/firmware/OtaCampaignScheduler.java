@@ -0,0 +1,323 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.McObjectManager;
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.Firmware;
+import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.exceptions.McBadRequestException;
+import org.mycontroller.standalone.firmware.OtaCampaign.OTA_STATE;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs {@link OtaCampaign}s. {@link #execute()} is called periodically from
+ * {@link org.mycontroller.standalone.jobs.OtaCampaignJob}, it tracks running nodes with {@link FirmwareOtaServer}
+ * progress, retries nodes on timeout and starts pending nodes while gateway has free slot.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class OtaCampaignScheduler {
+    private final ConcurrentHashMap<Integer, OtaCampaign> campaigns = new ConcurrentHashMap<Integer, OtaCampaign>();
+    private final AtomicInteger idGenerator = new AtomicInteger(0);
+
+    //Do not load until some calls getInstance
+    private static class OtaCampaignSchedulerHelper {
+        private static final OtaCampaignScheduler INSTANCE = new OtaCampaignScheduler();
+    }
+
+    public static OtaCampaignScheduler getInstance() {
+        return OtaCampaignSchedulerHelper.INSTANCE;
+    }
+
+    private OtaCampaignScheduler() {
+    }
+
+    public synchronized OtaCampaign create(OtaCampaign campaign) throws McBadRequestException {
+        if (campaign.getFirmwareId() == null) {
+            throw new McBadRequestException("Firmware should not be empty!");
+        }
+        Firmware firmware = DaoUtils.getFirmwareDao().getById(campaign.getFirmwareId());
+        if (firmware == null) {
+            throw new McBadRequestException("Selected firmware not available! id:" + campaign.getFirmwareId());
+        }
+        if (campaign.getTypeId() == null) {
+            campaign.setTypeId(firmware.getType().getId());
+        }
+        if (campaign.getMaxConcurrentPerGateway() == null || campaign.getMaxConcurrentPerGateway() < 1) {
+            campaign.setMaxConcurrentPerGateway(OtaCampaign.DEFAULT_MAX_CONCURRENT_PER_GATEWAY);
+        }
+        if (campaign.getMaxRetries() == null || campaign.getMaxRetries() < 0) {
+            campaign.setMaxRetries(OtaCampaign.DEFAULT_MAX_RETRIES);
+        }
+        if (campaign.getTimeout() == null || campaign.getTimeout() <= 0) {
+            campaign.setTimeout(OtaCampaign.DEFAULT_TIMEOUT);
+        }
+        List<OtaCampaignNode> campaignNodes = new ArrayList<OtaCampaignNode>();
+        for (Node node : getNodes(campaign, firmware)) {
+            campaignNodes.add(OtaCampaignNode.builder()
+                    .nodeId(node.getId())
+                    .gatewayId(node.getGatewayTable().getId())
+                    .nodeEui(node.getEui())
+                    .nodeName(node.getName())
+                    .state(OTA_STATE.PENDING)
+                    .blocks((Integer) firmware.getProperties().get(Firmware.KEY_PROP_BLOCKS))
+                    .build());
+        }
+        if (campaignNodes.isEmpty()) {
+            throw new McBadRequestException("There is no node available for this campaign!");
+        }
+        campaign.setId(idGenerator.incrementAndGet());
+        if (campaign.getName() == null) {
+            campaign.setName("Campaign-" + campaign.getId());
+        }
+        campaign.setNodes(campaignNodes);
+        campaign.setState(OTA_STATE.PENDING);
+        campaign.setCreatedTime(System.currentTimeMillis());
+        campaign.setStartTime(null);
+        campaign.setEndTime(null);
+        campaigns.put(campaign.getId(), campaign);
+        _logger.info("OTA campaign created, {}, nodes:{}", campaign, campaignNodes.size());
+        return campaign;
+    }
+
+    private List<Node> getNodes(OtaCampaign campaign, Firmware firmware) {
+        List<Node> nodes = new ArrayList<Node>();
+        if (campaign.getNodeIds() != null && !campaign.getNodeIds().isEmpty()) {
+            for (Node node : DaoUtils.getNodeDao().getAll(campaign.getNodeIds())) {
+                if (isOtaSupported(node)) {
+                    nodes.add(node);
+                }
+            }
+            return nodes;
+        }
+        for (Node node : DaoUtils.getNodeDao().getAll()) {
+            if (!isOtaSupported(node) || node.getFirmware() == null) {
+                continue;
+            }
+            if (campaign.getGatewayIds() != null && !campaign.getGatewayIds().isEmpty()
+                    && !campaign.getGatewayIds().contains(node.getGatewayTable().getId())) {
+                continue;
+            }
+            //Already on target firmware
+            if (node.getFirmware().getId().equals(firmware.getId())) {
+                continue;
+            }
+            if (!node.getFirmware().getType().getId().equals(campaign.getTypeId())) {
+                continue;
+            }
+            if (campaign.getVersionId() != null
+                    && !node.getFirmware().getVersion().getId().equals(campaign.getVersionId())) {
+                continue;
+            }
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    private boolean isOtaSupported(Node node) {
+        NETWORK_TYPE networkType = node.getGatewayTable().getNetworkType();
+        return networkType == NETWORK_TYPE.MY_SENSORS || networkType == NETWORK_TYPE.MY_CONTROLLER;
+    }
+
+    public synchronized void execute() {
+        for (OtaCampaign campaign : campaigns.values()) {
+            if (campaign.getState().isFinal()) {
+                continue;
+            }
+            try {
+                execute(campaign);
+            } catch (Exception ex) {
+                _logger.error("Exception on OTA campaign, {}", campaign, ex);
+            }
+        }
+    }
+
+    private void execute(OtaCampaign campaign) {
+        long currentTime = System.currentTimeMillis();
+        if (campaign.getState() == OTA_STATE.PENDING) {
+            campaign.setState(OTA_STATE.RUNNING);
+            campaign.setStartTime(currentTime);
+        }
+        Firmware firmware = DaoUtils.getFirmwareDao().getById(campaign.getFirmwareId());
+        if (firmware == null) {
+            cancel(campaign, "Firmware removed!");
+            return;
+        }
+        //running nodes count per gateway
+        HashMap<Integer, Integer> running = new HashMap<Integer, Integer>();
+        for (OtaCampaignNode campaignNode : campaign.getNodes()) {
+            if (campaignNode.getState() == OTA_STATE.RUNNING) {
+                updateRunningNode(campaign, campaignNode, firmware, currentTime);
+            }
+            if (campaignNode.getState() == OTA_STATE.RUNNING) {
+                Integer count = running.get(campaignNode.getGatewayId());
+                running.put(campaignNode.getGatewayId(), count == null ? 1 : count + 1);
+            }
+        }
+        boolean finished = true;
+        for (OtaCampaignNode campaignNode : campaign.getNodes()) {
+            if (campaignNode.getState() == OTA_STATE.PENDING) {
+                Integer count = running.get(campaignNode.getGatewayId());
+                if (count == null) {
+                    count = 0;
+                }
+                if (count < campaign.getMaxConcurrentPerGateway()) {
+                    startNode(campaignNode, firmware, currentTime);
+                    if (campaignNode.getState() == OTA_STATE.RUNNING) {
+                        running.put(campaignNode.getGatewayId(), count + 1);
+                    }
+                }
+            }
+            if (!campaignNode.getState().isFinal()) {
+                finished = false;
+            }
+        }
+        if (finished) {
+            campaign.setState(campaign.getCount(OTA_STATE.FAILED) > 0 ? OTA_STATE.FAILED : OTA_STATE.COMPLETED);
+            campaign.setEndTime(currentTime);
+            _logger.info("OTA campaign finished, {}, completed:{}, failed:{}", campaign,
+                    campaign.getCount(OTA_STATE.COMPLETED), campaign.getCount(OTA_STATE.FAILED));
+        }
+    }
+
+    private void updateRunningNode(OtaCampaign campaign, OtaCampaignNode campaignNode, Firmware firmware,
+            long currentTime) {
+        OtaProgress progress = FirmwareOtaServer.getInstance().getProgress(
+                campaignNode.getGatewayId(), campaignNode.getNodeEui());
+        if (progress != null
+                && progress.getTypeId().equals(firmware.getType().getId())
+                && progress.getVersionId().equals(firmware.getVersion().getId())
+                && progress.getLastRequestTime() >= campaignNode.getStartTime()) {
+            campaignNode.setBlocks(progress.getBlocks());
+            campaignNode.setBlocksServed(progress.getBlocksServed());
+            campaignNode.setBlocksPerSecond(progress.getBlocksPerSecond());
+            campaignNode.setLastActivity(Math.max(campaignNode.getLastActivity(), progress.getLastRequestTime()));
+            if (progress.isCompleted()) {
+                campaignNode.setState(OTA_STATE.COMPLETED);
+                campaignNode.setEndTime(currentTime);
+                campaignNode.setBlocksPerSecond(0.0);
+                _logger.debug("OTA completed, {}", campaignNode);
+                return;
+            }
+        }
+        if (currentTime - campaignNode.getLastActivity() < campaign.getTimeout()) {
+            return;
+        }
+        campaignNode.setBlocksPerSecond(0.0);
+        if (campaignNode.getRetries() >= campaign.getMaxRetries()) {
+            campaignNode.setState(OTA_STATE.FAILED);
+            campaignNode.setEndTime(currentTime);
+            campaignNode.setError("No response from node, retries:" + campaignNode.getRetries());
+            _logger.warn("OTA failed, {}", campaignNode);
+            return;
+        }
+        campaignNode.setRetries(campaignNode.getRetries() + 1);
+        _logger.debug("OTA timeout, retrying, {}", campaignNode);
+        //Node continues from the blocks it has, progress on FirmwareOtaServer retained for same firmware
+        sendFirmwareConfig(campaignNode, firmware, currentTime);
+    }
+
+    private void startNode(OtaCampaignNode campaignNode, Firmware firmware, long currentTime) {
+        Node node = getNode(campaignNode, currentTime);
+        if (node == null) {
+            return;
+        }
+        if (node.getFirmware() == null || !node.getFirmware().getId().equals(firmware.getId())) {
+            node.setFirmware(firmware);
+            DaoUtils.getNodeDao().update(node);
+        }
+        campaignNode.setState(OTA_STATE.RUNNING);
+        campaignNode.setStartTime(currentTime);
+        campaignNode.setLastActivity(currentTime);
+        McObjectManager.getMcActionEngine().uploadFirmware(node);
+    }
+
+    private void sendFirmwareConfig(OtaCampaignNode campaignNode, Firmware firmware, long currentTime) {
+        Node node = getNode(campaignNode, currentTime);
+        if (node == null) {
+            return;
+        }
+        node.setFirmware(firmware);
+        campaignNode.setLastActivity(currentTime);
+        McObjectManager.getMcActionEngine().uploadFirmware(node);
+    }
+
+    private Node getNode(OtaCampaignNode campaignNode, long currentTime) {
+        Node node = DaoUtils.getNodeDao().getById(campaignNode.getNodeId());
+        if (node == null) {
+            campaignNode.setState(OTA_STATE.FAILED);
+            campaignNode.setEndTime(currentTime);
+            campaignNode.setError("Node not available!");
+        }
+        return node;
+    }
+
+    public synchronized void cancel(Integer id) {
+        OtaCampaign campaign = campaigns.get(id);
+        if (campaign != null && !campaign.getState().isFinal()) {
+            cancel(campaign, "Canceled by user");
+        }
+    }
+
+    private void cancel(OtaCampaign campaign, String reason) {
+        long currentTime = System.currentTimeMillis();
+        for (OtaCampaignNode campaignNode : campaign.getNodes()) {
+            if (!campaignNode.getState().isFinal()) {
+                campaignNode.setState(OTA_STATE.CANCELED);
+                campaignNode.setEndTime(currentTime);
+                campaignNode.setBlocksPerSecond(0.0);
+                campaignNode.setError(reason);
+            }
+        }
+        campaign.setState(OTA_STATE.CANCELED);
+        campaign.setEndTime(currentTime);
+        _logger.info("OTA campaign canceled, {}, reason:{}", campaign, reason);
+    }
+
+    public synchronized void delete(Integer id) {
+        cancel(id);
+        campaigns.remove(id);
+    }
+
+    public OtaCampaign get(Integer id) {
+        return campaigns.get(id);
+    }
+
+    public List<OtaCampaign> getAll() {
+        return new ArrayList<OtaCampaign>(campaigns.values());
+    }
+
+    public synchronized void clear() {
+        for (OtaCampaign campaign : campaigns.values()) {
+            if (!campaign.getState().isFinal()) {
+                cancel(campaign, "Service stopped");
+            }
+        }
+        campaigns.clear();
+    }
+}
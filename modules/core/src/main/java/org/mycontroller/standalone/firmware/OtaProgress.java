@@ -0,0 +1,92 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.firmware;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * OTA status of a node, updated on each firmware block served.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Getter
+@ToString(includeFieldNames = true)
+public class OtaProgress {
+    private final Integer gatewayId;
+    private final String nodeEui;
+    private final Integer typeId;
+    private final Integer versionId;
+    private final int blocks;
+    private final long startTime;
+    private volatile int lastBlock = -1;
+    private volatile int blocksServed = 0;
+    private volatile long bytesServed = 0;
+    private volatile long lastRequestTime;
+
+    public OtaProgress(Integer gatewayId, String nodeEui, FirmwareImage firmwareImage) {
+        this.gatewayId = gatewayId;
+        this.nodeEui = nodeEui;
+        this.typeId = firmwareImage.getTypeId();
+        this.versionId = firmwareImage.getVersionId();
+        this.blocks = firmwareImage.getBlocks();
+        this.startTime = System.currentTimeMillis();
+        this.lastRequestTime = this.startTime;
+    }
+
+    public boolean isSameFirmware(FirmwareImage firmwareImage) {
+        return typeId.equals(firmwareImage.getTypeId()) && versionId.equals(firmwareImage.getVersionId());
+    }
+
+    //Single writer, message engine thread
+    public synchronized void update(int block, int blockSize) {
+        lastBlock = block;
+        blocksServed++;
+        bytesServed += blockSize;
+        lastRequestTime = System.currentTimeMillis();
+    }
+
+    public boolean isCompleted() {
+        return blocksServed >= blocks;
+    }
+
+    public double getProgress() {
+        if (blocks == 0) {
+            return 100.0;
+        }
+        return Math.min(100.0, blocksServed * 100.0 / blocks);
+    }
+
+    public double getBlocksPerSecond() {
+        long duration = lastRequestTime - startTime;
+        if (duration <= 0) {
+            return 0.0;
+        }
+        return blocksServed * 1000.0 / duration;
+    }
+
+    public Long getEta() {
+        double rate = getBlocksPerSecond();
+        if (isCompleted()) {
+            return 0L;
+        } else if (rate <= 0.0) {
+            return null;
+        }
+        return (long) ((blocks - blocksServed) * 1000 / rate);
+    }
+}
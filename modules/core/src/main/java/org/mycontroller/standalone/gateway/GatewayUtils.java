@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.McObjectManager;
 import org.mycontroller.standalone.db.DaoUtils;
@@ -39,7 +40,9 @@ import org.mycontroller.standalone.gateway.mqtt.MqttGatewayImpl;
 import org.mycontroller.standalone.gateway.phantio.PhantIOGatewayImpl;
 import org.mycontroller.standalone.gateway.philipshue.PhilipsHueGatewayImpl;
 import org.mycontroller.standalone.gateway.serialport.MYCSerialPort;
+import org.mycontroller.standalone.message.McBulkTaskEngine;
 import org.mycontroller.standalone.model.ResourceModel;
+import org.mycontroller.standalone.rule.McRuleScheduler;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
@@ -205,6 +208,7 @@ public class GatewayUtils {
     }
 
     public static synchronized void unloadGateway(Integer gatewayId) {
+        McBulkTaskEngine.getInstance().cancel(gatewayId);
         if (McObjectManager.getGateway(gatewayId) != null) {
             McObjectManager.getGateway(gatewayId).close();
             McObjectManager.removeGateway(gatewayId);
@@ -286,6 +290,7 @@ public class GatewayUtils {
         gatewayTable.setState(STATE.UNAVAILABLE);
         gatewayTable.setStatusMessage("Disabled by user");
         DaoUtils.getGatewayDao().update(gatewayTable);
+        McRuleScheduler.getInstance().onStateChange(RESOURCE_TYPE.GATEWAY, gatewayId);
     }
 
     public static void enableGateways(List<Integer> ids) {
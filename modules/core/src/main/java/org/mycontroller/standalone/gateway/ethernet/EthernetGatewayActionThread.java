@@ -22,6 +22,9 @@ import java.net.Socket;
 
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.McObjectManager;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
+import org.mycontroller.standalone.executor.McPollerTask;
 import org.mycontroller.standalone.gateway.GatewayException;
 import org.mycontroller.standalone.gateway.IGateway.GATEWAY_STATUS;
 import org.mycontroller.standalone.gateway.model.GatewayEthernet;
@@ -35,15 +38,11 @@ import lombok.extern.slf4j.Slf4j;
  * @since 0.0.2
  */
 @Slf4j
-public class EthernetGatewayActionThread implements Runnable {
+public class EthernetGatewayActionThread extends McPollerTask {
     private Socket socket = null;
     private EthernetGatewayListener ethernetGatewayListener = null;
-    private boolean terminated = false;
-    private boolean terminate = false;
-    private boolean reconnect = false;
-    private Thread ethernetGatewayListenerThread = null;
+    private volatile boolean reconnect = false;
     public static final long RETRY_WAIT_TIME = McUtils.ONE_SECOND * 5;
-    public static final long THREAD_TERMINATION_WAIT_TIME = McUtils.ONE_SECOND * 5;
     public static final int SOCKET_TIMEOUT = (int) (McUtils.ONE_SECOND * 7);
     private GatewayEthernet gateway = null;
 
@@ -54,9 +53,7 @@ public class EthernetGatewayActionThread implements Runnable {
             socket.setKeepAlive(true);
             socket.connect(new InetSocketAddress(this.gateway.getHost(), this.gateway.getPort()), SOCKET_TIMEOUT);
 
-            ethernetGatewayListener = new EthernetGatewayListener(socket, this.gateway);
-            ethernetGatewayListenerThread = new Thread(ethernetGatewayListener);
-            ethernetGatewayListenerThread.start();
+            startListener();
             _logger.info("Connected successfully with EthernetGateway[{}:{}]",
                     gateway.getHost(), gateway.getPort());
             this.gateway.setStatus(STATE.UP, "Connected Successfully");
@@ -67,24 +64,28 @@ public class EthernetGatewayActionThread implements Runnable {
         }
     }
 
-    public synchronized void close() {
+    private void startListener() {
+        ethernetGatewayListener = new EthernetGatewayListener(socket, this.gateway);
+        if (!McExecutors.getInstance().execute(POOL.GATEWAY_IO, ethernetGatewayListener)) {
+            throw new IllegalStateException("Unable to start EthernetGatewayListener, gateway I/O pool is full");
+        }
+    }
+
+    /** Initial delay for this task, retry time when not connected otherwise alive check interval */
+    public long getNextDelay() {
+        return reconnect ? RETRY_WAIT_TIME : this.gateway.getAliveFrequency() * McUtils.ONE_SECOND;
+    }
+
+    public void close() {
         if (ethernetGatewayListener != null) {
             ethernetGatewayListener.setTerminate(true);
         }
+        // terminate outside of the lock, alive check of the running cycle may write to this gateway
+        terminate();
+        closeSocket();
+    }
 
-        this.setTerminate(true);
-        long waitTime = THREAD_TERMINATION_WAIT_TIME;
-        while (!this.isTerminated() && waitTime > 0) {
-            try {
-                Thread.sleep(100);
-                waitTime -= 100;
-            } catch (InterruptedException ex) {
-                _logger.error("Error,", ex);
-            }
-        }
-        if (waitTime <= 0) {
-            _logger.warn("Terminating abnormally EthernetGatewayActionThread!");
-        }
+    private synchronized void closeSocket() {
         if (socket != null) {
             try {
                 socket.close();
@@ -103,6 +104,7 @@ public class EthernetGatewayActionThread implements Runnable {
             _logger.error("Exception,", ex);
             reconnect = true;
             this.gateway.setStatus(STATE.DOWN, "ERROR: " + ex.getMessage());
+            scheduleNext(RETRY_WAIT_TIME);
             throw new GatewayException(GATEWAY_STATUS.GATEWAY_ERROR.toString()
                     + ": There is no connection with EthernetGateway!");
         }
@@ -126,13 +128,6 @@ public class EthernetGatewayActionThread implements Runnable {
             ethernetGatewayListener = null;
         }
 
-        if (ethernetGatewayListenerThread != null) {
-            if (ethernetGatewayListenerThread.isAlive()) {
-                _logger.warn("EthernetGatewayListener Thread is running and "
-                        + "about to start another thread. Fix this issue...");
-            }
-        }
-
         try {
             if (socket != null) {
                 socket.close();
@@ -140,9 +135,7 @@ public class EthernetGatewayActionThread implements Runnable {
             }
             socket = new Socket(gateway.getHost(), gateway.getPort());
             socket.setKeepAlive(true);
-            ethernetGatewayListener = new EthernetGatewayListener(socket, this.gateway);
-            ethernetGatewayListenerThread = new Thread(ethernetGatewayListener);
-            ethernetGatewayListenerThread.start();
+            startListener();
             reconnect = false;
             this.gateway.setStatus(STATE.UP, "Reconnected Successfully");
             _logger.info("Reconnected gateway successfully...");
@@ -157,53 +150,13 @@ public class EthernetGatewayActionThread implements Runnable {
     }
 
     @Override
-    public void run() {
-        while (!isTerminate()) {
-            try {
-                if (reconnect) {
-                    long retryWaitTime = RETRY_WAIT_TIME;
-                    while (retryWaitTime > 0 && !isTerminate()) {
-                        Thread.sleep(100);
-                        retryWaitTime -= 100;
-                    }
-                    if (!isTerminate()) {
-                        reconnect();
-                    }
-                } else {
-                    long aliveInterval = this.gateway.getAliveFrequency() * 1000;
-                    while (aliveInterval > 0 && !isTerminate() && !reconnect) {
-                        Thread.sleep(100);
-                        aliveInterval -= 100;
-                    }
-                    if (!isTerminate() && !reconnect) {
-                        if (!checkAliveState()) {
-                            reconnect = true;
-                        }
-                    }
-                }
-
-            } catch (Exception ex) {
-                _logger.error("Exception,", ex);
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    _logger.error("Exception,", e);
-                }
-            }
+    protected long poll() {
+        if (reconnect) {
+            reconnect();
+        } else if (!checkAliveState()) {
+            reconnect = true;
         }
-        this.terminated = true;
-    }
-
-    public boolean isTerminated() {
-        return terminated;
-    }
-
-    public boolean isTerminate() {
-        return terminate;
-    }
-
-    public synchronized void setTerminate(boolean terminate) {
-        this.terminate = terminate;
+        return getNextDelay();
     }
 
     public GatewayEthernet getGateway() {
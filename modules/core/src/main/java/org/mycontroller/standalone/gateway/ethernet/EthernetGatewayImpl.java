@@ -32,7 +32,7 @@ public class EthernetGatewayImpl implements IGateway {
     public EthernetGatewayImpl(GatewayTable gatewayTable) {
         if (monitoringThread == null) {
             monitoringThread = new EthernetGatewayActionThread(new GatewayEthernet(gatewayTable));
-            new Thread(monitoringThread).start();
+            monitoringThread.start(monitoringThread.getNextDelay());
         }
     }
 
@@ -19,10 +19,12 @@ package org.mycontroller.standalone.gateway.model;
 import java.util.HashMap;
 
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.gateway.GatewayUtils.GATEWAY_TYPE;
+import org.mycontroller.standalone.rule.McRuleScheduler;
 
 import com.fasterxml.jackson.annotation.JsonGetter;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -84,12 +86,16 @@ public abstract class Gateway {
     }
 
     public void setStatus(STATE state, String statusMessage) {
-        if (this.state != state) {
+        boolean stateChanged = this.state != state;
+        if (stateChanged) {
             this.state = state;
             this.setStatusSince(System.currentTimeMillis());
         }
         setStatusMessage(statusMessage);
         DaoUtils.getGatewayDao().update(getGatewayTable());
+        if (stateChanged) {
+            McRuleScheduler.getInstance().onStateChange(RESOURCE_TYPE.GATEWAY, getId());
+        }
     }
 
     //For json
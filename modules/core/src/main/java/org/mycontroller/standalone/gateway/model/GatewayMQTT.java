@@ -51,6 +51,8 @@ public class GatewayMQTT extends Gateway {
     private String username;
     private String password;
     private Integer qos;
+    // Split and trimmed once, used on every message
+    private String[] topicsPublishList;
 
     public GatewayMQTT() {
 
@@ -81,6 +83,7 @@ public class GatewayMQTT extends Gateway {
         brokerHost = (String) gatewayTable.getProperties().get(KEY_BROKER_HOST);
         clientId = (String) gatewayTable.getProperties().get(KEY_CLIENT_ID);
         topicsPublish = (String) gatewayTable.getProperties().get(KEY_TOPICS_PUBLISH);
+        topicsPublishList = null;
         topicsSubscribe = (String) gatewayTable.getProperties().get(KEY_TOPICS_SUBSCRIBE);
         username = (String) gatewayTable.getProperties().get(KEY_USERNAME);
         password = (String) gatewayTable.getProperties().get(KEY_PASSWORD);
@@ -90,6 +93,23 @@ public class GatewayMQTT extends Gateway {
         }
     }
 
+    @JsonIgnore
+    public String[] getTopicsPublishList() {
+        if (topicsPublishList == null && topicsPublish != null) {
+            String[] topics = topicsPublish.split(TOPICS_SPLITER);
+            for (int index = 0; index < topics.length; index++) {
+                topics[index] = topics[index].trim();
+            }
+            topicsPublishList = topics;
+        }
+        return topicsPublishList;
+    }
+
+    public void setTopicsPublish(String topicsPublish) {
+        this.topicsPublish = topicsPublish;
+        this.topicsPublishList = null;
+    }
+
     public Integer getQos() {
         if (qos == null) {
             return DEFAULT_MQTT_QOS;
@@ -17,14 +17,12 @@
 package org.mycontroller.standalone.gateway.mqtt;
 
 import org.apache.commons.lang.StringUtils;
-import org.eclipse.paho.client.mqttv3.IMqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
-import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.mycontroller.standalone.AppProperties.STATE;
-import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.model.GatewayMQTT;
 import org.mycontroller.standalone.message.RawMessage;
 import org.mycontroller.standalone.message.RawMessageQueue;
@@ -38,17 +36,17 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class MqttCallbackListener implements MqttCallback {
-    private IMqttClient mqttClient;
+    private IMqttAsyncClient mqttClient;
     private GatewayMQTT gateway;
-    private MqttConnectOptions connectOptions;
+    private MqttGatewayImpl gatewayImpl;
     private boolean reconnect = true;
     private boolean reconnectRunning = false;
     public static final long RECONNECT_WAIT_TIME = McUtils.SECOND * 5;
 
-    public MqttCallbackListener(IMqttClient mqttClient, GatewayMQTT gateway, MqttConnectOptions connectOptions) {
+    public MqttCallbackListener(IMqttAsyncClient mqttClient, GatewayMQTT gateway, MqttGatewayImpl gatewayImpl) {
         this.mqttClient = mqttClient;
         this.gateway = gateway;
-        this.connectOptions = connectOptions;
+        this.gatewayImpl = gatewayImpl;
     }
 
     @Override
@@ -116,8 +114,7 @@ public class MqttCallbackListener implements MqttCallback {
                 break;
             } else {
                 try {
-                    mqttClient.connect(connectOptions);
-                    mqttClient.subscribe(GatewayUtils.getMqttTopics(gateway.getTopicsSubscribe()));
+                    gatewayImpl.connect();
                     _logger.info("MQTT Gateway[{}] Reconnected successfully...", mqttClient.getServerURI());
                     gateway.setStatus(STATE.UP, "Reconnected successfully...");
                     if (mqttClient.isConnected()) {
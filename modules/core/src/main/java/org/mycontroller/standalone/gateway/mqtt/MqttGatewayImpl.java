@@ -16,12 +16,18 @@
  */
 package org.mycontroller.standalone.gateway.mqtt;
 
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.commons.lang.RandomStringUtils;
-import org.eclipse.paho.client.mqttv3.IMqttClient;
-import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.gateway.GatewayException;
@@ -29,10 +35,18 @@ import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.IGateway;
 import org.mycontroller.standalone.gateway.model.GatewayMQTT;
 import org.mycontroller.standalone.message.RawMessage;
+import org.mycontroller.standalone.monitoring.McCounter;
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
+import org.mycontroller.standalone.mqttbroker.MqttBrokerBridge;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Publishes without waiting for the broker. Up to in-flight window messages are outstanding, write blocks when
+ * the window is full. Completion callback releases the window and records latency and errors. Gateways of the
+ * inbuilt broker use {@link MqttBrokerBridge} when enabled.
+ *
  * @author Jeeva Kandasamy (jkandasa)
  * @since 0.0.2
  */
@@ -43,27 +57,84 @@ public class MqttGatewayImpl implements IGateway {
     public static final long DISCONNECT_TIME_OUT = 1000 * 1;
     public static final int CONNECTION_TIME_OUT = 1000 * 5;
     public static final int KEEP_ALIVE = 1000 * 5;
+    public static final long PUBLISH_WAIT_TIME = 1000 * 10;
+    public static final int SUBSCRIBE_QOS = 1;
     private GatewayMQTT gateway = null;
 
-    private IMqttClient mqttClient;
+    private IMqttAsyncClient mqttClient;
     private MqttCallbackListener mqttCallbackListener;
+    private MqttConnectOptions connectOptions;
+    private int window;
+    // Replaced on each connect, late callbacks of the previous connection release the old one
+    private volatile Semaphore inflightWindow;
+    private IMqttActionListener publishListener;
+    private McHistogram publishTime;
+    private McCounter publishErrors;
+    // Not null when connected to inbuilt broker in-process
+    private MqttBrokerBridge brokerBridge;
+
+    // Passed as user context of publish token
+    private static class PublishContext {
+        private final Semaphore inflightWindow;
+        private final long startTime;
+
+        private PublishContext(Semaphore inflightWindow, long startTime) {
+            this.inflightWindow = inflightWindow;
+            this.startTime = startTime;
+        }
+    }
 
     public MqttGatewayImpl(GatewayTable gatewayTable) {
         try {
             this.gateway = new GatewayMQTT(gatewayTable);
-            mqttClient = new MqttClient(this.gateway.getBrokerHost(), this.gateway.getClientId()
+            if (MqttBrokerBridge.getInstance().isEmbeddedBroker(gateway.getBrokerHost())) {
+                if (!MqttBrokerBridge.getInstance().register(gateway)) {
+                    this.gateway.setStatus(STATE.DOWN, "ERROR: Not authorized by inbuilt broker");
+                    _logger.error("MQTT Gateway[name:{}] credentials are not accepted by inbuilt broker",
+                            gateway.getName());
+                    return;
+                }
+                brokerBridge = MqttBrokerBridge.getInstance();
+                _logger.info("MQTT Gateway[name:{}, NetworkType:{}] connected to inbuilt broker in-process",
+                        gateway.getName(), gateway.getNetworkType().getText());
+                this.gateway.setStatus(STATE.UP, "Connected to inbuilt broker in-process");
+                return;
+            }
+            window = Math.max(1, AppProperties.getInstance().getMqttInflightWindow());
+            inflightWindow = new Semaphore(window);
+            publishTime = McMetrics.getInstance().histogram("mc_mqtt_publish_seconds",
+                    "Time to complete MQTT publish", "gateway", String.valueOf(gatewayTable.getId()));
+            publishErrors = McMetrics.getInstance().counter("mc_mqtt_publish_errors_total",
+                    "Failed MQTT publishes", "gateway", String.valueOf(gatewayTable.getId()));
+            publishListener = new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken token) {
+                    PublishContext context = (PublishContext) token.getUserContext();
+                    context.inflightWindow.release();
+                    publishTime.recordSince(context.startTime);
+                }
+
+                @Override
+                public void onFailure(IMqttToken token, Throwable exception) {
+                    ((PublishContext) token.getUserContext()).inflightWindow.release();
+                    publishErrors.increment();
+                    _logger.error("Unable to publish, Gateway:[{}], Topics:{}", gateway.getName(),
+                            token.getTopics(), exception);
+                }
+            };
+            mqttClient = new MqttAsyncClient(this.gateway.getBrokerHost(), this.gateway.getClientId()
                     + "_" + RandomStringUtils.randomAlphanumeric(5));
-            MqttConnectOptions connectOptions = new MqttConnectOptions();
+            connectOptions = new MqttConnectOptions();
             connectOptions.setConnectionTimeout(CONNECTION_TIME_OUT);
             connectOptions.setKeepAliveInterval(KEEP_ALIVE);
+            connectOptions.setMaxInflight(window);
             if (this.gateway.getUsername() != null && this.gateway.getUsername().length() > 0) {
                 connectOptions.setUserName(this.gateway.getUsername());
                 connectOptions.setPassword(this.gateway.getPassword().toCharArray());
             }
-            mqttClient.connect(connectOptions);
-            mqttCallbackListener = new MqttCallbackListener(mqttClient, this.gateway, connectOptions);
+            mqttCallbackListener = new MqttCallbackListener(mqttClient, this.gateway, this);
             mqttClient.setCallback(mqttCallbackListener);
-            mqttClient.subscribe(GatewayUtils.getMqttTopics(gateway.getTopicsSubscribe()));
+            connect();
             _logger.info("MQTT Gateway[name:{}, URI:{}, NetworkType:{}] connected successfully..", gateway.getName(),
                     mqttClient.getServerURI(), gateway.getNetworkType().getText());
             this.gateway.setStatus(STATE.UP, "Connected Successfully");
@@ -72,36 +143,75 @@ public class MqttGatewayImpl implements IGateway {
                     + ", Reload this gateway when MQTT Broker comes UP");
             _logger.error("Unable to connect with MQTT broker gateway[{}], Reason Code: {}, "
                     + "Reload gateway [Id:{}, Name:{}, NetworkType:{}] service when MQTT Broker comes UP!",
-                    mqttClient.getServerURI(), ex.getReasonCode(), gateway.getName(),
+                    gateway.getBrokerHost(), ex.getReasonCode(), gateway.getName(),
                     gateway.getNetworkType().getText(), ex);
         }
     }
 
+    /** Connects and subscribes, waits till both complete */
+    void connect() throws MqttException {
+        mqttClient.connect(connectOptions).waitForCompletion();
+        //Clean session drops in-flight messages of the previous connection, callbacks may still come for those.
+        //New window, so those callbacks do not add permits to it
+        inflightWindow = new Semaphore(window);
+        String[] topics = GatewayUtils.getMqttTopics(gateway.getTopicsSubscribe());
+        int[] qos = new int[topics.length];
+        for (int index = 0; index < qos.length; index++) {
+            qos[index] = SUBSCRIBE_QOS;
+        }
+        mqttClient.subscribe(topics, qos).waitForCompletion();
+    }
+
     @Override
-    public synchronized void write(RawMessage rawMessage) throws GatewayException {
+    public void write(RawMessage rawMessage) throws GatewayException {
         _logger.debug("Message about to send, Topic:[{}], PayLoad:[{}]", rawMessage.getSubData(),
                 rawMessage.getData());
+        MqttMessage message = new MqttMessage(((String) rawMessage.getData()).getBytes());
+        message.setQos(gateway.getQos());
+        String topics = rawMessage.getSubData();
+        if (topics.indexOf(GatewayMQTT.TOPICS_SPLITER) == -1) {
+            publish(topics, message);
+        } else {
+            for (String topic : topics.split(GatewayMQTT.TOPICS_SPLITER)) {
+                publish(topic, message);
+            }
+        }
+    }
+
+    private void publish(String topic, MqttMessage message) throws GatewayException {
+        if (brokerBridge != null) {
+            brokerBridge.publish(gateway, topic, message.getPayload(), message.getQos());
+            return;
+        }
+        Semaphore permits = inflightWindow;
         try {
-            MqttMessage message = new MqttMessage(((String) rawMessage.getData()).getBytes());
-            message.setQos(gateway.getQos());
-            String[] topicsPublish = rawMessage.getSubData().split(GatewayMQTT.TOPICS_SPLITER);
-            for (String topic : topicsPublish) {
-                mqttClient.publish(topic, message);
+            if (!permits.tryAcquire(PUBLISH_WAIT_TIME, TimeUnit.MILLISECONDS)) {
+                publishErrors.increment();
+                throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR
+                        + ": In-flight window full, broker not responding");
             }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR + ": Interrupted");
+        }
+        try {
+            mqttClient.publish(topic, message, new PublishContext(permits, System.nanoTime()), publishListener);
         } catch (MqttException ex) {
-            if (ex.getMessage().contains("Timed out waiting for a response from the server")) {
-                _logger.debug(ex.getMessage());
-            } else {
-                _logger.error("Exception, Reason Code:{}", ex.getReasonCode(), ex);
-                throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR + ": Reason Code: "
-                        + ex.getReasonCode() + ", Error: "
-                        + ex.getMessage());
-            }
+            permits.release();
+            publishErrors.increment();
+            _logger.error("Exception, Reason Code:{}", ex.getReasonCode(), ex);
+            throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR + ": Reason Code: "
+                    + ex.getReasonCode() + ", Error: "
+                    + ex.getMessage());
         }
     }
 
     @Override
     public void close() {
+        if (brokerBridge != null) {
+            brokerBridge.unregister(gateway);
+            return;
+        }
         try {
             if (mqttCallbackListener != null) {
                 mqttCallbackListener.stopReconnect();
@@ -23,6 +23,7 @@ import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.IGateway;
 import org.mycontroller.standalone.gateway.model.GatewayPhantIO;
 import org.mycontroller.standalone.message.RawMessage;
+import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -38,7 +39,8 @@ public class PhantIOGatewayImpl implements IGateway {
         GatewayPhantIO gateway = (GatewayPhantIO) GatewayUtils.getGateway(gatewayTable);
         try {
             phantIOGatewayPoller = new PhantIOGatewayPoller(gateway);
-            new Thread(phantIOGatewayPoller).start();
+            //Initial delay, allow to add this object in McObject manager
+            phantIOGatewayPoller.start(McUtils.SECOND * 10);
             _logger.info("Connected successfully with phantIOGatewayPoller[{}, PublicKey:{}, TrustHostType:{}]",
                     gateway.getUrl(), gateway.getPublicKey(), gateway.getTrustHostType().getText());
             gateway.setStatus(STATE.UP, "Connected Successfully");
@@ -50,7 +52,7 @@ public class PhantIOGatewayImpl implements IGateway {
 
     @Override
     public synchronized void close() {
-        phantIOGatewayPoller.setTerminate(true);
+        phantIOGatewayPoller.terminate();
     }
 
     @Override
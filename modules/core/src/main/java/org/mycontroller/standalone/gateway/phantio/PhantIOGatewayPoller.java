@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
+import org.mycontroller.standalone.executor.McPollerTask;
 import org.mycontroller.standalone.gateway.model.GatewayPhantIO;
 import org.mycontroller.standalone.message.RawMessage;
 import org.mycontroller.standalone.message.RawMessageQueue;
@@ -38,10 +39,8 @@ import lombok.extern.slf4j.Slf4j;
  * @since 0.0.2
  */
 @Slf4j
-public class PhantIOGatewayPoller implements Runnable {
+public class PhantIOGatewayPoller extends McPollerTask {
     private PhantIOClient phantIOClient = null;
-    private boolean terminate = false;
-    private boolean terminated = false;
     private GatewayPhantIO gateway = null;
     //2016-07-18T20:50:04+05:30
     private static final SimpleDateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
@@ -56,32 +55,14 @@ public class PhantIOGatewayPoller implements Runnable {
     }
 
     @Override
-    public void run() {
-        //Initial delay, allow to add this object in McObject manager
-        try {
-            Thread.sleep(McUtils.SECOND * 10);
-        } catch (InterruptedException ex) {
-            _logger.error("Exception, ", ex);
+    protected long poll() throws ParseException {
+        ClientResponse<List<HashMap<String, String>>> clientResponse = phantIOClient
+                .get(gateway.getRecordsLimit());
+        _logger.debug("Client response: {}", clientResponse);
+        if (clientResponse.getEntity() != null) {
+            updateRecords(clientResponse.getEntity());
         }
-        while (!isTerminate()) {
-            try {
-                ClientResponse<List<HashMap<String, String>>> clientResponse = phantIOClient
-                        .get(gateway.getRecordsLimit());
-                _logger.debug("Client response: {}", clientResponse);
-                if (clientResponse.getEntity() != null) {
-                    updateRecords(clientResponse.getEntity());
-                }
-                long pollFrequency = gateway.getPollFrequency() * McUtils.MINUTE;
-                while (pollFrequency > 0 && !isTerminate()) {
-                    Thread.sleep(100);
-                    pollFrequency -= 100;
-                }
-            } catch (InterruptedException | ParseException ex) {
-                _logger.error("Exception, ", ex);
-            }
-        }
-        _logger.debug("PhantIOGatewayListener Terminated...");
-        this.terminated = true;
+        return Math.max(gateway.getPollFrequency() * McUtils.MINUTE, McUtils.ONE_SECOND);
     }
 
     private void updateRecords(List<HashMap<String, String>> records) throws ParseException {
@@ -109,18 +90,6 @@ public class PhantIOGatewayPoller implements Runnable {
         return timestampFormat.parse(timestamp).getTime();
     }
 
-    public boolean isTerminate() {
-        return terminate;
-    }
-
-    public synchronized void setTerminate(boolean terminate) {
-        this.terminate = terminate;
-    }
-
-    public boolean isTerminated() {
-        return terminated;
-    }
-
     public void write(RawMessage rawMessage) {
         if (gateway.getPrivateKey() != null && gateway.getPrivateKey().length() > 0) {
             _logger.debug("Send data: {}, {}", this.gateway, rawMessage);
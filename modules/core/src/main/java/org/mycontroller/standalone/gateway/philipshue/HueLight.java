@@ -0,0 +1,84 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.gateway.philipshue;
+
+/**
+ * Last seen state of a light, payloads as sent to the controller. Update methods return true when the value
+ * changed, only changed attributes are sent.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+class HueLight {
+    private String name;
+    private String status;
+    private String lightLevel;
+    private String rgb;
+
+    String getName() {
+        return name;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    String getLightLevel() {
+        return lightLevel;
+    }
+
+    String getRgb() {
+        return rgb;
+    }
+
+    boolean updateName(String name) {
+        if (!isChanged(this.name, name)) {
+            return false;
+        }
+        this.name = name;
+        return true;
+    }
+
+    boolean updateStatus(String status) {
+        if (!isChanged(this.status, status)) {
+            return false;
+        }
+        this.status = status;
+        return true;
+    }
+
+    boolean updateLightLevel(String lightLevel) {
+        if (!isChanged(this.lightLevel, lightLevel)) {
+            return false;
+        }
+        this.lightLevel = lightLevel;
+        return true;
+    }
+
+    boolean updateRgb(String rgb) {
+        if (!isChanged(this.rgb, rgb)) {
+            return false;
+        }
+        this.rgb = rgb;
+        return true;
+    }
+
+    //Value not received is not a change
+    private static boolean isChanged(String current, String received) {
+        return received != null && !received.equals(current);
+    }
+}
@@ -23,6 +23,7 @@ import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.IGateway;
 import org.mycontroller.standalone.gateway.model.GatewayPhilipsHue;
 import org.mycontroller.standalone.message.RawMessage;
+import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -41,7 +42,8 @@ public class PhilipsHueGatewayImpl implements IGateway {
         GatewayPhilipsHue gateway = (GatewayPhilipsHue) GatewayUtils.getGateway(gatewayTable);
         try {
             philipsHueGatewayPoller = new PhilipsHueGatewayPoller(gateway);
-            new Thread(philipsHueGatewayPoller).start();
+            // Initial delay, allow to add this object in McObject manager
+            philipsHueGatewayPoller.start(McUtils.SECOND * 10);
             _logger.info("Connected successfully with philipsHueGatewayPoller[{}, AuthorizedUser:{}]",
                     gateway.getUrl(), gateway.getAuthorizedUser());
             gateway.setStatus(STATE.UP, "Connected Successfully");
@@ -53,7 +55,7 @@ public class PhilipsHueGatewayImpl implements IGateway {
 
     @Override
     public synchronized void close() {
-        philipsHueGatewayPoller.setTerminate(true);
+        philipsHueGatewayPoller.terminate();
     }
 
     @Override
@@ -21,6 +21,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mycontroller.restclient.core.ClientResponse;
 import org.mycontroller.restclient.core.jaxrs.Empty;
@@ -31,6 +32,7 @@ import org.mycontroller.restclient.philips.hue.model.State;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.executor.McPollerTask;
 import org.mycontroller.standalone.gateway.model.GatewayPhilipsHue;
 import org.mycontroller.standalone.message.McMessage;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE;
@@ -50,11 +52,14 @@ import lombok.extern.slf4j.Slf4j;
  * @author Fraid(https://github.com/Fraid)
  */
 @Slf4j
-public class PhilipsHueGatewayPoller implements Runnable {
-    private boolean terminate = false;
-    private boolean terminated = false;
+public class PhilipsHueGatewayPoller extends McPollerTask {
+    // Poll interval after a change or user command, doubled on each idle poll up to poll frequency
+    public static final long MIN_POLL_INTERVAL = McUtils.SECOND * 2;
+
     private PhilipsHueClient philipsHueClient;
-    private boolean onRequestUpdate = false;
+    // Last seen state of the lights, key: light id
+    private final ConcurrentHashMap<String, HueLight> lights = new ConcurrentHashMap<String, HueLight>();
+    private volatile long pollInterval = MIN_POLL_INTERVAL;
 
     public PhilipsHueGatewayPoller() {
     }
@@ -62,133 +67,130 @@ public class PhilipsHueGatewayPoller implements Runnable {
     private GatewayPhilipsHue gateway = null;
 
     public PhilipsHueGatewayPoller(GatewayPhilipsHue gateway) throws Exception {
-        this.gateway = gateway;
-        philipsHueClient = new PhilipsHueClientBuilder().uri(gateway.getUrl())
-                .addProperty(PhilipsHueClient.KEY_AUTHORIZED_USER, gateway.getAuthorizedUser()).build();
+        this(gateway, new PhilipsHueClientBuilder().uri(gateway.getUrl())
+                .addProperty(PhilipsHueClient.KEY_AUTHORIZED_USER, gateway.getAuthorizedUser()).build());
+    }
 
+    // Allows to run against a local stub bridge
+    PhilipsHueGatewayPoller(GatewayPhilipsHue gateway, PhilipsHueClient philipsHueClient) {
+        this.gateway = gateway;
+        this.philipsHueClient = philipsHueClient;
     }
 
     @Override
-    public void run() {
-        // Initial delay, allow to add this object in McObject manager
-        waitFor(McUtils.SECOND * 10);
-        while (!isTerminate()) {
-            try {
-                _logger.debug("Getting hue lights...on user request : {} ", onRequestUpdate);
-                //                if (onStart) {
-                final ClientResponse<Map<String, LightState>> clientResponse = philipsHueClient.lights().listAll();
-                if (clientResponse.isSuccess()) {
-                    Map<String, LightState> lights = clientResponse.getEntity();
-                    _logger.debug("Client response: {} {} ", clientResponse, onRequestUpdate);
-                    if (clientResponse != null && !lights.isEmpty()) {
-                        updateRecords(lights);
-                    } else {
-                        _logger.warn("Error no light found {} ", philipsHueClient);
-                    }
-                } else {
-                    _logger.debug("Error while getting hue lights: {}", clientResponse);
-                    //In case something wrong with the bridge we waiting before attempting a new call.
-                    _logger.debug("On error retrying...");
-                    //Wait before trying contact the bridge.
-                    waitFor(2000);
-                }
-                long pollFrequency = gateway.getPollFrequency() * McUtils.MINUTE;
-                while (pollFrequency > 0 && !isTerminate() && !onRequestUpdate) {
-                    Thread.sleep(100);
-                    pollFrequency -= 100;
-                }
-                onRequestUpdate = false;
-            } catch (Exception ex) {
-                //On January 6, 2017, PhilipsHueClient will crash when network is unreachable. And unable to reconnect.
-                _logger.error("Exception, ", ex);
-                _logger.debug("On error retrying...");
-                //Wait before trying contact the bridge.
-                waitFor(2000);
+    protected long poll() throws Exception {
+        _logger.debug("Getting hue lights...");
+        final ClientResponse<Map<String, LightState>> clientResponse = philipsHueClient.lights().listAll();
+        boolean changed = false;
+        if (clientResponse != null && clientResponse.isSuccess()) {
+            Map<String, LightState> lightStates = clientResponse.getEntity();
+            _logger.debug("Client response: {} ", clientResponse);
+            if (lightStates != null && !lightStates.isEmpty()) {
+                changed = updateRecords(lightStates);
+            } else {
+                _logger.warn("Error no light found {} ", philipsHueClient);
             }
+        } else {
+            _logger.debug("Error while getting hue lights: {}", clientResponse);
+            //In case something wrong with the bridge we waiting before attempting a new call.
+            _logger.debug("On error retrying...");
+            return ERROR_RETRY_DELAY + getMaxPollInterval();
+        }
+        pollInterval = PhilipsHueUtils.nextPollInterval(pollInterval, changed, MIN_POLL_INTERVAL,
+                getMaxPollInterval());
+        return pollInterval;
+    }
 
+    private long getMaxPollInterval() {
+        if (gateway.getPollFrequency() == null) {
+            return MIN_POLL_INTERVAL;
         }
-        _logger.debug("PhilipsHueGatewayPoller Terminated...");
-        this.terminated = true;
+        return Math.max(gateway.getPollFrequency() * McUtils.MINUTE, MIN_POLL_INTERVAL);
     }
 
-    private void updateRecords(Map<String, LightState> records) throws ParseException {
+    /** Sends changed attributes only, returns true when there is a change on any light */
+    private boolean updateRecords(Map<String, LightState> records) throws ParseException {
+        boolean changed = false;
         for (Entry<String, LightState> entry : records.entrySet()) {
             String key = entry.getKey();
             LightState value = entry.getValue();
+            if (value == null || value.getState() == null) {
+                continue;
+            }
 
-            //Check does this sensor exists already.
-            //If exists, check value. If there is a change update it.
-            Sensor sensor = DaoUtils.getSensorDao().get(gateway.getId(), PhilipsHueUtils.NODE_EUI, key);
-            boolean updateStatus = true;
-            boolean updateLightLevel = true;
-            boolean updateRGB = true;
-            if (sensor != null) {
-                for (SensorVariable variable : sensor.getVariables()) {
-                    switch (variable.getVariableType()) {
-                        case V_STATUS:
-                            if (variable.getValue() == null || variable.getValue().equals(McMessage.PAYLOAD_EMPTY)) {
-                                break;
-                            }
-                            if (variable.getValue().equals(value.getState().getOn() ? "1" : "0")) {
-                                updateStatus = false;
-                            }
-                            break;
-                        case V_LIGHT_LEVEL:
-                            if (variable.getValue() == null || variable.getValue().equals(McMessage.PAYLOAD_EMPTY)) {
-                                break;
-                            }
-                            if (variable.getValue().equals(
-                                    PhilipsHueUtils.toPercent(value.getState().getBri()).toString())) {
-                                updateLightLevel = false;
-                            }
-                            break;
-                        case V_RGB:
-                            if (variable.getValue() == null || variable.getValue().equals(McMessage.PAYLOAD_EMPTY)) {
-                                break;
-                            }
-                            if (value.getState().getXy() != null && value.getState().getXy().length == 2) {
-                                Float[] xy = value.getState().getXy();
-                                if (variable.getValue().equals(
-                                        PHUtilities.getHexFromXY(new float[] { xy[0], xy[1] }, value.getModelid()))) {
-                                    updateRGB = false;
-                                }
-                            } else {
-                                updateRGB = false;
-                            }
-                            break;
-                        default:
-                            _logger.warn("SenaorVariable type '{}' is not implemented!", variable.getVariableType()
-                                    .getText());
-                            break;
-
-                    }
-                }
-            } else {
-                //Update sensor name and type
+            HueLight light = lights.get(key);
+            if (light == null) {
+                light = loadLight(key, value);
+                lights.put(key, light);
+            } else if (light.updateName(value.getName())) {
+                //Light renamed on bridge
                 updateSensorNameAndType(MESSAGE_TYPE_PRESENTATION.S_RGB_LIGHT, key, value.getName());
+                changed = true;
             }
 
             //Update status payload
-            if (updateStatus) {
-                updateSetPayload(MESSAGE_TYPE_SET_REQ.V_STATUS, key, value.getState().getOn() ? "1" : "0");
+            String status = value.getState().getOn() ? "1" : "0";
+            if (light.updateStatus(status)) {
+                updateSetPayload(MESSAGE_TYPE_SET_REQ.V_STATUS, key, status);
+                changed = true;
             }
 
             //Update light level (0 to 100%), payload
-            if (updateLightLevel) {
-                updateSetPayload(MESSAGE_TYPE_SET_REQ.V_LIGHT_LEVEL, key,
-                        PhilipsHueUtils.toPercent(value.getState().getBri()).toString());
+            String lightLevel = PhilipsHueUtils.toPercent(value.getState().getBri()).toString();
+            if (light.updateLightLevel(lightLevel)) {
+                updateSetPayload(MESSAGE_TYPE_SET_REQ.V_LIGHT_LEVEL, key, lightLevel);
+                changed = true;
             }
 
-            //Update RGB color, payload
-            if (updateRGB) {
-                //Set color from xy
-                Float[] xy = value.getState().getXy();
-                if (xy != null && xy.length == 2) {
-                    updateSetPayload(MESSAGE_TYPE_SET_REQ.V_RGB, key,
-                            PHUtilities.getHexFromXY(new float[] { xy[0], xy[1] }, value.getModelid()));
+            //Update RGB color from xy, payload
+            Float[] xy = value.getState().getXy();
+            if (xy != null && xy.length == 2) {
+                String rgb = PHUtilities.getHexFromXY(new float[] { xy[0], xy[1] }, value.getModelid());
+                if (light.updateRgb(rgb)) {
+                    updateSetPayload(MESSAGE_TYPE_SET_REQ.V_RGB, key, rgb);
+                    changed = true;
                 }
             }
         }
+        return changed;
+    }
+
+    // Loads last known values from database on first sight of the light. Creates sensor if not available.
+    private HueLight loadLight(String key, LightState value) {
+        HueLight light = new HueLight();
+        Sensor sensor = DaoUtils.getSensorDao().get(gateway.getId(), PhilipsHueUtils.NODE_EUI, key);
+        if (sensor == null) {
+            //Update sensor name and type
+            updateSensorNameAndType(MESSAGE_TYPE_PRESENTATION.S_RGB_LIGHT, key, value.getName());
+            light.updateName(value.getName());
+            return light;
+        }
+        light.updateName(sensor.getName());
+        if (sensor.getVariables() == null) {
+            return light;
+        }
+        for (SensorVariable variable : sensor.getVariables()) {
+            String variableValue = variable.getValue();
+            if (variableValue == null || variableValue.equals(McMessage.PAYLOAD_EMPTY)) {
+                continue;
+            }
+            switch (variable.getVariableType()) {
+                case V_STATUS:
+                    light.updateStatus(variableValue);
+                    break;
+                case V_LIGHT_LEVEL:
+                    light.updateLightLevel(variableValue);
+                    break;
+                case V_RGB:
+                    light.updateRgb(variableValue);
+                    break;
+                default:
+                    _logger.warn("SenaorVariable type '{}' is not implemented!", variable.getVariableType()
+                            .getText());
+                    break;
+            }
+        }
+        return light;
     }
 
     private void updateSetPayload(MESSAGE_TYPE_SET_REQ subType, String sensorId, String sensorName) {
@@ -208,26 +210,6 @@ public class PhilipsHueGatewayPoller implements Runnable {
                 .build());
     }
 
-    public boolean isOnRequestUpdate() {
-        return onRequestUpdate;
-    }
-
-    public synchronized void setOnRequestUpdate(boolean onRequestUpdate) {
-        this.onRequestUpdate = onRequestUpdate;
-    }
-
-    public boolean isTerminate() {
-        return terminate;
-    }
-
-    public synchronized void setTerminate(boolean terminate) {
-        this.terminate = terminate;
-    }
-
-    public boolean isTerminated() {
-        return terminated;
-    }
-
     public void write(RawMessage rawMessage) {
         if (gateway.getAuthorizedUser() != null && gateway.getAuthorizedUser().length() > 0) {
             _logger.debug("Send data: {}, {}", this.gateway, rawMessage);
@@ -248,6 +230,9 @@ public class PhilipsHueGatewayPoller implements Runnable {
                             if (updateState != null && !updateState.isSuccess()) {
                                 _logger.debug("Error while updating hue lights: {}, {} ", updateState, rawMessage);
                             }
+                            //Read back the state soon, bridge may adjust the requested values
+                            pollInterval = MIN_POLL_INTERVAL;
+                            scheduleNext(MIN_POLL_INTERVAL);
                         } else
                             _logger.warn(" Unable to update {} ", rawMessage);
                     } catch (Exception ex) {
@@ -257,7 +242,8 @@ public class PhilipsHueGatewayPoller implements Runnable {
                     MESSAGE_TYPE_INTERNAL subType = MESSAGE_TYPE_INTERNAL.fromString(subTypeString);
                     switch (subType) {
                         case I_PRESENTATION:
-                            setOnRequestUpdate(true);
+                            lights.clear();
+                            scheduleNext(0);
                             break;
                         default:
                             _logger.error(" Not supported internal message: {} ", subType);
@@ -23,21 +23,17 @@ import org.mycontroller.standalone.gateway.model.GatewaySerial;
 import org.mycontroller.standalone.message.RawMessage;
 import org.mycontroller.standalone.utils.McUtils;
 
-import lombok.extern.slf4j.Slf4j;
-
 /**
  * @author Jeeva Kandasamy (jkandasa)
  * @since 0.0.2
  */
-@Slf4j
 public class MYCSerialPort implements IGateway {
-    public static final long THREAD_TERMINATION_WAIT_TIME = McUtils.ONE_SECOND * 5; //Five seconds
     public static final int SERIAL_DATA_MAX_SIZE = 1000;
     private SerialPortMonitoringThread monitoringThread = null;
 
     public MYCSerialPort(GatewayTable gatewayTable) {
         monitoringThread = new SerialPortMonitoringThread(gatewayTable);
-        new Thread(monitoringThread).start();
+        monitoringThread.start(monitoringThread.getGateway().getRetryFrequency() * McUtils.ONE_SECOND);
     }
 
     @Override
@@ -47,19 +43,7 @@ public class MYCSerialPort implements IGateway {
 
     @Override
     public synchronized void close() {
-        monitoringThread.setTerminate(true);
-        long waitTime = THREAD_TERMINATION_WAIT_TIME;
-        while (!monitoringThread.isTerminated() && waitTime > 0) {
-            try {
-                Thread.sleep(100);
-                waitTime -= 100;
-            } catch (InterruptedException ex) {
-                _logger.error("Error,", ex);
-            }
-        }
-        if (waitTime <= 0) {
-            _logger.warn("Terminating abnormally SerialPortMonitoringThread!");
-        }
+        monitoringThread.terminate();
         monitoringThread.close();
     }
 
@@ -19,6 +19,7 @@ package org.mycontroller.standalone.gateway.serialport;
 import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.db.tables.GatewayTable;
+import org.mycontroller.standalone.executor.McPollerTask;
 import org.mycontroller.standalone.gateway.GatewayException;
 import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.gateway.GatewayUtils.SERIAL_PORT_DRIVER;
@@ -34,11 +35,9 @@ import lombok.extern.slf4j.Slf4j;
  * @since 0.0.2
  */
 @Slf4j
-public class SerialPortMonitoringThread implements Runnable, IGateway {
+public class SerialPortMonitoringThread extends McPollerTask implements IGateway {
 
     private IGateway serialGateway = null;
-    private boolean terminated = false;
-    private boolean terminate = false;
     private long RETRY_WAIT_TIME;
     private GatewaySerial gateway = null;
 
@@ -96,36 +95,13 @@ public class SerialPortMonitoringThread implements Runnable, IGateway {
     }
 
     @Override
-    public void run() {
-        while (!isTerminate()) {
-            long waitTime = RETRY_WAIT_TIME;
-            while (!isTerminate() && waitTime > 0) {
-                try {
-                    Thread.sleep(100);
-                    waitTime -= 100;
-                } catch (InterruptedException ex) {
-                    _logger.error("Error,", ex);
-                }
-            }
-            _logger.debug("Serial GatewayTable:[{}]", gateway);
-            if (!isTerminate() && gateway.getState() != STATE.UP) {
-                _logger.info("Serial GatewayTable[{}] not connected, Reconnect initiated...", gateway);
-                reconnect();
-            }
+    protected long poll() {
+        _logger.debug("Serial GatewayTable:[{}]", gateway);
+        if (gateway.getState() != STATE.UP) {
+            _logger.info("Serial GatewayTable[{}] not connected, Reconnect initiated...", gateway);
+            reconnect();
         }
-        this.terminated = true;
-    }
-
-    public boolean isTerminated() {
-        return terminated;
-    }
-
-    public boolean isTerminate() {
-        return terminate;
-    }
-
-    public void setTerminate(boolean terminate) {
-        this.terminate = terminate;
+        return RETRY_WAIT_TIME;
     }
 
     @Override
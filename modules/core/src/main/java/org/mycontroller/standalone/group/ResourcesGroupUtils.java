@@ -25,7 +25,10 @@ import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.ResourceOperation;
 import org.mycontroller.standalone.db.tables.ResourcesGroup;
 import org.mycontroller.standalone.db.tables.ResourcesGroupMap;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
 import org.mycontroller.standalone.gateway.GatewayUtils;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.model.ResourceModel;
 import org.mycontroller.standalone.rule.McRuleEngine;
 
@@ -43,25 +46,25 @@ public class ResourcesGroupUtils {
 
     public static void turnONresourcesGroup(List<Integer> ids) {
         for (Integer id : ids) {
-            changeStateResourcesGroup(id, STATE.ON);
+            changeStateResourcesGroup(id, STATE.ON, MESSAGE_PRIORITY.INTERACTIVE);
         }
     }
 
     public static void turnOFFresourcesGroup(List<Integer> ids) {
         for (Integer id : ids) {
-            changeStateResourcesGroup(id, STATE.OFF);
+            changeStateResourcesGroup(id, STATE.OFF, MESSAGE_PRIORITY.INTERACTIVE);
         }
     }
 
     public static void turnONresourcesGroup(Integer id) {
-        changeStateResourcesGroup(id, STATE.ON);
+        changeStateResourcesGroup(id, STATE.ON, MESSAGE_PRIORITY.INTERACTIVE);
     }
 
     public static void turnOFFresourcesGroup(Integer id) {
-        changeStateResourcesGroup(id, STATE.OFF);
+        changeStateResourcesGroup(id, STATE.OFF, MESSAGE_PRIORITY.INTERACTIVE);
     }
 
-    private static void changeStateResourcesGroup(Integer id, STATE state) {
+    private static void changeStateResourcesGroup(Integer id, STATE state, MESSAGE_PRIORITY priority) {
         ResourcesGroup resourcesGroup = DaoUtils.getResourcesGroupDao().get(id);
         if (resourcesGroup.getState() == state) {
             //nothing to do just return from here
@@ -85,7 +88,7 @@ public class ResourcesGroupUtils {
             if (resourceModel.getResourceType() == RESOURCE_TYPE.GATEWAY) {
                 GatewayUtils.executeGatewayOperation(resourceModel, operation);
             } else {
-                McObjectManager.getMcActionEngine().executeSendPayload(resourceModel, operation);
+                McObjectManager.getMcActionEngine().executeSendPayload(resourceModel, operation, priority);
             }
         }
 
@@ -95,18 +98,20 @@ public class ResourcesGroupUtils {
         DaoUtils.getResourcesGroupDao().update(resourcesGroup);
 
         //Execute Rules for this resources group
-        new Thread(new McRuleEngine(RESOURCE_TYPE.RESOURCES_GROUP, resourcesGroup.getId())).start();
+        McExecutors.getInstance().execute(POOL.RULE_ENGINE,
+                new McRuleEngine(RESOURCE_TYPE.RESOURCES_GROUP, resourcesGroup.getId()));
 
         //TODO: add it in to log message
     }
 
+    //Called from rules and timers operations
     public static void executeResourceGroupsOperation(ResourceModel resourceModel, ResourceOperation operation) {
         switch (operation.getOperationType()) {
             case ON:
-                turnONresourcesGroup(resourceModel.getResourceId());
+                changeStateResourcesGroup(resourceModel.getResourceId(), STATE.ON, MESSAGE_PRIORITY.RULE);
                 break;
             case OFF:
-                turnOFFresourcesGroup(resourceModel.getResourceId());
+                changeStateResourcesGroup(resourceModel.getResourceId(), STATE.OFF, MESSAGE_PRIORITY.RULE);
                 break;
             default:
                 _logger.warn("ResourcesGroup not support for this operation! [{}]",
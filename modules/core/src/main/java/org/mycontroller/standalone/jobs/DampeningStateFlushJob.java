@@ -0,0 +1,45 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.jobs;
+
+import org.knowm.sundial.Job;
+import org.knowm.sundial.exceptions.JobInterruptException;
+import org.mycontroller.standalone.rule.DampeningStateStore;
+import org.mycontroller.standalone.utils.McUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class DampeningStateFlushJob extends Job {
+    public static final String NAME = "dampening_state_flush_job";
+    public static final String TRIGGER_NAME = "dampening_state_flush_trigger";
+    public static final long INTERVAL = McUtils.ONE_SECOND * 10;
+    private static final Logger _logger = LoggerFactory.getLogger(DampeningStateFlushJob.class);
+
+    @Override
+    public void doRun() throws JobInterruptException {
+        try {
+            DampeningStateStore.getInstance().flush();
+        } catch (Exception ex) {
+            _logger.error("Exception, ", ex);
+        }
+    }
+
+}
@@ -16,15 +16,20 @@
  */
 package org.mycontroller.standalone.jobs;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.knowm.sundial.Job;
 import org.knowm.sundial.exceptions.JobInterruptException;
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.McObjectManager;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.message.McBulkTask.TASK_TYPE;
+import org.mycontroller.standalone.message.McBulkTaskEngine;
+import org.mycontroller.standalone.rule.McRuleScheduler;
 import org.mycontroller.standalone.utils.McUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,25 +67,26 @@ public class NodeAliveStatusJob extends Job {
         }
     }
 
+    //Requests are spread over bulk task window per gateway, nodes seen recently are skipped
     private void sendHeartbeat() {
         long currentTime = System.currentTimeMillis();
         List<Node> nodes = DaoUtils.getNodeDao().getAll();
+        List<Node> heartbeatNodes = new ArrayList<Node>();
         for (Node node : nodes) {
             //If gateway not available, do not send
             if (McObjectManager.getGateway(node.getGatewayTable().getId()) == null
                     || McObjectManager.getGateway(node.getGatewayTable().getId()).getGateway().getState() != STATE.UP) {
-                return;
+                continue;
             }
             //for now supports only for MySensors and MyController
             if (node.getGatewayTable().getEnabled()
                     && (node.getGatewayTable().getNetworkType() == NETWORK_TYPE.MY_SENSORS
                     || node.getGatewayTable().getNetworkType() == NETWORK_TYPE.MY_CONTROLLER)
                     && currentTime >= (node.getLastHeartbeatTxTime() + node.getHeartbeatInterval())) {
-                McObjectManager.getMcActionEngine().sendAliveStatusRequest(node);
-                DaoUtils.getNodeDao().update(Node.KEY_PROPERTIES,
-                        node.setProperty(Node.KEY_HEARTBEAT_LAST_TX_TIME, currentTime), node.getId());
+                heartbeatNodes.add(node);
             }
         }
+        McBulkTaskEngine.getInstance().submit(TASK_TYPE.HEARTBEAT, heartbeatNodes, true);
     }
 
     private void checkHeartbeat() {
@@ -99,6 +105,9 @@ public class NodeAliveStatusJob extends Job {
                 if (newState != null) {
                     DaoUtils.getNodeDao().update(Node.KEY_STATE, newState, node.getId());
                     _logger.debug("Node is in not reachable state, Node:[{}]", node);
+                    if (node.getState() != newState) {
+                        McRuleScheduler.getInstance().onStateChange(RESOURCE_TYPE.NODE, node.getId());
+                    }
                 }
             }
         }
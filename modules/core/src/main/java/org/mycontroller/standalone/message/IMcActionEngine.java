@@ -24,6 +24,7 @@ import org.mycontroller.standalone.db.tables.Node;
 import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
 import org.mycontroller.standalone.gateway.model.GatewayEthernet;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.model.ResourceModel;
 
 /**
@@ -34,6 +35,8 @@ public interface IMcActionEngine {
 
     void executeSendPayload(ResourceModel resourceModel, ResourceOperation operation);
 
+    void executeSendPayload(ResourceModel resourceModel, ResourceOperation operation, MESSAGE_PRIORITY priority);
+
     void executeRequestPayload(ResourceModel resourceModel);
 
     void sendAliveStatusRequest(Node node);
@@ -30,6 +30,8 @@ import org.mycontroller.standalone.db.tables.Node;
 import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
 import org.mycontroller.standalone.gateway.model.GatewayEthernet;
+import org.mycontroller.standalone.message.McBulkTask.TASK_TYPE;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_INTERNAL;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_STREAM;
@@ -49,18 +51,25 @@ public class McActionEngine implements IMcActionEngine {
 
     @Override
     public void executeSendPayload(ResourceModel resourceModel, ResourceOperation operation) {
+        executeSendPayload(resourceModel, operation, MESSAGE_PRIORITY.INTERACTIVE);
+    }
+
+    @Override
+    public void executeSendPayload(ResourceModel resourceModel, ResourceOperation operation,
+            MESSAGE_PRIORITY priority) {
         switch (resourceModel.getResourceType()) {
             case GATEWAY:
                 _logger.warn("I do not know how to handle gateway commands! do not assign me on gateway tasks!");
                 return;
             case NODE:
-                executeNodeOperationSendPayload((Node) resourceModel.getResource(), operation);
+                executeNodeOperationSendPayload((Node) resourceModel.getResource(), operation, priority);
                 break;
             case SENSOR:
                 //TODO: Implement Sensor related operations
                 break;
             case SENSOR_VARIABLE:
-                executeSensorVariableOperationSendPayload((SensorVariable) resourceModel.getResource(), operation);
+                executeSensorVariableOperationSendPayload((SensorVariable) resourceModel.getResource(), operation,
+                        priority);
                 break;
             default:
                 break;
@@ -82,7 +91,7 @@ public class McActionEngine implements IMcActionEngine {
 
     //Private Methods
     // Execute Node related operations
-    private void executeNodeOperationSendPayload(Node node, ResourceOperation operation) {
+    private void executeNodeOperationSendPayload(Node node, ResourceOperation operation, MESSAGE_PRIORITY priority) {
         McMessage mcMessage = null;
         if (operation.getOperationType() != null) {
             switch (operation.getOperationType()) {
@@ -96,6 +105,7 @@ public class McActionEngine implements IMcActionEngine {
                             .subType(MESSAGE_TYPE_INTERNAL.I_REBOOT.getText())
                             .payload(McMessage.PAYLOAD_EMPTY)
                             .isTxMessage(true)
+                            .priority(priority)
                             .build();
                     break;
 
@@ -112,7 +122,8 @@ public class McActionEngine implements IMcActionEngine {
     }
 
     //Execute Sensor Variable related operations
-    private void executeSensorVariableOperationSendPayload(SensorVariable sensorVariable, ResourceOperation operation) {
+    private void executeSensorVariableOperationSendPayload(SensorVariable sensorVariable, ResourceOperation operation,
+            MESSAGE_PRIORITY priority) {
         String payload = null;
         McMessage mcMessage = null;
         if (operation.getOperationType() != null) {
@@ -160,6 +171,7 @@ public class McActionEngine implements IMcActionEngine {
                 .subType(sensorVariable.getVariableType().getText())
                 .payload(payload)
                 .isTxMessage(true)
+                .priority(priority)
                 .build();
         McMessageUtils.sendToMessageQueue(mcMessage);
     }
@@ -175,6 +187,8 @@ public class McActionEngine implements IMcActionEngine {
                 .subType(sensorVariable.getVariableType().getText())
                 .payload(McMessage.PAYLOAD_EMPTY)
                 .isTxMessage(true)
+                //Request payload executed only from rules and timers
+                .priority(MESSAGE_PRIORITY.RULE)
                 .build();
         McMessageUtils.sendToMessageQueue(mcMessage);
     }
@@ -190,6 +204,7 @@ public class McActionEngine implements IMcActionEngine {
                 .subType(MESSAGE_TYPE_INTERNAL.I_HEARTBEAT.getText())
                 .payload(McMessage.PAYLOAD_EMPTY)
                 .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.BACKGROUND)
                 .build();
 
         McMessageUtils.sendToMessageQueue(mcMessage);
@@ -206,6 +221,7 @@ public class McActionEngine implements IMcActionEngine {
                 .subType(MESSAGE_TYPE_INTERNAL.I_VERSION.getText())
                 .payload(McMessage.PAYLOAD_EMPTY)
                 .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.BACKGROUND)
                 .build();
         try {
             if (McObjectManager.getGateway(gatewayEthernet.getId()) != null) {
@@ -233,6 +249,7 @@ public class McActionEngine implements IMcActionEngine {
                 .subType(forwardPayload.getDestination().getVariableType().getText())
                 .payload(payload)
                 .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.FORWARD)
                 .build();
         McMessageUtils.sendToMessageQueue(mcMessage);
     }
@@ -262,6 +279,7 @@ public class McActionEngine implements IMcActionEngine {
                 .ack(McMessage.NO_ACK)
                 .subType(MESSAGE_TYPE_STREAM.ST_FIRMWARE_CONFIG_RESPONSE.getText())
                 .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.OTA)
                 .build();
         if (node.getGatewayTable().getNetworkType() == NETWORK_TYPE.MY_SENSORS) {
             FirmwareConfigResponse fwCfgResponse = new FirmwareConfigResponse();
@@ -285,21 +303,8 @@ public class McActionEngine implements IMcActionEngine {
 
     @Override
     public void discover(Integer gatewayId) {
-        _logger.debug("Sending Node discover");
-        //Before start node discover, remove existing map for this gateway
-        DaoUtils.getNodeDao().updateBulk(Node.KEY_PARENT_NODE_EUI, null, Node.KEY_GATEWAY_ID, gatewayId);
-        //Send discover broadcast message
-        McMessage mcMessage = McMessage.builder()
-                .gatewayId(gatewayId)
-                .nodeEui(McMessage.NODE_BROADCAST_ID)
-                .sensorId(McMessage.SENSOR_BROADCAST_ID)
-                .type(MESSAGE_TYPE.C_INTERNAL)
-                .subType(MESSAGE_TYPE_INTERNAL.I_DISCOVER.getText())
-                .ack(McMessage.NO_ACK)
-                .payload(McMessage.PAYLOAD_EMPTY)
-                .isTxMessage(true)
-                .build();
-        McMessageUtils.sendToMessageQueue(mcMessage);
+        McBulkTaskEngine.getInstance().submit(TASK_TYPE.DISCOVER, gatewayId,
+                DaoUtils.getNodeDao().getAllByGatewayId(gatewayId), false);
     }
 
     @Override
@@ -358,18 +363,22 @@ public class McActionEngine implements IMcActionEngine {
                 .ack(McMessage.NO_ACK)
                 .payload(sensorVariable.getValue())
                 .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.INTERACTIVE)
                 .build();
         McMessageUtils.sendToMessageQueue(mcMessage);
     }
 
     @Override
     public void updateNodeInformations(Integer gatewayId, List<Integer> nodeIds) {
-        if (gatewayId != null && McMessageUtils.isNodeInfoUpdateRunning(gatewayId)) {
-            //Nothing to do already running
-            return;
+        if (gatewayId != null) {
+            //Skip nodes seen recently on gateway wide update
+            McBulkTaskEngine.getInstance().submit(TASK_TYPE.NODE_INFO,
+                    DaoUtils.getNodeDao().getAllByGatewayId(gatewayId), true);
+        } else if (nodeIds != null) {
+            McBulkTaskEngine.getInstance().submit(TASK_TYPE.NODE_INFO, DaoUtils.getNodeDao().getAll(nodeIds), false);
+        } else {
+            _logger.warn("either 'gatewayId' or 'nodeIds' must specified!");
         }
-        //Trigger node info update function
-        new Thread(new McNodeInfoUpdate(gatewayId, nodeIds)).run();
     }
 
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.message;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mycontroller.standalone.AppProperties;
+import org.mycontroller.standalone.AppProperties.STATE;
+import org.mycontroller.standalone.McObjectManager;
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.executor.McPollerTask;
+import org.mycontroller.standalone.gateway.IGateway;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_INTERNAL;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintenance requests (node info, heartbeat, discover) of a gateway. Requests are sent one node at a time, spread
+ * over the bulk task window, to keep the tx queue free for control messages. Node is marked as completed when any
+ * message received from the node after the request. Nodes requested while the task is running are added to it and
+ * served next.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McBulkTask extends McPollerTask {
+    public static final long MIN_INTERVAL = 200;
+    public static final long MAX_INTERVAL = McUtils.SECOND * 10;
+
+    public enum TASK_TYPE {
+        NODE_INFO("Node info"),
+        HEARTBEAT("Heartbeat"),
+        DISCOVER("Discover");
+
+        private final String value;
+
+        private TASK_TYPE(String value) {
+            this.value = value;
+        }
+
+        public String getText() {
+            return this.value;
+        }
+
+        public static TASK_TYPE fromString(String text) {
+            if (text != null) {
+                for (TASK_TYPE type : TASK_TYPE.values()) {
+                    if (text.equalsIgnoreCase(type.getText())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum TASK_STATE {
+        RUNNING("Running"),
+        COMPLETED("Completed"),
+        CANCELLED("Cancelled");
+
+        private final String value;
+
+        private TASK_STATE(String value) {
+            this.value = value;
+        }
+
+        public String getText() {
+            return this.value;
+        }
+
+        public static TASK_STATE fromString(String text) {
+            if (text != null) {
+                for (TASK_STATE state : TASK_STATE.values()) {
+                    if (text.equalsIgnoreCase(state.getText())) {
+                        return state;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    public enum NODE_STATE {
+        PENDING("Pending"),
+        SENT("Sent"),
+        SKIPPED("Skipped"),
+        COMPLETED("Completed");
+
+        private final String value;
+
+        private NODE_STATE(String value) {
+            this.value = value;
+        }
+
+        public String getText() {
+            return this.value;
+        }
+
+        public static NODE_STATE fromString(String text) {
+            if (text != null) {
+                for (NODE_STATE state : NODE_STATE.values()) {
+                    if (text.equalsIgnoreCase(state.getText())) {
+                        return state;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final TASK_TYPE type;
+    private final Integer gatewayId;
+    private final boolean skipSeen;
+    private final long interval;
+    // key: node eui
+    private final LinkedHashMap<String, NODE_STATE> nodes = new LinkedHashMap<String, NODE_STATE>();
+    private final ArrayDeque<String> pending = new ArrayDeque<String>();
+    // Nodes requested explicitly while running, sent even when seen recently
+    private final HashSet<String> noSkip = new HashSet<String>();
+    private final long startTime = System.currentTimeMillis();
+    private volatile long endTime = 0;
+    private volatile TASK_STATE state = TASK_STATE.RUNNING;
+
+    /**
+     * @param skipSeen skip nodes seen within bulk task skip seen time
+     */
+    McBulkTask(TASK_TYPE type, Integer gatewayId, List<Node> nodesList, boolean skipSeen) {
+        this.type = type;
+        this.gatewayId = gatewayId;
+        this.skipSeen = skipSeen;
+        for (Node node : nodesList) {
+            if (!nodes.containsKey(node.getEui())) {
+                nodes.put(node.getEui(), NODE_STATE.PENDING);
+                pending.add(node.getEui());
+            }
+        }
+        long spread = AppProperties.getInstance().getBulkTaskWindow() / Math.max(nodes.size(), 1);
+        interval = Math.min(Math.max(spread, MIN_INTERVAL), MAX_INTERVAL);
+    }
+
+    @Override
+    protected long poll() throws Exception {
+        IGateway gateway = McObjectManager.getGateway(gatewayId);
+        if (gateway == null) {
+            _logger.debug("Gateway[id:{}] not available, {} task cancelled", gatewayId, type.getText());
+            finish(TASK_STATE.CANCELLED);
+            return -1;
+        }
+        if (gateway.getGateway().getState() != STATE.UP) {
+            //Wait until gateway comes up
+            return Math.max(interval, ERROR_RETRY_DELAY);
+        }
+        if (type == TASK_TYPE.DISCOVER) {
+            sendDiscover();
+            finish(TASK_STATE.COMPLETED);
+            return -1;
+        }
+        while (true) {
+            String nodeEui;
+            boolean skip;
+            synchronized (nodes) {
+                nodeEui = pending.poll();
+                if (nodeEui == null) {
+                    //Completed under lock, nodes can not be added after the last one is taken
+                    finish(TASK_STATE.COMPLETED);
+                    return -1;
+                }
+                skip = skipSeen && !noSkip.contains(nodeEui);
+            }
+            Node node = DaoUtils.getNodeDao().get(gatewayId, nodeEui);
+            if (node == null) {
+                updateNode(nodeEui, NODE_STATE.SKIPPED);
+            } else if (skip && isSeenRecently(node)) {
+                updateNode(nodeEui, NODE_STATE.SKIPPED);
+                if (type == TASK_TYPE.HEARTBEAT) {
+                    updateHeartbeatTxTime(node);
+                }
+            } else {
+                send(node);
+                updateNode(nodeEui, NODE_STATE.SENT);
+                return interval;
+            }
+        }
+    }
+
+    /**
+     * Adds nodes to this running task, served before the nodes already waiting. Returns false when the task is not
+     * running anymore.
+     */
+    boolean addNodes(List<Node> nodesList, boolean skipSeenNodes) {
+        synchronized (nodes) {
+            if (state != TASK_STATE.RUNNING || type == TASK_TYPE.DISCOVER) {
+                return false;
+            }
+            for (int index = nodesList.size() - 1; index >= 0; index--) {
+                String nodeEui = nodesList.get(index).getEui();
+                if (!skipSeenNodes) {
+                    noSkip.add(nodeEui);
+                }
+                pending.remove(nodeEui);
+                pending.addFirst(nodeEui);
+                nodes.put(nodeEui, NODE_STATE.PENDING);
+            }
+        }
+        return true;
+    }
+
+    private boolean isSeenRecently(Node node) {
+        return node.getLastSeen() != null && System.currentTimeMillis() - node.getLastSeen()
+                < AppProperties.getInstance().getBulkTaskSkipSeen();
+    }
+
+    private void send(Node node) {
+        switch (type) {
+            case HEARTBEAT:
+                McObjectManager.getMcActionEngine().sendAliveStatusRequest(node);
+                updateHeartbeatTxTime(node);
+                break;
+            case NODE_INFO:
+                McMessageUtils.sendToMessageQueue(McMessage.builder()
+                        .gatewayId(gatewayId)
+                        .nodeEui(node.getEui())
+                        .sensorId(McMessage.SENSOR_BROADCAST_ID)
+                        .type(MESSAGE_TYPE.C_INTERNAL)
+                        .subType(MESSAGE_TYPE_INTERNAL.I_PRESENTATION.getText())
+                        .ack(McMessage.NO_ACK)
+                        .payload(McMessage.PAYLOAD_EMPTY)
+                        .isTxMessage(true)
+                        .priority(MESSAGE_PRIORITY.BACKGROUND)
+                        .build());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void updateHeartbeatTxTime(Node node) {
+        DaoUtils.getNodeDao().update(Node.KEY_PROPERTIES,
+                node.setProperty(Node.KEY_HEARTBEAT_LAST_TX_TIME, System.currentTimeMillis()), node.getId());
+    }
+
+    // Single broadcast, known nodes are marked as completed when they respond
+    private void sendDiscover() {
+        _logger.debug("Sending Node discover");
+        //Before start node discover, remove existing map for this gateway
+        DaoUtils.getNodeDao().updateBulk(Node.KEY_PARENT_NODE_EUI, null, Node.KEY_GATEWAY_ID, gatewayId);
+        //Send discover broadcast message
+        McMessageUtils.sendToMessageQueue(McMessage.builder()
+                .gatewayId(gatewayId)
+                .nodeEui(McMessage.NODE_BROADCAST_ID)
+                .sensorId(McMessage.SENSOR_BROADCAST_ID)
+                .type(MESSAGE_TYPE.C_INTERNAL)
+                .subType(MESSAGE_TYPE_INTERNAL.I_DISCOVER.getText())
+                .ack(McMessage.NO_ACK)
+                .payload(McMessage.PAYLOAD_EMPTY)
+                .isTxMessage(true)
+                .priority(MESSAGE_PRIORITY.BACKGROUND)
+                .build());
+        synchronized (nodes) {
+            pending.clear();
+            for (String nodeEui : nodes.keySet()) {
+                nodes.put(nodeEui, NODE_STATE.SENT);
+            }
+        }
+    }
+
+    private void updateNode(String nodeEui, NODE_STATE nodeState) {
+        synchronized (nodes) {
+            nodes.put(nodeEui, nodeState);
+        }
+    }
+
+    private void finish(TASK_STATE finalState) {
+        synchronized (nodes) {
+            endTime = System.currentTimeMillis();
+            state = finalState;
+        }
+        _logger.debug("Bulk task {}, gateway[id:{}]: {}", type.getText(), gatewayId, getStatistics());
+    }
+
+    void onNodeSeen(String nodeEui) {
+        synchronized (nodes) {
+            if (nodes.get(nodeEui) == NODE_STATE.SENT) {
+                nodes.put(nodeEui, NODE_STATE.COMPLETED);
+            }
+        }
+    }
+
+    void cancel() {
+        terminate();
+        synchronized (nodes) {
+            if (state == TASK_STATE.RUNNING) {
+                finish(TASK_STATE.CANCELLED);
+            }
+        }
+    }
+
+    public TASK_TYPE getType() {
+        return type;
+    }
+
+    public Integer getGatewayId() {
+        return gatewayId;
+    }
+
+    public TASK_STATE getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStatistics() {
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        HashMap<String, String> nodesState = new HashMap<String, String>();
+        int[] count = new int[NODE_STATE.values().length];
+        synchronized (nodes) {
+            for (Map.Entry<String, NODE_STATE> entry : nodes.entrySet()) {
+                nodesState.put(entry.getKey(), entry.getValue().getText());
+                count[entry.getValue().ordinal()]++;
+            }
+        }
+        int total = nodesState.size();
+        statistics.put("type", type.getText());
+        statistics.put("gatewayId", gatewayId);
+        statistics.put("state", state.getText());
+        statistics.put("startTime", startTime);
+        statistics.put("endTime", endTime);
+        statistics.put("interval", interval);
+        statistics.put("total", total);
+        statistics.put("pending", count[NODE_STATE.PENDING.ordinal()]);
+        statistics.put("sent", count[NODE_STATE.SENT.ordinal()]);
+        statistics.put("skipped", count[NODE_STATE.SKIPPED.ordinal()]);
+        statistics.put("completed", count[NODE_STATE.COMPLETED.ordinal()]);
+        statistics.put("progress", total > 0 ? (total - count[NODE_STATE.PENDING.ordinal()]) * 100 / total : 100);
+        statistics.put("nodes", nodesState);
+        return statistics;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mycontroller.standalone.db.tables.Node;
+import org.mycontroller.standalone.message.McBulkTask.TASK_STATE;
+import org.mycontroller.standalone.message.McBulkTask.TASK_TYPE;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps one bulk task per gateway and task type. Nodes submitted while a task is running are merged in to it. Last
+ * task is kept after completion to report progress.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McBulkTaskEngine {
+    // key: gatewayId:taskType
+    private final ConcurrentHashMap<String, McBulkTask> tasks = new ConcurrentHashMap<String, McBulkTask>();
+
+    private static class McBulkTaskEngineHolder {
+        private static final McBulkTaskEngine INSTANCE = new McBulkTaskEngine();
+    }
+
+    //Do not load until some calls getInstance
+    public static McBulkTaskEngine getInstance() {
+        return McBulkTaskEngineHolder.INSTANCE;
+    }
+
+    private McBulkTaskEngine() {
+    }
+
+    /**
+     * Starts task for the gateway, nodes are added to the running task when same type of task is running already on
+     * this gateway. Returns false, when discover is running already on this gateway.
+     */
+    public synchronized boolean submit(TASK_TYPE type, Integer gatewayId, List<Node> nodes, boolean skipSeen) {
+        String key = gatewayId + ":" + type.name();
+        McBulkTask task = tasks.get(key);
+        if (task != null && task.getState() == TASK_STATE.RUNNING) {
+            if (task.addNodes(nodes, skipSeen)) {
+                _logger.debug("{} node(s) added to running {} task of gateway[id:{}]", nodes.size(),
+                        type.getText(), gatewayId);
+                return true;
+            }
+            if (task.getState() == TASK_STATE.RUNNING) {
+                _logger.warn("{} task already running on gateway[id:{}], nothing to do..", type.getText(),
+                        gatewayId);
+                return false;
+            }
+        }
+        task = new McBulkTask(type, gatewayId, nodes, skipSeen);
+        tasks.put(key, task);
+        task.start(0);
+        return true;
+    }
+
+    /** Splits nodes by gateway and starts task for each enabled gateway */
+    public void submit(TASK_TYPE type, List<Node> nodes, boolean skipSeen) {
+        HashMap<Integer, List<Node>> gatewayNodes = new HashMap<Integer, List<Node>>();
+        for (Node node : nodes) {
+            if (!node.getGatewayTable().getEnabled()) {
+                continue;
+            }
+            List<Node> nodesList = gatewayNodes.get(node.getGatewayTable().getId());
+            if (nodesList == null) {
+                nodesList = new ArrayList<Node>();
+                gatewayNodes.put(node.getGatewayTable().getId(), nodesList);
+            }
+            nodesList.add(node);
+        }
+        for (Map.Entry<Integer, List<Node>> entry : gatewayNodes.entrySet()) {
+            submit(type, entry.getKey(), entry.getValue(), skipSeen);
+        }
+    }
+
+    public synchronized void cancel(Integer gatewayId) {
+        for (McBulkTask task : tasks.values()) {
+            if (task.getGatewayId().equals(gatewayId)) {
+                task.cancel();
+            }
+        }
+    }
+
+    public void onNodeSeen(Integer gatewayId, String nodeEui) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        for (McBulkTask task : tasks.values()) {
+            if (task.getGatewayId().equals(gatewayId)) {
+                task.onNodeSeen(nodeEui);
+            }
+        }
+    }
+
+    public List<Map<String, Object>> getStatistics() {
+        List<Map<String, Object>> statistics = new ArrayList<Map<String, Object>>();
+        for (McBulkTask task : tasks.values()) {
+            statistics.add(task.getStatistics());
+        }
+        return statistics;
+    }
+}
@@ -20,6 +20,7 @@ import java.io.Serializable;
 import java.util.HashMap;
 
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE;
 
 import lombok.AllArgsConstructor;
@@ -64,6 +65,8 @@ public class McMessage implements Serializable {
     private boolean isScreeningDone = false;
     private Long timestamp;
     private HashMap<String, Object> properties = null;
+    //Not persisted, messages restored from offline stores are sent as interactive
+    private transient MESSAGE_PRIORITY priority;
 
     public boolean validate() {
         if (gatewayId == null
@@ -83,6 +86,13 @@ public class McMessage implements Serializable {
         return timestamp;
     }
 
+    public MESSAGE_PRIORITY getPriority() {
+        if (priority == null) {
+            priority = MESSAGE_PRIORITY.INTERACTIVE;
+        }
+        return priority;
+    }
+
     public HashMap<String, Object> getProperties() {
         if (properties == null) {
             properties = new HashMap<String, Object>();
@@ -18,7 +18,11 @@ package org.mycontroller.standalone.message;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 
 import org.apache.commons.codec.DecoderException;
@@ -28,11 +32,11 @@ import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.AppProperties.STATE;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.McTransactionManager;
 import org.mycontroller.standalone.db.NodeUtils.NODE_REGISTRATION_STATE;
 import org.mycontroller.standalone.db.ResourcesLogsUtils;
 import org.mycontroller.standalone.db.ResourcesLogsUtils.LOG_LEVEL;
 import org.mycontroller.standalone.db.tables.Firmware;
-import org.mycontroller.standalone.db.tables.FirmwareData;
 import org.mycontroller.standalone.db.tables.ForwardPayload;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.db.tables.MetricsBatteryUsage;
@@ -45,26 +49,31 @@ import org.mycontroller.standalone.db.tables.Sensor;
 import org.mycontroller.standalone.db.tables.SensorVariable;
 import org.mycontroller.standalone.exceptions.McBadRequestException;
 import org.mycontroller.standalone.exceptions.NodeIdException;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
 import org.mycontroller.standalone.externalserver.ExternalServerEngine;
-import org.mycontroller.standalone.firmware.FirmwareUtils;
+import org.mycontroller.standalone.firmware.FirmwareOtaServer;
 import org.mycontroller.standalone.fwpayload.ExecuteForwardPayload;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_INTERNAL;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_PRESENTATION;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_SET_REQ;
 import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_TYPE_STREAM;
 import org.mycontroller.standalone.message.McMessageUtils.PAYLOAD_TYPE;
+import org.mycontroller.standalone.metrics.MetricsCompression;
+import org.mycontroller.standalone.metrics.MetricsCompression.Sample;
 import org.mycontroller.standalone.metrics.MetricsUtils.AGGREGATION_TYPE;
 import org.mycontroller.standalone.metrics.MetricsUtils.METRIC_TYPE;
+import org.mycontroller.standalone.monitoring.McMetrics;
 import org.mycontroller.standalone.provider.mc.structs.McFirmwareConfig;
 import org.mycontroller.standalone.provider.mc.structs.McFirmwareRequest;
-import org.mycontroller.standalone.provider.mc.structs.McFirmwareResponse;
 import org.mycontroller.standalone.provider.mysensors.MySensorsUtils;
 import org.mycontroller.standalone.provider.mysensors.structs.FirmwareConfigRequest;
 import org.mycontroller.standalone.provider.mysensors.structs.FirmwareConfigResponse;
 import org.mycontroller.standalone.provider.mysensors.structs.FirmwareRequest;
-import org.mycontroller.standalone.provider.mysensors.structs.FirmwareResponse;
 import org.mycontroller.standalone.rule.McRuleEngine;
+import org.mycontroller.standalone.rule.McRuleScheduler;
 import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -77,18 +86,57 @@ import lombok.extern.slf4j.Slf4j;
 public class McMessageEngine implements Runnable {
     private static final int FIRMWARE_PRINT_LOG = 100;
     private McMessage mcMessage;
+    private final List<McMessage> mcMessages;
+    // Used only for batch, node and sensors resolved once and node updates written after all the messages
+    private HashMap<String, Node> nodes = null;
+    private HashMap<String, Sensor> sensors = null;
+    private Set<Node> dirtyNodes = null;
 
     public McMessageEngine(McMessage mcMessage) {
         this.mcMessage = mcMessage;
+        this.mcMessages = null;
+    }
+
+    /**
+     * Received messages of one transmission (ex: all the values of a radio frame), processed as one unit. Firmware
+     * messages update node directly, do not send them as batch.
+     */
+    public McMessageEngine(List<McMessage> mcMessages) {
+        this.mcMessages = mcMessages;
     }
 
     public void execute() throws McBadRequestException {
+        if (mcMessages == null) {
+            executeMessage();
+            return;
+        }
+        nodes = new HashMap<String, Node>();
+        sensors = new HashMap<String, Sensor>();
+        dirtyNodes = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        try {
+            for (McMessage message : mcMessages) {
+                mcMessage = message;
+                try {
+                    executeMessage();
+                } catch (McBadRequestException ex) {
+                    _logger.error("Exception on processing {}", mcMessage, ex);
+                }
+            }
+        } finally {
+            flushNodes();
+        }
+    }
+
+    private void executeMessage() throws McBadRequestException {
         _logger.debug("{}", mcMessage);
         if (mcMessage.isScreeningDone()) {
             _logger.debug("Already screening done! Nothing to do for {}", mcMessage);
             return;
         }
         mcMessage.setScreeningDone(true);
+        if (!mcMessage.isTxMessage()) {
+            McBulkTaskEngine.getInstance().onNodeSeen(mcMessage.getGatewayId(), mcMessage.getNodeEui());
+        }
         switch (mcMessage.getType()) {
             case C_PRESENTATION:
                 if (mcMessage.isTxMessage()) {
@@ -137,8 +185,13 @@ public class McMessageEngine implements Runnable {
         if (!mcMessage.isTxMessage()) {
             if (!mcMessage.getNodeEui().equalsIgnoreCase(McMessage.NODE_BROADCAST_ID)) {
                 Node node = getNode(mcMessage);
+                boolean stateChanged = node.getState() != STATE.UP;
                 node.setState(STATE.UP);
                 updateNode(node);
+                if (stateChanged) {
+                    flushNodes();
+                    McRuleScheduler.getInstance().onStateChange(RESOURCE_TYPE.NODE, node.getId());
+                }
             }
         } else {
             if (mcMessage.getNetworkType() == NETWORK_TYPE.RF_LINK) {
@@ -364,11 +417,15 @@ public class McMessageEngine implements Runnable {
                     return;
                 }
                 node = getNode(mcMessage);
-                node.setState(STATE.UP);
-                updateNode(node);
+                if (node.getState() != STATE.UP) {
+                    node.setState(STATE.UP);
+                    updateNode(node);
+                    McRuleScheduler.getInstance().onStateChange(RESOURCE_TYPE.NODE, node.getId());
+                } else {
+                    updateNode(node);
+                }
                 if (node.getSmartSleepEnabled()) {
-                    new Thread(new SmartSleepMessageTxThread(
-                            mcMessage.getGatewayId(), mcMessage.getNodeEui())).start();
+                    SmartSleepMessageTxThread.trigger(mcMessage.getGatewayId(), mcMessage.getNodeEui());
                 }
                 break;
             case I_DISCOVER:
@@ -446,14 +503,19 @@ public class McMessageEngine implements Runnable {
         Node node = getNode(mcMessage);
         if (mcMessage.getPayload() != null && mcMessage.getPayload().length() > 0) {
             String[] _properties = mcMessage.getPayload().split(";");
+            boolean changed = false;
             for (String property : _properties) {
                 String[] _prop = property.split("=", 2);
-                if (_prop.length == 2) {
+                if (_prop.length == 2 && !_prop[1].equals(node.getProperties().get(_prop[0].trim()))) {
                     node.getProperties().put(_prop[0].trim(), _prop[1]);
+                    changed = true;
                 }
             }
-            _logger.debug("Updated properties for the {}", node);
-            updateNode(node);
+            //Some providers send properties with every message, skip update when nothing changed
+            if (changed) {
+                _logger.debug("Updated properties for the {}", node);
+                updateNode(node);
+            }
         }
     }
 
@@ -527,55 +589,8 @@ public class McMessageEngine implements Runnable {
                             ByteOrder.LITTLE_ENDIAN), 0);
             _logger.debug("Firmware Request:[Type:{},Version:{},Block:{}]", firmwareRequest.getType(),
                     firmwareRequest.getVersion(), firmwareRequest.getBlock());
-            FirmwareData firmwareData = FirmwareUtils.getFirmwareDataFromOfflineMap(firmwareRequest.getType(),
-                    firmwareRequest.getVersion());
-            if (firmwareData == null) {
-                _logger.debug("selected firmware type/version not available");
-                return;
-            }
-
-            FirmwareResponse firmwareResponse = new FirmwareResponse();
-            firmwareResponse.setByteBufferPosition(0);
-            firmwareResponse.setBlock(firmwareRequest.getBlock());
-            firmwareResponse.setVersion(firmwareRequest.getVersion());
-            firmwareResponse.setType(firmwareRequest.getType());
-            StringBuilder builder = new StringBuilder();
-            Integer blockSize = (Integer) firmwareData.getFirmware().getProperties().get(Firmware.KEY_PROP_BLOCK_SIZE);
-            Integer blocks = (Integer) firmwareData.getFirmware().getProperties().get(Firmware.KEY_PROP_BLOCKS);
-            int fromIndex = firmwareRequest.getBlock() * blockSize;
-            for (int index = fromIndex; index < fromIndex + blockSize; index++) {
-                builder.append(String.format("%02X", firmwareData.getData().get(index)));
-            }
-
-            // Print firmware status in sensor logs
-            if (firmwareRequest.getBlock() % FIRMWARE_PRINT_LOG == 0 || firmwareRequest.getBlock() == (blocks - 1)) {
-                //ResourcesLogs message data
-                if (ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
-                    this.setSensorOtherData(LOG_LEVEL.INFO,
-                            mcMessage,
-                            MESSAGE_TYPE_STREAM.ST_FIRMWARE_REQUEST.getText(),
-                            "Block No: " + firmwareRequest.getBlock());
-                }
-            }
-
-            mcMessage.setTxMessage(true);
-            mcMessage.setSubType(MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText());
-            mcMessage.setPayload(Hex.encodeHexString(firmwareResponse.getByteBuffer().array())
-                    + builder.toString());
-            McMessageUtils.sendToMessageQueue(mcMessage);
-            _logger.debug("FirmwareRespone:[Type:{},Version:{},Block:{}]",
-                    firmwareResponse.getType(), firmwareResponse.getVersion(), firmwareResponse.getBlock());
-            // Print firmware status in sensor logs
-            if (firmwareRequest.getBlock() % FIRMWARE_PRINT_LOG == 0 || firmwareRequest.getBlock() == (blocks - 1)) {
-                //ResourcesLogs message data
-                if (ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
-                    this.setSensorOtherData(LOG_LEVEL.INFO,
-                            mcMessage,
-                            MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText(),
-                            "Block No:" + firmwareRequest.getBlock());
-                }
-            }
-
+            sendFirmwareResponse(mcMessage, firmwareRequest.getType(), firmwareRequest.getVersion(),
+                    firmwareRequest.getBlock());
         } catch (DecoderException ex) {
             _logger.error("Exception, ", ex);
         }
@@ -589,63 +604,43 @@ public class McMessageEngine implements Runnable {
                             ByteOrder.LITTLE_ENDIAN), 0);
             _logger.debug("Firmware Request:[Type:{},Version:{},Block:{}]", firmwareRequest.getType(),
                     firmwareRequest.getVersion(), firmwareRequest.getBlock());
-            FirmwareData firmwareData = FirmwareUtils.getFirmwareDataFromOfflineMap(firmwareRequest.getType(),
-                    firmwareRequest.getVersion());
-            if (firmwareData == null) {
-                _logger.debug("selected firmware type/version not available");
-                return;
-            }
-
-            McFirmwareResponse firmwareResponse = new McFirmwareResponse();
-            firmwareResponse.setByteBufferPosition(0);
-            firmwareResponse.setBlock(firmwareRequest.getBlock());
-            firmwareResponse.setVersion(firmwareRequest.getVersion());
-            firmwareResponse.setType(firmwareRequest.getType());
-
-            StringBuilder builder = new StringBuilder();
-            Integer blockSize = (Integer) firmwareData.getFirmware().getProperties().get(Firmware.KEY_PROP_BLOCK_SIZE);
-            Integer blocks = (Integer) firmwareData.getFirmware().getProperties().get(Firmware.KEY_PROP_BLOCKS);
-            int fromIndex = firmwareRequest.getBlock() * blockSize;
-            if (firmwareRequest.getBlock() >= blocks || firmwareRequest.getBlock() < 0) {
-                _logger.warn("Requested firmware out of range. Accepted range[0~{}] FirmwareRequest({}), {}",
-                        blocks - 1, firmwareRequest, mcMessage);
-                return;
-            }
-            int toIndex = Math.min(fromIndex + blockSize, firmwareData.getData().size());
-            firmwareResponse.setSize(toIndex - fromIndex);
-            firmwareResponse.setData(firmwareData.getData().subList(fromIndex, toIndex));
+            sendFirmwareResponse(mcMessage, firmwareRequest.getType(), firmwareRequest.getVersion(),
+                    firmwareRequest.getBlock());
+        } catch (DecoderException ex) {
+            _logger.error("Exception, ", ex);
+        }
+    }
 
-            // Print firmware status in sensor logs
-            if (firmwareRequest.getBlock() % FIRMWARE_PRINT_LOG == 0 || firmwareRequest.getBlock() == (blocks - 1)) {
-                //ResourcesLogs message data
-                if (ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
-                    this.setSensorOtherData(LOG_LEVEL.INFO,
-                            mcMessage,
-                            MESSAGE_TYPE_STREAM.ST_FIRMWARE_REQUEST.getText(),
-                            "Block No: " + firmwareRequest.getBlock());
-                }
-            }
+    //Firmware block responses are pre-encoded on FirmwareOtaServer
+    private void sendFirmwareResponse(McMessage mcMessage, Integer typeId, Integer versionId, Integer block) {
+        String payload = FirmwareOtaServer.getInstance().getBlock(mcMessage.getNetworkType(),
+                mcMessage.getGatewayId(), mcMessage.getNodeEui(), typeId, versionId, block);
+        if (payload == null) {
+            return;
+        }
+        int blocks = FirmwareOtaServer.getInstance().getFirmwareImage(typeId, versionId).getBlocks();
+        boolean printLog = block % FIRMWARE_PRINT_LOG == 0 || block == (blocks - 1);
 
-            mcMessage.setTxMessage(true);
-            mcMessage.setSubType(MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText());
-            mcMessage.setPayload(Hex.encodeHexString(firmwareResponse.getByteBuffer().array())
-                    + builder.toString());
-            McMessageUtils.sendToMessageQueue(mcMessage);
-            _logger.debug("FirmwareRespone:[Type:{},Version:{},Block:{}]",
-                    firmwareResponse.getType(), firmwareResponse.getVersion(), firmwareResponse.getBlock());
-            // Print firmware status in sensor logs
-            if (firmwareRequest.getBlock() % FIRMWARE_PRINT_LOG == 0 || firmwareRequest.getBlock() == (blocks - 1)) {
-                //ResourcesLogs message data
-                if (ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
-                    this.setSensorOtherData(LOG_LEVEL.INFO,
-                            mcMessage,
-                            MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText(),
-                            "Block No:" + firmwareRequest.getBlock());
-                }
-            }
+        // Print firmware status in sensor logs
+        if (printLog && ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
+            this.setSensorOtherData(LOG_LEVEL.INFO,
+                    mcMessage,
+                    MESSAGE_TYPE_STREAM.ST_FIRMWARE_REQUEST.getText(),
+                    "Block No: " + block);
+        }
 
-        } catch (DecoderException ex) {
-            _logger.error("Exception, ", ex);
+        mcMessage.setTxMessage(true);
+        mcMessage.setPriority(MESSAGE_PRIORITY.OTA);
+        mcMessage.setSubType(MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText());
+        mcMessage.setPayload(payload);
+        McMessageUtils.sendToMessageQueue(mcMessage);
+        _logger.debug("FirmwareRespone:[Type:{},Version:{},Block:{}]", typeId, versionId, block);
+        // Print firmware status in sensor logs
+        if (printLog && ResourcesLogsUtils.isOnAllowedLevel(LOG_LEVEL.INFO)) {
+            this.setSensorOtherData(LOG_LEVEL.INFO,
+                    mcMessage,
+                    MESSAGE_TYPE_STREAM.ST_FIRMWARE_RESPONSE.getText(),
+                    "Block No:" + block);
         }
     }
 
@@ -916,6 +911,19 @@ public class McMessageEngine implements Runnable {
     }
 
     private Sensor getSensor(McMessage mcMessage) {
+        if (sensors != null) {
+            String key = getNodeKey(mcMessage) + "_" + mcMessage.getSensorId();
+            Sensor sensor = sensors.get(key);
+            if (sensor == null) {
+                sensor = loadSensor(mcMessage);
+                sensors.put(key, sensor);
+            }
+            return sensor;
+        }
+        return loadSensor(mcMessage);
+    }
+
+    private Sensor loadSensor(McMessage mcMessage) {
         Sensor sensor = DaoUtils.getSensorDao().get(
                 mcMessage.getGatewayId(),
                 mcMessage.getNodeEui(),
@@ -935,7 +943,23 @@ public class McMessageEngine implements Runnable {
         return sensor;
     }
 
+    private String getNodeKey(McMessage mcMessage) {
+        return mcMessage.getGatewayId() + "_" + mcMessage.getNodeEui();
+    }
+
     private Node getNode(McMessage mcMessage) {
+        if (nodes != null) {
+            Node node = nodes.get(getNodeKey(mcMessage));
+            if (node == null) {
+                node = loadNode(mcMessage);
+                nodes.put(getNodeKey(mcMessage), node);
+            }
+            return node;
+        }
+        return loadNode(mcMessage);
+    }
+
+    private Node loadNode(McMessage mcMessage) {
         Node node = DaoUtils.getNodeDao().get(mcMessage.getGatewayId(), mcMessage.getNodeEui());
         if (node == null) {
             _logger.debug("This Node[{}] not available in our DB, Adding...", mcMessage.getNodeEui());
@@ -958,7 +982,20 @@ public class McMessageEngine implements Runnable {
 
     private void updateNode(Node node) {
         node.setLastSeen(System.currentTimeMillis());
-        DaoUtils.getNodeDao().update(node);
+        if (dirtyNodes != null) {
+            dirtyNodes.add(node);
+        } else {
+            DaoUtils.getNodeDao().update(node);
+        }
+    }
+
+    private void flushNodes() {
+        if (dirtyNodes != null) {
+            for (Node node : dirtyNodes) {
+                DaoUtils.getNodeDao().update(node);
+            }
+            dirtyNodes.clear();
+        }
     }
 
     private void recordSetTypeData(McMessage mcMessage) throws McBadRequestException {
@@ -1002,16 +1039,19 @@ public class McMessageEngine implements Runnable {
 
         switch (sensorVariable.getMetricType()) {
             case DOUBLE:
-                DaoUtils.getMetricsDoubleTypeDeviceDao()
-                        .create(MetricsDoubleTypeDevice.builder()
-                                .sensorVariable(sensorVariable)
-                                .aggregationType(AGGREGATION_TYPE.RAW)
-                                .timestamp(sensorVariable.getTimestamp())
-                                .avg(McUtils.getDouble(sensorVariable.getValue()))
-                                .min(McUtils.getDouble(sensorVariable.getValue()))
-                                .max(McUtils.getDouble(sensorVariable.getValue()))
-                                .samples(1).build());
-
+                //Compression configured on sensor variable may drop or delay the sample
+                for (Sample sample : MetricsCompression.getInstance().offer(sensorVariable,
+                        sensorVariable.getTimestamp(), McUtils.getDouble(sensorVariable.getValue()))) {
+                    DaoUtils.getMetricsDoubleTypeDeviceDao()
+                            .create(MetricsDoubleTypeDevice.builder()
+                                    .sensorVariable(sensorVariable)
+                                    .aggregationType(AGGREGATION_TYPE.RAW)
+                                    .timestamp(sample.getTimestamp())
+                                    .avg(sample.getValue())
+                                    .min(sample.getValue())
+                                    .max(sample.getValue())
+                                    .samples(1).build());
+                }
                 break;
             case BINARY:
                 DaoUtils.getMetricsBinaryTypeDeviceDao()
@@ -1051,24 +1091,37 @@ public class McMessageEngine implements Runnable {
             this.setSensorVariableData(LOG_LEVEL.INFO, MESSAGE_TYPE.C_SET, sensorVariable, mcMessage, null);
         }
 
+        String provider = mcMessage.getNetworkType() != null ? mcMessage.getNetworkType().name() : "";
+        long stageStartTime = System.nanoTime();
         //TODO: Forward Payload to another node, if any and only on receive from gateway
         List<ForwardPayload> forwardPayloads = DaoUtils.getForwardPayloadDao().getAllEnabled(sensorVariable.getId());
         if (forwardPayloads != null && !forwardPayloads.isEmpty()) {
             ExecuteForwardPayload executeForwardPayload =
                     new ExecuteForwardPayload(forwardPayloads, sensor, sensorVariable);
-            new Thread(executeForwardPayload).run();
+            executeForwardPayload.run();
         }
+        McMetrics.getInstance().histogram(MessageMonitorThread.STAGE_TIME, MessageMonitorThread.STAGE_TIME_HELP,
+                "provider", provider, "stage", "forward_payload").recordSince(stageStartTime);
 
         //Execute Rules for this sensor variable
         //DO NOT START NEW THREAD
+        stageStartTime = System.nanoTime();
         try {
             new McRuleEngine(RESOURCE_TYPE.SENSOR_VARIABLE, sensorVariable.getId()).run();
         } catch (Exception ex) {
             _logger.error("Exception,", ex);
         }
+        McMetrics.getInstance().histogram(MessageMonitorThread.STAGE_TIME, MessageMonitorThread.STAGE_TIME_HELP,
+                "provider", provider, "stage", "rules").recordSince(stageStartTime);
 
         //Execute Send Payload to external server
-        new Thread(new ExternalServerEngine(sensorVariable)).start();
+        final ExternalServerEngine externalServerEngine = new ExternalServerEngine(sensorVariable);
+        McTransactionManager.getInstance().afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                McExecutors.getInstance().execute(POOL.EXTERNAL_SERVER, externalServerEngine);
+            }
+        });
 
     }
 
@@ -1131,10 +1184,18 @@ public class McMessageEngine implements Runnable {
 
     @Override
     public void run() {
+        //Node, sensor variable, metrics and logs of the message written in one transaction
+        boolean transaction = McTransactionManager.getInstance().begin();
+        boolean success = false;
         try {
             this.execute();
+            success = true;
         } catch (McBadRequestException ex) {
             _logger.error("Exception on processing {}", mcMessage, ex);
+        } finally {
+            if (transaction) {
+                McTransactionManager.getInstance().end(success);
+            }
         }
 
     }
@@ -17,6 +17,8 @@
 package org.mycontroller.standalone.message;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
@@ -48,19 +50,6 @@ import lombok.extern.slf4j.Slf4j;
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class McMessageUtils {
 
-    private static HashMap<Integer, Boolean> nodeInfoUpdateRunning = new HashMap<Integer, Boolean>();
-
-    public static synchronized boolean isNodeInfoUpdateRunning(int gatewayId) {
-        if (nodeInfoUpdateRunning.get(gatewayId) == null) {
-            nodeInfoUpdateRunning.put(gatewayId, false);
-        }
-        return nodeInfoUpdateRunning.get(gatewayId);
-    }
-
-    public static synchronized void updateNodeInfoRunningState(int gatewayId, boolean status) {
-        nodeInfoUpdateRunning.put(gatewayId, status);
-    }
-
     // Message types
     public enum MESSAGE_TYPE {
         C_PRESENTATION("Presentation"),
@@ -339,6 +328,42 @@ public class McMessageUtils {
         }
     }
 
+    // TX message priority classes, highest first. Weight is the share of a class on a gateway when others are waiting
+    public enum MESSAGE_PRIORITY {
+        INTERACTIVE("Interactive", 8),
+        RULE("Rule", 4),
+        FORWARD("Forward payload", 4),
+        BACKGROUND("Background", 1),
+        OTA("OTA", 2);
+
+        private String text;
+        private int weight;
+
+        public String getText() {
+            return this.text;
+        }
+
+        public int getWeight() {
+            return this.weight;
+        }
+
+        private MESSAGE_PRIORITY(String text, int weight) {
+            this.text = text;
+            this.weight = weight;
+        }
+
+        public static MESSAGE_PRIORITY fromString(String text) {
+            if (text != null) {
+                for (MESSAGE_PRIORITY type : MESSAGE_PRIORITY.values()) {
+                    if (text.equalsIgnoreCase(type.getText())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
     // Type of data stream  (for streamed message)
     public enum MESSAGE_TYPE_STREAM {
         ST_FIRMWARE_CONFIG_REQUEST("Firmware config request"),
@@ -550,65 +575,99 @@ public class McMessageUtils {
     private static IProviderBridge rfLinkBridge = new RFLinkProviderBridge();
     private static IProviderBridge philipsHueProviderBridge = new PhilipsHueProviderBridge();
 
-    public static synchronized void sendToGateway(RawMessage rawMessage) {
-        //Send message to nodes [going out from MyController]
+    //Message engine lock, explicit lock lets group commit see the threads waiting for it
+    private static final ReentrantLock LOCK = new ReentrantLock();
+
+    public static void lock() {
+        LOCK.lock();
+    }
+
+    public static void unlock() {
+        LOCK.unlock();
+    }
+
+    /** True when other threads are waiting for the message engine lock */
+    public static boolean hasWaitingThreads() {
+        return LOCK.hasQueuedThreads();
+    }
+
+    public static void sendToGateway(RawMessage rawMessage) {
+        LOCK.lock();
         try {
-            if (McObjectManager.getGateway(rawMessage.getGatewayId()) != null) {
-                McObjectManager.getGateway(rawMessage.getGatewayId()).write(rawMessage);
-                _logger.debug("Message sent to gateway, {}", rawMessage);
-            } else {
-                _logger.error("Message sending failed, Selected gateway not available! {}, {}",
-                        rawMessage, GatewayUtils.getGateway(rawMessage.getGatewayId()));
+            //Send message to nodes [going out from MyController]
+            try {
+                if (McObjectManager.getGateway(rawMessage.getGatewayId()) != null) {
+                    McObjectManager.getGateway(rawMessage.getGatewayId()).write(rawMessage);
+                    _logger.debug("Message sent to gateway, {}", rawMessage);
+                } else {
+                    _logger.error("Message sending failed, Selected gateway not available! {}, {}",
+                            rawMessage, GatewayUtils.getGateway(rawMessage.getGatewayId()));
+                }
+            } catch (Exception ex) {
+                _logger.error("Message sending failed! {}", rawMessage, ex);
             }
-        } catch (Exception ex) {
-            _logger.error("Message sending failed! {}", rawMessage, ex);
+        } finally {
+            LOCK.unlock();
         }
     }
 
-    public static synchronized void sendToProviderBridge(RawMessage rawMessage) {
-        switch (rawMessage.getNetworkType()) {
-            case MY_SENSORS:
-                mySensorsBridge.executeRawMessage(rawMessage);
-                break;
-            case PHANT_IO:
-                phantIOBridge.executeRawMessage(rawMessage);
-                break;
-            case MY_CONTROLLER:
-                rpiAgentBridge.executeRawMessage(rawMessage);
-                break;
-            case RF_LINK:
-                rfLinkBridge.executeRawMessage(rawMessage);
-                break;
-            case PHILIPS_HUE:
-                philipsHueProviderBridge.executeRawMessage(rawMessage);
-                break;
-            default:
-                _logger.warn("Unknown provider: {}", rawMessage.getNetworkType());
-                break;
+    public static void sendToProviderBridge(RawMessage rawMessage) {
+        LOCK.lock();
+        try {
+            switch (rawMessage.getNetworkType()) {
+                case MY_SENSORS:
+                    mySensorsBridge.executeRawMessage(rawMessage);
+                    break;
+                case PHANT_IO:
+                    phantIOBridge.executeRawMessage(rawMessage);
+                    break;
+                case MY_CONTROLLER:
+                    rpiAgentBridge.executeRawMessage(rawMessage);
+                    break;
+                case RF_LINK:
+                    rfLinkBridge.executeRawMessage(rawMessage);
+                    break;
+                case PHILIPS_HUE:
+                    philipsHueProviderBridge.executeRawMessage(rawMessage);
+                    break;
+                default:
+                    _logger.warn("Unknown provider: {}", rawMessage.getNetworkType());
+                    break;
+            }
+        } finally {
+            LOCK.unlock();
         }
-
     }
 
-    public static synchronized void sendToMessageQueue(McMessage mcMessage) {
-        if (mcMessage.getNetworkType() == null) {
-            mcMessage.setNetworkType(GatewayUtils.getNetworkType(mcMessage.getGatewayId()));
-        }
-        //Do not block stream message on smartSleep
-        if (mcMessage.isTxMessage() && mcMessage.getType() != MESSAGE_TYPE.C_STREAM) {
-            Node node = DaoUtils.getNodeDao().get(mcMessage.getGatewayId(), mcMessage.getNodeEui());
-            if (node != null && node.getSmartSleepEnabled()) {
-                if (mcMessage.isTxMessage() && !mcMessage.isScreeningDone()) {
-                    sendToMcMessageEngine(mcMessage);
+    public static void sendToMessageQueue(McMessage mcMessage) {
+        LOCK.lock();
+        try {
+            if (mcMessage.getNetworkType() == null) {
+                mcMessage.setNetworkType(GatewayUtils.getNetworkType(mcMessage.getGatewayId()));
+            }
+            //Do not block stream message on smartSleep
+            if (mcMessage.isTxMessage() && mcMessage.getType() != MESSAGE_TYPE.C_STREAM) {
+                Node node = DaoUtils.getNodeDao().get(mcMessage.getGatewayId(), mcMessage.getNodeEui());
+                if (node != null && node.getSmartSleepEnabled()) {
+                    if (mcMessage.isTxMessage() && !mcMessage.isScreeningDone()) {
+                        sendToMcMessageEngine(mcMessage);
+                    }
+                    SmartSleepMessageQueue.getInstance().putMessage(mcMessage);
+                    return;
                 }
-                SmartSleepMessageQueue.getInstance().putMessage(mcMessage);
-                return;
             }
-        }
-        //Get Raw Message and add it on Message queue
-        try {
-            RawMessageQueue.getInstance().putMessage(getRawMessage(mcMessage));
-        } catch (McBadRequestException | RawMessageException ex) {
-            _logger.error("Unable to process this {}", mcMessage, ex);
+            //Get Raw Message and add it on Message queue
+            try {
+                if (mcMessage.isTxMessage()) {
+                    RawMessageQueue.getInstance().putTxMessage(getRawMessage(mcMessage), mcMessage.getPriority());
+                } else {
+                    RawMessageQueue.getInstance().putMessage(getRawMessage(mcMessage));
+                }
+            } catch (McBadRequestException | RawMessageException ex) {
+                _logger.error("Unable to process this {}", mcMessage, ex);
+            }
+        } finally {
+            LOCK.unlock();
         }
     }
 
@@ -632,71 +691,99 @@ public class McMessageUtils {
         }
     }
 
-    public static synchronized void sendToProviderBridgeFinal(McMessage mcMessage) {
-        switch (mcMessage.getNetworkType()) {
-            case MY_SENSORS:
-                mySensorsBridge.executeMcMessage(mcMessage);
-                break;
-            case PHANT_IO:
-                phantIOBridge.executeMcMessage(mcMessage);
-                break;
-            case MY_CONTROLLER:
-                rpiAgentBridge.executeMcMessage(mcMessage);
-                break;
-            case RF_LINK:
-                rfLinkBridge.executeMcMessage(mcMessage);
-                break;
-            case PHILIPS_HUE:
-                philipsHueProviderBridge.executeMcMessage(mcMessage);
-                break;
-            default:
-                _logger.warn("Unknown provider: {}", mcMessage.getNetworkType());
-                break;
+    public static void sendToProviderBridgeFinal(McMessage mcMessage) {
+        LOCK.lock();
+        try {
+            switch (mcMessage.getNetworkType()) {
+                case MY_SENSORS:
+                    mySensorsBridge.executeMcMessage(mcMessage);
+                    break;
+                case PHANT_IO:
+                    phantIOBridge.executeMcMessage(mcMessage);
+                    break;
+                case MY_CONTROLLER:
+                    rpiAgentBridge.executeMcMessage(mcMessage);
+                    break;
+                case RF_LINK:
+                    rfLinkBridge.executeMcMessage(mcMessage);
+                    break;
+                case PHILIPS_HUE:
+                    philipsHueProviderBridge.executeMcMessage(mcMessage);
+                    break;
+                default:
+                    _logger.warn("Unknown provider: {}", mcMessage.getNetworkType());
+                    break;
+            }
+        } finally {
+            LOCK.unlock();
         }
+    }
 
+    public static void sendToMcMessageEngine(McMessage mcMessage) {
+        LOCK.lock();
+        try {
+            //Do not run new thread. for testing
+            //new Thread(new McMessageEngine(mcMessage)).start();
+            new McMessageEngine(mcMessage).run();
+        } finally {
+            LOCK.unlock();
+        }
     }
 
-    public static synchronized void sendToMcMessageEngine(McMessage mcMessage) {
-        //Do not run new thread. for testing
-        //new Thread(new McMessageEngine(mcMessage)).start();
-        new McMessageEngine(mcMessage).run();
+    public static void sendToMcMessageEngine(List<McMessage> mcMessages) {
+        LOCK.lock();
+        try {
+            new McMessageEngine(mcMessages).run();
+        } finally {
+            LOCK.unlock();
+        }
     }
 
-    public static synchronized boolean validateNodeIdByProvider(Node node) {
-        NETWORK_TYPE networkType = GatewayUtils.getNetworkType(node.getGatewayTable().getId());
-        switch (networkType) {
-            case MY_SENSORS:
-                return mySensorsBridge.validateNodeId(node);
-            case PHANT_IO:
-                return phantIOBridge.validateNodeId(node);
-            case MY_CONTROLLER:
-                return rpiAgentBridge.validateNodeId(node);
-            case RF_LINK:
-                return rfLinkBridge.validateNodeId(node);
-            case PHILIPS_HUE:
-                return philipsHueProviderBridge.validateNodeId(node);
-            default:
-                _logger.warn("Unknown provider: {}", networkType);
-                return false;
+    public static boolean validateNodeIdByProvider(Node node) {
+        LOCK.lock();
+        try {
+            NETWORK_TYPE networkType = GatewayUtils.getNetworkType(node.getGatewayTable().getId());
+            switch (networkType) {
+                case MY_SENSORS:
+                    return mySensorsBridge.validateNodeId(node);
+                case PHANT_IO:
+                    return phantIOBridge.validateNodeId(node);
+                case MY_CONTROLLER:
+                    return rpiAgentBridge.validateNodeId(node);
+                case RF_LINK:
+                    return rfLinkBridge.validateNodeId(node);
+                case PHILIPS_HUE:
+                    return philipsHueProviderBridge.validateNodeId(node);
+                default:
+                    _logger.warn("Unknown provider: {}", networkType);
+                    return false;
+            }
+        } finally {
+            LOCK.unlock();
         }
     }
 
-    public static synchronized boolean validateSensorIdByProvider(Sensor sensor) {
-        NETWORK_TYPE networkType = GatewayUtils.getNetworkType(sensor);
-        switch (networkType) {
-            case MY_SENSORS:
-                return mySensorsBridge.validateSensorId(sensor);
-            case PHANT_IO:
-                return phantIOBridge.validateSensorId(sensor);
-            case MY_CONTROLLER:
-                return rpiAgentBridge.validateSensorId(sensor);
-            case RF_LINK:
-                return rfLinkBridge.validateSensorId(sensor);
-            case PHILIPS_HUE:
-                return philipsHueProviderBridge.validateSensorId(sensor);
-            default:
-                _logger.warn("Unknown provider: {}", networkType);
-                return false;
+    public static boolean validateSensorIdByProvider(Sensor sensor) {
+        LOCK.lock();
+        try {
+            NETWORK_TYPE networkType = GatewayUtils.getNetworkType(sensor);
+            switch (networkType) {
+                case MY_SENSORS:
+                    return mySensorsBridge.validateSensorId(sensor);
+                case PHANT_IO:
+                    return phantIOBridge.validateSensorId(sensor);
+                case MY_CONTROLLER:
+                    return rpiAgentBridge.validateSensorId(sensor);
+                case RF_LINK:
+                    return rfLinkBridge.validateSensorId(sensor);
+                case PHILIPS_HUE:
+                    return philipsHueProviderBridge.validateSensorId(sensor);
+                default:
+                    _logger.warn("Unknown provider: {}", networkType);
+                    return false;
+            }
+        } finally {
+            LOCK.unlock();
         }
     }
 
@@ -16,14 +16,18 @@
  */
 package org.mycontroller.standalone.message;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.sql.Savepoint;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.McObjectManager;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.McTransactionManager;
 import org.mycontroller.standalone.db.tables.GatewayTable;
 import org.mycontroller.standalone.gateway.GatewayUtils;
+import org.mycontroller.standalone.monitoring.McGauge;
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
 import org.mycontroller.standalone.utils.McUtils;
 
 import lombok.extern.slf4j.Slf4j;
@@ -39,29 +43,18 @@ public class MessageMonitorThread implements Runnable {
     // delay time to avoid collisions on network,
     // in milliseconds, Like my sensors network
     public static final long MC_MSG_DELAY = 20;
-    private static long CURRENT_PROCESSING_RATE = -1;
-    private static long AVERAGE_PROCESSING_RATE = -1;
-    private static long RATE_SAMPLES = 0;
-    private static long referanceTime = System.currentTimeMillis();
-    private static long messageDoneCount = 0;
-    private static long LAST_MESSAGE_PROCESSING_TIME = -1;
-    private static long AVG_MESSAGE_PROCESSING_TIME = 0;
-    private static long TIME_SAMPLES = 0;
-
-    public static long getCurrentProcessingRate() {
-        return CURRENT_PROCESSING_RATE;
-    }
-
-    public static long getAvgProcessingRate() {
-        return AVERAGE_PROCESSING_RATE;
-    }
-
-    public static long getLastMessageProcessingTime() {
-        return LAST_MESSAGE_PROCESSING_TIME;
-    }
-
-    public static long getAvgtMessageProcessingTime() {
-        return AVG_MESSAGE_PROCESSING_TIME;
+    public static final String STAGE_TIME = "mc_message_stage_seconds";
+    public static final String STAGE_TIME_HELP = "Time spent on message processing stages, per provider";
+    private static final McHistogram PROCESSING_TIME = McMetrics.getInstance().histogram(
+            "mc_message_processing_seconds", "Message processing time, without tx delay");
+
+    static {
+        McMetrics.getInstance().register(new McGauge("mc_message_queue_size") {
+            @Override
+            public double getValue() {
+                return getMessagesInQueue();
+            }
+        }, "Messages waiting in message queue");
     }
 
     public static int getMessagesInQueue() {
@@ -96,17 +89,16 @@ public class MessageMonitorThread implements Runnable {
                 return;
             }
             RawMessage rawMessage = RawMessageQueue.getInstance().getMessage();
-            _logger.debug("Processing:[{}]", rawMessage);
-            if (McObjectManager.getGateway(rawMessage.getGatewayId()) == null && rawMessage.isTxMessage()) {
-                GatewayTable gatewayTable = DaoUtils.getGatewayDao().getById(rawMessage.getGatewayId());
-                _logger.error("Gateway not available! dropping message... {}, {}", gatewayTable, rawMessage);
+            long groupCommitWindow = AppProperties.getInstance().getDbGroupCommitWindow();
+            if (groupCommitWindow > 0 && !rawMessage.isTxMessage()) {
+                rawMessage = processGroup(rawMessage, groupCommitWindow);
+            } else if (!processMessage(rawMessage)) {
+                rawMessage = null;
+            }
+            if (rawMessage == null) {
                 return;
             }
-            long startTime = System.currentTimeMillis();
             try {
-                McMessageUtils.sendToProviderBridge(rawMessage);
-                messageDoneCount++;
-                calculateProcessingRate();
                 //A delay to avoid collisions on any networks with continues messages. Only for Tx message
                 if (rawMessage.isTxMessage()) {
                     Thread.sleep(McObjectManager.getGateway(rawMessage.getGatewayId()).getGateway().getTxDelay(),
@@ -116,72 +108,97 @@ public class MessageMonitorThread implements Runnable {
                     Thread.sleep(0, 333333);
                 }
             } catch (Exception ex) {
-                _logger.error("Throws exception while processing!, [{}]", rawMessage, ex);
+                _logger.debug("Exception in sleep thread,", ex);
             }
-            updateProcessingTime(System.currentTimeMillis() - startTime);
-            _logger.debug("Process done in {} ms for:[{}]", getLastMessageProcessingTime(), rawMessage);
         }
     }
 
-    private void updateProcessingTime(long lastMessageTime) {
-        LAST_MESSAGE_PROCESSING_TIME = lastMessageTime;
-        AVG_MESSAGE_PROCESSING_TIME = ((AVG_MESSAGE_PROCESSING_TIME * TIME_SAMPLES) + LAST_MESSAGE_PROCESSING_TIME)
-                / (TIME_SAMPLES + 1);
-        TIME_SAMPLES++;
-        //if sample goes beyond 10000, reset it to avoid big calculations.
-        if (TIME_SAMPLES > 10000 || AVG_MESSAGE_PROCESSING_TIME == 0) {
-            TIME_SAMPLES = 1;
-            AVG_MESSAGE_PROCESSING_TIME = LAST_MESSAGE_PROCESSING_TIME;
+    /**
+     * Processes received messages in one database transaction (group commit), starting with the given one. TX
+     * messages are not taken in, gateway I/O stays outside the transaction. Message engine lock is held till
+     * commit, so other threads can not block on rows of this transaction while holding the lock. Commits when
+     * window is elapsed, no received message is waiting, a TX message is due or an other thread waits for the
+     * lock. Returns the last message processed.
+     */
+    private RawMessage processGroup(RawMessage rawMessage, long window) {
+        long deadline = System.currentTimeMillis() + window;
+        int maxMessages = AppProperties.getInstance().getDbGroupCommitMaxMessages();
+        McMessageUtils.lock();
+        try {
+            boolean transaction = McTransactionManager.getInstance().begin();
+            try {
+                int messages = 0;
+                while (true) {
+                    processMessage(rawMessage);
+                    if (++messages >= maxMessages || System.currentTimeMillis() >= deadline
+                            || McMessageUtils.hasWaitingThreads() || TERMINATE.get()
+                            || !GatewayUtils.GATEWAYS_READY.get()) {
+                        return rawMessage;
+                    }
+                    RawMessage next = RawMessageQueue.getInstance().getReceivedMessage();
+                    if (next == null) {
+                        return rawMessage;
+                    }
+                    rawMessage = next;
+                }
+            } finally {
+                if (transaction) {
+                    McTransactionManager.getInstance().end(true);
+                }
+            }
+        } finally {
+            McMessageUtils.unlock();
         }
     }
 
-    private void calculateProcessingRate() {
-        if ((System.currentTimeMillis() - referanceTime) >= McUtils.MINUTE) {
-            referanceTime = System.currentTimeMillis();
-            CURRENT_PROCESSING_RATE = messageDoneCount;
-            AVERAGE_PROCESSING_RATE = (long) (((AVERAGE_PROCESSING_RATE * RATE_SAMPLES)
-                    + CURRENT_PROCESSING_RATE) / (RATE_SAMPLES + 1));
-            RATE_SAMPLES++;
-            //if sample goes beyond 10000, reset it to avoid big calculations.
-            if (RATE_SAMPLES > 10000 || AVERAGE_PROCESSING_RATE == 0) {
-                RATE_SAMPLES = 1;
-                AVERAGE_PROCESSING_RATE = CURRENT_PROCESSING_RATE;
-            }
-            messageDoneCount = 0;
+    /**
+     * Returns false when message is dropped. On failure, changes of the message are rolled back when it is
+     * processed in a group transaction.
+     */
+    private boolean processMessage(RawMessage rawMessage) {
+        _logger.debug("Processing:[{}]", rawMessage);
+        if (McObjectManager.getGateway(rawMessage.getGatewayId()) == null && rawMessage.isTxMessage()) {
+            GatewayTable gatewayTable = DaoUtils.getGatewayDao().getById(rawMessage.getGatewayId());
+            _logger.error("Gateway not available! dropping message... {}, {}", gatewayTable, rawMessage);
+            return false;
         }
+        String gatewayId = String.valueOf(rawMessage.getGatewayId());
+        String direction = rawMessage.isTxMessage() ? "tx" : "rx";
+        String provider = rawMessage.getNetworkType() != null ? rawMessage.getNetworkType().name() : "";
+        Savepoint savepoint = McTransactionManager.getInstance().setSavePoint();
+        long startTime = System.nanoTime();
+        try {
+            McMessageUtils.sendToProviderBridge(rawMessage);
+            long processingTime = System.nanoTime() - startTime;
+            PROCESSING_TIME.recordNanos(processingTime);
+            McMetrics.getInstance().histogram(STAGE_TIME, STAGE_TIME_HELP, "provider", provider,
+                    "stage", "process").recordNanos(processingTime);
+            McMetrics.getInstance().counter("mc_gateway_messages_total", "Messages processed per gateway",
+                    "gateway", gatewayId, "direction", direction).increment();
+            _logger.debug("Process done in {} ns for:[{}]", processingTime, rawMessage);
+        } catch (Exception ex) {
+            McTransactionManager.getInstance().rollback(savepoint);
+            McMetrics.getInstance().counter("mc_gateway_errors_total", "Messages failed per gateway",
+                    "gateway", gatewayId, "direction", direction).increment();
+            _logger.error("Throws exception while processing!, [{}]", rawMessage, ex);
+        }
+        return true;
     }
 
     public static void printStatistics() {
-        _logger.info(
-                "Message engine statistics, Rate[Last minute:{}, {}/s, Avg:{}, Samples:{}], "
-                        + "Time:[Last:{} ms, Avg:{} ms, Samples:{}], In queue:{}",
-                getCurrentProcessingRate(), getCurrentProcessingRate() / 60, getAvgProcessingRate(), RATE_SAMPLES,
-                getLastMessageProcessingTime(), getAvgtMessageProcessingTime(), TIME_SAMPLES, getMessagesInQueue());
-    }
-
-    public static Map<String, Object> getStatistics() {
-        HashMap<String, Object> statistics = new HashMap<String, Object>();
-        statistics.put("processingRateLastMinute", getCurrentProcessingRate());
-        statistics.put("processingRateAvgPerMinute", getAvgProcessingRate());
-        statistics.put("processingRateSamples", RATE_SAMPLES);
-        statistics.put("processingTimeLastMessage", getLastMessageProcessingTime());
-        statistics.put("processingTimeAverage", getAvgtMessageProcessingTime());
-        statistics.put("processingTimeSamples", TIME_SAMPLES);
-        statistics.put("messagesInQueue", getMessagesInQueue());
-        statistics.put("timestamp", System.currentTimeMillis());
-        return statistics;
+        _logger.info("Message engine statistics, Processed:{}, Time:[Avg:{} ms, P99:{} ms, Max:{} ms], In queue:{}",
+                PROCESSING_TIME.getCount(), PROCESSING_TIME.getValues().get("mean"),
+                PROCESSING_TIME.getQuantile(0.99) / 1000.0, PROCESSING_TIME.getMax() / 1000.0, getMessagesInQueue());
     }
 
     @Override
     public void run() {
         try {
             _logger.debug("MessageMonitorThread new thread started.");
-            referanceTime = System.currentTimeMillis();
             while (!TERMINATE.get()) {
                 try {
                     this.processRawMessage();
                     Thread.sleep(10);
-                    calculateProcessingRate();
                 } catch (InterruptedException ex) {
                     _logger.debug("Exception in sleep thread,", ex);
                 }
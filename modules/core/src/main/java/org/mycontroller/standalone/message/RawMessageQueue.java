@@ -16,15 +16,28 @@
  */
 package org.mycontroller.standalone.message;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 
 import org.mapdb.Atomic.Integer;
+import org.mapdb.HTreeMap;
 import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.MapDbFactory;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
+import org.mycontroller.standalone.message.TxPriorityQueue.QueuedMessage;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Received messages (and offline messages from previous run) are kept on persistent FIFO queue. Messages to be
+ * sent are kept on {@link TxPriorityQueue} per gateway. When both are waiting, received and TX messages are
+ * served alternately and gateways are served round robin. TX messages, except OTA blocks, are also written to a
+ * persistent journal until sent, journaled messages left by a crash are moved to received queue on next start.
+ *
  * @author Jeeva Kandasamy (jkandasa)
  * @since 0.0.1
  */
@@ -32,8 +45,22 @@ import lombok.extern.slf4j.Slf4j;
 public class RawMessageQueue {
     public static final String RAW_MESSAGES_QUEUE_NAME = "mc_raw_messages_queue";
     public static final String RAW_MESSAGES_QUEUE_COUNTER_NAME = "mc_raw_messages_queue_counter";
+    public static final String RAW_TX_MESSAGES_JOURNAL_NAME = "mc_raw_tx_messages_journal";
     BlockingQueue<RawMessage> rawMessagesQueue;
     private final Integer counter;
+    private final HTreeMap<Long, RawMessage> txJournal;
+    private long txJournalId = 0;
+    private final HashMap<java.lang.Integer, TxPriorityQueue> txQueues =
+            new HashMap<java.lang.Integer, TxPriorityQueue>();
+    private final ArrayList<TxPriorityQueue> txQueuesList = new ArrayList<TxPriorityQueue>();
+    private int txQueueIndex = 0;
+    private int txQueueSize = 0;
+    private boolean lastServedTx = false;
+    //TX latency statistics, per priority
+    private final long[] latencyLast = new long[MESSAGE_PRIORITY.values().length];
+    private final long[] latencyMax = new long[MESSAGE_PRIORITY.values().length];
+    private final long[] latencyTotal = new long[MESSAGE_PRIORITY.values().length];
+    private final long[] messagesSent = new long[MESSAGE_PRIORITY.values().length];
 
     //Do not load until some calls getInstance
     private static class RawMessageQueueHelper {
@@ -47,25 +74,64 @@ public class RawMessageQueue {
     private RawMessageQueue() {
         counter = MapDbFactory.getDbStore().getAtomicInteger(RAW_MESSAGES_QUEUE_COUNTER_NAME);
         rawMessagesQueue = MapDbFactory.getDbStore().getQueue(RAW_MESSAGES_QUEUE_NAME);
+        txJournal = MapDbFactory.getDbStore().getHashMap(RAW_TX_MESSAGES_JOURNAL_NAME);
         if (AppProperties.getInstance().getClearMessagesQueueOnStart()) {
             int offlineMessagesCount = counter.get();
             rawMessagesQueue.clear();
             counter.set(0);
+            txJournal.clear();
             _logger.info("Cleared offline messages[{}] from the queue.", offlineMessagesCount);
         } else {
+            loadTxJournal();
             _logger.info("Continuing with offline messages[{}] in queue", counter.get());
             //Allow some time for gateways to get ready
         }
 
     }
 
+    //TX messages not sent on previous run (crash), in the order those were queued
+    private void loadTxJournal() {
+        if (txJournal.isEmpty()) {
+            return;
+        }
+        TreeMap<Long, RawMessage> rawMessages = new TreeMap<Long, RawMessage>(txJournal);
+        for (RawMessage rawMessage : rawMessages.values()) {
+            putMessage(rawMessage);
+        }
+        txJournal.clear();
+        _logger.info("Moved TX messages[{}] from journal to offline queue", rawMessages.size());
+    }
+
     public synchronized void putMessage(RawMessage rawMessage) {
         rawMessagesQueue.add(rawMessage);
         counter.incrementAndGet();
         _logger.debug("Added new {}, queue size:{}", rawMessage, counter.get());
     }
 
+    public synchronized void putTxMessage(RawMessage rawMessage, MESSAGE_PRIORITY priority) {
+        TxPriorityQueue txQueue = txQueues.get(rawMessage.getGatewayId());
+        if (txQueue == null) {
+            txQueue = new TxPriorityQueue(rawMessage.getGatewayId());
+            txQueues.put(rawMessage.getGatewayId(), txQueue);
+            txQueuesList.add(txQueue);
+        }
+        Long journalId = null;
+        //OTA blocks are not journaled, nodes request those again
+        if (priority != MESSAGE_PRIORITY.OTA) {
+            journalId = txJournalId++;
+            txJournal.put(journalId, rawMessage);
+        }
+        txQueue.add(rawMessage, priority, journalId);
+        txQueueSize++;
+        _logger.debug("Added new {}, priority:{}, TX queue size:{}", rawMessage, priority, txQueueSize);
+    }
+
     public synchronized RawMessage getMessage() {
+        if (txQueueSize > 0 && (rawMessagesQueue.isEmpty() || !lastServedTx)) {
+            lastServedTx = true;
+            return getTxMessage();
+        }
+        lastServedTx = false;
         if (!rawMessagesQueue.isEmpty()) {
             RawMessage rawMessage = this.rawMessagesQueue.remove();
             counter.decrementAndGet();
@@ -77,11 +143,97 @@ public class RawMessageQueue {
         }
     }
 
-    public int getQueueSize() {
-        return counter.get();
+    /**
+     * Returns next received message, null when there is none or a TX message is waiting for its turn.
+     */
+    public synchronized RawMessage getReceivedMessage() {
+        if (txQueueSize > 0 || rawMessagesQueue.isEmpty()) {
+            return null;
+        }
+        return getMessage();
+    }
+
+    private RawMessage getTxMessage() {
+        for (int count = 0; count < txQueuesList.size(); count++) {
+            if (txQueueIndex >= txQueuesList.size()) {
+                txQueueIndex = 0;
+            }
+            TxPriorityQueue txQueue = txQueuesList.get(txQueueIndex++);
+            if (!txQueue.isEmpty()) {
+                QueuedMessage queuedMessage = txQueue.remove();
+                txQueueSize--;
+                if (queuedMessage.getJournalId() != null) {
+                    txJournal.remove(queuedMessage.getJournalId());
+                }
+                updateLatency(queuedMessage);
+                _logger.debug("Removed a {}, priority:{}, TX queue size:{}", queuedMessage.getRawMessage(),
+                        queuedMessage.getPriority(), txQueueSize);
+                return queuedMessage.getRawMessage();
+            }
+        }
+        return null;
+    }
+
+    private void updateLatency(QueuedMessage queuedMessage) {
+        int index = queuedMessage.getPriority().ordinal();
+        long latency = System.currentTimeMillis() - queuedMessage.getQueuedTime();
+        latencyLast[index] = latency;
+        latencyTotal[index] += latency;
+        messagesSent[index]++;
+        if (latency > latencyMax[index]) {
+            latencyMax[index] = latency;
+        }
+    }
+
+    /**
+     * Moves waiting TX messages to persistent queue, to be sent on next start. OTA blocks are dropped. On crash,
+     * journaled TX messages are moved on next start.
+     */
+    public synchronized void persistTxMessages() {
+        int count = 0;
+        for (TxPriorityQueue txQueue : txQueuesList) {
+            List<RawMessage> rawMessages = txQueue.drain();
+            for (RawMessage rawMessage : rawMessages) {
+                putMessage(rawMessage);
+            }
+            count += rawMessages.size();
+        }
+        txJournal.clear();
+        txQueueSize = 0;
+        if (count > 0) {
+            _logger.info("Moved TX messages[{}] to offline queue", count);
+        }
+    }
+
+    public synchronized int getQueueSize() {
+        return counter.get() + txQueueSize;
+    }
+
+    public synchronized int getTxQueueSize(MESSAGE_PRIORITY priority) {
+        int size = 0;
+        for (TxPriorityQueue txQueue : txQueuesList) {
+            size += txQueue.size(priority);
+        }
+        return size;
     }
 
     public synchronized boolean isEmpty() {
-        return rawMessagesQueue.isEmpty();
+        return rawMessagesQueue.isEmpty() && txQueueSize == 0;
+    }
+
+    public synchronized Map<String, Object> getTxStatistics() {
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        for (MESSAGE_PRIORITY priority : MESSAGE_PRIORITY.values()) {
+            int index = priority.ordinal();
+            HashMap<String, Object> priorityStatistics = new HashMap<String, Object>();
+            priorityStatistics.put("messagesInQueue", getTxQueueSize(priority));
+            priorityStatistics.put("messagesSent", messagesSent[index]);
+            priorityStatistics.put("latencyLast", latencyLast[index]);
+            priorityStatistics.put("latencyMax", latencyMax[index]);
+            priorityStatistics.put("latencyAverage",
+                    messagesSent[index] == 0 ? 0 : latencyTotal[index] / messagesSent[index]);
+            statistics.put(priority.getText(), priorityStatistics);
+        }
+        return statistics;
     }
 }
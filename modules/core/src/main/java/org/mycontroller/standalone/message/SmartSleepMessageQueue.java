@@ -17,6 +17,13 @@
 package org.mycontroller.standalone.message;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mapdb.HTreeMap;
 import org.mycontroller.standalone.AppProperties;
@@ -25,13 +32,24 @@ import org.mycontroller.standalone.MapDbFactory;
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Messages for smart sleep nodes, kept until the node wakes up.<br>
+ * Each node has an in-memory queue in insertion order, keyed by sensor, message type and sub type. A newer
+ * message for the same key replaces the older one (last value wins). Every message is journaled individually on
+ * MapDB, queues are rebuilt from the journal on start.
+ *
  * @author Jeeva Kandasamy (jkandasa)
  * @since 0.0.3
  */
 @Slf4j
 public class SmartSleepMessageQueue {
+    //Old store, whole list per node. Migrated to journal on start
     public static final String AVAILABLE_QUEUE_LIST = "smart_sleep_msg_queue";
-    HTreeMap<String, ArrayList<McMessage>> messagesQueue;
+    public static final String MESSAGES_JOURNAL = "smart_sleep_msg_journal";
+    private static final String KEY_SEPARATOR = "|";
+
+    private final HTreeMap<String, McMessage> journal;
+    private final ConcurrentHashMap<String, LinkedHashMap<String, McMessage>> queues =
+            new ConcurrentHashMap<String, LinkedHashMap<String, McMessage>>();
 
     //Do not load until some calls getInstance
     private static class SmartSleepMessageQueueHelper {
@@ -43,10 +61,51 @@ public class SmartSleepMessageQueue {
     }
 
     private SmartSleepMessageQueue() {
-        messagesQueue = MapDbFactory.getDbStore().getHashMap(AVAILABLE_QUEUE_LIST);
+        journal = MapDbFactory.getDbStore().getHashMap(MESSAGES_JOURNAL);
         if (AppProperties.getInstance().getClearMessagesQueueOnStart()) {
-            messagesQueue.clear();
+            journal.clear();
+            if (MapDbFactory.getDbStore().exists(AVAILABLE_QUEUE_LIST)) {
+                MapDbFactory.getDbStore().delete(AVAILABLE_QUEUE_LIST);
+            }
             _logger.debug("Cleared all smart sleep messages...");
+        } else {
+            migrateOldStore();
+            loadJournal();
+        }
+    }
+
+    private void migrateOldStore() {
+        if (!MapDbFactory.getDbStore().exists(AVAILABLE_QUEUE_LIST)) {
+            return;
+        }
+        HTreeMap<String, ArrayList<McMessage>> oldQueues = MapDbFactory.getDbStore().getHashMap(
+                AVAILABLE_QUEUE_LIST);
+        int count = 0;
+        for (ArrayList<McMessage> oldQueue : oldQueues.values()) {
+            for (McMessage mcMessage : oldQueue) {
+                //Sets timestamp when not available, used to restore the order from journal
+                mcMessage.getTimestamp();
+                journal.put(getJournalKey(getQueueName(mcMessage), getMessageKey(mcMessage)), mcMessage);
+                count++;
+            }
+        }
+        MapDbFactory.getDbStore().delete(AVAILABLE_QUEUE_LIST);
+        _logger.info("Migrated smart sleep messages[{}] to journal", count);
+    }
+
+    private void loadJournal() {
+        List<McMessage> mcMessages = new ArrayList<McMessage>(journal.values());
+        Collections.sort(mcMessages, new Comparator<McMessage>() {
+            @Override
+            public int compare(McMessage message1, McMessage message2) {
+                return Long.compare(message1.getTimestamp(), message2.getTimestamp());
+            }
+        });
+        for (McMessage mcMessage : mcMessages) {
+            getQueueInternal(getQueueName(mcMessage)).put(getMessageKey(mcMessage), mcMessage);
+        }
+        if (!mcMessages.isEmpty()) {
+            _logger.info("Continuing with smart sleep messages[{}] in queue", mcMessages.size());
         }
     }
 
@@ -54,19 +113,34 @@ public class SmartSleepMessageQueue {
         return gatewayId + "_" + nodeEui;
     }
 
-    private ArrayList<McMessage> getQueueInternal(String queueName) {
-        if (!messagesQueue.containsKey(queueName)) {
-            messagesQueue.put(queueName, new ArrayList<McMessage>());
+    private String getQueueName(McMessage mcMessage) {
+        return getQueueName(mcMessage.getGatewayId(), mcMessage.getNodeEui());
+    }
+
+    private String getMessageKey(McMessage mcMessage) {
+        return mcMessage.getSensorId() + KEY_SEPARATOR + mcMessage.getType() + KEY_SEPARATOR
+                + mcMessage.getSubType();
+    }
+
+    private String getJournalKey(String queueName, String messageKey) {
+        return queueName + KEY_SEPARATOR + messageKey;
+    }
+
+    private LinkedHashMap<String, McMessage> getQueueInternal(String queueName) {
+        LinkedHashMap<String, McMessage> queue = queues.get(queueName);
+        if (queue == null) {
+            queue = new LinkedHashMap<String, McMessage>();
+            queues.put(queueName, queue);
         }
-        return messagesQueue.get(queueName);
+        return queue;
     }
 
-    @SuppressWarnings("unchecked")
-    public ArrayList<McMessage> getQueue(String queueName) {
-        if (!messagesQueue.containsKey(queueName)) {
+    public synchronized ArrayList<McMessage> getQueue(String queueName) {
+        LinkedHashMap<String, McMessage> queue = queues.get(queueName);
+        if (queue == null) {
             return new ArrayList<McMessage>();
         }
-        return (ArrayList<McMessage>) messagesQueue.get(queueName).clone();
+        return new ArrayList<McMessage>(queue.values());
     }
 
     public ArrayList<McMessage> getQueue(Integer gatewayId, String nodeEui) {
@@ -75,13 +149,21 @@ public class SmartSleepMessageQueue {
 
     public ArrayList<String> getQueueNames() {
         ArrayList<String> names = new ArrayList<String>();
-        names.addAll(messagesQueue.keySet());
+        names.addAll(queues.keySet());
         return names;
     }
 
+    public synchronized boolean isEmpty(Integer gatewayId, String nodeEui) {
+        LinkedHashMap<String, McMessage> queue = queues.get(getQueueName(gatewayId, nodeEui));
+        return queue == null || queue.isEmpty();
+    }
+
     public synchronized void removeQueue(String queueName) {
-        if (messagesQueue.containsKey(queueName)) {
-            messagesQueue.remove(queueName);
+        LinkedHashMap<String, McMessage> queue = queues.remove(queueName);
+        if (queue != null) {
+            for (String messageKey : queue.keySet()) {
+                journal.remove(getJournalKey(queueName, messageKey));
+            }
             _logger.debug("Queue removed:[{}]", queueName);
         }
     }
@@ -91,12 +173,19 @@ public class SmartSleepMessageQueue {
     }
 
     public synchronized void removeMessages(String queueName, String sensorId) {
-        ArrayList<McMessage> queue = getQueueInternal(queueName);
-        for (int index = 0; index < queue.size(); index++) {
-            if (queue.get(index).getSensorId().equals(sensorId)) {
-                queue.remove(index);
+        LinkedHashMap<String, McMessage> queue = queues.get(queueName);
+        if (queue == null) {
+            return;
+        }
+        Iterator<Entry<String, McMessage>> iterator = queue.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<String, McMessage> entry = iterator.next();
+            if (entry.getValue().getSensorId().equals(sensorId)) {
+                journal.remove(getJournalKey(queueName, entry.getKey()));
+                iterator.remove();
             }
         }
+        removeIfEmpty(queueName, queue);
     }
 
     public synchronized void removeMessages(Integer gatewayId, String nodeEui, int index) {
@@ -104,36 +193,63 @@ public class SmartSleepMessageQueue {
     }
 
     public synchronized void removeMessages(String queueName, int index) {
-        ArrayList<McMessage> queue = getQueueInternal(queueName);
-        if (queue.size() > index) {
-            queue.remove(index);
+        LinkedHashMap<String, McMessage> queue = queues.get(queueName);
+        if (queue == null || queue.size() <= index) {
+            return;
         }
+        Iterator<String> iterator = queue.keySet().iterator();
+        for (int position = 0; position < index; position++) {
+            iterator.next();
+        }
+        journal.remove(getJournalKey(queueName, iterator.next()));
+        iterator.remove();
+        removeIfEmpty(queueName, queue);
     }
 
     public synchronized void removeMessages(Integer gatewayId, String nodeEui, String sensorId) {
         removeMessages(getQueueName(gatewayId, nodeEui), sensorId);
     }
 
-    public void clearAll() {
-        messagesQueue.clear();
+    public synchronized void clearAll() {
+        queues.clear();
+        journal.clear();
         _logger.debug("Cleared all queues..");
     }
 
     public synchronized void putMessage(McMessage mcMessage) {
-        String queueName = getQueueName(mcMessage.getGatewayId(), mcMessage.getNodeEui());
-        ArrayList<McMessage> queue = getQueueInternal(queueName);
-        queue.add(mcMessage);
+        String queueName = getQueueName(mcMessage);
+        String messageKey = getMessageKey(mcMessage);
+        LinkedHashMap<String, McMessage> queue = getQueueInternal(queueName);
+        //Last value wins, moves to the end of the queue
+        McMessage oldMessage = queue.remove(messageKey);
+        //Sets timestamp when not available, used to restore the order from journal
+        mcMessage.getTimestamp();
+        queue.put(messageKey, mcMessage);
+        journal.put(getJournalKey(queueName, messageKey), mcMessage);
+        if (oldMessage != null) {
+            _logger.debug("Replaced {}, on queue [{}]", oldMessage, queueName);
+        }
         _logger.info("Added new {}, on queue [{}], size:{}", mcMessage, queueName, queue.size());
     }
 
     public synchronized McMessage getMessage(Integer gatewayId, String nodeEui) {
         String queueName = getQueueName(gatewayId, nodeEui);
-        McMessage mcMessage = null;
-        ArrayList<McMessage> queue = getQueueInternal(queueName);
-        if (!queue.isEmpty()) {
-            mcMessage = queue.remove(0);
+        LinkedHashMap<String, McMessage> queue = queues.get(queueName);
+        if (queue == null || queue.isEmpty()) {
+            return null;
+        }
+        Iterator<Entry<String, McMessage>> iterator = queue.entrySet().iterator();
+        Entry<String, McMessage> entry = iterator.next();
+        iterator.remove();
+        journal.remove(getJournalKey(queueName, entry.getKey()));
+        removeIfEmpty(queueName, queue);
+        _logger.debug("Retriving {}, on queue [{}], size:{}", entry.getValue(), queueName, queue.size());
+        return entry.getValue();
+    }
+
+    private void removeIfEmpty(String queueName, LinkedHashMap<String, McMessage> queue) {
+        if (queue.isEmpty()) {
+            queues.remove(queueName);
         }
-        _logger.debug("Retriving {}, on queue [{}], size:{}", mcMessage, queueName, queue.size());
-        return mcMessage;
     }
 }
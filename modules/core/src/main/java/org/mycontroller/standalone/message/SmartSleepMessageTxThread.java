@@ -16,46 +16,57 @@
  */
 package org.mycontroller.standalone.message;
 
-import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.mycontroller.standalone.McObjectManager;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
 
 import lombok.extern.slf4j.Slf4j;
 
 /**
+ * Sends queued smart sleep messages of a node, when the node wakes up. Runs on the smart sleep pool, only one drain
+ * at a time for a node.
+ *
  * @author Jeeva Kandasamy (jkandasa)
  * @since 0.0.3
  */
 @Slf4j
 public class SmartSleepMessageTxThread implements Runnable {
+    private static final Set<String> RUNNING = ConcurrentHashMap.newKeySet();
+
     private Integer gatewayId;
     private String nodeEui;
-    private static final ArrayList<String> RUNNING_THREADS = new ArrayList<String>();
+    private String name;
 
-    private static synchronized boolean isRunning(String thName) {
-        return RUNNING_THREADS.contains(thName);
-    }
-
-    private static synchronized void completed(String thName) {
-        RUNNING_THREADS.remove(thName);
-    }
-
-    private static synchronized void started(String thName) {
-        RUNNING_THREADS.add(thName);
-    }
-
-    public SmartSleepMessageTxThread(Integer gatewayId, String nodeEui) {
+    private SmartSleepMessageTxThread(Integer gatewayId, String nodeEui) {
         this.gatewayId = gatewayId;
         this.nodeEui = nodeEui;
+        this.name = gatewayId + "_" + nodeEui;
     }
 
-    @Override
-    public void run() {
-        if (isRunning(gatewayId + "_" + nodeEui)) {
-            _logger.info("A thread is running to send offline messages for '{}_{}'", gatewayId, nodeEui);
+    /**
+     * Called on node wake up message. Schedules a drain, when there are messages for the node and drain not
+     * running already.
+     */
+    public static void trigger(Integer gatewayId, String nodeEui) {
+        if (SmartSleepMessageQueue.getInstance().isEmpty(gatewayId, nodeEui)) {
+            return;
+        }
+        SmartSleepMessageTxThread txThread = new SmartSleepMessageTxThread(gatewayId, nodeEui);
+        if (!RUNNING.add(txThread.name)) {
+            _logger.debug("A drain is running to send offline messages for '{}'", txThread.name);
             return;
         }
-        started(gatewayId + "_" + nodeEui);
+        if (!McExecutors.getInstance().execute(POOL.SMART_SLEEP, txThread)) {
+            RUNNING.remove(txThread.name);
+            _logger.error("Unable to schedule smart sleep messages for '{}'", txThread.name);
+        }
+    }
+
+    @Override
+    public void run() {
         try {
             while (true) {
                 McMessage mcMessage = SmartSleepMessageQueue.getInstance().getMessage(gatewayId, nodeEui);
@@ -68,10 +79,12 @@ public class SmartSleepMessageTxThread implements Runnable {
                     break;
                 }
             }
+        } catch (InterruptedException ex) {
+            _logger.debug("Smart sleep drain interrupted for '{}'", name);
         } catch (Exception ex) {
             _logger.error("Exception, ", ex);
         } finally {
-            completed(gatewayId + "_" + nodeEui);
+            RUNNING.remove(name);
         }
     }
 }
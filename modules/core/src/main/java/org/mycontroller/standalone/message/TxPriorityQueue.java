@@ -0,0 +1,149 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.message;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
+
+/**
+ * TX messages of a gateway, one FIFO lane per {@link MESSAGE_PRIORITY}. Not thread safe, guarded by
+ * {@link RawMessageQueue}.<br>
+ * Lanes are served highest priority first, each lane can take up to its weight messages in a round. Once all
+ * waiting lanes used their weight, a new round starts. So interactive messages go first and low priority lanes
+ * still get their share.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TxPriorityQueue {
+    private static final MESSAGE_PRIORITY[] PRIORITIES = MESSAGE_PRIORITY.values();
+
+    private final Integer gatewayId;
+    private final List<LinkedList<QueuedMessage>> lanes = new ArrayList<LinkedList<QueuedMessage>>();
+    private final int[] credits = new int[PRIORITIES.length];
+    private int size = 0;
+
+    public static class QueuedMessage {
+        private final RawMessage rawMessage;
+        private final MESSAGE_PRIORITY priority;
+        private final long queuedTime;
+        private final Long journalId;
+
+        public QueuedMessage(RawMessage rawMessage, MESSAGE_PRIORITY priority, long queuedTime, Long journalId) {
+            this.rawMessage = rawMessage;
+            this.priority = priority;
+            this.queuedTime = queuedTime;
+            this.journalId = journalId;
+        }
+
+        public RawMessage getRawMessage() {
+            return rawMessage;
+        }
+
+        public MESSAGE_PRIORITY getPriority() {
+            return priority;
+        }
+
+        public long getQueuedTime() {
+            return queuedTime;
+        }
+
+        /** Key of this message in persistent TX journal, null when not journaled */
+        public Long getJournalId() {
+            return journalId;
+        }
+    }
+
+    public TxPriorityQueue(Integer gatewayId) {
+        this.gatewayId = gatewayId;
+        for (int index = 0; index < PRIORITIES.length; index++) {
+            lanes.add(new LinkedList<QueuedMessage>());
+        }
+        resetCredits();
+    }
+
+    private void resetCredits() {
+        for (MESSAGE_PRIORITY priority : PRIORITIES) {
+            credits[priority.ordinal()] = priority.getWeight();
+        }
+    }
+
+    public Integer getGatewayId() {
+        return gatewayId;
+    }
+
+    public void add(RawMessage rawMessage, MESSAGE_PRIORITY priority, Long journalId) {
+        lanes.get(priority.ordinal()).add(
+                new QueuedMessage(rawMessage, priority, System.currentTimeMillis(), journalId));
+        size++;
+    }
+
+    public QueuedMessage remove() {
+        if (size == 0) {
+            return null;
+        }
+        QueuedMessage queuedMessage = removeWithCredit();
+        if (queuedMessage == null) {
+            resetCredits();
+            queuedMessage = removeWithCredit();
+        }
+        size--;
+        return queuedMessage;
+    }
+
+    private QueuedMessage removeWithCredit() {
+        for (int index = 0; index < PRIORITIES.length; index++) {
+            if (credits[index] > 0 && !lanes.get(index).isEmpty()) {
+                credits[index]--;
+                return lanes.get(index).remove();
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int size(MESSAGE_PRIORITY priority) {
+        return lanes.get(priority.ordinal()).size();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the messages, except OTA blocks (nodes request those again).
+     */
+    public List<RawMessage> drain() {
+        List<RawMessage> rawMessages = new ArrayList<RawMessage>();
+        for (MESSAGE_PRIORITY priority : PRIORITIES) {
+            if (priority != MESSAGE_PRIORITY.OTA) {
+                for (QueuedMessage queuedMessage : lanes.get(priority.ordinal())) {
+                    rawMessages.add(queuedMessage.getRawMessage());
+                }
+            }
+            lanes.get(priority.ordinal()).clear();
+        }
+        size = 0;
+        return rawMessages;
+    }
+}
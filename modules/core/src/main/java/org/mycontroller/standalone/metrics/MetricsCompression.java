@@ -0,0 +1,273 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.MetricsDoubleTypeDevice;
+import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.metrics.MetricsUtils.AGGREGATION_TYPE;
+import org.mycontroller.standalone.monitoring.McMetrics;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ingest time compression of double metrics, configured with properties of sensor variable. Deadband stores a
+ * sample when it moves more than deviation from the last stored sample. Swinging door stores the previous sample
+ * when a straight line from the last stored sample can not represent all the samples in between within deviation,
+ * so graphs stay within deviation of the received samples. A sample is always stored after max interval of silence.
+ * Held sample of swinging door is stored by {@link org.mycontroller.standalone.jobs.MetricsCompressionFlushJob} once
+ * it is older than max interval, and on shutdown.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class MetricsCompression {
+    public static final String KEY_COMPRESSION = "compression";
+    public static final String KEY_DEVIATION = "compressionDeviation";
+    public static final String KEY_DEVIATION_PERCENT = "compressionDeviationPercent";
+    public static final String KEY_MAX_INTERVAL = "compressionMaxInterval";
+    public static final long DEFAULT_MAX_INTERVAL = McUtils.ONE_HOUR;
+
+    public enum COMPRESSION_TYPE {
+        NONE("None"),
+        DEADBAND("Deadband"),
+        SWINGING_DOOR("Swinging door");
+
+        private String text;
+
+        public String getText() {
+            return this.text;
+        }
+
+        private COMPRESSION_TYPE(String text) {
+            this.text = text;
+        }
+
+        public static COMPRESSION_TYPE fromString(String text) {
+            if (text != null) {
+                for (COMPRESSION_TYPE type : COMPRESSION_TYPE.values()) {
+                    if (text.equalsIgnoreCase(type.getText()) || text.equalsIgnoreCase(type.name())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    public static class Sample {
+        private final long timestamp;
+        private final double value;
+
+        private Sample(long timestamp, double value) {
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public double getValue() {
+            return value;
+        }
+    }
+
+    private static class State {
+        private String config;
+        private long maxInterval;
+        // Last stored sample
+        private Sample stored;
+        // Last received sample, not stored yet. Swinging door only
+        private Sample held;
+        private double upperSlope;
+        private double lowerSlope;
+    }
+
+    private final ConcurrentHashMap<Integer, State> states = new ConcurrentHashMap<Integer, State>();
+
+    private static class MetricsCompressionHolder {
+        private static final MetricsCompression INSTANCE = new MetricsCompression();
+    }
+
+    //Do not load until some calls getInstance
+    public static MetricsCompression getInstance() {
+        return MetricsCompressionHolder.INSTANCE;
+    }
+
+    private MetricsCompression() {
+    }
+
+    public static COMPRESSION_TYPE getType(SensorVariable sensorVariable) {
+        Object compression = sensorVariable.getProperties().get(KEY_COMPRESSION);
+        COMPRESSION_TYPE type = compression != null ? COMPRESSION_TYPE.fromString(compression.toString()) : null;
+        return type != null ? type : COMPRESSION_TYPE.NONE;
+    }
+
+    /**
+     * Returns the samples to be stored for the received sample, can be empty.
+     */
+    public List<Sample> offer(SensorVariable sensorVariable, long timestamp, double value) {
+        Sample sample = new Sample(timestamp, value);
+        COMPRESSION_TYPE type = getType(sensorVariable);
+        if (type == COMPRESSION_TYPE.NONE) {
+            states.remove(sensorVariable.getId());
+            return Collections.singletonList(sample);
+        }
+        HashMap<String, Object> properties = sensorVariable.getProperties();
+        double deviation = Math.abs(getNumber(properties.get(KEY_DEVIATION)));
+        double deviationPercent = Math.abs(getNumber(properties.get(KEY_DEVIATION_PERCENT)));
+        long maxInterval = (long) (getNumber(properties.get(KEY_MAX_INTERVAL)) * McUtils.SECOND);
+        if (maxInterval <= 0) {
+            maxInterval = DEFAULT_MAX_INTERVAL;
+        }
+        String config = type + ":" + deviation + ":" + deviationPercent + ":" + maxInterval;
+
+        State state = states.get(sensorVariable.getId());
+        if (state == null) {
+            state = new State();
+            State existing = states.putIfAbsent(sensorVariable.getId(), state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        List<Sample> samples;
+        synchronized (state) {
+            if (!config.equals(state.config) || state.stored == null || timestamp <= state.stored.timestamp) {
+                //New or changed configuration or clock moved back, start again from this sample
+                state.config = config;
+                state.maxInterval = maxInterval;
+                samples = store(state, null, sample);
+            } else if (timestamp - state.stored.timestamp >= maxInterval) {
+                samples = store(state, state.held, sample);
+            } else {
+                //Percentage of last stored value, larger one wins when both given
+                double allowed = Math.max(deviation, Math.abs(state.stored.value) * deviationPercent / 100.0);
+                if (type == COMPRESSION_TYPE.DEADBAND) {
+                    samples = Math.abs(value - state.stored.value) > allowed
+                            ? store(state, null, sample) : Collections.<Sample> emptyList();
+                } else {
+                    samples = swingingDoor(state, sample, allowed);
+                }
+            }
+        }
+        if (samples.isEmpty()) {
+            McMetrics.getInstance().counter("mc_metrics_compression_dropped_total",
+                    "Samples dropped by ingest compression", "type", type.name()).increment();
+        }
+        return samples;
+    }
+
+    /**
+     * Stores held samples of swinging door, received before max interval of the sensor variable. All held samples
+     * are stored when all is true, used on shutdown.
+     */
+    public void flush(boolean all) {
+        long now = System.currentTimeMillis();
+        for (Entry<Integer, State> entry : states.entrySet()) {
+            State state = entry.getValue();
+            Sample held;
+            synchronized (state) {
+                held = state.held;
+                if (held == null || (!all && now - held.timestamp < state.maxInterval)) {
+                    continue;
+                }
+                //Line ends at held sample, next line starts from there
+                store(state, null, held);
+            }
+            SensorVariable sensorVariable = DaoUtils.getSensorVariableDao().getById(entry.getKey());
+            if (sensorVariable == null) {
+                states.remove(entry.getKey());
+                continue;
+            }
+            DaoUtils.getMetricsDoubleTypeDeviceDao()
+                    .create(MetricsDoubleTypeDevice.builder()
+                            .sensorVariable(sensorVariable)
+                            .aggregationType(AGGREGATION_TYPE.RAW)
+                            .timestamp(held.getTimestamp())
+                            .avg(held.getValue())
+                            .min(held.getValue())
+                            .max(held.getValue())
+                            .samples(1).build());
+            _logger.debug("Stored held sample of sensor variable[id:{}]", entry.getKey());
+        }
+    }
+
+    private List<Sample> swingingDoor(State state, Sample sample, double deviation) {
+        if (state.held != null && sample.timestamp <= state.held.timestamp) {
+            //Same or older timestamp than held sample, line can not continue
+            return store(state, state.held, sample);
+        }
+        double elapsed = sample.timestamp - state.stored.timestamp;
+        double upper = (sample.value + deviation - state.stored.value) / elapsed;
+        double lower = (sample.value - deviation - state.stored.value) / elapsed;
+        double upperSlope = Math.min(state.upperSlope, upper);
+        double lowerSlope = Math.max(state.lowerSlope, lower);
+        if (lowerSlope <= upperSlope) {
+            //Door still open, line from stored sample covers this sample too
+            state.upperSlope = upperSlope;
+            state.lowerSlope = lowerSlope;
+            state.held = sample;
+            return Collections.emptyList();
+        }
+        //Door closed, held sample is the end of the line. Start next line from there
+        Sample held = state.held;
+        state.stored = held;
+        state.held = sample;
+        double fromHeld = sample.timestamp - held.timestamp;
+        state.upperSlope = (sample.value + deviation - held.value) / fromHeld;
+        state.lowerSlope = (sample.value - deviation - held.value) / fromHeld;
+        return Collections.singletonList(held);
+    }
+
+    private List<Sample> store(State state, Sample held, Sample sample) {
+        state.stored = sample;
+        state.held = null;
+        state.upperSlope = Double.POSITIVE_INFINITY;
+        state.lowerSlope = Double.NEGATIVE_INFINITY;
+        if (held == null) {
+            return Collections.singletonList(sample);
+        }
+        List<Sample> samples = new ArrayList<Sample>(2);
+        samples.add(held);
+        samples.add(sample);
+        return samples;
+    }
+
+    private static double getNumber(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof String && ((String) value).trim().length() > 0) {
+            try {
+                return Double.valueOf(((String) value).trim());
+            } catch (NumberFormatException ex) {
+                _logger.debug("Invalid compression property value:{}", value);
+            }
+        }
+        return 0.0;
+    }
+}
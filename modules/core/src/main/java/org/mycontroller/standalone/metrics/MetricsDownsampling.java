@@ -0,0 +1,208 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mycontroller.standalone.db.tables.MetricsBatteryUsage;
+import org.mycontroller.standalone.db.tables.MetricsCounterTypeDevice;
+import org.mycontroller.standalone.db.tables.MetricsDoubleTypeDevice;
+
+/**
+ * Largest Triangle Three Buckets (LTTB) downsampling for graphs. Keeps first and last points, from each bucket in
+ * between keeps the point which makes the largest triangle with the previously kept point and the average of the
+ * next bucket, so peaks and shape of the series remain. Single pass over the points. For double and battery
+ * metrics, kept point takes minimum and maximum of its bucket, min/max series keep the extremes. For counter
+ * metrics, kept point takes the sum of values and samples of its bucket, so totals remain.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class MetricsDownsampling {
+    //Minimum points, first, last and at least one bucket
+    public static final int MIN_POINTS = 3;
+
+    private interface PointReader<T> {
+        long getTimestamp(T point);
+
+        double getValue(T point);
+
+        //Update kept point with the point of the same bucket which is dropped
+        void merge(T kept, T dropped);
+    }
+
+    private static final PointReader<MetricsDoubleTypeDevice> DOUBLE_READER =
+            new PointReader<MetricsDoubleTypeDevice>() {
+                @Override
+                public long getTimestamp(MetricsDoubleTypeDevice point) {
+                    return point.getTimestamp();
+                }
+
+                @Override
+                public double getValue(MetricsDoubleTypeDevice point) {
+                    return value(point.getAvg());
+                }
+
+                @Override
+                public void merge(MetricsDoubleTypeDevice kept, MetricsDoubleTypeDevice dropped) {
+                    kept.setMin(min(kept.getMin(), dropped.getMin()));
+                    kept.setMax(max(kept.getMax(), dropped.getMax()));
+                }
+            };
+
+    private static final PointReader<MetricsBatteryUsage> BATTERY_READER = new PointReader<MetricsBatteryUsage>() {
+        @Override
+        public long getTimestamp(MetricsBatteryUsage point) {
+            return point.getTimestamp();
+        }
+
+        @Override
+        public double getValue(MetricsBatteryUsage point) {
+            return value(point.getAvg());
+        }
+
+        @Override
+        public void merge(MetricsBatteryUsage kept, MetricsBatteryUsage dropped) {
+            kept.setMin(min(kept.getMin(), dropped.getMin()));
+            kept.setMax(max(kept.getMax(), dropped.getMax()));
+        }
+    };
+
+    private static final PointReader<MetricsCounterTypeDevice> COUNTER_READER =
+            new PointReader<MetricsCounterTypeDevice>() {
+                @Override
+                public long getTimestamp(MetricsCounterTypeDevice point) {
+                    return point.getTimestamp();
+                }
+
+                @Override
+                public double getValue(MetricsCounterTypeDevice point) {
+                    return value(point.getValue());
+                }
+
+                @Override
+                public void merge(MetricsCounterTypeDevice kept, MetricsCounterTypeDevice dropped) {
+                    //Counts of the dropped point are added to the kept point
+                    kept.setValue(sum(kept.getValue(), dropped.getValue()));
+                    if (kept.getSamples() != null && dropped.getSamples() != null) {
+                        kept.setSamples(kept.getSamples() + dropped.getSamples());
+                    }
+                }
+            };
+
+    private MetricsDownsampling() {
+
+    }
+
+    public static List<MetricsDoubleTypeDevice> downsampleDouble(List<MetricsDoubleTypeDevice> points,
+            Integer maxPoints) {
+        return downsample(points, maxPoints, DOUBLE_READER);
+    }
+
+    public static List<MetricsBatteryUsage> downsampleBattery(List<MetricsBatteryUsage> points, Integer maxPoints) {
+        return downsample(points, maxPoints, BATTERY_READER);
+    }
+
+    public static List<MetricsCounterTypeDevice> downsampleCounter(List<MetricsCounterTypeDevice> points,
+            Integer maxPoints) {
+        return downsample(points, maxPoints, COUNTER_READER);
+    }
+
+    /**
+     * Returns at most maxPoints points, same list when it has less points or maxPoints is null or less than
+     * {@link #MIN_POINTS}. Points should be sorted by timestamp.
+     */
+    private static <T> List<T> downsample(List<T> points, Integer maxPoints, PointReader<T> reader) {
+        if (maxPoints == null || maxPoints < MIN_POINTS || points.size() <= maxPoints) {
+            return points;
+        }
+        int size = points.size();
+        List<T> sampled = new ArrayList<T>(maxPoints);
+        //Buckets between first and last point
+        double bucketSize = (double) (size - 2) / (maxPoints - 2);
+        T first = points.get(0);
+        sampled.add(first);
+        //Values of the previous selected point, before merge
+        double previousX = reader.getTimestamp(first);
+        double previousY = reader.getValue(first);
+        int bucketStart = 1;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int bucketEnd = (int) ((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) ((bucket + 2) * bucketSize) + 1, size);
+            //Average of next bucket, last point when this is the last bucket
+            double averageX = 0;
+            double averageY = 0;
+            for (int index = bucketEnd; index < nextEnd; index++) {
+                averageX += reader.getTimestamp(points.get(index));
+                averageY += reader.getValue(points.get(index));
+            }
+            int nextSize = nextEnd - bucketEnd;
+            averageX /= nextSize;
+            averageY /= nextSize;
+
+            double maxArea = -1;
+            T selected = null;
+            for (int index = bucketStart; index < bucketEnd; index++) {
+                T point = points.get(index);
+                //Double of the triangle area, enough for comparison
+                double area = Math.abs((previousX - averageX) * (reader.getValue(point) - previousY)
+                        - (previousX - reader.getTimestamp(point)) * (averageY - previousY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = point;
+                }
+            }
+            previousX = reader.getTimestamp(selected);
+            previousY = reader.getValue(selected);
+            for (int index = bucketStart; index < bucketEnd; index++) {
+                if (points.get(index) != selected) {
+                    reader.merge(selected, points.get(index));
+                }
+            }
+            sampled.add(selected);
+            bucketStart = bucketEnd;
+        }
+        sampled.add(points.get(size - 1));
+        return sampled;
+    }
+
+    private static double value(Number value) {
+        return value != null ? value.doubleValue() : 0.0;
+    }
+
+    private static Long sum(Long value1, Long value2) {
+        if (value1 == null) {
+            return value2;
+        }
+        return value2 == null ? value1 : value1 + value2;
+    }
+
+    private static Double min(Double value1, Double value2) {
+        if (value1 == null) {
+            return value2;
+        }
+        return value2 == null ? value1 : Math.min(value1, value2);
+    }
+
+    private static Double max(Double value1, Double value2) {
+        if (value1 == null) {
+            return value2;
+        }
+        return value2 == null ? value1 : Math.max(value1, value2);
+    }
+}
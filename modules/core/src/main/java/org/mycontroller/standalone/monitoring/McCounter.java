@@ -0,0 +1,64 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter. Increments are striped with {@link LongAdder}, no lock and low contention.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class McCounter extends McMetric {
+    private final LongAdder count = new LongAdder();
+
+    McCounter(String name, String[] labels) {
+        super(name, labels);
+    }
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long value) {
+        count.add(value);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+
+    @Override
+    public METRIC_TYPE getType() {
+        return METRIC_TYPE.COUNTER;
+    }
+
+    @Override
+    public Map<String, Object> getValues() {
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        values.put("count", get());
+        return values;
+    }
+
+    @Override
+    void writePrometheus(StringBuilder builder) {
+        builder.append(getName()).append(getLabelsText(null, null)).append(' ').append(get()).append('\n');
+    }
+}
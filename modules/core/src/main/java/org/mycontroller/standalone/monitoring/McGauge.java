@@ -0,0 +1,53 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Value read on demand, when metrics are collected. Used for queue sizes, pool usage, etc.,
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public abstract class McGauge extends McMetric {
+
+    protected McGauge(String name, String... labels) {
+        super(name, labels);
+    }
+
+    public abstract double getValue();
+
+    @Override
+    public METRIC_TYPE getType() {
+        return METRIC_TYPE.GAUGE;
+    }
+
+    @Override
+    public Map<String, Object> getValues() {
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        values.put("value", getValue());
+        return values;
+    }
+
+    @Override
+    void writePrometheus(StringBuilder builder) {
+        double value = getValue();
+        builder.append(getName()).append(getLabelsText(null, null)).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.monitoring;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with log-linear buckets, similar to HDR histogram. Values are kept in microseconds, each power
+ * of two range is divided in to {@link #SUB_BUCKETS} linear buckets, relative error of percentiles stays below
+ * 12.5%. Fixed memory, recording is lock free.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class McHistogram extends McMetric {
+    private static final int SUB_BUCKET_BITS = 3;
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    //2^40 microseconds, about 12 days
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double MICROS_PER_SECOND = 1000000.0;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    McHistogram(String name, String[] labels) {
+        super(name, labels);
+    }
+
+    static int getBucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int index = SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((micros >> shift) & (SUB_BUCKETS - 1));
+        return Math.min(index, BUCKETS - 1);
+    }
+
+    static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /** Records elapsed time since startNanos, taken from {@link System#nanoTime()} */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros((long) (nanos / NANOS_PER_MICRO));
+    }
+
+    public void recordMillis(long millis) {
+        recordMicros(millis * 1000);
+    }
+
+    public void recordMicros(long micros) {
+        buckets.incrementAndGet(getBucketIndex(micros));
+        count.increment();
+        sum.add(micros);
+        long currentMax = max.get();
+        while (micros > currentMax && !max.compareAndSet(currentMax, micros)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Sum of all values in microseconds */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /** Maximum value in microseconds */
+    public long getMax() {
+        return max.get();
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int index = 0; index < BUCKETS; index++) {
+            snapshot[index] = buckets.get(index);
+        }
+        return snapshot;
+    }
+
+    /** Value at quantile in microseconds, upper bound of the bucket */
+    public long getQuantile(double quantile) {
+        return getQuantile(snapshot(), quantile);
+    }
+
+    private long getQuantile(long[] snapshot, double quantile) {
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long cumulative = 0;
+        for (int index = 0; index < BUCKETS; index++) {
+            cumulative += snapshot[index];
+            if (cumulative >= rank) {
+                return Math.min(getBucketUpperBound(index), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    private long[] getQuantiles() {
+        long[] snapshot = snapshot();
+        long[] values = new long[QUANTILES.length];
+        for (int index = 0; index < QUANTILES.length; index++) {
+            values[index] = getQuantile(snapshot, QUANTILES[index]);
+        }
+        return values;
+    }
+
+    @Override
+    public METRIC_TYPE getType() {
+        return METRIC_TYPE.HISTOGRAM;
+    }
+
+    /** Values in milliseconds */
+    @Override
+    public Map<String, Object> getValues() {
+        HashMap<String, Object> values = new HashMap<String, Object>();
+        long countValue = getCount();
+        long[] quantiles = getQuantiles();
+        values.put("count", countValue);
+        values.put("sum", getSum() / MICROS_PER_MILLI);
+        values.put("mean", countValue > 0 ? getSum() / MICROS_PER_MILLI / countValue : 0);
+        values.put("max", getMax() / MICROS_PER_MILLI);
+        for (int index = 0; index < QUANTILES.length; index++) {
+            values.put("p" + Math.round(QUANTILES[index] * 100), quantiles[index] / MICROS_PER_MILLI);
+        }
+        return values;
+    }
+
+    /** Summary in seconds */
+    @Override
+    void writePrometheus(StringBuilder builder) {
+        long[] quantiles = getQuantiles();
+        for (int index = 0; index < QUANTILES.length; index++) {
+            builder.append(getName()).append(getLabelsText("quantile", String.valueOf(QUANTILES[index])))
+                    .append(' ').append(quantiles[index] / MICROS_PER_SECOND).append('\n');
+        }
+        String labelsText = getLabelsText(null, null);
+        builder.append(getName()).append("_sum").append(labelsText).append(' ')
+                .append(getSum() / MICROS_PER_SECOND).append('\n');
+        builder.append(getName()).append("_count").append(labelsText).append(' ').append(getCount())
+                .append('\n');
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Base of internal metrics. Metric is identified by name and label values, labels given as name, value pairs.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public abstract class McMetric {
+    public enum METRIC_TYPE {
+        COUNTER("counter"),
+        GAUGE("gauge"),
+        HISTOGRAM("summary");
+
+        private final String value;
+
+        private METRIC_TYPE(String value) {
+            this.value = value;
+        }
+
+        /** Type name in Prometheus text format */
+        public String getText() {
+            return this.value;
+        }
+
+        public static METRIC_TYPE fromString(String text) {
+            if (text != null) {
+                for (METRIC_TYPE type : METRIC_TYPE.values()) {
+                    if (text.equalsIgnoreCase(type.getText())) {
+                        return type;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String name;
+    private final String[] labels;
+    private final String key;
+
+    protected McMetric(String name, String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels should be name, value pairs. Metric:" + name);
+        }
+        this.name = name;
+        this.labels = labels;
+        this.key = getKey(name, labels);
+    }
+
+    static String getKey(String name, String[] labels) {
+        if (labels.length == 0) {
+            return name;
+        }
+        StringBuilder builder = new StringBuilder(name);
+        for (String label : labels) {
+            builder.append('|').append(label);
+        }
+        return builder.toString();
+    }
+
+    /** Unique key of this metric, name and label values */
+    String getKey() {
+        return key;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, String> getLabels() {
+        LinkedHashMap<String, String> labelsMap = new LinkedHashMap<String, String>();
+        for (int index = 0; index < labels.length; index += 2) {
+            labelsMap.put(labels[index], labels[index + 1]);
+        }
+        return labelsMap;
+    }
+
+    /** Labels in Prometheus format, {name="value",...}, empty when there is no label */
+    String getLabelsText(String extraName, String extraValue) {
+        if (labels.length == 0 && extraName == null) {
+            return "";
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int index = 0; index < labels.length; index += 2) {
+            if (index > 0) {
+                builder.append(',');
+            }
+            builder.append(labels[index]).append("=\"").append(escape(labels[index + 1])).append('"');
+        }
+        if (extraName != null) {
+            if (labels.length > 0) {
+                builder.append(',');
+            }
+            builder.append(extraName).append("=\"").append(extraValue).append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public abstract METRIC_TYPE getType();
+
+    /** Current values of this metric, used for JSON output */
+    public abstract Map<String, Object> getValues();
+
+    /** Appends samples of this metric in Prometheus text format */
+    abstract void writePrometheus(StringBuilder builder);
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of internal metrics of the controller, counters, gauges and latency histograms. Metrics are created on
+ * first use and kept for the life time of the application. Hot paths should keep reference of the metric, when
+ * label values do not change.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class McMetrics {
+    public static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final ConcurrentHashMap<String, McMetric> metrics = new ConcurrentHashMap<String, McMetric>();
+    private final ConcurrentHashMap<String, String> helps = new ConcurrentHashMap<String, String>();
+
+    private static class McMetricsHolder {
+        private static final McMetrics INSTANCE = new McMetrics();
+    }
+
+    //Do not load until some calls getInstance
+    public static McMetrics getInstance() {
+        return McMetricsHolder.INSTANCE;
+    }
+
+    private McMetrics() {
+    }
+
+    private McMetric get(String key, Class<? extends McMetric> type) {
+        McMetric metric = metrics.get(key);
+        if (metric != null && !type.isInstance(metric)) {
+            throw new IllegalStateException("Metric '" + key + "' already registered as " + metric.getType());
+        }
+        return metric;
+    }
+
+    private McMetric add(String key, String help, McMetric metric) {
+        if (help != null) {
+            helps.putIfAbsent(metric.getName(), help);
+        }
+        McMetric existing = metrics.putIfAbsent(key, metric);
+        return existing != null ? existing : metric;
+    }
+
+    public McCounter counter(String name, String help, String... labels) {
+        String key = McMetric.getKey(name, labels);
+        McMetric metric = get(key, McCounter.class);
+        if (metric == null) {
+            metric = add(key, help, new McCounter(name, labels));
+        }
+        return (McCounter) metric;
+    }
+
+    public McHistogram histogram(String name, String help, String... labels) {
+        String key = McMetric.getKey(name, labels);
+        McMetric metric = get(key, McHistogram.class);
+        if (metric == null) {
+            metric = add(key, help, new McHistogram(name, labels));
+        }
+        return (McHistogram) metric;
+    }
+
+    /** Registers gauge, replaces the gauge registered already with the same name and labels */
+    public void register(McGauge gauge, String help) {
+        if (help != null) {
+            helps.putIfAbsent(gauge.getName(), help);
+        }
+        metrics.put(gauge.getKey(), gauge);
+    }
+
+    private List<McMetric> getSorted(String prefix) {
+        List<McMetric> sorted = new ArrayList<McMetric>();
+        for (McMetric metric : metrics.values()) {
+            if (prefix == null || metric.getName().startsWith(prefix)) {
+                sorted.add(metric);
+            }
+        }
+        Collections.sort(sorted, new Comparator<McMetric>() {
+            @Override
+            public int compare(McMetric metric1, McMetric metric2) {
+                int result = metric1.getName().compareTo(metric2.getName());
+                if (result == 0) {
+                    result = metric1.getLabelsText(null, null).compareTo(metric2.getLabelsText(null, null));
+                }
+                return result;
+            }
+        });
+        return sorted;
+    }
+
+    /** Metrics with name starts with this prefix, all metrics when prefix is null. Times in milliseconds */
+    public List<Map<String, Object>> getMetrics(String prefix) {
+        List<Map<String, Object>> list = new ArrayList<Map<String, Object>>();
+        for (McMetric metric : getSorted(prefix)) {
+            HashMap<String, Object> map = new HashMap<String, Object>();
+            map.put("name", metric.getName());
+            map.put("type", metric.getType().getText());
+            map.put("labels", metric.getLabels());
+            try {
+                map.putAll(metric.getValues());
+            } catch (Exception ex) {
+                //gauge source may not available
+                map.put("error", ex.getMessage());
+            }
+            list.add(map);
+        }
+        return list;
+    }
+
+    /** All metrics in Prometheus text exposition format. Times in seconds */
+    public String getPrometheusText() {
+        StringBuilder builder = new StringBuilder();
+        String lastName = null;
+        for (McMetric metric : getSorted(null)) {
+            if (!metric.getName().equals(lastName)) {
+                lastName = metric.getName();
+                String help = helps.get(lastName);
+                if (help != null) {
+                    builder.append("# HELP ").append(lastName).append(' ').append(help).append('\n');
+                }
+                builder.append("# TYPE ").append(lastName).append(' ').append(metric.getType().getText())
+                        .append('\n');
+            }
+            try {
+                metric.writePrometheus(builder);
+            } catch (Exception ex) {
+                //gauge source may not available, skip it
+                builder.append("# ").append(metric.getName()).append(" not available\n");
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -17,6 +17,7 @@
 package org.mycontroller.standalone.mqttbroker;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.mdns.McmDNSFactory;
@@ -47,7 +48,9 @@ public class MoquetteMqttBroker {
         }
         try {
             mqttServer = new Server();
-            mqttServer.startServer(new BrokerConfiguration());
+            mqttServer.startServer(new BrokerConfiguration(),
+                    Collections.singletonList(MqttBrokerBridge.getInstance()));
+            MqttBrokerBridge.getInstance().setServer(mqttServer);
             isRunning = true;
             _logger.info("MQTT Broker started successfully. {}", AppProperties.getInstance().getMqttBrokerSettings());
             if (AppProperties.getInstance().isMDNSserviceEnabled()) {
@@ -64,6 +67,7 @@ public class MoquetteMqttBroker {
             return;
         }
         if (mqttServer != null) {
+            MqttBrokerBridge.getInstance().setServer(null);
             mqttServer.stopServer();
             mqttServer = null;
             isRunning = false;
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.mqttbroker;
+
+import java.net.InetAddress;
+import java.net.NetworkInterface;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mycontroller.standalone.AppProperties;
+import org.mycontroller.standalone.AppProperties.STATE;
+import org.mycontroller.standalone.auth.AuthUtils;
+import org.mycontroller.standalone.gateway.GatewayException;
+import org.mycontroller.standalone.gateway.IGateway;
+import org.mycontroller.standalone.gateway.model.GatewayMQTT;
+import org.mycontroller.standalone.message.RawMessage;
+import org.mycontroller.standalone.message.RawMessageQueue;
+import org.mycontroller.standalone.monitoring.McMetrics;
+import org.mycontroller.standalone.utils.McUtils;
+
+import io.moquette.interception.AbstractInterceptHandler;
+import io.moquette.interception.messages.InterceptPublishMessage;
+import io.moquette.proto.messages.AbstractMessage.QOSType;
+import io.moquette.proto.messages.PublishMessage;
+import io.moquette.server.Server;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-process path between the embedded broker and MQTT gateways connected to it. Messages published to the broker
+ * are taken from broker intercept handler and put on raw message queue, gateway messages are injected to the broker
+ * directly. No loopback socket and no MQTT client on our side. When anonymous access is disabled on the broker,
+ * credentials of the gateway are checked on register and topic permissions of the user on each message, same as
+ * broker authenticator and authorizator do for network clients. Messages injected by the bridge are remembered for a
+ * short time and not taken back from intercept handler, so a gateway publishing under its own subscribed topics does
+ * not loop.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class MqttBrokerBridge extends AbstractInterceptHandler {
+    public static final String CLIENT_ID = "mycontroller-bridge";
+    private static final long ECHO_TIMEOUT = McUtils.ONE_SECOND * 10;
+    private static final int ECHO_PURGE_SIZE = 100;
+
+    private final ConcurrentHashMap<Integer, GatewayMQTT> gateways = new ConcurrentHashMap<Integer, GatewayMQTT>();
+    // Injected messages not seen on intercept handler yet, key: topic and payload
+    private final HashMap<String, Echo> echoes = new HashMap<String, Echo>();
+    private volatile Server server = null;
+
+    private static class MqttBrokerBridgeHolder {
+        private static final MqttBrokerBridge INSTANCE = new MqttBrokerBridge();
+    }
+
+    //Do not load until some calls getInstance
+    public static MqttBrokerBridge getInstance() {
+        return MqttBrokerBridgeHolder.INSTANCE;
+    }
+
+    private static class Echo {
+        private int count;
+        private long expiry;
+    }
+
+    private MqttBrokerBridge() {
+    }
+
+    public String getID() {
+        return CLIENT_ID;
+    }
+
+    void setServer(Server server) {
+        this.server = server;
+        //Registered gateways follow the broker state
+        for (GatewayMQTT gateway : gateways.values()) {
+            if (server != null) {
+                gateway.setStatus(STATE.UP, "Connected to inbuilt broker in-process");
+            } else {
+                gateway.setStatus(STATE.DOWN, "Inbuilt broker stopped");
+            }
+        }
+    }
+
+    private boolean isAuthEnabled() {
+        return !AppProperties.getInstance().getMqttBrokerSettings().getAllowAnonymous();
+    }
+
+    /**
+     * True when bridge is enabled, embedded broker is running and broker host of the gateway is this broker.
+     */
+    public boolean isEmbeddedBroker(String brokerHost) {
+        if (!AppProperties.getInstance().isMqttBrokerBridgeEnabled() || server == null) {
+            return false;
+        }
+        try {
+            URI uri = new URI(brokerHost);
+            if (!"tcp".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null
+                    || uri.getPort() != AppProperties.getInstance().getMqttBrokerSettings().getHttpPort()) {
+                return false;
+            }
+            InetAddress address = InetAddress.getByName(uri.getHost());
+            return address.isLoopbackAddress() || address.isAnyLocalAddress()
+                    || NetworkInterface.getByInetAddress(address) != null;
+        } catch (Exception ex) {
+            _logger.debug("Unable to check broker host:{}", brokerHost, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Returns false when broker does not accept credentials of the gateway, gateway is not registered.
+     */
+    public boolean register(GatewayMQTT gateway) {
+        if (isAuthEnabled() && (gateway.getUsername() == null
+                || !AuthUtils.authenticateMqttUser(gateway.getUsername(), gateway.getPassword()))) {
+            return false;
+        }
+        gateways.put(gateway.getId(), gateway);
+        return true;
+    }
+
+    public void unregister(GatewayMQTT gateway) {
+        gateways.remove(gateway.getId(), gateway);
+    }
+
+    public void publish(GatewayMQTT gateway, String topic, byte[] payload, int qos) throws GatewayException {
+        Server currentServer = server;
+        if (currentServer == null) {
+            throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR + ": MQTT broker not running");
+        }
+        if (isAuthEnabled() && !AuthUtils.canWriteMqttPermission(gateway.getUsername(), topic)) {
+            throw new GatewayException(IGateway.GATEWAY_STATUS.GATEWAY_ERROR
+                    + ": No write permission on topic " + topic);
+        }
+        PublishMessage message = new PublishMessage();
+        message.setTopicName(topic);
+        message.setRetainFlag(false);
+        message.setQos(QOSType.valueOf((byte) qos));
+        message.setPayload(ByteBuffer.wrap(payload));
+        addEcho(topic, new String(payload, StandardCharsets.UTF_8));
+        currentServer.internalPublish(message);
+        McMetrics.getInstance().counter("mc_mqtt_bridge_messages_total", "Messages passed by in-process bridge",
+                "direction", "tx").increment();
+    }
+
+    @Override
+    public void onPublish(InterceptPublishMessage message) {
+        if (gateways.isEmpty()) {
+            return;
+        }
+        String topic = message.getTopicName();
+        //Payload buffer is shared with other interceptors, do not move its position
+        String payload = StandardCharsets.UTF_8.decode(message.getPayload().duplicate()).toString();
+        if (removeEcho(topic, payload)) {
+            //Injected by this bridge, already delivered to broker subscribers
+            return;
+        }
+        for (GatewayMQTT gateway : gateways.values()) {
+            if (!isSubscribed(gateway, topic)) {
+                continue;
+            }
+            if (isAuthEnabled() && !AuthUtils.canReadMqttPermission(gateway.getUsername(), topic)) {
+                _logger.debug("No read permission, Gateway:[{}], Topic:[{}]", gateway.getName(), topic);
+                continue;
+            }
+            _logger.debug("Message Received, Topic:[{}], Payload:[{}]", topic, payload);
+            RawMessageQueue.getInstance().putMessage(RawMessage.builder()
+                    .gatewayId(gateway.getId())
+                    .data(payload)
+                    .subData(topic)
+                    .networkType(gateway.getNetworkType())
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+            McMetrics.getInstance().counter("mc_mqtt_bridge_messages_total",
+                    "Messages passed by in-process bridge", "direction", "rx").increment();
+        }
+    }
+
+    private void addEcho(String topic, String payload) {
+        long now = System.currentTimeMillis();
+        synchronized (echoes) {
+            //Broker may not pass injected messages to intercept handler, remove expired ones
+            if (echoes.size() > ECHO_PURGE_SIZE) {
+                Iterator<Echo> iterator = echoes.values().iterator();
+                while (iterator.hasNext()) {
+                    if (iterator.next().expiry < now) {
+                        iterator.remove();
+                    }
+                }
+            }
+            String key = topic + "\n" + payload;
+            Echo echo = echoes.get(key);
+            if (echo == null) {
+                echo = new Echo();
+                echoes.put(key, echo);
+            }
+            echo.count++;
+            echo.expiry = now + ECHO_TIMEOUT;
+        }
+    }
+
+    private boolean removeEcho(String topic, String payload) {
+        synchronized (echoes) {
+            if (echoes.isEmpty()) {
+                return false;
+            }
+            String key = topic + "\n" + payload;
+            Echo echo = echoes.get(key);
+            if (echo == null || echo.expiry < System.currentTimeMillis()) {
+                return false;
+            }
+            if (--echo.count == 0) {
+                echoes.remove(key);
+            }
+            return true;
+        }
+    }
+
+    private boolean isSubscribed(GatewayMQTT gateway, String topic) {
+        for (String filter : gateway.getTopicsSubscribe().split(GatewayMQTT.TOPICS_SPLITER)) {
+            //Gateway subscribes to all the topics under given topics
+            if (matches(filter.trim() + "/#", topic)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** MQTT topic filter match, supports '+' and '#' wildcards */
+    static boolean matches(String filter, String topic) {
+        String[] filterLevels = filter.split("/", -1);
+        String[] topicLevels = topic.split("/", -1);
+        for (int level = 0; level < filterLevels.length; level++) {
+            if (filterLevels[level].equals("#")) {
+                return true;
+            }
+            if (level >= topicLevels.length) {
+                return false;
+            }
+            if (!filterLevels[level].equals("+") && !filterLevels[level].equals(topicLevels[level])) {
+                return false;
+            }
+        }
+        return filterLevels.length == topicLevels.length;
+    }
+}
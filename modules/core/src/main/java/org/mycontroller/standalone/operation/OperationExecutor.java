@@ -0,0 +1,371 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.operation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.Timer;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
+import org.mycontroller.standalone.operation.OperationUtils.OPERATION_TYPE;
+import org.mycontroller.standalone.operation.model.Operation;
+import org.mycontroller.standalone.rule.model.RuleDefinition;
+import org.mycontroller.standalone.utils.McUtils;
+import org.mycontroller.standalone.utils.TokenBucket;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes operations of rules and timers out of the caller thread. Each operation type has own lane with
+ * concurrency limit and optional rate limit. Operations of the same rule or timer run one after another in submit
+ * order, next one enters its lane when the previous one is completed. Notification operations (email, sms,
+ * pushbullet) triggered again by the same rule or timer inside the coalesce window are merged in to one execution
+ * at the end of the window. Operations run on {@link POOL#OPERATION} pool, delayed dispatches on the shared scheduler.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class OperationExecutor {
+    public static final int MAX_BACKLOG = 500;
+    public static final long COALESCE_WINDOW = McUtils.MINUTE;
+
+    private final HashMap<OPERATION_TYPE, Lane> lanes = new HashMap<OPERATION_TYPE, Lane>();
+    //Coalesce key and time of last accepted execution
+    private final HashMap<String, Long> lastAccepted = new HashMap<String, Long>();
+    //Coalesce key and execution waiting for end of window
+    private final HashMap<String, OperationTask> coalesced = new HashMap<String, OperationTask>();
+    //Rule or timer with an operation in lane or running, and its operations waiting for that to complete
+    private final HashMap<String, ArrayDeque<OperationTask>> sources = new HashMap<String, ArrayDeque<OperationTask>>();
+    private boolean started = false;
+    private int backlog = 0;
+
+    private class OperationTask implements Runnable {
+        private final Operation operation;
+        private RuleDefinition ruleDefinition;
+        private Timer timer;
+        private long queuedTime = System.currentTimeMillis();
+        //Counted as running on its lane, false when executed on caller thread
+        private boolean dispatched = false;
+
+        private OperationTask(Operation operation, RuleDefinition ruleDefinition, Timer timer) {
+            this.operation = operation;
+            this.ruleDefinition = ruleDefinition;
+            this.timer = timer;
+        }
+
+        private String getCoalesceKey() {
+            return operation.getId() + "_" + getSourceKey();
+        }
+
+        private String getSourceKey() {
+            if (ruleDefinition != null) {
+                return "rule_" + ruleDefinition.getId();
+            }
+            return "timer_" + timer.getId();
+        }
+
+        @Override
+        public void run() {
+            Lane lane = lanes.get(operation.getType());
+            long startTime = System.currentTimeMillis();
+            boolean success = false;
+            try {
+                if (ruleDefinition != null) {
+                    operation.execute(ruleDefinition);
+                    operation.setLastExecution(System.currentTimeMillis());
+                    DaoUtils.getOperationDao().update(operation.getOperationTable());
+                } else {
+                    operation.execute(timer);
+                }
+                success = true;
+            } catch (Exception ex) {
+                _logger.error("Exception on operation:{}", operation, ex);
+            } finally {
+                if (lane != null && dispatched) {
+                    lane.completed(startTime - queuedTime, System.currentTimeMillis() - startTime, success);
+                    dispatch(lane);
+                    next(this);
+                }
+            }
+        }
+    }
+
+    private class Lane {
+        private final OPERATION_TYPE type;
+        private final int maxConcurrent;
+        private final TokenBucket rateLimit;
+        private final boolean coalesce;
+        private final ArrayDeque<OperationTask> queue = new ArrayDeque<OperationTask>();
+        private int running = 0;
+        private boolean dispatchScheduled = false;
+        private long submitted = 0;
+        private long executed = 0;
+        private long failed = 0;
+        private long dropped = 0;
+        private long merged = 0;
+        private long rateLimited = 0;
+        private long totalWaitTime = 0;
+        private long maxWaitTime = 0;
+        private long totalExecutionTime = 0;
+        private long maxExecutionTime = 0;
+
+        private Lane(OPERATION_TYPE type, int maxConcurrent, TokenBucket rateLimit, boolean coalesce) {
+            this.type = type;
+            this.maxConcurrent = maxConcurrent;
+            this.rateLimit = rateLimit;
+            this.coalesce = coalesce;
+        }
+
+        private void completed(long waitTime, long executionTime, boolean success) {
+            synchronized (OperationExecutor.this) {
+                running = Math.max(running - 1, 0);
+                executed++;
+                if (!success) {
+                    failed++;
+                }
+                totalWaitTime += waitTime;
+                maxWaitTime = Math.max(maxWaitTime, waitTime);
+                totalExecutionTime += executionTime;
+                maxExecutionTime = Math.max(maxExecutionTime, executionTime);
+            }
+        }
+
+        private Map<String, Object> getStatistics() {
+            HashMap<String, Object> statistics = new HashMap<String, Object>();
+            statistics.put("type", type.getText());
+            statistics.put("maxConcurrent", maxConcurrent);
+            statistics.put("running", running);
+            statistics.put("backlog", queue.size());
+            statistics.put("submitted", submitted);
+            statistics.put("executed", executed);
+            statistics.put("failed", failed);
+            statistics.put("dropped", dropped);
+            statistics.put("coalesced", merged);
+            statistics.put("rateLimited", rateLimited);
+            statistics.put("avgWaitTime", executed == 0 ? 0 : totalWaitTime / executed);
+            statistics.put("maxWaitTime", maxWaitTime);
+            statistics.put("avgExecutionTime", executed == 0 ? 0 : totalExecutionTime / executed);
+            statistics.put("maxExecutionTime", maxExecutionTime);
+            if (rateLimit != null) {
+                statistics.put("rateLimitTokens", rateLimit.getTokens());
+            }
+            return statistics;
+        }
+    }
+
+    //Do not load until some calls getInstance
+    private static class OperationExecutorHelper {
+        private static final OperationExecutor INSTANCE = new OperationExecutor();
+    }
+
+    public static OperationExecutor getInstance() {
+        return OperationExecutorHelper.INSTANCE;
+    }
+
+    private OperationExecutor() {
+        //Notifications, network I/O. Burst and tokens per second
+        addLane(OPERATION_TYPE.SEND_EMAIL, 2, new TokenBucket(10, 10.0 / 60), true);
+        addLane(OPERATION_TYPE.SEND_SMS, 1, new TokenBucket(5, 5.0 / 60), true);
+        addLane(OPERATION_TYPE.SEND_PUSHBULLET_NOTE, 2, new TokenBucket(10, 10.0 / 60), true);
+        addLane(OPERATION_TYPE.EXECUTE_SCRIPT, 2, null, false);
+        addLane(OPERATION_TYPE.SEND_PAYLOAD, 2, null, false);
+        addLane(OPERATION_TYPE.REQUEST_PAYLOAD, 2, null, false);
+    }
+
+    private void addLane(OPERATION_TYPE type, int maxConcurrent, TokenBucket rateLimit, boolean coalesce) {
+        lanes.put(type, new Lane(type, maxConcurrent, rateLimit, coalesce));
+    }
+
+    public synchronized void start() {
+        started = true;
+    }
+
+    public synchronized void stop() {
+        //Running operations complete on the pool and release their running count, pending delayed dispatches see
+        //this flag and do nothing
+        started = false;
+        for (Lane lane : lanes.values()) {
+            lane.queue.clear();
+            lane.dispatchScheduled = false;
+        }
+        coalesced.clear();
+        lastAccepted.clear();
+        sources.clear();
+        backlog = 0;
+    }
+
+    public void execute(Operation operation, RuleDefinition ruleDefinition) {
+        submit(new OperationTask(operation, ruleDefinition, null));
+    }
+
+    public void execute(Operation operation, Timer timer) {
+        submit(new OperationTask(operation, null, timer));
+    }
+
+    private void submit(OperationTask task) {
+        synchronized (this) {
+            Lane lane = lanes.get(task.operation.getType());
+            if (started && lane != null) {
+                lane.submitted++;
+                if (lane.coalesce && coalesce(lane, task)) {
+                    return;
+                }
+                enqueue(lane, task);
+                return;
+            }
+        }
+        //Executor not running, execute on caller thread
+        _logger.debug("Operation executor not available, executing on caller thread. {}", task.operation);
+        task.run();
+    }
+
+    //Returns true, if this task merged or waits for end of the coalesce window
+    private boolean coalesce(Lane lane, OperationTask task) {
+        String key = task.getCoalesceKey();
+        OperationTask pending = coalesced.get(key);
+        if (pending != null) {
+            //Keep latest trigger details
+            pending.ruleDefinition = task.ruleDefinition;
+            pending.timer = task.timer;
+            lane.merged++;
+            return true;
+        }
+        Long lastTime = lastAccepted.get(key);
+        long now = System.currentTimeMillis();
+        if (lastTime != null && now - lastTime < COALESCE_WINDOW) {
+            coalesced.put(key, task);
+            scheduleCoalesced(key, lastTime + COALESCE_WINDOW - now);
+            return true;
+        }
+        lastAccepted.put(key, now);
+        return false;
+    }
+
+    private void scheduleCoalesced(final String key, long delay) {
+        McExecutors.getInstance().schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (OperationExecutor.this) {
+                    if (!started) {
+                        return;
+                    }
+                    OperationTask task = coalesced.remove(key);
+                    if (task != null) {
+                        lastAccepted.put(key, System.currentTimeMillis());
+                        task.queuedTime = System.currentTimeMillis();
+                        enqueue(lanes.get(task.operation.getType()), task);
+                    }
+                }
+            }
+        }, delay);
+    }
+
+    private void enqueue(Lane lane, OperationTask task) {
+        if (backlog >= MAX_BACKLOG) {
+            lane.dropped++;
+            _logger.warn("Operations backlog full[{}], dropped:{}", MAX_BACKLOG, task.operation);
+            return;
+        }
+        backlog++;
+        String sourceKey = task.getSourceKey();
+        ArrayDeque<OperationTask> waiting = sources.get(sourceKey);
+        if (waiting != null) {
+            //Previous operation of this rule or timer not completed yet
+            waiting.add(task);
+            return;
+        }
+        sources.put(sourceKey, new ArrayDeque<OperationTask>());
+        lane.queue.add(task);
+        dispatch(lane);
+    }
+
+    //Moves next operation of the same rule or timer to its lane, after the given one is completed
+    private synchronized void next(OperationTask completed) {
+        if (!started) {
+            return;
+        }
+        String sourceKey = completed.getSourceKey();
+        ArrayDeque<OperationTask> waiting = sources.get(sourceKey);
+        if (waiting == null) {
+            return;
+        }
+        OperationTask task = waiting.poll();
+        if (task == null) {
+            sources.remove(sourceKey);
+            return;
+        }
+        Lane lane = lanes.get(task.operation.getType());
+        lane.queue.add(task);
+        dispatch(lane);
+    }
+
+    private synchronized void dispatch(final Lane lane) {
+        if (!started) {
+            return;
+        }
+        while (lane.running < lane.maxConcurrent && !lane.queue.isEmpty()) {
+            if (lane.rateLimit != null && !lane.rateLimit.tryAcquire()) {
+                lane.rateLimited++;
+                if (!lane.dispatchScheduled) {
+                    lane.dispatchScheduled = true;
+                    McExecutors.getInstance().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            synchronized (OperationExecutor.this) {
+                                lane.dispatchScheduled = false;
+                            }
+                            dispatch(lane);
+                        }
+                    }, lane.rateLimit.getWaitTime());
+                }
+                return;
+            }
+            OperationTask task = lane.queue.poll();
+            backlog--;
+            lane.running++;
+            task.dispatched = true;
+            if (!McExecutors.getInstance().execute(POOL.OPERATION, task)) {
+                task.dispatched = false;
+                lane.running--;
+                lane.failed++;
+                next(task);
+            }
+        }
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        HashMap<String, Object> statistics = new HashMap<String, Object>();
+        List<Map<String, Object>> lanesStatistics = new ArrayList<Map<String, Object>>();
+        for (Lane lane : lanes.values()) {
+            lanesStatistics.add(lane.getStatistics());
+        }
+        statistics.put("workers", POOL.OPERATION.getThreads());
+        statistics.put("backlog", backlog);
+        statistics.put("maxBacklog", MAX_BACKLOG);
+        statistics.put("coalescePending", coalesced.size());
+        statistics.put("coalesceWindow", COALESCE_WINDOW);
+        statistics.put("lanes", lanesStatistics);
+        statistics.put("timestamp", System.currentTimeMillis());
+        return statistics;
+    }
+}
@@ -28,6 +28,7 @@ import org.mycontroller.standalone.operation.model.OperationSendEmail;
 import org.mycontroller.standalone.operation.model.OperationSendPayload;
 import org.mycontroller.standalone.operation.model.OperationSendPushbulletNote;
 import org.mycontroller.standalone.operation.model.OperationSendSMS;
+import org.mycontroller.standalone.rule.DampeningStateStore;
 import org.mycontroller.standalone.rule.model.RuleDefinition;
 import org.mycontroller.standalone.scheduler.SchedulerUtils;
 
@@ -140,6 +141,7 @@ public class OperationUtils {
         unloadOperationTimerJobs(ruleDefinition);
         //Disable
         ruleDefinition.setEnabled(false);
+        DampeningStateStore.getInstance().remove(ruleDefinition.getId());
         DaoUtils.getRuleDefinitionDao().update(ruleDefinition.getRuleDefinitionTable());
     }
 
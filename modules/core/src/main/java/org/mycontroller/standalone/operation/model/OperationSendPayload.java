@@ -28,6 +28,7 @@ import org.mycontroller.standalone.db.tables.OperationTable;
 import org.mycontroller.standalone.db.tables.Timer;
 import org.mycontroller.standalone.gateway.GatewayUtils;
 import org.mycontroller.standalone.group.ResourcesGroupUtils;
+import org.mycontroller.standalone.message.McMessageUtils.MESSAGE_PRIORITY;
 import org.mycontroller.standalone.model.ResourceModel;
 import org.mycontroller.standalone.operation.OperationUtils;
 import org.mycontroller.standalone.rule.RuleUtils;
@@ -184,7 +185,8 @@ public class OperationSendPayload extends Operation {
                 ResourcesGroupUtils.executeResourceGroupsOperation(resourceModel, resourceOperation);
                 break;
             default:
-                McObjectManager.getMcActionEngine().executeSendPayload(resourceModel, resourceOperation);
+                McObjectManager.getMcActionEngine().executeSendPayload(resourceModel, resourceOperation,
+                        MESSAGE_PRIORITY.RULE);
                 break;
         }
     }
@@ -111,7 +111,7 @@ public class McpRawMessage implements Cloneable {
             } else {
                 gateway = (GatewayMQTT) GatewayUtils.getGateway(gatewayId);
             }
-            topicsPublishList = gateway.getTopicsPublish().split(GatewayMQTT.TOPICS_SPLITER);
+            topicsPublishList = gateway.getTopicsPublishList();
         }
         StringBuilder builder = new StringBuilder();
         for (String topic : topicsPublishList) {
@@ -76,4 +76,10 @@ public class McFirmwareResponse extends McCommon {
             data[index].set(dataByte.get(index));
         }
     }
+
+    public void setData(byte[] dataBytes, int fromIndex, int toIndex) {
+        for (int index = fromIndex; index < toIndex; index++) {
+            data[index - fromIndex].set((short) (dataBytes[index] & 0xFF));
+        }
+    }
 }
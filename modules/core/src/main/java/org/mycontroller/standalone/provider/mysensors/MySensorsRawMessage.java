@@ -223,12 +223,12 @@ public class MySensorsRawMessage {
         // MY_MQTT_TOPIC_PREFIX/NODE-KEY_ID/SENSOR_VARIABLE-KEY_ID/CMD-OPERATION_TYPE/ACK-FLAG/SUB-OPERATION_TYPE
         StringBuilder builder = new StringBuilder();
         String[] topicsPublish = ((GatewayMQTT) McObjectManager.getGateway(gatewayId).getGateway())
-                .getTopicsPublish().split(GatewayMQTT.TOPICS_SPLITER);
+                .getTopicsPublishList();
         for (String topic : topicsPublish) {
             if (builder.length() > 0) {
                 builder.append(GatewayMQTT.TOPICS_SPLITER);
             }
-            builder.append(topic.trim());
+            builder.append(topic);
             builder.append("/").append(getNodeId());
             builder.append("/").append(getChildSensorId());
             builder.append("/").append(getMessageType());
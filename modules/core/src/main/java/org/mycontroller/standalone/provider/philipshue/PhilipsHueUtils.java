@@ -34,4 +34,13 @@ public class PhilipsHueUtils {
             percentageValue = 0;
         return ((percentageValue * 255) / 100);
     }
+
+    /** Poll again soon after a change, on each idle poll double the interval up to max poll interval */
+    public static long nextPollInterval(long pollInterval, boolean changed, long minPollInterval,
+            long maxPollInterval) {
+        if (changed) {
+            return minPollInterval;
+        }
+        return Math.max(Math.min(pollInterval * 2, maxPollInterval), minPollInterval);
+    }
 }
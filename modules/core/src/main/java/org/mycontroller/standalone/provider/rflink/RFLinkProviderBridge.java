@@ -18,6 +18,7 @@ package org.mycontroller.standalone.provider.rflink;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 
 import org.mycontroller.standalone.AppProperties.NETWORK_TYPE;
 import org.mycontroller.standalone.db.tables.Node;
@@ -37,6 +38,12 @@ import lombok.extern.slf4j.Slf4j;
  */
 @Slf4j
 public class RFLinkProviderBridge implements IProviderBridge {
+    // Repeated transmissions of a frame arrive within few hundred milliseconds
+    public static final long DUPLICATE_WINDOW = 1000;
+    private static final int PURGE_SIZE = 500;
+
+    // Frame without serial number and received time
+    private final HashMap<String, Long> recentFrames = new HashMap<String, Long>();
 
     @Override
     public void executeMcMessage(McMessage mcMessage) {
@@ -69,19 +76,19 @@ public class RFLinkProviderBridge implements IProviderBridge {
                 McMessageUtils.sendToGateway(rawMessage);
                 return;
             }
-            String rawData = (String) rawMessage.getData();
-            rawData = rawData.replaceAll("(\\r|\\n)", ""); //Replace \n and \r
+            String rawData = ((String) rawMessage.getData()).trim(); //Remove \r\n
             if (!rawData.endsWith(";")) {
                 throw new RawMessageException("Cannot take this message. This is invalid or incomplete: ["
                         + rawData + "]");
             }
-            HashMap<String, String> properties = new HashMap<String, String>();
 
             //20;2D;UPM/Esic;ID=0001;TEMP=00cf;HUM=16;BAT=OK;
             //RX;SN;PROTOCOL;
             ArrayList<String> dataList = new ArrayList<String>();
-            for (String _rawData : rawData.split(";")) {
-                dataList.add(_rawData);
+            int start = 0;
+            for (int end = rawData.indexOf(';'); end != -1; end = rawData.indexOf(';', start)) {
+                dataList.add(rawData.substring(start, end));
+                start = end + 1;
             }
             if (dataList.size() < 2) {
                 throw new RawMessageException("data size should be greater than 2, Current data: " + rawData);
@@ -92,6 +99,14 @@ public class RFLinkProviderBridge implements IProviderBridge {
                         + rawMessage.getData() + "]");
             }
 
+            //Transmitters repeat the same frame few times, only serial number differs
+            if (isDuplicate(rawMessage.getGatewayId(),
+                    rawData.substring(dataList.get(0).length() + dataList.get(1).length() + 2),
+                    rawMessage.getTimestamp())) {
+                _logger.debug("Duplicate frame dropped: {}", rawData);
+                return;
+            }
+
             //Format: 20;2D;UPM/Esic;ID=0001;TEMP=00cf;HUM=16;BAT=OK;
             //Refer: http://www.nemcon.nl/blog2/protref
             dataList.remove(0);//Remove 20
@@ -103,11 +118,11 @@ public class RFLinkProviderBridge implements IProviderBridge {
                 return;
             }
 
-            properties.clear();
+            HashMap<String, String> properties = new HashMap<String, String>();
             for (String data : dataList) {
-                if (data.contains("=")) {
-                    String[] prop = data.split("=", 2);
-                    properties.put(prop[0].toLowerCase(), prop[1]);
+                int index = data.indexOf('=');
+                if (index != -1) {
+                    properties.put(data.substring(0, index).toLowerCase(), data.substring(index + 1));
                 } else if (data.trim().length() > 0) {
                     _logger.warn("Unknown property:[{}] from {}", data, rawMessage);
                 }
@@ -119,31 +134,48 @@ public class RFLinkProviderBridge implements IProviderBridge {
                 throw new RawMessageException("NodeEui can not be NULL. Message:[" + rawMessage.getData() + "]");
             }
             String switchName = properties.remove("switch");
-            //Send protocol message
+            //All the messages of a frame processed as one batch, node and sensors are resolved once
+            ArrayList<McMessage> mcMessages = new ArrayList<McMessage>();
+            //Protocol message
             RFLinkRawMessage rfLinkRawMessage = new RFLinkRawMessage(rawMessage, nodeEui, protocol);
-            McMessageUtils.sendToMcMessageEngine(rfLinkRawMessage.getMcMessage());
+            mcMessages.add(rfLinkRawMessage.getMcMessage());
             //BAT message, if we have
             String bat = properties.remove("bat");
             if (bat != null) {
                 rfLinkRawMessage.setSubType(MESSAGE_TYPE_INTERNAL.I_BATTERY_LEVEL.getText());
                 rfLinkRawMessage.setPayload(bat.equalsIgnoreCase("OK") ? "100" : "0");
-                //Send battery message
-                McMessageUtils.sendToMcMessageEngine(rfLinkRawMessage.getMcMessage());
+                //Battery message
+                mcMessages.add(rfLinkRawMessage.getMcMessage());
             }
             for (String key : properties.keySet()) {
                 rfLinkRawMessage = new RFLinkRawMessage(rawMessage, nodeEui, key, properties.get(key));
                 if (switchName != null) {
                     rfLinkRawMessage.setSensorId(switchName);
                 }
-                //Send normal set messages
-                McMessageUtils.sendToMcMessageEngine(rfLinkRawMessage.getMcMessage());
+                //Normal set messages
+                mcMessages.add(rfLinkRawMessage.getMcMessage());
             }
+            McMessageUtils.sendToMcMessageEngine(mcMessages);
 
         } catch (RawMessageException ex) {
             _logger.error("Unable to process this rawMessage:{}", rawMessage, ex);
         }
     }
 
+    private synchronized boolean isDuplicate(Integer gatewayId, String frame, Long timestamp) {
+        long now = timestamp != null ? timestamp : System.currentTimeMillis();
+        if (recentFrames.size() >= PURGE_SIZE) {
+            Iterator<Long> receivedTimes = recentFrames.values().iterator();
+            while (receivedTimes.hasNext()) {
+                if (now - receivedTimes.next() > DUPLICATE_WINDOW) {
+                    receivedTimes.remove();
+                }
+            }
+        }
+        Long lastReceived = recentFrames.put(gatewayId + ";" + frame, now);
+        return lastReceived != null && now - lastReceived <= DUPLICATE_WINDOW;
+    }
+
     @Override
     public boolean validateSensorId(Sensor sensor) {
         if (sensor.getSensorId().contains(" ")) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.rule;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.McTransactionManager;
+import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps dampening counters, triggered and last trigger state of rules in memory. Rule evaluations update only this
+ * store, changes are written to database in batch by {@link #flush()}
+ * ({@link org.mycontroller.standalone.jobs.DampeningStateFlushJob}). Enabled or triggered flag change is written
+ * immediately with full row. Database is not written while holding the store lock, rules may run inside a
+ * database transaction and the flush would wait on its rows. A rule removed (reset) while its state is being written
+ * is not overwritten by the flush, the flush rolls back and writes the other rules again.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class DampeningStateStore {
+    private final HashMap<Integer, RuleDefinitionTable> states = new HashMap<Integer, RuleDefinitionTable>();
+    private final HashMap<Integer, RuleDefinitionTable> dirty = new HashMap<Integer, RuleDefinitionTable>();
+    //Stamp of the last remove of each rule
+    private final HashMap<Integer, Long> removed = new HashMap<Integer, Long>();
+    private long stamp = 0;
+
+    //Do not load until some calls getInstance
+    private static class DampeningStateStoreHelper {
+        private static final DampeningStateStore INSTANCE = new DampeningStateStore();
+    }
+
+    public static DampeningStateStore getInstance() {
+        return DampeningStateStoreHelper.INSTANCE;
+    }
+
+    private DampeningStateStore() {
+    }
+
+    /** Overrides dampening state of rule loaded from database with the state in memory */
+    public synchronized void apply(RuleDefinitionTable ruleDefinitionTable) {
+        if (ruleDefinitionTable == null || ruleDefinitionTable.getId() == null) {
+            return;
+        }
+        RuleDefinitionTable state = states.get(ruleDefinitionTable.getId());
+        if (state != null) {
+            ruleDefinitionTable.setDampeningProperties(state.getDampeningProperties());
+            ruleDefinitionTable.setTriggered(state.getTriggered());
+            ruleDefinitionTable.setLastTrigger(state.getLastTrigger());
+        }
+    }
+
+    /**
+     * Updates state after an evaluation.
+     *
+     * @param before rule state when rule loaded for this evaluation
+     * @param after rule state after this evaluation
+     */
+    public void update(RuleDefinitionTable before, RuleDefinitionTable after) {
+        if (!Objects.equals(before.getEnabled(), after.getEnabled())
+                || !Objects.equals(before.getTriggered(), after.getTriggered())) {
+            remove(after.getId());
+            DaoUtils.getRuleDefinitionDao().update(after);
+            return;
+        }
+        synchronized (this) {
+            if (Objects.equals(before.getDampeningProperties(), after.getDampeningProperties())
+                    && Objects.equals(before.getLastTrigger(), after.getLastTrigger())) {
+                return;
+            }
+            states.put(after.getId(), after);
+            dirty.put(after.getId(), after);
+        }
+    }
+
+    /** Drops state of this rule, should be called before rule written with full row (enable, disable, update) */
+    public synchronized void remove(Integer ruleId) {
+        states.remove(ruleId);
+        dirty.remove(ruleId);
+        removed.put(ruleId, ++stamp);
+    }
+
+    /** Writes pending changes in one batch */
+    public void flush() {
+        List<RuleDefinitionTable> pending;
+        long flushStamp;
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            pending = new ArrayList<RuleDefinitionTable>(dirty.values());
+            dirty.clear();
+            flushStamp = stamp;
+        }
+        while (!pending.isEmpty()) {
+            boolean transaction = McTransactionManager.getInstance().begin();
+            boolean current = false;
+            try {
+                DaoUtils.getRuleDefinitionDao().updateDampeningState(pending);
+                //Rows are locked by this transaction now, full row of a rule removed after this check is written
+                //after the commit
+                current = removeSuperseded(pending, flushStamp);
+            } finally {
+                if (transaction) {
+                    McTransactionManager.getInstance().end(current);
+                }
+            }
+            if (current || !transaction) {
+                break;
+            }
+            _logger.debug("Dampening state of removed rules dropped, writing {} rules again", pending.size());
+        }
+        _logger.debug("Dampening state of {} rules written", pending.size());
+    }
+
+    //Removes the rules removed after the given stamp, returns true when there is none
+    private synchronized boolean removeSuperseded(List<RuleDefinitionTable> pending, long flushStamp) {
+        boolean current = true;
+        for (int index = pending.size() - 1; index >= 0; index--) {
+            Long removedStamp = removed.get(pending.get(index).getId());
+            if (removedStamp != null && removedStamp > flushStamp) {
+                pending.remove(index);
+                current = false;
+            }
+        }
+        return current;
+    }
+
+    /** Flush pending changes and clear memory */
+    public void clear() {
+        flush();
+        synchronized (this) {
+            states.clear();
+            dirty.clear();
+            removed.clear();
+        }
+    }
+}
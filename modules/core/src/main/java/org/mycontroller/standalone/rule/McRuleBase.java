@@ -19,6 +19,8 @@ package org.mycontroller.standalone.rule;
 import org.easyrules.core.BasicRule;
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+import org.mycontroller.standalone.operation.OperationExecutor;
 import org.mycontroller.standalone.operation.model.Operation;
 import org.mycontroller.standalone.rule.model.DampeningActiveTime;
 import org.mycontroller.standalone.rule.model.DampeningConsecutive;
@@ -35,6 +37,8 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public abstract class McRuleBase extends BasicRule {
     private RuleDefinition ruleDefinition;
+    //State of the rule when loaded, to find changes after evaluation
+    private RuleDefinitionTable loadedState;
 
     protected String getActualValue() {
         return ruleDefinition.getActualValue();
@@ -58,6 +62,7 @@ public abstract class McRuleBase extends BasicRule {
 
     public void setRuleDefinitionBase(RuleDefinition ruleDefinition) {
         this.ruleDefinition = ruleDefinition;
+        this.loadedState = ruleDefinition.getRuleDefinitionTable();
     }
 
     @Override
@@ -191,8 +196,12 @@ public abstract class McRuleBase extends BasicRule {
             _logger.debug("Dampening evaluate result:{}", triggerOperations);
             _logger.debug("Rule definition details:{}", ruleDefinition);
         }
-        //Update changes in to database
-        DaoUtils.getRuleDefinitionDao().update(ruleDefinition.getRuleDefinitionTable());
+        //Update changes in to dampening state store, written to database in batch
+        RuleDefinitionTable currentState = ruleDefinition.getRuleDefinitionTable();
+        DampeningStateStore.getInstance().update(loadedState, currentState);
+        loadedState = currentState;
+        //Update active time / script period deadline
+        McRuleScheduler.getInstance().reschedule(ruleDefinition);
         return triggerOperations;
     }
 
@@ -201,14 +210,7 @@ public abstract class McRuleBase extends BasicRule {
     public void execute() throws Exception {
         _logger.debug("Operations going to execute:{}", ruleDefinition.getOperations());
         for (Operation operation : ruleDefinition.getOperations()) {
-            try {
-                operation.execute(ruleDefinition);
-                operation.setLastExecution(System.currentTimeMillis());
-                DaoUtils.getOperationDao().update(operation.getOperationTable());
-            } catch (Exception ex) {
-                _logger.error("Exception,", ex);
-            }
-
+            OperationExecutor.getInstance().execute(operation, ruleDefinition);
         }
     }
 }
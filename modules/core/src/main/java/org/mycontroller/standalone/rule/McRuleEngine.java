@@ -29,6 +29,9 @@ import org.knowm.sundial.exceptions.JobInterruptException;
 import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+import org.mycontroller.standalone.monitoring.McCounter;
+import org.mycontroller.standalone.monitoring.McHistogram;
+import org.mycontroller.standalone.monitoring.McMetrics;
 import org.mycontroller.standalone.rule.RuleUtils.CONDITION_TYPE;
 import org.mycontroller.standalone.rule.RuleUtils.DAMPENING_TYPE;
 import org.mycontroller.standalone.rule.RuleUtils.DATA_TYPE;
@@ -48,7 +51,13 @@ import lombok.extern.slf4j.Slf4j;
 public class McRuleEngine extends Job implements Runnable {
     public static final String MC_RULES_ENGINE_NAME = "mc_rules_engine";
     private static AtomicBoolean isRunning = new AtomicBoolean(false);
-    private static final long MAX_WAIT_TIME = 1000 * 4;//3 seconds
+    static final long MAX_WAIT_TIME = 1000 * 4;//3 seconds
+    private static final McHistogram EVALUATION_TIME = McMetrics.getInstance().histogram(
+            "mc_rule_evaluation_seconds", "Time taken to evaluate a set of rules");
+    private static final McHistogram ENGINE_WAIT_TIME = McMetrics.getInstance().histogram(
+            "mc_rule_engine_wait_seconds", "Time spent waiting for the rule engine");
+    private static final McCounter ENGINE_SKIPPED = McMetrics.getInstance().counter(
+            "mc_rule_engine_skipped_total", "Rule executions skipped, engine not available");
 
     private RESOURCE_TYPE resourceType;
     private Integer resourceId;
@@ -58,7 +67,8 @@ public class McRuleEngine extends Job implements Runnable {
         this.resourceId = resourceId;
     }
 
-    private void execute(List<RuleDefinitionTable> ruleDefinitionsDb, String engineName) {
+    private static void execute(List<RuleDefinitionTable> ruleDefinitionsDb, String engineName) {
+        long startTime = System.nanoTime();
         try {
             //Create rule engine
             RulesEngine mcRulesEngine = RulesEngineBuilder.aNewRulesEngine()
@@ -105,24 +115,54 @@ public class McRuleEngine extends Job implements Runnable {
         } catch (Exception ex) {
             _logger.error("Exception, ", ex);
         }
+        EVALUATION_TIME.recordSince(startTime);
     }
 
-    @Override
-    public void doRun() throws JobInterruptException {
+    private static boolean acquireEngine() {
         long startTime = System.currentTimeMillis();
-        while (isRunning.get()) {
+        long waitStartTime = System.nanoTime();
+        while (!isRunning.compareAndSet(false, true)) {
             try {
                 Thread.sleep(5);
             } catch (InterruptedException ex) {
                 _logger.error("Exception,", ex);
             }
             if (System.currentTimeMillis() - startTime > MAX_WAIT_TIME) {
-                _logger.warn("Scheduled Rule execution skipped. Engine not available for more than {} ms",
-                        MAX_WAIT_TIME);
-                return;
+                _logger.warn("Rule execution skipped. Engine not available for more than {} ms", MAX_WAIT_TIME);
+                ENGINE_SKIPPED.increment();
+                return false;
             }
         }
-        isRunning.set(true);
+        ENGINE_WAIT_TIME.recordSince(waitStartTime);
+        return true;
+    }
+
+    /**
+     * Evaluates only the given rules. Called by {@link McRuleScheduler} when deadline of rules expired.
+     */
+    public static void executeRules(List<Integer> ruleIds) {
+        if (ruleIds == null || ruleIds.isEmpty()) {
+            return;
+        }
+        if (!acquireEngine()) {
+            return;
+        }
+        try {
+            execute(DaoUtils.getRuleDefinitionDao().getAll(ruleIds), MC_RULES_ENGINE_NAME + "_scheduled");
+        } catch (Exception ex) {
+            _logger.error("Exception on scheduled rules, ", ex);
+        } finally {
+            isRunning.set(false);
+        }
+    }
+
+    //Full evaluation of gateway, node, script and active time rules. Not registered as system job anymore,
+    //those rules are evaluated by McRuleScheduler, kept for manually created jobs.
+    @Override
+    public void doRun() throws JobInterruptException {
+        if (!acquireEngine()) {
+            return;
+        }
         try {
             //Load rules
             List<RuleDefinitionTable> ruleDefinitionsDb = new ArrayList<RuleDefinitionTable>();
@@ -173,20 +213,9 @@ public class McRuleEngine extends Job implements Runnable {
             _logger.warn("ResourceType[{}] and resourceId[{}] should not be NULL", resourceType, resourceId);
             return;
         }
-        long startTime = System.currentTimeMillis();
-        while (isRunning.get()) {
-            try {
-                Thread.sleep(5);
-            } catch (InterruptedException ex) {
-                _logger.error("Exception,", ex);
-            }
-            if (System.currentTimeMillis() - startTime > MAX_WAIT_TIME) {
-                _logger.warn("Scheduled Rule exuection skipped. Engine not available for more than {} ms",
-                        MAX_WAIT_TIME);
-                return;
-            }
+        if (!acquireEngine()) {
+            return;
         }
-        isRunning.set(true);
         try {
             //Load rules
             List<RuleDefinitionTable> ruleDefinitionsDb = new ArrayList<RuleDefinitionTable>();
@@ -196,6 +225,12 @@ public class McRuleEngine extends Job implements Runnable {
                 ruleDefinitionsDb.addAll(resourceRules);
             }
 
+            //Threshold and compare rules refer sensor variables only
+            if (resourceType != RESOURCE_TYPE.SENSOR_VARIABLE) {
+                execute(ruleDefinitionsDb, MC_RULES_ENGINE_NAME + "_" + resourceId);
+                return;
+            }
+
             //Threshold Rules
             List<RuleDefinitionTable> otherRules = DaoUtils.getRuleDefinitionDao().getAll(
                     RuleDefinitionTable.KEY_CONDITION_TYPE, CONDITION_TYPE.THRESHOLD);
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.rule;
+
+import java.util.List;
+
+import org.mycontroller.standalone.AppProperties.RESOURCE_TYPE;
+import org.mycontroller.standalone.db.DaoUtils;
+import org.mycontroller.standalone.db.McTransactionManager;
+import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
+import org.mycontroller.standalone.rule.RuleUtils.CONDITION_TYPE;
+import org.mycontroller.standalone.rule.RuleUtils.DAMPENING_TYPE;
+import org.mycontroller.standalone.rule.model.DampeningActiveTime;
+import org.mycontroller.standalone.rule.model.RuleDefinition;
+import org.mycontroller.standalone.rule.model.RuleDefinitionScript;
+import org.mycontroller.standalone.scheduler.TimerWheel;
+import org.mycontroller.standalone.utils.McUtils;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Evaluates time based rule concerns on deadline instead of polling all the rules.
+ * <ul>
+ * <li>ACTIVE_TIME dampening, rule is evaluated when active time expires</li>
+ * <li>SCRIPT rules, evaluated on their evaluation period</li>
+ * </ul>
+ * Gateway and node rules are evaluated on state change, see {@link #onStateChange(RESOURCE_TYPE, Integer)}.
+ * Sensor variable rules are evaluated when a value received.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McRuleScheduler implements Runnable {
+    public static final long TICK_DURATION = McUtils.ONE_SECOND;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+    //Repeat interval while ACTIVE_TIME rule stays triggered and duplicates allowed
+    private static final long ACTIVE_TIME_REPEAT_INTERVAL = McUtils.SECOND * 5;
+
+    private TimerWheel<Integer> timerWheel;
+    private Thread thread;
+    private volatile boolean terminate = false;
+
+    //Do not load until some calls getInstance
+    private static class McRuleSchedulerHelper {
+        private static final McRuleScheduler INSTANCE = new McRuleScheduler();
+    }
+
+    public static McRuleScheduler getInstance() {
+        return McRuleSchedulerHelper.INSTANCE;
+    }
+
+    private McRuleScheduler() {
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        timerWheel = new TimerWheel<Integer>(TICK_DURATION, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+        List<RuleDefinitionTable> rules = DaoUtils.getRuleDefinitionDao().getAllEnabled();
+        if (rules != null) {
+            for (RuleDefinitionTable ruleDefinitionTable : rules) {
+                reschedule(RuleUtils.getRuleDefinition(ruleDefinitionTable));
+            }
+        }
+        terminate = false;
+        thread = new Thread(this, "mc-rule-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+        _logger.debug("Rule scheduler started with {} timers", timerWheel.size());
+    }
+
+    public void stop() {
+        Thread runningThread;
+        synchronized (this) {
+            terminate = true;
+            runningThread = thread;
+            thread = null;
+            if (timerWheel != null) {
+                timerWheel.clear();
+            }
+            notifyAll();
+        }
+        if (runningThread != null) {
+            try {
+                runningThread.join(McRuleEngine.MAX_WAIT_TIME);
+            } catch (InterruptedException ex) {
+                _logger.error("Exception,", ex);
+            }
+        }
+        _logger.debug("Rule scheduler stopped");
+    }
+
+    /**
+     * Updates timer of this rule as per current state. Disabled rules and rules without time based concern are
+     * removed from the wheel.
+     */
+    public synchronized void reschedule(RuleDefinition ruleDefinition) {
+        if (timerWheel == null || ruleDefinition == null || ruleDefinition.getId() == null) {
+            return;
+        }
+        Long deadline = getNextDeadline(ruleDefinition, System.currentTimeMillis());
+        if (deadline == null) {
+            timerWheel.cancel(ruleDefinition.getId());
+        } else {
+            timerWheel.schedule(ruleDefinition.getId(), deadline);
+        }
+    }
+
+    public synchronized void unschedule(Integer ruleId) {
+        if (timerWheel != null && ruleId != null) {
+            timerWheel.cancel(ruleId);
+        }
+    }
+
+    public synchronized int size() {
+        return timerWheel == null ? 0 : timerWheel.size();
+    }
+
+    /** Gateway and node rules are evaluated only when state of the resource changes */
+    public void onStateChange(RESOURCE_TYPE resourceType, Integer resourceId) {
+        if (resourceId == null) {
+            return;
+        }
+        //Rule engine thread should see the new state
+        final McRuleEngine ruleEngine = new McRuleEngine(resourceType, resourceId);
+        McTransactionManager.getInstance().afterCommit(new Runnable() {
+            @Override
+            public void run() {
+                McExecutors.getInstance().execute(POOL.RULE_ENGINE, ruleEngine);
+            }
+        });
+    }
+
+    private Long getNextDeadline(RuleDefinition ruleDefinition, long now) {
+        if (!ruleDefinition.isEnabled()) {
+            return null;
+        }
+        Long deadline = null;
+        if (ruleDefinition.getConditionType() == CONDITION_TYPE.SCRIPT) {
+            deadline = now + ((RuleDefinitionScript) ruleDefinition).getEvaluationPeriod();
+        }
+        if (ruleDefinition.getDampeningType() == DAMPENING_TYPE.ACTIVE_TIME
+                && !(ruleDefinition.isTriggered() && ruleDefinition.isIgnoreDuplicate())) {
+            DampeningActiveTime dampening = (DampeningActiveTime) ruleDefinition.getDampening();
+            if (dampening.getActiveFrom() != null
+                    && dampening.getActiveFrom() != DampeningActiveTime.ACTIVE_FROM_RESET_VALUE
+                    && dampening.getActiveTime() != null && dampening.getActiveTime() != 0L) {
+                long activeDeadline = dampening.getActiveFrom() + dampening.getActiveTime();
+                if (activeDeadline <= now) {
+                    activeDeadline = now + ACTIVE_TIME_REPEAT_INTERVAL;
+                }
+                deadline = deadline == null ? activeDeadline : Math.min(deadline, activeDeadline);
+            }
+        }
+        return deadline;
+    }
+
+    @Override
+    public void run() {
+        while (!terminate) {
+            List<Integer> expired;
+            synchronized (this) {
+                long waitTime = timerWheel.getNextTickTime() - System.currentTimeMillis();
+                if (waitTime > 0) {
+                    try {
+                        wait(waitTime);
+                    } catch (InterruptedException ex) {
+                        _logger.debug("Rule scheduler interrupted");
+                        return;
+                    }
+                    continue;
+                }
+                expired = timerWheel.advance(System.currentTimeMillis());
+            }
+            if (expired.isEmpty()) {
+                continue;
+            }
+            _logger.debug("Rules deadline expired:{}", expired);
+            try {
+                McRuleEngine.executeRules(expired);
+                //Evaluated rules update their timer on dampening, script rules and failed rules are updated here
+                List<RuleDefinitionTable> rules = DaoUtils.getRuleDefinitionDao().getAll(expired);
+                synchronized (this) {
+                    for (RuleDefinitionTable ruleDefinitionTable : rules) {
+                        if (!timerWheel.contains(ruleDefinitionTable.getId())) {
+                            reschedule(RuleUtils.getRuleDefinition(ruleDefinitionTable));
+                        }
+                    }
+                }
+            } catch (Exception ex) {
+                _logger.error("Exception on scheduled rules, ", ex);
+            }
+        }
+    }
+}
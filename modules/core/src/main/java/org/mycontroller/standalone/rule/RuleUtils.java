@@ -264,7 +264,9 @@ public class RuleUtils {
         }
         ruleDefinition.setEnabled(true);
         ruleDefinition.reset();
+        DampeningStateStore.getInstance().remove(ruleDefinition.getId());
         DaoUtils.getRuleDefinitionDao().update(ruleDefinition.getRuleDefinitionTable());
+        McRuleScheduler.getInstance().reschedule(ruleDefinition);
     }
 
     public static void disableRuleDefinition(RuleDefinition ruleDefinition) {
@@ -272,7 +274,9 @@ public class RuleUtils {
         OperationUtils.unloadOperationTimerJobs(ruleDefinition);
         //Disable
         ruleDefinition.setEnabled(false);
+        DampeningStateStore.getInstance().remove(ruleDefinition.getId());
         DaoUtils.getRuleDefinitionDao().update(ruleDefinition.getRuleDefinitionTable());
+        McRuleScheduler.getInstance().unschedule(ruleDefinition.getId());
     }
 
     public static void enableRuleDefinitions(List<Integer> ids) {
@@ -301,6 +305,8 @@ public class RuleUtils {
         List<Integer> operationIds = ruleDefinition.getOperationIds();
         ruleDefinition = getRuleDefinition(DaoUtils.getRuleDefinitionDao().getByName(ruleDefinition.getName()));
         ruleDefinition.setOperationIds(operationIds);
+        //id available only after reload
+        McRuleScheduler.getInstance().reschedule(ruleDefinition);
         //update operations map
         updateOperationRuleDefinitionMap(ruleDefinition);
     }
@@ -310,6 +316,7 @@ public class RuleUtils {
         disableRuleDefinition(getRuleDefinition(DaoUtils.getRuleDefinitionDao().getById(ruleDefinition.getId())));
         ruleDefinition.setTimestamp(System.currentTimeMillis()); //Set current time
         ruleDefinition.reset();
+        DampeningStateStore.getInstance().remove(ruleDefinition.getId());
         DaoUtils.getRuleDefinitionDao().update(ruleDefinition.getRuleDefinitionTable());
         if (ruleDefinition.isEnabled()) {
             enableRuleDefinition(ruleDefinition);
@@ -342,6 +349,8 @@ public class RuleUtils {
         ResourcesLogsUtils.deleteResourcesLog(RESOURCE_TYPE.RULE_DEFINITION, ruleDefinition.getId());
         //Delete rule
         DaoUtils.getRuleDefinitionDao().deleteById(ruleDefinition.getId());
+        McRuleScheduler.getInstance().unschedule(ruleDefinition.getId());
+        DampeningStateStore.getInstance().remove(ruleDefinition.getId());
         //Remove from operations map
         DaoUtils.getOperationRuleDefinitionMapDao().deleteByRuleDefinitionId(ruleDefinition.getId());
         _logger.debug("Item removed:{}", ruleDefinition);
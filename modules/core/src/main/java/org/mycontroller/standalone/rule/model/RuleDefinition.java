@@ -25,6 +25,7 @@ import org.mycontroller.standalone.db.tables.OperationTable;
 import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
 import org.mycontroller.standalone.operation.OperationUtils;
 import org.mycontroller.standalone.operation.model.Operation;
+import org.mycontroller.standalone.rule.DampeningStateStore;
 import org.mycontroller.standalone.rule.RuleUtils.CONDITION_TYPE;
 import org.mycontroller.standalone.rule.RuleUtils.DAMPENING_TYPE;
 
@@ -133,6 +134,8 @@ public abstract class RuleDefinition {
 
     @JsonIgnore
     public void updateRuleDefinition(RuleDefinitionTable ruleDefinitionTable) {
+        //Dampening state in memory is newer than database
+        DampeningStateStore.getInstance().apply(ruleDefinitionTable);
         id = ruleDefinitionTable.getId();
         enabled = ruleDefinitionTable.getEnabled();
         disableWhenTrigger = ruleDefinitionTable.getDisableWhenTrigger();
@@ -19,6 +19,7 @@ package org.mycontroller.standalone.rule.model;
 import java.util.HashMap;
 
 import org.mycontroller.standalone.db.tables.RuleDefinitionTable;
+import org.mycontroller.standalone.utils.McUtils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -40,9 +41,12 @@ import lombok.extern.slf4j.Slf4j;
 public class RuleDefinitionScript extends RuleDefinition {
     public static final String KEY_SCRIPT_FILE = "scriptFile";
     public static final String KEY_SCRIPT_BINDINGS = "scriptBindings";
+    public static final String KEY_EVALUATION_PERIOD = "evaluationPeriod";
+    public static final long DEFAULT_EVALUATION_PERIOD = McUtils.SECOND * 5;
 
     private String scriptFile;
     private HashMap<String, Object> scriptBindings;
+    private Long evaluationPeriod;
 
     public RuleDefinitionScript(RuleDefinitionTable ruleDefinitionTable) {
         updateRuleDefinition(ruleDefinitionTable);
@@ -55,6 +59,7 @@ public class RuleDefinitionScript extends RuleDefinition {
         HashMap<String, Object> conditionProperties = new HashMap<String, Object>();
         conditionProperties.put(KEY_SCRIPT_FILE, scriptFile);
         conditionProperties.put(KEY_SCRIPT_BINDINGS, scriptBindings);
+        conditionProperties.put(KEY_EVALUATION_PERIOD, evaluationPeriod);
         ruleDefinitionTable.setConditionProperties(conditionProperties);
         return ruleDefinitionTable;
     }
@@ -67,6 +72,16 @@ public class RuleDefinitionScript extends RuleDefinition {
         scriptFile = (String) ruleDefinitionTable.getConditionProperties().get(KEY_SCRIPT_FILE);
         scriptBindings = (HashMap<String, Object>) ruleDefinitionTable.getConditionProperties().get(
                 KEY_SCRIPT_BINDINGS);
+        Object period = ruleDefinitionTable.getConditionProperties().get(KEY_EVALUATION_PERIOD);
+        evaluationPeriod = period == null ? null : McUtils.getLong(String.valueOf(period));
+    }
+
+    //Script rules do not have input resource, evaluated on this period
+    public Long getEvaluationPeriod() {
+        if (evaluationPeriod == null || evaluationPeriod < McUtils.SECOND) {
+            return DEFAULT_EVALUATION_PERIOD;
+        }
+        return evaluationPeriod;
     }
 
     public HashMap<String, Object> getScriptBindings() {
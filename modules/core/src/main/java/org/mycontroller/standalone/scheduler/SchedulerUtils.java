@@ -27,8 +27,11 @@ import org.mycontroller.standalone.AppProperties;
 import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.tables.SystemJob;
 import org.mycontroller.standalone.db.tables.Timer;
+import org.mycontroller.standalone.jobs.DampeningStateFlushJob;
 import org.mycontroller.standalone.jobs.ExecuteDiscoverJob;
+import org.mycontroller.standalone.jobs.MetricsCompressionFlushJob;
 import org.mycontroller.standalone.jobs.NodeAliveStatusJob;
+import org.mycontroller.standalone.jobs.OtaCampaignJob;
 import org.mycontroller.standalone.settings.BackupSettings;
 import org.mycontroller.standalone.timer.TimerSimple;
 import org.mycontroller.standalone.timer.TimerUtils;
@@ -80,6 +83,9 @@ public class SchedulerUtils {
         //MySensorsSettings heartbeat job
         startNodeAliveCheckJob();
         startExecuteDiscoverJob();
+        startOtaCampaignJob();
+        startDampeningStateFlushJob();
+        startMetricsCompressionFlushJob();
 
     }
 
@@ -323,6 +329,40 @@ public class SchedulerUtils {
         SundialJobScheduler.removeJob(ExecuteDiscoverJob.NAME);
     }
 
+    public static void startOtaCampaignJob() {
+        SundialJobScheduler.addJob(OtaCampaignJob.NAME, OtaCampaignJob.class.getName());
+        SundialJobScheduler.addSimpleTrigger(
+                OtaCampaignJob.TRIGGER_NAME,
+                OtaCampaignJob.NAME,
+                -1,
+                OtaCampaignJob.INTERVAL,
+                //Start this job after 30 seconds
+                new Date(System.currentTimeMillis() + (McUtils.ONE_SECOND * 30)),
+                null);
+    }
+
+    public static void startDampeningStateFlushJob() {
+        SundialJobScheduler.addJob(DampeningStateFlushJob.NAME, DampeningStateFlushJob.class.getName());
+        SundialJobScheduler.addSimpleTrigger(
+                DampeningStateFlushJob.TRIGGER_NAME,
+                DampeningStateFlushJob.NAME,
+                -1,
+                DampeningStateFlushJob.INTERVAL,
+                new Date(System.currentTimeMillis() + DampeningStateFlushJob.INTERVAL),
+                null);
+    }
+
+    public static void startMetricsCompressionFlushJob() {
+        SundialJobScheduler.addJob(MetricsCompressionFlushJob.NAME, MetricsCompressionFlushJob.class.getName());
+        SundialJobScheduler.addSimpleTrigger(
+                MetricsCompressionFlushJob.TRIGGER_NAME,
+                MetricsCompressionFlushJob.NAME,
+                -1,
+                MetricsCompressionFlushJob.INTERVAL,
+                new Date(System.currentTimeMillis() + MetricsCompressionFlushJob.INTERVAL),
+                null);
+    }
+
     public static void reloadExecuteDiscoverJob() {
         stopExecuteDiscoverJob();
         startExecuteDiscoverJob();
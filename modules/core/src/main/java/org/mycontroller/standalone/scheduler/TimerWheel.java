@@ -0,0 +1,169 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Hierarchical timer wheel. Each level has the same number of slots, a slot of level N covers wheelSize^N ticks.
+ * Timers land on the lowest level which can hold its deadline and cascade down when the upper level slot becomes
+ * current. Schedule and cancel are O(1), advance touches only the current slots. Not thread safe, caller has to
+ * synchronize.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TimerWheel<K> {
+    private final long tickDuration;
+    private final int wheelSize;
+    private final long[] levelSpans;
+    private final List<HashMap<K, Timer>[]> levels;
+    private final HashMap<K, Timer> timers = new HashMap<K, Timer>();
+    private final long startTime;
+    private long currentTick = 0;
+
+    private class Timer {
+        private final long deadline;
+        private final long expiryTick;
+        private HashMap<K, Timer> slot;
+
+        private Timer(long deadline, long expiryTick) {
+            this.deadline = deadline;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public TimerWheel(long tickDuration, int wheelSize, int levelsCount, long startTime) {
+        this.tickDuration = tickDuration;
+        this.wheelSize = wheelSize;
+        this.startTime = startTime;
+        this.levelSpans = new long[levelsCount];
+        this.levels = new ArrayList<HashMap<K, Timer>[]>();
+        long span = 1;
+        for (int level = 0; level < levelsCount; level++) {
+            levelSpans[level] = span;
+            HashMap<K, Timer>[] slots = new HashMap[wheelSize];
+            for (int slot = 0; slot < wheelSize; slot++) {
+                slots[slot] = new HashMap<K, Timer>();
+            }
+            levels.add(slots);
+            span *= wheelSize;
+        }
+    }
+
+    /** Adds or replaces timer of this key */
+    public void schedule(K key, long deadline) {
+        cancel(key);
+        long expiryTick = (deadline - startTime + tickDuration - 1) / tickDuration;
+        Timer timer = new Timer(deadline, Math.max(expiryTick, currentTick + 1));
+        timers.put(key, timer);
+        place(key, timer);
+    }
+
+    public boolean cancel(K key) {
+        Timer timer = timers.remove(key);
+        if (timer != null) {
+            timer.slot.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(K key) {
+        return timers.containsKey(key);
+    }
+
+    public Long getDeadline(K key) {
+        Timer timer = timers.get(key);
+        return timer == null ? null : timer.deadline;
+    }
+
+    public int size() {
+        return timers.size();
+    }
+
+    public void clear() {
+        for (HashMap<K, Timer>[] slots : levels) {
+            for (HashMap<K, Timer> slot : slots) {
+                slot.clear();
+            }
+        }
+        timers.clear();
+    }
+
+    /** Time of the next tick, caller should call advance on or after this time */
+    public long getNextTickTime() {
+        return startTime + ((currentTick + 1) * tickDuration);
+    }
+
+    /** Moves wheel up to the given time and returns keys of expired timers, removed from the wheel */
+    public List<K> advance(long now) {
+        List<K> expired = new ArrayList<K>();
+        long targetTick = (now - startTime) / tickDuration;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            HashMap<K, Timer> slot = levels.get(0)[(int) (currentTick % wheelSize)];
+            for (Iterator<Entry<K, Timer>> iterator = slot.entrySet().iterator(); iterator.hasNext();) {
+                Entry<K, Timer> entry = iterator.next();
+                if (entry.getValue().expiryTick <= currentTick) {
+                    iterator.remove();
+                    timers.remove(entry.getKey());
+                    expired.add(entry.getKey());
+                }
+            }
+        }
+        return expired;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < levels.size(); level++) {
+            if (currentTick % levelSpans[level] != 0) {
+                return;
+            }
+            HashMap<K, Timer> slot = levels.get(level)[(int) ((currentTick / levelSpans[level]) % wheelSize)];
+            if (!slot.isEmpty()) {
+                HashMap<K, Timer> cascaded = new HashMap<K, Timer>(slot);
+                slot.clear();
+                for (Entry<K, Timer> entry : cascaded.entrySet()) {
+                    place(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    private void place(K key, Timer timer) {
+        long delta = timer.expiryTick - currentTick;
+        int level = 0;
+        while (level < levels.size() - 1 && delta >= levelSpans[level + 1]) {
+            level++;
+        }
+        long tick = timer.expiryTick;
+        //Beyond the wheel range, park in the farthest slot of top level, placed again on cascade
+        long maxDelta = levelSpans[level] * wheelSize - 1;
+        if (delta > maxDelta) {
+            tick = currentTick + maxDelta;
+        }
+        timer.slot = levels.get(level)[(int) ((tick / levelSpans[level]) % wheelSize)];
+        timer.slot.put(key, timer);
+    }
+}
@@ -25,6 +25,8 @@ import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
+import org.mycontroller.standalone.monitoring.McMetrics;
+
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -73,17 +75,28 @@ public class McScriptEngine implements Runnable {
         }
 
         Object result = null;
-        // evaluate JavaScript code from String
-        if (mcScript.getData() != null) {
-            result = engine.eval(mcScript.getData());
-        } else { // evaluate JavaScript code from file
-            FileReader scriptFileReader = null;
-            if (mcScript.getCanonicalPath() != null) {
-                scriptFileReader = new FileReader(mcScript.getCanonicalPath());
-            } else {
-                scriptFileReader = new FileReader(mcScript.getName());
+        String engineName = engine.getFactory().getEngineName();
+        long startTime = System.nanoTime();
+        try {
+            // evaluate JavaScript code from String
+            if (mcScript.getData() != null) {
+                result = engine.eval(mcScript.getData());
+            } else { // evaluate JavaScript code from file
+                FileReader scriptFileReader = null;
+                if (mcScript.getCanonicalPath() != null) {
+                    scriptFileReader = new FileReader(mcScript.getCanonicalPath());
+                } else {
+                    scriptFileReader = new FileReader(mcScript.getName());
+                }
+                result = engine.eval(scriptFileReader);
             }
-            result = engine.eval(scriptFileReader);
+        } catch (ScriptException | FileNotFoundException ex) {
+            McMetrics.getInstance().counter("mc_script_errors_total", "Failed script executions",
+                    "engine", engineName).increment();
+            throw ex;
+        } finally {
+            McMetrics.getInstance().histogram("mc_script_execution_seconds", "Script execution time",
+                    "engine", engineName).recordSince(startTime);
         }
 
         if (result == null) {
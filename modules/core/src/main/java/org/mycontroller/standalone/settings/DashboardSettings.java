@@ -54,7 +54,7 @@ public class DashboardSettings {
     public static void deleteDashboard(User user, Integer id) throws IllegalAccessException {
         Settings settings = DaoUtils.getSettingsDao().getById(id);
         if (settings != null && settings.getUserId() == user.getId()) {
-            DaoUtils.getSettingsDao().deleteById(id);
+            SettingsUtils.deleteSettings(id);
         } else {
             throw new IllegalAccessException("you do not have access to see this resource!");
         }
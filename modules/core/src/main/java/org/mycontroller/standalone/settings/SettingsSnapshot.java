@@ -0,0 +1,60 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.settings;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Immutable view of all the controller level settings. Replaced as a whole when any of the settings changed.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Builder(toBuilder = true)
+@Getter
+@ToString(includeFieldNames = true)
+public class SettingsSnapshot {
+    private final MyControllerSettings controllerSettings;
+    private final EmailSettings emailSettings;
+    private final MySensorsSettings mySensorsSettings;
+    private final SmsSettings smsSettings;
+    private final PushbulletSettings pushbulletSettings;
+    private final LocationSettings locationSettings;
+    private final MetricsGraphSettings metricsGraphSettings;
+    private final MetricsDataRetentionSettings metricsDataRetentionSettings;
+    private final BackupSettings backupSettings;
+    private final MqttBrokerSettings mqttBrokerSettings;
+    private final long timestamp;
+
+    public static SettingsSnapshot load() {
+        return SettingsSnapshot.builder()
+                .locationSettings(LocationSettings.get())
+                .controllerSettings(MyControllerSettings.get())
+                .mySensorsSettings(MySensorsSettings.get())
+                .emailSettings(EmailSettings.get())
+                .smsSettings(SmsSettings.get())
+                .metricsGraphSettings(MetricsGraphSettings.get())
+                .metricsDataRetentionSettings(MetricsDataRetentionSettings.get())
+                .backupSettings(BackupSettings.get())
+                .pushbulletSettings(PushbulletSettings.get())
+                .mqttBrokerSettings(MqttBrokerSettings.get())
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
+}
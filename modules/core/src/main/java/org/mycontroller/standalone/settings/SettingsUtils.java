@@ -20,6 +20,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.io.FileUtils;
 import org.mycontroller.standalone.AppProperties;
@@ -41,6 +43,13 @@ import lombok.extern.slf4j.Slf4j;
 public class SettingsUtils {
     public static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 
+    //Settings rows by userId, key and subKey. Missing rows are cached as NOT_AVAILABLE
+    private static final ConcurrentHashMap<String, Settings> SETTINGS_CACHE = new ConcurrentHashMap<String, Settings>();
+    private static final Settings NOT_AVAILABLE = Settings.builder().build();
+    private static final Object CACHE_LOCK = new Object();
+    private static final CopyOnWriteArrayList<ISettingsListener> LISTENERS =
+            new CopyOnWriteArrayList<ISettingsListener>();
+
     static {
         OBJECT_MAPPER.configure(SerializationFeature.INDENT_OUTPUT, true);
     }
@@ -54,7 +63,7 @@ public class SettingsUtils {
     }
 
     public static String getValue(Integer userId, String key, String subKey) {
-        Settings settings = DaoUtils.getSettingsDao().get(userId, key, subKey);
+        Settings settings = getCachedSettings(userId, key, subKey);
         return settings != null ? settings.getValue() : null;
     }
 
@@ -68,32 +77,53 @@ public class SettingsUtils {
 
     public static void updateSettings(Settings settings, boolean forceCreate) {
         Settings oldSettings = null;
-        if (settings.getId() != null) {
-            oldSettings = DaoUtils.getSettingsDao().getById(settings.getId());
-            if (oldSettings.getUserId() != settings.getUserId()) {
-                //different user id? trying to hack?
-                _logger.warn("Cannot update this settings, different user id'd found!"
-                        + " Old settings:[{}], new settings:[{}]", oldSettings, settings);
-            } else {
-                DaoUtils.getSettingsDao().update(settings);
-            }
-        } else {
-            if (forceCreate) {
-                DaoUtils.getSettingsDao().create(settings);
+        synchronized (CACHE_LOCK) {
+            if (settings.getId() != null) {
+                oldSettings = DaoUtils.getSettingsDao().getById(settings.getId());
+                if (oldSettings.getUserId() != settings.getUserId()) {
+                    //different user id? trying to hack?
+                    _logger.warn("Cannot update this settings, different user id'd found!"
+                            + " Old settings:[{}], new settings:[{}]", oldSettings, settings);
+                    return;
+                } else {
+                    DaoUtils.getSettingsDao().update(settings);
+                    //sub key can be changed with id based update (ie: variable renamed)
+                    SETTINGS_CACHE.remove(getCacheKey(oldSettings.getUserId(), oldSettings.getKey(),
+                            oldSettings.getSubKey()));
+                }
             } else {
-                oldSettings = getSettings(settings.getUserId(), settings.getKey(), settings.getSubKey());
-                if (oldSettings == null) {
+                if (forceCreate) {
                     DaoUtils.getSettingsDao().create(settings);
                 } else {
-                    settings.setId(oldSettings.getId());
-                    DaoUtils.getSettingsDao().update(settings);
+                    oldSettings = getSettings(settings.getUserId(), settings.getKey(), settings.getSubKey());
+                    if (oldSettings == null) {
+                        DaoUtils.getSettingsDao().create(settings);
+                    } else {
+                        settings.setId(oldSettings.getId());
+                        DaoUtils.getSettingsDao().update(settings);
+                    }
                 }
             }
+            SETTINGS_CACHE.remove(getCacheKey(settings.getUserId(), settings.getKey(), settings.getSubKey()));
+        }
+        notifyListeners(settings.getUserId(), settings.getKey(), settings.getSubKey());
+    }
+
+    public static void deleteSettings(Integer id) {
+        Settings settings = null;
+        synchronized (CACHE_LOCK) {
+            settings = DaoUtils.getSettingsDao().getById(id);
+            if (settings == null) {
+                return;
+            }
+            DaoUtils.getSettingsDao().deleteById(id);
+            SETTINGS_CACHE.remove(getCacheKey(settings.getUserId(), settings.getKey(), settings.getSubKey()));
         }
+        notifyListeners(settings.getUserId(), settings.getKey(), settings.getSubKey());
     }
 
     public static Settings getSettings(Integer userId, String key, String subKey) {
-        return DaoUtils.getSettingsDao().get(userId, key, subKey);
+        return getCachedSettings(userId, key, subKey);
     }
 
     public static Settings getSettings(String key, String subKey) {
@@ -109,12 +139,89 @@ public class SettingsUtils {
     }
 
     public static void updateValue(String key, String subKey, Object value) {
-        DaoUtils.getSettingsDao().update(key, subKey, value != null ? String.valueOf(value) : null);
+        synchronized (CACHE_LOCK) {
+            DaoUtils.getSettingsDao().update(key, subKey, value != null ? String.valueOf(value) : null);
+            SETTINGS_CACHE.remove(getCacheKey(null, key, subKey));
+        }
+        notifyListeners(null, key, subKey);
     }
 
     public static void updateValue(String key, String subKey, Object value, Object altValue) {
-        DaoUtils.getSettingsDao().update(key, subKey, value != null ? String.valueOf(value) : null,
-                altValue != null ? String.valueOf(altValue) : null);
+        synchronized (CACHE_LOCK) {
+            DaoUtils.getSettingsDao().update(key, subKey, value != null ? String.valueOf(value) : null,
+                    altValue != null ? String.valueOf(altValue) : null);
+            SETTINGS_CACHE.remove(getCacheKey(null, key, subKey));
+        }
+        notifyListeners(null, key, subKey);
+    }
+
+    public static void addSettingsListener(ISettingsListener listener) {
+        LISTENERS.addIfAbsent(listener);
+    }
+
+    public static void removeSettingsListener(ISettingsListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    //Drop all the cached settings, next access loads from database.
+    //Should be called when database changed underneath (restore, migration)
+    public static void clearCache() {
+        synchronized (CACHE_LOCK) {
+            SETTINGS_CACHE.clear();
+        }
+        _logger.debug("Settings cache cleared");
+    }
+
+    public static int getCacheSize() {
+        return SETTINGS_CACHE.size();
+    }
+
+    private static Settings getCachedSettings(Integer userId, String key, String subKey) {
+        String cacheKey = getCacheKey(userId, key, subKey);
+        Settings settings = SETTINGS_CACHE.get(cacheKey);
+        if (settings == null) {
+            //load under lock, so that concurrent update cannot be overwritten with old value
+            synchronized (CACHE_LOCK) {
+                settings = SETTINGS_CACHE.get(cacheKey);
+                if (settings == null) {
+                    settings = DaoUtils.getSettingsDao().get(userId, key, subKey);
+                    if (settings == null) {
+                        settings = NOT_AVAILABLE;
+                    }
+                    SETTINGS_CACHE.put(cacheKey, settings);
+                }
+            }
+        }
+        if (settings == NOT_AVAILABLE) {
+            return null;
+        }
+        //Settings is mutable, do not expose cached instance
+        return Settings.builder()
+                .id(settings.getId())
+                .userId(settings.getUserId())
+                .key(settings.getKey())
+                .subKey(settings.getSubKey())
+                .value(settings.getValue())
+                .altValue(settings.getAltValue())
+                .value2(settings.getValue2())
+                .value3(settings.getValue3())
+                .value4(settings.getValue4())
+                .value5(settings.getValue5())
+                .build();
+    }
+
+    private static String getCacheKey(Integer userId, String key, String subKey) {
+        return userId + ":" + key + ":" + subKey;
+    }
+
+    private static void notifyListeners(Integer userId, String key, String subKey) {
+        for (ISettingsListener listener : LISTENERS) {
+            try {
+                listener.onSettingsChange(userId, key, subKey);
+            } catch (Exception ex) {
+                _logger.error("Exception on settings listener:{}", listener, ex);
+            }
+        }
     }
 
     //When reloading configuration write this static file
@@ -31,6 +31,8 @@ import org.mycontroller.standalone.db.ResourcesLogsUtils;
 import org.mycontroller.standalone.db.tables.OperationTable;
 import org.mycontroller.standalone.db.tables.OperationTimerMap;
 import org.mycontroller.standalone.db.tables.Timer;
+import org.mycontroller.standalone.executor.McExecutors;
+import org.mycontroller.standalone.executor.McExecutors.POOL;
 import org.mycontroller.standalone.jobs.ManageSunRiseSetJobs;
 import org.mycontroller.standalone.model.ResourceModel;
 import org.mycontroller.standalone.operation.OperationUtils;
@@ -194,7 +196,7 @@ public class TimerUtils {
             //call Manage sun rise sun set jobs, if value changed
             if ((tmpSunriseTime.getTime() != sunriseTime.getTime())
                     || (tmpSunsetTime.getTime() != sunsetTime.getTime())) {
-                new Thread(new ManageSunRiseSetJobs()).start();
+                McExecutors.getInstance().execute(POOL.BACKGROUND, new ManageSunRiseSetJobs());
             }
         }
     }
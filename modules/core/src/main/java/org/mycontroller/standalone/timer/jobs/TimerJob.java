@@ -26,6 +26,7 @@ import org.mycontroller.standalone.db.DaoUtils;
 import org.mycontroller.standalone.db.ResourcesLogsUtils;
 import org.mycontroller.standalone.db.ResourcesLogsUtils.LOG_LEVEL;
 import org.mycontroller.standalone.db.tables.Timer;
+import org.mycontroller.standalone.operation.OperationExecutor;
 import org.mycontroller.standalone.operation.model.Operation;
 import org.mycontroller.standalone.operation.model.OperationSendPayload;
 import org.mycontroller.standalone.scheduler.SchedulerUtils;
@@ -54,12 +55,7 @@ public class TimerJob extends Job {
             }
             _logger.debug("Operations going to execute:{}", timer.getOperations());
             for (Operation operation : timer.getOperations()) {
-                try {
-                    operation.execute(timer);
-                } catch (Exception ex) {
-                    _logger.error("Exception,", ex);
-                }
-
+                OperationExecutor.getInstance().execute(operation, timer);
             }
         } else if (timer.getTimerType() == TIMER_TYPE.SIMPLE) {
             TimerSimple timerSimple = new TimerSimple(timer);
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.utils;
+
+/**
+ * Token bucket rate limiter. Holds up to capacity tokens, refilled at refillPerSecond. Not thread safe.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double refillPerMilliSecond;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.refillPerMilliSecond = refillPerSecond / McUtils.SECOND;
+        this.tokens = capacity;
+        this.lastRefill = System.currentTimeMillis();
+    }
+
+    private void refill(long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + ((now - lastRefill) * refillPerMilliSecond));
+            lastRefill = now;
+        }
+    }
+
+    public boolean tryAcquire() {
+        refill(System.currentTimeMillis());
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    /** Milliseconds to wait until next token available */
+    public long getWaitTime() {
+        refill(System.currentTimeMillis());
+        if (tokens >= 1.0) {
+            return 0;
+        }
+        return (long) Math.ceil((1.0 - tokens) / refillPerMilliSecond);
+    }
+
+    public double getTokens() {
+        refill(System.currentTimeMillis());
+        return tokens;
+    }
+}
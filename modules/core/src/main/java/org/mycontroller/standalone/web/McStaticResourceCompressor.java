@@ -0,0 +1,101 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.web;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Creates <i>.gz</i> copy of compressible web files, used on build. Files are served by
+ * {@link McStaticResourceServlet}.
+ * <p>
+ * Arguments: source directory, target directory
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class McStaticResourceCompressor {
+    private static final HashSet<String> EXTENSIONS = new HashSet<String>(Arrays.asList(
+            "js", "css", "json", "map", "svg", "ttf", "eot", "txt"));
+    // Small files do not gain from compression
+    private static final long MIN_SIZE = 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: McStaticResourceCompressor <source directory> <target directory>");
+            System.exit(1);
+        }
+        int count = compress(new File(args[0]), new File(args[1]));
+        System.out.println("Compressed " + count + " files from " + args[0]);
+    }
+
+    private static int compress(File source, File target) throws IOException {
+        File[] files = source.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        int count = 0;
+        for (File file : files) {
+            if (file.isDirectory()) {
+                count += compress(file, new File(target, file.getName()));
+            } else if (isCompressible(file)) {
+                File gzipFile = new File(target, file.getName() + McStaticResourceServlet.GZIP_EXTENSION);
+                if (gzipFile.isFile() && gzipFile.lastModified() >= file.lastModified()) {
+                    continue;
+                }
+                if (!target.isDirectory() && !target.mkdirs()) {
+                    throw new IOException("Unable to create directory " + target);
+                }
+                gzip(file, gzipFile);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isCompressible(File file) {
+        int index = file.getName().lastIndexOf('.');
+        return index != -1 && file.length() >= MIN_SIZE
+                && EXTENSIONS.contains(file.getName().substring(index + 1).toLowerCase());
+    }
+
+    private static void gzip(File source, File target) throws IOException {
+        InputStream inputStream = new FileInputStream(source);
+        try {
+            OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(target), BUFFER_SIZE);
+            try {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int length;
+                while ((length = inputStream.read(buffer)) != -1) {
+                    outputStream.write(buffer, 0, length);
+                }
+            } finally {
+                outputStream.close();
+            }
+        } finally {
+            inputStream.close();
+        }
+    }
+}
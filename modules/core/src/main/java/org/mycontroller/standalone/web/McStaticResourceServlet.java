@@ -0,0 +1,180 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.web;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.util.HashMap;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves web UI files. Sends precompressed <i>.gz</i> file, when available and client accepts gzip. Answers
+ * conditional requests with 304. Versioned assets (with <i>mcv</i> query parameter) are cached by browser for a
+ * year, other files are revalidated with ETag on every use.
+ *
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+@Slf4j
+public class McStaticResourceServlet extends HttpServlet {
+    private static final long serialVersionUID = 8946123587218740912L;
+    public static final String GZIP_EXTENSION = ".gz";
+    public static final String VERSION_PARAMETER = "mcv=";
+    public static final String CACHE_VERSIONED = "public, max-age=31536000, immutable";
+    public static final String CACHE_REVALIDATE = "no-cache";
+    private static final String INDEX_FILE = "index.html";
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final HashMap<String, String> MIME_TYPES = new HashMap<String, String>();
+
+    static {
+        MIME_TYPES.put("html", "text/html; charset=UTF-8");
+        MIME_TYPES.put("js", "application/javascript; charset=UTF-8");
+        MIME_TYPES.put("css", "text/css; charset=UTF-8");
+        MIME_TYPES.put("json", "application/json; charset=UTF-8");
+        MIME_TYPES.put("map", "application/json; charset=UTF-8");
+        MIME_TYPES.put("svg", "image/svg+xml");
+        MIME_TYPES.put("png", "image/png");
+        MIME_TYPES.put("jpg", "image/jpeg");
+        MIME_TYPES.put("gif", "image/gif");
+        MIME_TYPES.put("ico", "image/x-icon");
+        MIME_TYPES.put("woff", "font/woff");
+        MIME_TYPES.put("woff2", "font/woff2");
+        MIME_TYPES.put("ttf", "font/ttf");
+        MIME_TYPES.put("eot", "application/vnd.ms-fontobject");
+    }
+
+    private final File root;
+    private final String rootPath;
+
+    public McStaticResourceServlet(File root) throws IOException {
+        this.root = root.getCanonicalFile();
+        this.rootPath = this.root.getPath() + File.separator;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = URLDecoder.decode(request.getRequestURI().replace("+", "%2B"), "UTF-8");
+        File file = new File(root, path).getCanonicalFile();
+        if (!file.equals(root) && !file.getPath().startsWith(rootPath)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        if (file.isDirectory()) {
+            if (!path.endsWith("/")) {
+                response.sendRedirect(request.getRequestURI() + "/");
+                return;
+            }
+            file = new File(file, INDEX_FILE);
+        }
+        if (!file.isFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String contentType = getContentType(file.getName());
+        //Use precompressed file, only when it is not older than the source
+        File gzipFile = new File(file.getPath() + GZIP_EXTENSION);
+        boolean gzip = isGzipAccepted(request) && gzipFile.isFile() && gzipFile.lastModified() >= file.lastModified();
+        File source = gzip ? gzipFile : file;
+        String eTag = "\"" + Long.toHexString(source.length()) + "-" + Long.toHexString(file.lastModified())
+                + (gzip ? "-gz" : "") + "\"";
+
+        response.setHeader("ETag", eTag);
+        response.setDateHeader("Last-Modified", file.lastModified());
+        response.setHeader("Vary", "Accept-Encoding");
+        String query = request.getQueryString();
+        response.setHeader("Cache-Control",
+                query != null && query.contains(VERSION_PARAMETER) ? CACHE_VERSIONED : CACHE_REVALIDATE);
+
+        if (isNotModified(request, eTag, file.lastModified())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength((int) source.length());
+        InputStream inputStream = new FileInputStream(source);
+        try {
+            OutputStream outputStream = response.getOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, length);
+            }
+            outputStream.flush();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    private boolean isGzipAccepted(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
+    private boolean isNotModified(HttpServletRequest request, String eTag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                tag = tag.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+            //Header has seconds precision
+            return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+        } catch (IllegalArgumentException ex) {
+            _logger.debug("Invalid If-Modified-Since header, {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private String getContentType(String fileName) {
+        int index = fileName.lastIndexOf('.');
+        if (index != -1) {
+            String contentType = MIME_TYPES.get(fileName.substring(index + 1).toLowerCase());
+            if (contentType != null) {
+                return contentType;
+            }
+        }
+        if (getServletConfig() != null) {
+            return getServletContext().getMimeType(fileName);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.db.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class KeysetCursorTest {
+    private void assertRoundTrip(Object id, Object value) {
+        String cursor = KeysetCursor.encode(id, value);
+        //Sent as query parameter
+        assertTrue(cursor, cursor.matches("[A-Za-z0-9_-]+"));
+        KeysetCursor decoded = KeysetCursor.decode(cursor, id.getClass(), value.getClass());
+        assertEquals(id, decoded.getId());
+        assertEquals(value, decoded.getValue());
+    }
+
+    @Test
+    public void roundTrip() {
+        assertRoundTrip(1, 5);
+        assertRoundTrip(Integer.MAX_VALUE, Long.MIN_VALUE);
+        assertRoundTrip(7L, -2.5);
+        assertRoundTrip(8, 1.25f);
+        assertRoundTrip(9, (short) 3);
+        assertRoundTrip(10, true);
+        assertRoundTrip(11, TimeUnit.SECONDS);
+        assertRoundTrip(12, "");
+        assertRoundTrip(13, "name with spaces, ünïcödé and /+=");
+        //Only the first separator splits id and value
+        assertRoundTrip(14, "first\nsecond\n");
+    }
+
+    @Test
+    public void primitiveTypes() {
+        KeysetCursor decoded = KeysetCursor.decode(KeysetCursor.encode(3, 4L), int.class, long.class);
+        assertEquals(3, decoded.getId());
+        assertEquals(4L, decoded.getValue());
+    }
+
+    @Test
+    public void nullIdOrValueHasNoCursor() {
+        assertNull(KeysetCursor.encode(null, 1));
+        assertNull(KeysetCursor.encode(1, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCursor() {
+        KeysetCursor.decode("not a cursor", Integer.class, String.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cursorOfOtherType() {
+        KeysetCursor.decode(KeysetCursor.encode(1, "name"), Integer.class, Long.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownEnumConstant() {
+        KeysetCursor.decode(KeysetCursor.encode(1, "WEEKS"), Integer.class, TimeUnit.class);
+    }
+
+    @Test
+    public void keysetTypes() {
+        assertTrue(KeysetCursor.isKeysetType(Integer.class));
+        assertTrue(KeysetCursor.isKeysetType(long.class));
+        assertTrue(KeysetCursor.isKeysetType(String.class));
+        assertTrue(KeysetCursor.isKeysetType(TimeUnit.class));
+        assertFalse(KeysetCursor.isKeysetType(Object.class));
+        assertFalse(KeysetCursor.isKeysetType(byte[].class));
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.gateway.philipshue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class HueLightTest {
+    private HueLight newLight() {
+        HueLight light = new HueLight();
+        light.updateName("Kitchen");
+        light.updateStatus("1");
+        light.updateLightLevel("50");
+        light.updateRgb("#ff0000");
+        return light;
+    }
+
+    @Test
+    public void unchangedStateIsNotChange() {
+        HueLight light = newLight();
+        assertFalse(light.updateName("Kitchen"));
+        assertFalse(light.updateStatus("1"));
+        assertFalse(light.updateLightLevel("50"));
+        assertFalse(light.updateRgb("#ff0000"));
+    }
+
+    @Test
+    public void changedStateIsChangeOnce() {
+        HueLight light = newLight();
+        assertTrue(light.updateStatus("0"));
+        assertFalse(light.updateStatus("0"));
+        assertEquals("0", light.getStatus());
+
+        assertTrue(light.updateLightLevel("75"));
+        assertFalse(light.updateLightLevel("75"));
+        assertEquals("75", light.getLightLevel());
+
+        assertTrue(light.updateRgb("#00ff00"));
+        assertFalse(light.updateRgb("#00ff00"));
+        assertEquals("#00ff00", light.getRgb());
+
+        assertTrue(light.updateName("Hall"));
+        assertFalse(light.updateName("Hall"));
+        assertEquals("Hall", light.getName());
+    }
+
+    @Test
+    public void missingValueIsNotChange() {
+        HueLight light = newLight();
+        assertFalse(light.updateName(null));
+        assertFalse(light.updateRgb(null));
+        assertEquals("Kitchen", light.getName());
+        assertEquals("#ff0000", light.getRgb());
+    }
+
+    @Test
+    public void firstValueIsChange() {
+        HueLight light = new HueLight();
+        assertTrue(light.updateStatus("0"));
+        assertTrue(light.updateLightLevel("0"));
+    }
+}
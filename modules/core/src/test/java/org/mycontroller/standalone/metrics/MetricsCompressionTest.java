@@ -0,0 +1,150 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+import org.mycontroller.standalone.db.tables.SensorVariable;
+import org.mycontroller.standalone.metrics.MetricsCompression.COMPRESSION_TYPE;
+import org.mycontroller.standalone.metrics.MetricsCompression.Sample;
+import org.mycontroller.standalone.utils.McUtils;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class MetricsCompressionTest {
+    private static final long START = 1000000;
+    private static final long INTERVAL = 10000;
+
+    //Instance is shared, each test uses its own sensor variable id
+    private final MetricsCompression compression = MetricsCompression.getInstance();
+
+    private SensorVariable sensorVariable(int id, String type, Object deviation, Object maxInterval) {
+        HashMap<String, Object> properties = new HashMap<String, Object>();
+        properties.put(MetricsCompression.KEY_COMPRESSION, type);
+        properties.put(MetricsCompression.KEY_DEVIATION, deviation);
+        properties.put(MetricsCompression.KEY_MAX_INTERVAL, maxInterval);
+        return SensorVariable.builder().id(id).properties(properties).build();
+    }
+
+    private void assertSample(long timestamp, double value, Sample sample) {
+        assertEquals(timestamp, sample.getTimestamp());
+        assertEquals(value, sample.getValue(), 0.0);
+    }
+
+    @Test
+    public void typeFromProperties() {
+        assertEquals(COMPRESSION_TYPE.NONE, MetricsCompression.getType(sensorVariable(1, null, null, null)));
+        assertEquals(COMPRESSION_TYPE.NONE, MetricsCompression.getType(sensorVariable(1, "unknown", null, null)));
+        assertEquals(COMPRESSION_TYPE.DEADBAND, MetricsCompression.getType(sensorVariable(1, "Deadband", 1, 0)));
+        assertEquals(COMPRESSION_TYPE.SWINGING_DOOR,
+                MetricsCompression.getType(sensorVariable(1, "swinging_door", 1, 0)));
+    }
+
+    @Test
+    public void noneStoresAllSamples() {
+        SensorVariable sensorVariable = sensorVariable(101, "None", 5, null);
+        for (int index = 0; index < 5; index++) {
+            List<Sample> samples = compression.offer(sensorVariable, START + (index * INTERVAL), 1.0);
+            assertEquals(1, samples.size());
+            assertSample(START + (index * INTERVAL), 1.0, samples.get(0));
+        }
+    }
+
+    @Test
+    public void deadbandDropsSamplesWithinDeviation() {
+        SensorVariable sensorVariable = sensorVariable(102, "Deadband", "0.5", null);
+        assertEquals(1, compression.offer(sensorVariable, START, 20.0).size());
+        assertTrue(compression.offer(sensorVariable, START + INTERVAL, 20.4).isEmpty());
+        assertTrue(compression.offer(sensorVariable, START + (2 * INTERVAL), 19.5).isEmpty());
+        List<Sample> samples = compression.offer(sensorVariable, START + (3 * INTERVAL), 20.6);
+        assertEquals(1, samples.size());
+        assertSample(START + (3 * INTERVAL), 20.6, samples.get(0));
+        //Deviation is from the last stored sample
+        assertTrue(compression.offer(sensorVariable, START + (4 * INTERVAL), 21.0).isEmpty());
+    }
+
+    @Test
+    public void deadbandDeviationPercent() {
+        SensorVariable sensorVariable = sensorVariable(103, "Deadband", null, null);
+        sensorVariable.getProperties().put(MetricsCompression.KEY_DEVIATION_PERCENT, 10);
+        assertEquals(1, compression.offer(sensorVariable, START, 50.0).size());
+        assertTrue(compression.offer(sensorVariable, START + INTERVAL, 54.9).isEmpty());
+        assertEquals(1, compression.offer(sensorVariable, START + (2 * INTERVAL), 55.1).size());
+    }
+
+    @Test
+    public void swingingDoorStoresHeldSampleWhenDoorCloses() {
+        SensorVariable sensorVariable = sensorVariable(104, "Swinging door", 1, null);
+        assertEquals(1, compression.offer(sensorVariable, START, 0.0).size());
+        //Samples on a straight line are held
+        for (int index = 1; index <= 3; index++) {
+            assertTrue(compression.offer(sensorVariable, START + (index * INTERVAL), index).isEmpty());
+        }
+        List<Sample> samples = compression.offer(sensorVariable, START + (4 * INTERVAL), 10.0);
+        assertEquals(1, samples.size());
+        assertSample(START + (3 * INTERVAL), 3.0, samples.get(0));
+        //Next line starts from the stored sample
+        assertTrue(compression.offer(sensorVariable, START + (5 * INTERVAL), 17.0).isEmpty());
+    }
+
+    @Test
+    public void swingingDoorKeepsDeviation() {
+        SensorVariable sensorVariable = sensorVariable(105, "Swinging door", 0.5, null);
+        assertEquals(1, compression.offer(sensorVariable, START, 0.0).size());
+        //Within deviation of flat line
+        assertTrue(compression.offer(sensorVariable, START + INTERVAL, 0.4).isEmpty());
+        assertTrue(compression.offer(sensorVariable, START + (2 * INTERVAL), -0.4).isEmpty());
+        List<Sample> samples = compression.offer(sensorVariable, START + (3 * INTERVAL), 2.0);
+        assertEquals(1, samples.size());
+        assertSample(START + (2 * INTERVAL), -0.4, samples.get(0));
+    }
+
+    @Test
+    public void storesAfterMaxInterval() {
+        SensorVariable sensorVariable = sensorVariable(106, "Deadband", 5, 60);
+        assertEquals(1, compression.offer(sensorVariable, START, 1.0).size());
+        assertTrue(compression.offer(sensorVariable, START + McUtils.ONE_MINUTE - 1, 1.0).isEmpty());
+        assertEquals(1, compression.offer(sensorVariable, START + McUtils.ONE_MINUTE, 1.0).size());
+
+        //Held sample of swinging door is stored along
+        sensorVariable = sensorVariable(107, "Swinging door", 5, 60);
+        assertEquals(1, compression.offer(sensorVariable, START, 1.0).size());
+        assertTrue(compression.offer(sensorVariable, START + INTERVAL, 1.0).isEmpty());
+        List<Sample> samples = compression.offer(sensorVariable, START + McUtils.ONE_MINUTE, 1.0);
+        assertEquals(2, samples.size());
+        assertSample(START + INTERVAL, 1.0, samples.get(0));
+        assertSample(START + McUtils.ONE_MINUTE, 1.0, samples.get(1));
+    }
+
+    @Test
+    public void restartsOnConfigurationChange() {
+        SensorVariable sensorVariable = sensorVariable(108, "Deadband", 5, null);
+        assertEquals(1, compression.offer(sensorVariable, START, 1.0).size());
+        assertTrue(compression.offer(sensorVariable, START + INTERVAL, 2.0).isEmpty());
+        sensorVariable.getProperties().put(MetricsCompression.KEY_DEVIATION, 0.5);
+        assertEquals(1, compression.offer(sensorVariable, START + (2 * INTERVAL), 2.0).size());
+        //Clock moved back
+        assertEquals(1, compression.offer(sensorVariable, START, 2.0).size());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.mycontroller.standalone.db.tables.MetricsCounterTypeDevice;
+import org.mycontroller.standalone.db.tables.MetricsDoubleTypeDevice;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class MetricsDownsamplingTest {
+    private static final long START = 1000;
+    private static final long INTERVAL = 10;
+
+    private List<MetricsDoubleTypeDevice> doublePoints(double... values) {
+        List<MetricsDoubleTypeDevice> points = new ArrayList<MetricsDoubleTypeDevice>();
+        for (int index = 0; index < values.length; index++) {
+            points.add(MetricsDoubleTypeDevice.builder()
+                    .timestamp(START + (index * INTERVAL))
+                    .min(values[index] - 1)
+                    .max(values[index] + 1)
+                    .avg(values[index])
+                    .samples(1)
+                    .build());
+        }
+        return points;
+    }
+
+    private double[] wave(int size) {
+        double[] values = new double[size];
+        for (int index = 0; index < size; index++) {
+            values[index] = Math.sin(index / 5.0) * 10;
+        }
+        return values;
+    }
+
+    @Test
+    public void returnsSameListWhenNotNeeded() {
+        List<MetricsDoubleTypeDevice> points = doublePoints(wave(10));
+        assertSame(points, MetricsDownsampling.downsampleDouble(points, 10));
+        assertSame(points, MetricsDownsampling.downsampleDouble(points, 20));
+        assertSame(points, MetricsDownsampling.downsampleDouble(points, null));
+        assertSame(points, MetricsDownsampling.downsampleDouble(points, MetricsDownsampling.MIN_POINTS - 1));
+    }
+
+    @Test
+    public void keepsFirstAndLastAndLimitsPoints() {
+        List<MetricsDoubleTypeDevice> points = doublePoints(wave(100));
+        for (int maxPoints = MetricsDownsampling.MIN_POINTS; maxPoints < 100; maxPoints += 7) {
+            List<MetricsDoubleTypeDevice> sampled = MetricsDownsampling.downsampleDouble(points, maxPoints);
+            assertEquals(maxPoints, sampled.size());
+            assertSame(points.get(0), sampled.get(0));
+            assertSame(points.get(99), sampled.get(maxPoints - 1));
+            for (int index = 1; index < sampled.size(); index++) {
+                assertTrue(sampled.get(index - 1).getTimestamp() < sampled.get(index).getTimestamp());
+            }
+        }
+    }
+
+    @Test
+    public void keepsPeak() {
+        double[] values = new double[50];
+        values[23] = 100;
+        List<MetricsDoubleTypeDevice> points = doublePoints(values);
+        MetricsDoubleTypeDevice peak = points.get(23);
+        List<MetricsDoubleTypeDevice> sampled = MetricsDownsampling.downsampleDouble(points, 6);
+        assertTrue(sampled.contains(peak));
+    }
+
+    @Test
+    public void keepsMinAndMaxOfBucket() {
+        double[] values = wave(60);
+        values[17] = -50;
+        values[41] = 70;
+        List<MetricsDoubleTypeDevice> sampled = MetricsDownsampling.downsampleDouble(doublePoints(values), 5);
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (MetricsDoubleTypeDevice point : sampled) {
+            assertTrue(point.getMin() <= point.getAvg());
+            assertTrue(point.getMax() >= point.getAvg());
+            min = Math.min(min, point.getMin());
+            max = Math.max(max, point.getMax());
+        }
+        assertEquals(-51.0, min, 0.0);
+        assertEquals(71.0, max, 0.0);
+    }
+
+    @Test
+    public void counterKeepsTotals() {
+        List<MetricsCounterTypeDevice> points = new ArrayList<MetricsCounterTypeDevice>();
+        long total = 0;
+        int samples = 0;
+        for (int index = 0; index < 73; index++) {
+            long value = (index * 7) % 13;
+            points.add(MetricsCounterTypeDevice.builder()
+                    .timestamp(START + (index * INTERVAL))
+                    .value(value)
+                    .samples(index % 3 + 1)
+                    .build());
+            total += value;
+            samples += index % 3 + 1;
+        }
+        List<MetricsCounterTypeDevice> sampled = MetricsDownsampling.downsampleCounter(points, 9);
+        assertEquals(9, sampled.size());
+        long sampledTotal = 0;
+        int sampledSamples = 0;
+        for (MetricsCounterTypeDevice point : sampled) {
+            sampledTotal += point.getValue();
+            sampledSamples += point.getSamples();
+        }
+        assertEquals(total, sampledTotal);
+        assertEquals(samples, sampledSamples);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.provider.philipshue;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class PhilipsHueUtilsTest {
+    private static final long MIN = 2000;
+    private static final long MAX = 60000;
+
+    @Test
+    public void idlePollBacksOffToMax() {
+        long pollInterval = MIN;
+        long[] expected = { 4000, 8000, 16000, 32000, 60000, 60000 };
+        for (long interval : expected) {
+            pollInterval = PhilipsHueUtils.nextPollInterval(pollInterval, false, MIN, MAX);
+            assertEquals(interval, pollInterval);
+        }
+    }
+
+    @Test
+    public void changeResetsToMin() {
+        assertEquals(MIN, PhilipsHueUtils.nextPollInterval(MAX, true, MIN, MAX));
+        assertEquals(MIN, PhilipsHueUtils.nextPollInterval(MIN, true, MIN, MAX));
+    }
+
+    @Test
+    public void maxBelowMin() {
+        //Poll frequency not set
+        assertEquals(MIN, PhilipsHueUtils.nextPollInterval(MIN, false, MIN, MIN));
+        assertEquals(MIN, PhilipsHueUtils.nextPollInterval(MIN, false, MIN, 0));
+    }
+
+    @Test
+    public void brightnessAndPercent() {
+        assertEquals(Integer.valueOf(0), PhilipsHueUtils.toPercent(0));
+        assertEquals(Integer.valueOf(100), PhilipsHueUtils.toPercent(255));
+        assertEquals(255.0, PhilipsHueUtils.toBrightness(150), 0.0);
+        assertEquals(0.0, PhilipsHueUtils.toBrightness(-5), 0.0);
+        assertEquals(127.5, PhilipsHueUtils.toBrightness(50), 0.0);
+    }
+}
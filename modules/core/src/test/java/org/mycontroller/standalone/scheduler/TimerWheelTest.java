@@ -0,0 +1,128 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TimerWheelTest {
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 8;
+    private static final int LEVELS = 3;
+    private static final long START = 1000;
+
+    private TimerWheel<String> newWheel() {
+        return new TimerWheel<String>(TICK, WHEEL_SIZE, LEVELS, START);
+    }
+
+    @Test
+    public void expiresOnFirstTickAfterDeadline() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.schedule("a", START + 25);
+        assertEquals(Collections.emptyList(), wheel.advance(START + 29));
+        assertTrue(wheel.contains("a"));
+        assertEquals(Arrays.asList("a"), wheel.advance(START + 30));
+        assertFalse(wheel.contains("a"));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void expiresOnTimeOnAllLevels() {
+        TimerWheel<String> wheel = newWheel();
+        //Level boundaries are 8 and 64 ticks, wheel range is 512 ticks
+        long[] ticks = { 1, 7, 8, 9, 63, 64, 65, 100, 511, 512, 513, 2000 };
+        HashMap<String, Long> deadlines = new HashMap<String, Long>();
+        for (long tick : ticks) {
+            deadlines.put("t" + tick, START + (tick * TICK));
+            wheel.schedule("t" + tick, START + (tick * TICK));
+        }
+        HashMap<String, Long> expiredAt = new HashMap<String, Long>();
+        for (long now = START; now <= START + (2100 * TICK); now += TICK) {
+            for (String key : wheel.advance(now)) {
+                expiredAt.put(key, now);
+            }
+        }
+        assertEquals(deadlines, expiredAt);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void advanceOverManyTicksReturnsAllExpired() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.schedule("a", START + 50);
+        wheel.schedule("b", START + 5000);
+        wheel.schedule("c", START + 50000);
+        List<String> expired = new ArrayList<String>(wheel.advance(START + 6000));
+        Collections.sort(expired);
+        assertEquals(Arrays.asList("a", "b"), expired);
+        assertEquals(Arrays.asList("c"), wheel.advance(START + 50000));
+    }
+
+    @Test
+    public void pastDeadlineExpiresOnNextTick() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.advance(START + 100);
+        wheel.schedule("a", START + 20);
+        assertEquals(START + 110, wheel.getNextTickTime());
+        assertEquals(Arrays.asList("a"), wheel.advance(START + 110));
+    }
+
+    @Test
+    public void rescheduleReplacesTimer() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.schedule("a", START + 20);
+        wheel.schedule("a", START + 900);
+        assertEquals(1, wheel.size());
+        assertEquals(Long.valueOf(START + 900), wheel.getDeadline("a"));
+        assertEquals(Collections.emptyList(), wheel.advance(START + 890));
+        assertEquals(Arrays.asList("a"), wheel.advance(START + 900));
+    }
+
+    @Test
+    public void cancelRemovesTimer() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.schedule("a", START + 700);
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertNull(wheel.getDeadline("a"));
+        assertEquals(Collections.emptyList(), wheel.advance(START + 10000));
+    }
+
+    @Test
+    public void clearRemovesAllTimers() {
+        TimerWheel<String> wheel = newWheel();
+        wheel.schedule("a", START + 10);
+        wheel.schedule("b", START + 1000);
+        wheel.clear();
+        assertEquals(0, wheel.size());
+        assertEquals(Collections.emptyList(), wheel.advance(START + 10000));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2015-2017 Jeeva Kandasamy (jkandasa@gmail.com)
+ * and other contributors as indicated by the @author tags.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.mycontroller.standalone.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @author Jeeva Kandasamy (jkandasa)
+ * @since 0.0.3
+ */
+public class TokenBucketTest {
+
+    @Test
+    public void startsFullAndLimitsBurst() {
+        TokenBucket bucket = new TokenBucket(3, 0.001);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    public void waitTimeUntilNextToken() {
+        TokenBucket bucket = new TokenBucket(1, 1.0);
+        assertEquals(0, bucket.getWaitTime());
+        assertTrue(bucket.tryAcquire());
+        long waitTime = bucket.getWaitTime();
+        assertTrue("wait time:" + waitTime, waitTime > 0 && waitTime <= McUtils.SECOND);
+    }
+
+    @Test
+    public void refillsOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1, 1000.0);
+        assertTrue(bucket.tryAcquire());
+        Thread.sleep(20);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    public void refillStopsAtCapacity() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(2, 1000.0);
+        Thread.sleep(20);
+        assertEquals(2.0, bucket.getTokens(), 0.0);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.getTokens() < 1.0);
+    }
+}